@@ -57,7 +57,7 @@ public abstract class AbstractApplicationRule extends AbstractRule {
             Arg xyOuter = xyCurCat.getOuterArg();
 
             List<Category> results;
-            _headCats.clear();
+            headCats().clear();
 
             if (xyOuter instanceof BasicArg) {
                 xyOuter.unifySlash(_functorSlash);
@@ -70,7 +70,7 @@ public abstract class AbstractApplicationRule extends AbstractRule {
                 appendLFs(xyCat, yCat, result, sub);
                 results.add(result);
                 Slash xyOuterSlash = ((BasicArg)xyOuter).getSlash();
-                _headCats.add(xyOuterSlash.isModifier() ? yCat : xyCat); 
+                headCats().add(xyOuterSlash.isModifier() ? yCat : xyCat); 
             } else if (xyOuter instanceof SetArg) {
                 SetArg xyOuterSet = (SetArg)xyOuter;
                 results = new ArrayList<Category>(xyOuterSet.size());
@@ -87,20 +87,20 @@ public abstract class AbstractApplicationRule extends AbstractRule {
                         appendLFs(xyCat, yCat, result, sub);
                         results.add(result);
                         Slash xyOuterSlash = argi.getSlash();
-                        _headCats.add(xyOuterSlash.isModifier() ? yCat : xyCat); 
+                        headCats().add(xyOuterSlash.isModifier() ? yCat : xyCat); 
                     } catch (UnifyFailure uf) {}                
                 }
             } else {
-                throw new UnifyFailure();
+                throw UnifyFailure.FAILURE;
             }
 
             if (results.size() == 0) {
-                throw new UnifyFailure();
+                throw UnifyFailure.FAILURE;
             }
             
             return results;
         } else {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
     }
 }
@@ -71,7 +71,7 @@ public abstract class AbstractCompositionRule extends AbstractApplicationRule {
 
 		if (xyCat instanceof ComplexCat && yzCat instanceof ComplexCat) {
 			List<Category> results = new ArrayList<Category>(1);
-            _headCats.clear();
+            headCats().clear();
 			ComplexCat xyCC = (ComplexCat) xyCat;
 			ComplexCat yzCC = (ComplexCat) yzCat;
 
@@ -79,7 +79,7 @@ public abstract class AbstractCompositionRule extends AbstractApplicationRule {
 			if (xyOuter instanceof BasicArg) {
 				Slash xySlash = ((BasicArg) xyOuter).getSlash();
 				xySlash.unifyCheck(_functorSlash);
-				if (eisner() && xySlash.isHarmonicCompositionResult()) throw new UnifyFailure();
+				if (eisner() && xySlash.isHarmonicCompositionResult()) throw UnifyFailure.FAILURE;
 				Category xyOuterCat = ((BasicArg) xyOuter).getCat();
 
 				if (xyOuterCat instanceof AtomCat) {
@@ -93,7 +93,7 @@ public abstract class AbstractCompositionRule extends AbstractApplicationRule {
 					Category outcome = createResult(xyCC.getResult(), zStack, xySlash, sub);
 					appendLFs(xyCat, yzCat, outcome, sub);
 					results.add(outcome);
-	                _headCats.add(xySlash.isModifier() ? yzCat : xyCat); 
+	                headCats().add(xySlash.isModifier() ? yzCat : xyCat); 
 				} else if (xyOuterCat instanceof ComplexCat) {
 					// e.g. s/(s/n) Y/Z
 					Substitution sub = new GSubstitution();
@@ -103,7 +103,7 @@ public abstract class AbstractCompositionRule extends AbstractApplicationRule {
 					Category outcome = createResult(xyCC.getResult(), zStack, xySlash, sub);
 					appendLFs(xyCat, yzCat, outcome, sub);
 					results.add(outcome);
-	                _headCats.add(xySlash.isModifier() ? yzCat : xyCat); 
+	                headCats().add(xySlash.isModifier() ? yzCat : xyCat); 
 				}
 			} else if (xyOuter instanceof SetArg) {
 				// e.g. s/{s,n} Y/Z
@@ -113,7 +113,7 @@ public abstract class AbstractCompositionRule extends AbstractApplicationRule {
 				if (targetIndex > -1) {
 					Slash xySlash = xyOuterSet.get(targetIndex).getSlash();
 					xySlash.unifyCheck(_functorSlash);
-					if (eisner() && xySlash.isHarmonicCompositionResult()) throw new UnifyFailure();
+					if (eisner() && xySlash.isHarmonicCompositionResult()) throw UnifyFailure.FAILURE;
 					Substitution sub = new GSubstitution();
 					GUnifier.unify(xyOuterSet.getCat(targetIndex), yzTarget, sub);
 					Category result = xyCC.copy();
@@ -123,7 +123,7 @@ public abstract class AbstractCompositionRule extends AbstractApplicationRule {
 					Category outcome = createResult(result, zStack, xySlash, sub);
 					appendLFs(xyCat, yzCat, outcome, sub);
 					results.add(outcome);
-	                _headCats.add(xySlash.isModifier() ? yzCat : xyCat); 
+	                headCats().add(xySlash.isModifier() ? yzCat : xyCat); 
 				} else {
 					boolean success = false;
 					for (int i = 0; i < xyOuterSet.size(); i++) {
@@ -131,7 +131,7 @@ public abstract class AbstractCompositionRule extends AbstractApplicationRule {
 						if (yInSet.getCat() instanceof ComplexCat) {
 							Slash xySlash = yInSet.getSlash();
 							xySlash.unifyCheck(_functorSlash);
-							if (eisner() && xySlash.isHarmonicCompositionResult()) throw new UnifyFailure();
+							if (eisner() && xySlash.isHarmonicCompositionResult()) throw UnifyFailure.FAILURE;
 							ComplexCat yCat = (ComplexCat) yInSet.getCat();
 							Substitution sub = new GSubstitution();
 							ArgStack zStack = composeComplexY((ComplexCat) yCat, xySlash, yzCC, sub);
@@ -142,21 +142,21 @@ public abstract class AbstractCompositionRule extends AbstractApplicationRule {
 							Category outcome = createResult(result, zStack, xySlash, sub);
 							appendLFs(xyCat, yzCat, outcome, sub);
 							results.add(outcome);
-			                _headCats.add(xySlash.isModifier() ? yzCat : xyCat); 
+			                headCats().add(xySlash.isModifier() ? yzCat : xyCat); 
 							success = true;
 						}
 					}
 					if (!success) {
-						throw new UnifyFailure();
+						throw UnifyFailure.FAILURE;
 					}
 				}
 			} else {
-				throw new UnifyFailure();
+				throw UnifyFailure.FAILURE;
 			}
 
 			return results;
 		} else {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 	}
 
@@ -208,7 +208,7 @@ public abstract class AbstractCompositionRule extends AbstractApplicationRule {
 		} else if (xyOuterCC.arity() == 1) {
 			ArgStack yzStack = yzCC.getArgStack();
 			if (!(xyOuterCC.getArg(0) instanceof BasicArg)) {
-				throw new UnifyFailure();
+				throw UnifyFailure.FAILURE;
 			}
 			BasicArg xyOuterOuter = (BasicArg) xyOuterCC.getArg(0);
 			Arg yzStackInner = yzStack.get(0);
@@ -217,7 +217,7 @@ public abstract class AbstractCompositionRule extends AbstractApplicationRule {
 				SetArg yzSetArg = (SetArg) yzStackInner;
 				int iaIndex = yzSetArg.indexOf(xyOuterOuter);
 				if (iaIndex == -1)
-					throw new UnifyFailure();
+					throw UnifyFailure.FAILURE;
 				xyOuterOuter.unify(yzSetArg.get(iaIndex), sub);
 				xySlash = (Slash) xySlash.fill(sub);
 				xySlash.unifyCheck(_functorSlash);
@@ -228,7 +228,7 @@ public abstract class AbstractCompositionRule extends AbstractApplicationRule {
 			} else {
 				// e.g. s/(s/n) s/n/s
 				if (yzStack.size() < 2) {
-					throw new UnifyFailure();
+					throw UnifyFailure.FAILURE;
 				}
 				xyOuterOuter.unify(yzStackInner, sub);
 				zStack = yzStack.subList(1).copy();
@@ -244,7 +244,7 @@ public abstract class AbstractCompositionRule extends AbstractApplicationRule {
 			if (!(xyOuterCC.getArg(0) instanceof BasicArg)
 					|| !(xyOuterCC.getArg(1) instanceof BasicArg)
 					|| yzStack.size() < 3) {
-				throw new UnifyFailure();
+				throw UnifyFailure.FAILURE;
 			}
 			BasicArg xyOuterOuter1 = (BasicArg) xyOuterCC.getArg(0);
 			BasicArg xyOuterOuter2 = (BasicArg) xyOuterCC.getArg(1);
@@ -259,7 +259,7 @@ public abstract class AbstractCompositionRule extends AbstractApplicationRule {
 			return zStack;
 		} else {
 			// nb: not dealing with xyOuterCC arity > 2
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 	}
 }
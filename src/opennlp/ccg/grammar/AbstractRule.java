@@ -44,8 +44,22 @@ public abstract class AbstractRule implements Rule, Serializable {
     /** The rule group which contains this rule. */
     protected RuleGroup _ruleGroup;
     
-    /** Reusable list of head cats, one for each result. */
-    protected List<Category> _headCats = new ArrayList<Category>(); 
+    /** Reusable list of head cats, one for each result, kept per thread. */
+    private transient volatile ThreadLocal<List<Category>> _headCats = null; 
+
+    /** Returns the reusable list of head cats for the current thread. */
+    protected List<Category> headCats() {
+        if (_headCats == null) {
+            synchronized (this) {
+                if (_headCats == null) {
+                    _headCats = new ThreadLocal<List<Category>>() {
+                        protected List<Category> initialValue() { return new ArrayList<Category>(); }
+                    };
+                }
+            }
+        }
+        return _headCats.get();
+    }
 
     /** Returns an XML element representing the rule. */
     abstract public Element toXml();
@@ -69,7 +83,7 @@ public abstract class AbstractRule implements Rule, Serializable {
             for (int i=0; i < resultCats.size(); i++) {
             	Category catResult = resultCats.get(i);
                 distributeTargetFeatures(catResult);
-                Category headCat = _headCats.get(i);
+                Category headCat = headCats().get(i);
                 Sign lexHead = inputs[0].getLexHead();
                 for (int j=0; j < inputs.length; j++) {
                 	if (inputs[j].getCategory() == headCat) lexHead = inputs[j].getLexHead();
@@ -89,19 +103,17 @@ public abstract class AbstractRule implements Rule, Serializable {
         if (!(cat instanceof ComplexCat)) return;
         ComplexCat complexCat = (ComplexCat) cat;
         Category targetCat = (Category) complexCat.getTarget();
-        targetFS = (GFeatStruc) targetCat.getFeatureStructure();
+        GFeatStruc targetFS = (GFeatStruc) targetCat.getFeatureStructure();
         if (targetFS == null) return;
-        cat.forall(distributeTargetFeaturesFcn);
+        cat.forall(new DistributeTargetFeaturesFcn(targetFS));
     }
     
-    // target cat's feature structure
-    private GFeatStruc targetFS = null;
-
-    // copies ground distributive features from _targetFS to the rest
-    private CategoryFcn distributeTargetFeaturesFcn = new DistributeTargetFeaturesFcn();
-    
+    // copies ground distributive features from targetFS to the rest
     private class DistributeTargetFeaturesFcn extends CategoryFcnAdapter implements Serializable {
 		private static final long serialVersionUID = 5247861522003485434L;
+		// target cat's feature structure
+		private final GFeatStruc targetFS;
+		DistributeTargetFeaturesFcn(GFeatStruc targetFS) { this.targetFS = targetFS; }
 		public void forall(Category c) {
             if (!(c instanceof AtomCat)) return;
             FeatureStructure fs = c.getFeatureStructure();
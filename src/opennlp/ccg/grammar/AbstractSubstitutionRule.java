@@ -59,7 +59,7 @@ public abstract class AbstractSubstitutionRule extends AbstractApplicationRule {
                 || xyzCC.containsSetArg()
                 || yzCC.containsSetArg()
                 || yzCC.containsDollarArg()) {
-                throw new UnifyFailure();
+                throw UnifyFailure.FAILURE;
             }
 
             ArgStack primaryStack = xyzCC.getArgStack();
@@ -88,12 +88,12 @@ public abstract class AbstractSubstitutionRule extends AbstractApplicationRule {
             appendLFs(xyzCat, yzCat, result, sub);
             
             List<Category> results = new ArrayList<Category>(1);
-            _headCats.clear();
+            headCats().clear();
             results.add(result);
-            _headCats.add(primaryArgY.getSlash().isModifier() ? yzCat : xyzCat); 
+            headCats().add(primaryArgY.getSlash().isModifier() ? yzCat : xyzCat); 
             return results;
         } else {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
 
     }
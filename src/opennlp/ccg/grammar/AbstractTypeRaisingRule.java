@@ -119,7 +119,7 @@ public abstract class AbstractTypeRaisingRule extends AbstractRule {
     /** Applies this rule to the given inputs. */
     public List<Category> applyRule(Category[] inputs) throws UnifyFailure {
         if (inputs.length != 1) {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
         return apply(inputs[0]);
     }
@@ -156,9 +156,9 @@ public abstract class AbstractTypeRaisingRule extends AbstractRule {
         }
         
         List<Category> results = new ArrayList<Category>(1);
-        _headCats.clear();
+        headCats().clear();
         results.add(result);
-        _headCats.add(input);
+        headCats().add(input);
         return results;
     }
 }
@@ -46,7 +46,7 @@ public class BackwardApplication extends AbstractApplicationRule {
     
     public List<Category> applyRule(Category[] inputs) throws UnifyFailure {
 		if (inputs.length != 2) {
-		    throw new UnifyFailure();
+		    throw UnifyFailure.FAILURE;
 		}
 		return apply(inputs[1], inputs[0]);
     }
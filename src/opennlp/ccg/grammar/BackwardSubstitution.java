@@ -58,7 +58,7 @@ public class BackwardSubstitution extends AbstractSubstitutionRule {
 
 	public List<Category> applyRule(Category[] inputs) throws UnifyFailure {
 		if (inputs.length != 2) {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 
 		return apply(inputs[1], inputs[0]);
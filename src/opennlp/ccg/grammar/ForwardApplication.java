@@ -46,7 +46,7 @@ public class ForwardApplication extends AbstractApplicationRule {
 
 	public List<Category> applyRule(Category[] inputs) throws UnifyFailure {
 		if (inputs.length != 2) {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 
 		return apply(inputs[0], inputs[1]);
@@ -58,7 +58,7 @@ public class ForwardSubstitution extends AbstractSubstitutionRule {
 
 	public List<Category> applyRule(Category[] inputs) throws UnifyFailure {
 		if (inputs.length != 2) {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 
 		return apply(inputs[0], inputs[1]);
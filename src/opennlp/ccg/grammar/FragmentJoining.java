@@ -57,9 +57,9 @@ public class FragmentJoining extends AbstractRule {
      * Returns a copy of the first cat with the LFs appended.
      **/
     public List<Category> applyRule(Category[] inputs) throws UnifyFailure {
-		if (inputs.length != 2) { throw new UnifyFailure(); }
+		if (inputs.length != 2) { throw UnifyFailure.FAILURE; }
 		List<Category> results = new ArrayList<Category>(1);
-        _headCats.clear();
+        headCats().clear();
 		Category result = inputs[0].shallowCopy();
 		try {
 			appendLFs(inputs[0], inputs[1], result, new EmptySubstitution());
@@ -70,7 +70,7 @@ public class FragmentJoining extends AbstractRule {
 			// System.err.println("cat1: " + inputs[1] + " lf: " + inputs[1].getLF());
 		}
 		results.add(result);
-		_headCats.add(inputs[0]);
+		headCats().add(inputs[0]);
 		return results;
     }
 
@@ -57,17 +57,17 @@ public class GlueRule extends AbstractRule {
 	public List<Category> applyRule(Category[] inputs) throws UnifyFailure {
 		// check num inputs
 		if (inputs.length != 2) {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 		// check for frag as second input with completion false
 		if (inputs[1] instanceof AtomCat) {
 			AtomCat ac2 = (AtomCat) inputs[1];
 			if (ac2.isFragment() && !ac2.fragCompletion) 
-				throw new UnifyFailure();
+				throw UnifyFailure.FAILURE;
 		}
 		// make result cat
         List<Category> results = new ArrayList<Category>(1);
-        _headCats.clear();
+        headCats().clear();
         AtomCat ac = new AtomCat(resultType);
         appendLFs(inputs[0], inputs[1], ac, emptySubst);
         results.add(ac);
@@ -81,7 +81,7 @@ public class GlueRule extends AbstractRule {
         	leftHead = false;
         }
 		// return result cat with guessed head
-        _headCats.add(leftHead ? inputs[0] : inputs[1]);
+        headCats().add(leftHead ? inputs[0] : inputs[1]);
 		return results;
 	}
 	
@@ -78,8 +78,11 @@ public class Grammar {
     // name of the grammar
     private String grammarName = null;
 	
-    // parser, for getting parsed words
-    private Parser parser = null; 
+    // parsers for getting parsed words, kept per thread 
+    // so that the grammar can be shared across threads
+    private final ThreadLocal<Parser> parser = new ThreadLocal<Parser>() {
+        protected Parser initialValue() { return new Parser(Grammar.this); }
+    };
 
     // XML factories
     private SAXParserFactory spf = null; 
@@ -101,7 +104,7 @@ public class Grammar {
     };
 
     // set of pitch accents
-    private static Set<String> pitchAccentsSet = null;    
+    private static final Set<String> pitchAccentsSet = new HashSet<String>(Arrays.asList(pitchAccents));    
     
     /** The boundary tones recognized as separate tokens for translation to APML. */
     public static final String[] boundaryTones = { 
@@ -109,7 +112,7 @@ public class Grammar {
     };
     
     // set of boundary tones
-    private static Set<String> boundaryTonesSet = null;    
+    private static final Set<String> boundaryTonesSet = new HashSet<String>(Arrays.asList(boundaryTones));    
 
     
     /** Loads a grammar from the given filename. */
@@ -504,12 +507,6 @@ public class Grammar {
      * Returns whether the given string is a recognized pitch accent.
      */
     public static boolean isPitchAccent(String s) {
-        if (pitchAccentsSet == null) {
-            pitchAccentsSet = new HashSet<String>();
-            for (int i = 0; i < pitchAccents.length; i++) {
-                pitchAccentsSet.add(pitchAccents[i]);
-            }
-        }
         return pitchAccentsSet.contains(s);
     }
     
@@ -517,12 +514,6 @@ public class Grammar {
      * Returns whether the given string is a recognized boundary tone. 
      */
     public static boolean isBoundaryTone(String s) {
-        if (boundaryTonesSet == null) {
-            boundaryTonesSet = new HashSet<String>();
-            for (int i = 0; i < boundaryTones.length; i++) {
-                boundaryTonesSet.add(boundaryTones[i]);
-            }
-        }
         return boundaryTonesSet.contains(s);
     }
     
@@ -571,9 +562,8 @@ public class Grammar {
      */
     // NB: Could try to extend this to find the parse with the intended LF.
     public List<Word> getParsedWords(String s) {
-        // ensure parser instantiated
-        if (parser == null) parser = new Parser(this);
         // get parses
+        Parser parser = this.parser.get();
         try {
             parser.parse(s);
         }
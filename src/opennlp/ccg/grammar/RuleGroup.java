@@ -71,6 +71,8 @@ public class RuleGroup implements Serializable {
 		private String supercat; 
     	private String supercat2;
     	private String rule;
+    	// constructor for a reusable combo, to be set with interned strings
+    	public SupercatRuleCombo() {}
     	// unary rule constructor
     	public SupercatRuleCombo(String supercat, String rule) {
     		setCombo(supercat.intern(), (rule != null) ? rule.intern() : null);
@@ -147,9 +149,6 @@ public class RuleGroup implements Serializable {
     // observed supercat combos (for which complete rule combos are known)
     private transient SupercatComboSet supercatCombosSeen = null;
     
-    // reusable combo for checking presence
-    private transient SupercatRuleCombo combo = new SupercatRuleCombo("dummy", "dummy");
-    
     // flag for whether observed supercat combos is determined dynamically
     private boolean dynamicCombos = false;
     
@@ -422,9 +421,11 @@ public class RuleGroup implements Serializable {
         // check whether dynamic combos update required, or whether rules can be skipped
         boolean dynamicCombosUpdate = false;
         boolean skip = false;
+        SupercatRuleCombo combo = null;
         if (dynamicCombos) {
-    		combo.setCombo(supertag, null);
-    		SupercatRuleCombo rep = supercatCombosSeen.get(combo);
+        	combo = new SupercatRuleCombo();
+        	combo.setCombo(supertag, null);
+    		SupercatRuleCombo rep = getSeenCombo(combo);
     		if (rep == null) dynamicCombosUpdate = true;
     		else if (rep.rule == null) skip = true;
         }
@@ -434,38 +435,22 @@ public class RuleGroup implements Serializable {
         for (Rule r : unaryRules) {
         	// filter on observed supercat-rule combos, if any, if not updating
         	if (!dynamicCombosUpdate && supercatRuleCombos != null) {
+        		if (combo == null) combo = new SupercatRuleCombo();
         		combo.setCombo(supertag, r.name());
-        		if (!supercatRuleCombos.contains(combo)) { continue; }
+        		if (!containsCombo(combo)) { continue; }
         	}
         	// if updating combos, apply rule and record results
         	if (dynamicCombosUpdate) {
         		int prevsize = results.size();
             	((AbstractRule)r).applyRule(inputs, results);
             	// update upon success
-            	if (results.size() > prevsize) {
-            		SupercatRuleCombo newCombo = null;
-            		combo.setCombo(supertag, r.name());
-            		if (!supercatRuleCombos.contains(combo)) { 
-            			newCombo = new SupercatRuleCombo(supertag, r.name());
-            			supercatRuleCombos.add(newCombo);
-            		}
-            		if (!supercatCombosSeen.contains(combo)) {
-            			if (newCombo == null) newCombo = new SupercatRuleCombo(supertag, r.name());
-                		supercatCombosSeen.add(newCombo);
-            		}
-            	}
+            	if (results.size() > prevsize) recordCombo(supertag, null, r.name());
         	}
         	// otherwise just apply rule
         	else ((AbstractRule)r).applyRule(inputs, results);
         }
         // if updating combos and none succeeded, add one with null rule
-        if (dynamicCombosUpdate) {
-    		combo.setCombo(supertag, null);
-    		if (!supercatCombosSeen.contains(combo)) {
-    			SupercatRuleCombo newCombo = new SupercatRuleCombo(supertag, null);
-    			supercatCombosSeen.add(newCombo);
-    		}
-        }
+        if (dynamicCombosUpdate) recordCombo(supertag, null, null);
         // done
         return results;
     }
@@ -479,9 +464,11 @@ public class RuleGroup implements Serializable {
         // check whether dynamic combos update required, or whether rules can be skipped
         boolean dynamicCombosUpdate = false;
         boolean skip = false;
+        SupercatRuleCombo combo = null;
         if (dynamicCombos) {
-    		combo.setCombo(supertag1, supertag2, null);
-    		SupercatRuleCombo rep = supercatCombosSeen.get(combo);
+        	combo = new SupercatRuleCombo();
+        	combo.setCombo(supertag1, supertag2, null);
+    		SupercatRuleCombo rep = getSeenCombo(combo);
     		if (rep == null) dynamicCombosUpdate = true;
     		else if (rep.rule == null) skip = true;
         }
@@ -491,42 +478,53 @@ public class RuleGroup implements Serializable {
         for (Rule r : binaryRules) {
         	// filter on observed supercat-rule combos, if any, if not updating
         	if (!dynamicCombosUpdate && supercatRuleCombos != null) {
+        		if (combo == null) combo = new SupercatRuleCombo();
         		combo.setCombo(supertag1, supertag2, r.name());
-        		if (!supercatRuleCombos.contains(combo)) { continue; }
+        		if (!containsCombo(combo)) { continue; }
         	}
         	// if updating combos, apply rule and record results
         	if (dynamicCombosUpdate) {
         		int prevsize = results.size();
             	((AbstractRule)r).applyRule(inputs, results);
             	// update upon success
-            	if (results.size() > prevsize) {
-            		SupercatRuleCombo newCombo = null;
-            		combo.setCombo(supertag1, supertag2, r.name());
-            		if (!supercatRuleCombos.contains(combo)) { 
-            			newCombo = new SupercatRuleCombo(supertag1, supertag2, r.name());
-            			supercatRuleCombos.add(newCombo);
-            		}
-            		if (!supercatCombosSeen.contains(combo)) {
-            			if (newCombo == null) newCombo = new SupercatRuleCombo(supertag1, supertag2, r.name());
-                		supercatCombosSeen.add(newCombo);
-            		}
-            	}
+            	if (results.size() > prevsize) recordCombo(supertag1, supertag2, r.name());
         	}
         	// otherwise just apply rule
         	else ((AbstractRule)r).applyRule(inputs, results);
         }
         // if updating combos and none succeeded, add one with null rule
-        if (dynamicCombosUpdate) {
-    		combo.setCombo(supertag1, supertag2, null);
-    		if (!supercatCombosSeen.contains(combo)) {
-        		SupercatRuleCombo newCombo = new SupercatRuleCombo(supertag1, supertag2, null);
-    			supercatCombosSeen.add(newCombo);
-    		}
-        }
+        if (dynamicCombosUpdate) recordCombo(supertag1, supertag2, null);
         // done
         return results;
     }
     
+    // nb: the observed combos are only updated when determined dynamically, 
+    //     in which case access to them is synchronized, so that the rule group 
+    //     can be shared across threads
+    
+    // returns whether the given combo has been observed
+    private boolean containsCombo(SupercatRuleCombo combo) {
+    	if (!dynamicCombos) return supercatRuleCombos.contains(combo);
+    	synchronized (supercatRuleCombos) { return supercatRuleCombos.contains(combo); }
+    }
+    
+    // returns the seen supercat combo matching the given one, or null if none
+    private SupercatRuleCombo getSeenCombo(SupercatRuleCombo combo) {
+    	synchronized (supercatRuleCombos) { return supercatCombosSeen.get(combo); }
+    }
+    
+    // records an observed supercat-rule combo (or a supercat combo with a null rule, 
+    // if no rule succeeded) during a dynamic combos update
+    private void recordCombo(String supertag1, String supertag2, String rule) {
+    	SupercatRuleCombo newCombo = (supertag2 == null) 
+    		? new SupercatRuleCombo(supertag1, rule) 
+    		: new SupercatRuleCombo(supertag1, supertag2, rule);
+    	synchronized (supercatRuleCombos) {
+    		if (rule != null && !supercatRuleCombos.contains(newCombo)) supercatRuleCombos.add(newCombo);
+    		if (!supercatCombosSeen.contains(newCombo)) supercatCombosSeen.add(newCombo);
+    	}
+    }
+    
     
     /** Applies the glue rule to the given input signs, returning the list of results. */
     public List<Sign> applyGlueRule(Sign input1, Sign input2) {
@@ -91,7 +91,7 @@ public class TypeChangingRule extends AbstractRule implements LexSemOrigin {
     public List<Category> applyRule(Category[] inputs) throws UnifyFailure {
         // check arity
         if (inputs.length != 1) {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
         return apply(inputs[0]);
     }
@@ -120,9 +120,9 @@ public class TypeChangingRule extends AbstractRule implements LexSemOrigin {
 
         // return
         List<Category> results = new ArrayList<Category>(1);
-        _headCats.clear();
+        headCats().clear();
         results.add($result);
-        _headCats.add(input);
+        headCats().add(input);
         return results;
     }
     
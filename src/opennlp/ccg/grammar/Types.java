@@ -27,6 +27,7 @@ import org.jdom.input.*;
 import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import gnu.trove.*;
 
@@ -40,9 +41,11 @@ import gnu.trove.*;
 public class Types {
 
     public final Grammar grammar;
-    private final HashMap<String,SimpleType> nameToType = new HashMap<String,SimpleType>();
+    private final Map<String,SimpleType> nameToType = new ConcurrentHashMap<String,SimpleType>();
     private final ArrayList<SimpleType> indexToType = new ArrayList<SimpleType>();
     private int maxTypeIndex = 0;
+    // snapshot of indexToType, for lock-free lookups by index
+    private volatile SimpleType[] indexArray = new SimpleType[0];
     public static final String TOP_TYPE = "top";
     public static final String BOT_TYPE = "bottom";
 	
@@ -74,19 +77,25 @@ public class Types {
         //printTypes();
     }
     
-    /** Returns the simple type with the given name, or a new one if none yet exists. */
+    /** 
+     * Returns the simple type with the given name, or a new one if none yet exists.
+     * New types may be created during lexical lookup, so creation is synchronized.
+     */
     public SimpleType getSimpleType(String typeName) {
         SimpleType type = nameToType.get(typeName);
-        if (type == null) {
+        if (type != null) return type;
+        synchronized (this) {
+            type = nameToType.get(typeName);
+            if (type != null) return type;
             BitSet bs = new BitSet();
             bs.set(maxTypeIndex);
             SimpleType newtype = new SimpleType(maxTypeIndex, typeName, bs, this);
             nameToType.put(typeName, newtype);
             indexToType.add(newtype);
             nameToType.get(TOP_TYPE).getBitSet().set(maxTypeIndex++);
+            updateIndexArray();
             return newtype;
         }
-        else return type;
     }
 
     /** Returns whether there is a simple type with the given name. */
@@ -99,6 +108,19 @@ public class Types {
         return indexToType;
     }
 
+    /** Returns the simple type with the given index. */
+    public SimpleType getSimpleType(int index) {
+        SimpleType[] types = indexArray;
+        if (index < types.length) return types[index];
+        // fall back to the list if the snapshot is stale
+        synchronized (this) { return indexToType.get(index); }
+    }
+    
+    // updates the snapshot of indexToType
+    private void updateIndexArray() {
+        indexArray = indexToType.toArray(new SimpleType[indexToType.size()]);
+    }
+
 
     /** Reads the rules and constructs the nameToType and indexToType maps. */
     private void readTypes(List<Element> _types) {
@@ -228,6 +250,7 @@ public class Types {
             indexToType.add(st);
         }
         maxTypeIndex = typesVisited.size();
+        updateIndexArray();
     }
     
     /**
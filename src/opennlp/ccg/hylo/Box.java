@@ -57,7 +57,7 @@ public final class Box extends ModalOp {
         if (u instanceof Box) {
             super.unifyCheck((Box)u);
         } else {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
     }
 
@@ -57,7 +57,7 @@ public final class Diamond extends ModalOp {
         if (u instanceof Diamond) {
             super.unifyCheck((Diamond)u);
         } else {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
     }
 
@@ -70,7 +70,7 @@ public final class Diamond extends ModalOp {
             }
             else return super.unify(u,sub);
         } else {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
     }
 
@@ -97,7 +97,7 @@ public abstract class HyloFormula implements LF, Serializable {
      */
     public Object unify(Object u, Substitution s) throws UnifyFailure {
         if (u instanceof Variable) return ((Unifiable)u).unify(this, s);
-        else throw new UnifyFailure(this.toString(), u.toString());
+        else throw new UnifyFailure(this, u);
     }
 
     
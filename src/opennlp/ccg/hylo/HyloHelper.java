@@ -713,7 +713,7 @@ public class HyloHelper {
             if (isLexPred(lf1) && isLexPred(lf2) &&
                 getPrincipalNominal(lf1).equals(getPrincipalNominal(lf2))) 
             {
-                throw new UnifyFailure();
+                throw UnifyFailure.FAILURE;
             }
         }
     }
@@ -104,7 +104,7 @@ public class HyloVar extends HyloFormula implements Variable, Indexed {
         // check for equality with u
         if (equals(u)) return this; 
         // make sure u is an LF
-        if (!(u instanceof LF)) throw new UnifyFailure();
+        if (!(u instanceof LF)) throw UnifyFailure.FAILURE;
         LF lf = (LF) u;
         // check type compatibility, if present
         SimpleType st = null;
@@ -139,7 +139,7 @@ public class HyloVar extends HyloFormula implements Variable, Indexed {
             return sub.makeSubstitution(this, prop_st);
         }
         // otherwise, do occurs check ... 
-        if (((LF)u).occurs(this)) throw new UnifyFailure(); 
+        if (((LF)u).occurs(this)) throw UnifyFailure.FAILURE; 
         // and then go ahead and substitute
         return sub.makeSubstitution(this, u);
     }
@@ -76,7 +76,7 @@ public class ModeVar extends HyloVar implements Mode {
                 return sub.makeSubstitution(u_nv, this);
             }
         } else {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
     }
 
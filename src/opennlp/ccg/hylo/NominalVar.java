@@ -94,10 +94,10 @@ public class NominalVar extends HyloVar implements Nominal {
         // check for equality with u
         if (equals(u)) return this; 
         // make sure u is an LF
-        if (!(u instanceof LF)) throw new UnifyFailure(); 
+        if (!(u instanceof LF)) throw UnifyFailure.FAILURE; 
         // check type compatibility
         LF lf = (LF) u;
-        if (lf.getType() == null) throw new UnifyFailure();
+        if (lf.getType() == null) throw UnifyFailure.FAILURE;
         SimpleType st = (SimpleType) type.unify(lf.getType(), sub);
         // with nominal atoms, go ahead and substitute
         if (u instanceof NominalAtom) return sub.makeSubstitution(this, u); 
@@ -134,7 +134,7 @@ public class NominalVar extends HyloVar implements Nominal {
             return sub.makeSubstitution(this, nv_st); 
         }
         // otherwise give up
-        throw new UnifyFailure();
+        throw UnifyFailure.FAILURE;
     }
 
     public Object fill(Substitution sub) throws UnifyFailure {
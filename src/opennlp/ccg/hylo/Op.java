@@ -150,12 +150,12 @@ public class Op extends HyloFormula {
     
     /** Unification is not attempted for Ops. */
     public void unifyCheck(Object u) throws UnifyFailure {
-        throw new UnifyFailure();
+        throw UnifyFailure.FAILURE;
     }
 
     /** Unification is not attempted for Ops. */
     public Object unify(Object u, Substitution s) throws UnifyFailure {
-        throw new UnifyFailure();
+        throw UnifyFailure.FAILURE;
     }
     
     public Object fill(Substitution sub) throws UnifyFailure {
@@ -53,7 +53,7 @@ public class Proposition extends HyloAtom {
         // check for prop with compatible type
         if (u instanceof Proposition) {
             Proposition prop = (Proposition) u;
-            if (type == null || prop.type == null) throw new UnifyFailure();
+            if (type == null || prop.type == null) throw UnifyFailure.FAILURE;
             SimpleType st = (SimpleType) type.unify(prop.type, sub);
             // return prop with most specific type
             if (st.equals(type)) return this;
@@ -147,7 +147,7 @@ public class SatOp extends HyloFormula {
             }
             else return super.unify(u,sub);
         } else {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
     }
 
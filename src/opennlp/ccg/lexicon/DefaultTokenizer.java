@@ -36,6 +36,8 @@ import gnu.trove.*;
 
 public class DefaultTokenizer implements Tokenizer {
 
+    // nb: date formats are not thread-safe, so parsing is done via parse(DateFormat, ...)
+    
     // date format with pattern yyyy.MM.dd, strict parsing
     private DateFormat dateFormat = null;
 
@@ -257,6 +259,21 @@ public class DefaultTokenizer implements Tokenizer {
     }
     
     
+    // parses the given string with the given date format, synchronizing on the format
+    private static Date parse(DateFormat format, String s, ParsePosition pos) {
+        synchronized (format) { return format.parse(s, pos); }
+    }
+    
+    // parses the given string with the given date format, synchronizing on the format
+    private static Date parse(DateFormat format, String s) throws ParseException {
+        synchronized (format) { return format.parse(s); }
+    }
+    
+    // parses the given duration, synchronizing on the factory
+    private Duration newDuration(String s) {
+        synchronized (datatypeFactory) { return datatypeFactory.newDuration(s); }
+    }
+    
     /** 
      * Returns true iff the token is recognized as a date.
      * The default implementation recognizes dates in the 
@@ -270,10 +287,10 @@ public class DefaultTokenizer implements Tokenizer {
      */
     public boolean isDate(String token) {
         ParsePosition pos = new ParsePosition(0);
-        Date date = dateFormat.parse(token, pos);
+        Date date = parse(dateFormat, token, pos);
         if (date != null && pos.getIndex() == token.length()) return true;
         pos = new ParsePosition(0);
-        date = dateFormatNoYear.parse(token, pos);
+        date = parse(dateFormatNoYear, token, pos);
         return (date != null && pos.getIndex() == token.length());
     }
     
@@ -284,7 +301,7 @@ public class DefaultTokenizer implements Tokenizer {
      */
     public boolean isTime(String token) {
         ParsePosition pos = new ParsePosition(0);
-        Date time = timeFormat.parse(token, pos);
+        Date time = parse(timeFormat, token, pos);
         return (time != null && pos.getIndex() == token.length());
     }
     
@@ -334,7 +351,7 @@ public class DefaultTokenizer implements Tokenizer {
      * For example, "PT5H30" is 5 hours and 30 minutes.
      */
     public boolean isDur(String token) {
-        try { datatypeFactory.newDuration(token); return true; }
+        try { newDuration(token); return true; }
         catch (Exception exc) { return false; }
     }
     
@@ -587,12 +604,12 @@ public class DefaultTokenizer implements Tokenizer {
         ArrayList<String> retval = new ArrayList<String>();
         try {
             ParsePosition pos = new ParsePosition(0);
-            Date dateObj = dateFormat.parse(date, pos);
+            Date dateObj = parse(dateFormat, date, pos);
             if (dateObj != null && pos.getIndex() == date.length()) {
                 EnglishExpander.expandDate(dateObj, DateFormat.LONG, retval);
             }
             else {
-                dateObj = dateFormatNoYear.parse(date);
+                dateObj = parse(dateFormatNoYear, date);
                 EnglishExpander.expandDate(dateObj, DateFormat.MEDIUM, retval);
             }
         }
@@ -612,7 +629,7 @@ public class DefaultTokenizer implements Tokenizer {
     public List<String> expandTime(String time) {
         ArrayList<String> retval = new ArrayList<String>();
         try {
-            EnglishExpander.expandTime(timeFormat.parse(time), retval);
+            EnglishExpander.expandTime(parse(timeFormat, time), retval);
         }
         // shouldn't happen if isTime called first
         catch (ParseException exc) {
@@ -654,7 +671,7 @@ public class DefaultTokenizer implements Tokenizer {
     public List<String> expandDur(String dur) {
         Duration duration = null;
         try {
-            duration = datatypeFactory.newDuration(dur);
+            duration = newDuration(dur);
         } catch (Exception exc) {
             // parsing not expected to fail
             throw (RuntimeException) new RuntimeException().initCause(exc);
@@ -54,8 +54,9 @@ public class EnglishExpander {
      * DateFormat.SHORT (e.g., "the first"), 
      * DateFormat.MEDIUM (e.g., "the first of May"), and 
      * DateFormat.LONG (e.g., "the first of May, two thousand and four").
+     * Synchronized, as the date formats are shared.
      */
-    public static void expandDate(Date date, int style, List<String> list) {
+    public static synchronized void expandDate(Date date, int style, List<String> list) {
         list.add("the");
         expandOrdinal(dateInMonthFormat.format(date), list);
         if (style == DateFormat.MEDIUM || style == DateFormat.LONG) {
@@ -96,7 +97,7 @@ public class EnglishExpander {
      * For example, a date object with time set to 23:02 
      * is expanded to "eleven oh two PM".
      */
-    public static void expandTime(Date time, List<String> list) {
+    public static synchronized void expandTime(Date time, List<String> list) {
         // add hours
         String hours = hoursFormat.format(time);
         expandNDigitNumber(hours, list);
@@ -392,7 +393,7 @@ public class EnglishExpander {
     private static Map<String, String> ordinalMap = null;
     
     // returns corresponding ordinal
-    private static String getOrdinal(String number) {
+    private static synchronized String getOrdinal(String number) {
         // ensure ordinalMap instantiated
         if (ordinalMap == null) {
             ordinalMap = new HashMap<String, String>();
@@ -0,0 +1,151 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (C) 2026 OpenCCG contributors
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+//////////////////////////////////////////////////////////////////////////////
+
+package opennlp.ccg.lexicon;
+
+import opennlp.ccg.synsem.*;
+
+import java.util.*;
+
+/**
+ * A bounded cache of the lexical signs for a word, as looked up by
+ * Lexicon.getSignsFromWord, keyed on the word together with the
+ * supertags used for filtering (if any).
+ * The cached signs serve as templates: their categories are frozen,
+ * and each lookup returns fresh signs with copies of the categories,
+ * since these are reindexed and otherwise modified once handed out.
+ * The least recently used entries are evicted when the cache is full.
+ * Counts of hits, misses and evictions are kept for monitoring.
+ * The cache may be shared by multiple threads.
+ */
+public class LexicalSignCache {
+
+	/** The default maximum number of entries. */
+	public static final int DEFAULT_CAPACITY = 10000;
+
+	// the max number of entries
+	private final int capacity;
+
+	// the entries, in access order
+	private final LinkedHashMap<Key,List<Sign>> entries;
+
+	// stats
+	private long hits = 0, misses = 0, evictions = 0;
+
+	/** Constructor with the maximum number of entries. */
+	public LexicalSignCache(int capacity) {
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<Key,List<Sign>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			protected boolean removeEldestEntry(Map.Entry<Key,List<Sign>> eldest) {
+				if (size() <= LexicalSignCache.this.capacity) return false;
+				evictions++;
+				return true;
+			}
+		};
+	}
+
+	/** The key for a lookup: the word plus the set of supertags for filtering, if any. */
+	static class Key {
+		final Word word;
+		final Set<String> supertags;
+		Key(Word word, Set<String> supertags) { this.word = word; this.supertags = supertags; }
+		public int hashCode() {
+			return 31 * word.hashCode() + ((supertags != null) ? supertags.hashCode() : 0);
+		}
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) return false;
+			Key key = (Key) obj;
+			if (!word.equals(key.word)) return false;
+			return (supertags == null) ? key.supertags == null : supertags.equals(key.supertags);
+		}
+	}
+
+	/** Returns the key for the given word and supertags (or null for none). */
+	static Key key(Word word, Map<String,Double> supertags) {
+		Set<String> stags = (supertags != null) ? new HashSet<String>(supertags.keySet()) : null;
+		return new Key(word, stags);
+	}
+
+	/**
+	 * Returns a sign hash with copies of the cached signs for the given key,
+	 * or null if not cached.
+	 */
+	SignHash get(Key key) {
+		List<Sign> templates;
+		synchronized (this) {
+			templates = entries.get(key);
+			if (templates == null) { misses++; return null; }
+			hits++;
+		}
+		SignHash retval = new SignHash();
+		for (Sign template : templates) retval.insert(copy(template));
+		return retval;
+	}
+
+	/** Caches copies of the given signs under the given key, freezing their categories. */
+	void put(Key key, SignHash signs) {
+		List<Sign> templates = new ArrayList<Sign>(signs.size());
+		for (Sign sign : signs.asSignSet()) {
+			Sign template = copy(sign);
+			template.getCategory().freeze();
+			templates.add(template);
+		}
+		synchronized (this) { entries.put(key, templates); }
+	}
+
+	// returns a copy of the given lexical sign, with a copy of its category
+	private static Sign copy(Sign sign) {
+		Sign retval = new Sign(sign.getWords(), sign.getCategory().copy());
+		retval.setOrigin();
+		return retval;
+	}
+
+	/** Returns the max number of entries. */
+	public int getCapacity() { return capacity; }
+
+	/** Returns the number of entries. */
+	public synchronized int size() { return entries.size(); }
+
+	/** Returns the number of lookups that found cached signs. */
+	public synchronized long getHits() { return hits; }
+
+	/** Returns the number of lookups that did not find cached signs. */
+	public synchronized long getMisses() { return misses; }
+
+	/** Returns the number of entries evicted to stay within capacity. */
+	public synchronized long getEvictions() { return evictions; }
+
+	/** Returns the proportion of lookups that found cached signs (or 0 if none). */
+	public synchronized double getHitRate() {
+		long total = hits + misses;
+		return (total > 0) ? (double) hits / total : 0;
+	}
+
+	/** Removes all entries and resets the stats. */
+	public synchronized void clear() {
+		entries.clear();
+		hits = 0; misses = 0; evictions = 0;
+	}
+
+	/** Returns a summary of the stats. */
+	public synchronized String toString() {
+		return "lexical sign cache: size " + entries.size() + " of " + capacity +
+			", hits " + hits + ", misses " + misses + ", evictions " + evictions;
+	}
+}
@@ -30,13 +30,16 @@ import org.jdom.*;
 import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import gnu.trove.*;
 
 
 /**
  * Contains words and their associated categories and semantics.
- * Lookup can be filtered by plugging in a supertagger.
+ * Lookup can be filtered by a supertagger, which may be given with 
+ * each lookup, so that the lexicon can be shared across threads, 
+ * or plugged in as a default for lookups without one.
  * 
  *
  * @author      Gann Bierner
@@ -52,7 +55,7 @@ public class Lexicon {
     /** Constant used to signal the substitution of the stem or pred. */
     public static final String DEFAULT_VAL = "[*DEFAULT*]";
     
-    // supertagger
+    // default supertagger
     private SupertaggerAdapter _supertagger = null;
     
     // various maps
@@ -87,6 +90,9 @@ public class Lexicon {
     // interner for caching lex lookups during realization
     private Interner<Object> lookupCache = new Interner<Object>(true);
     
+    // cache of signs looked up by word, or null if none
+    private LexicalSignCache signCache = new LexicalSignCache(LexicalSignCache.DEFAULT_CAPACITY);
+    
     /** The grammar that this lexicon is part of. */
     public final Grammar grammar;
     
@@ -116,9 +122,28 @@ public class Lexicon {
 
     //-------------------------------------------------------------
     
-    /** Sets the supertagger (null if none). */
+    /** 
+     * Sets the default supertagger (null if none), for use with the lookup methods 
+     * that are not given a supertagger.  
+     * As the default supertagger is shared by all users of the lexicon, 
+     * the lookup methods taking a supertagger should be used instead 
+     * when the lexicon is shared across threads.
+     */
     public void setSupertagger(SupertaggerAdapter supertagger) { _supertagger = supertagger; }
     
+    /** 
+     * Sets the max number of words whose signs are cached by getSignsFromWord 
+     * (0 to turn off caching). 
+     * Defaults to LexicalSignCache.DEFAULT_CAPACITY.
+     */
+    public void setSignCacheSize(int size) { 
+    	signCache = (size > 0) ? new LexicalSignCache(size) : null; 
+    }
+    
+    /** Returns the cache of signs looked up by word, for monitoring (or null if none). */
+    public LexicalSignCache getSignCache() { return signCache; }
+    
+    
     
     /** Loads the lexicon and morph files. */
     public void init(URL lexiconUrl, URL morphUrl) throws IOException {
@@ -307,13 +332,14 @@ public class Lexicon {
     
     /** Expands inheritsFrom links to feature equations for those features not explicitly listed. */ 
     public void expandInheritsFrom(Category cat, Category cat2) {
+        LookupState state = lookupState.get();
         // index feature structures
-        featStrucMap.clear();
-        cat.forall(indexFeatStrucs);
-        if (cat2 != null) { cat2.forall(indexFeatStrucs); }
+        state.featStrucMap.clear();
+        cat.forall(state.indexFeatStrucs);
+        if (cat2 != null) { cat2.forall(state.indexFeatStrucs); }
         // add feature eqs 
-        cat.forall(doInheritsFrom);
-        if (cat2 != null) { cat2.forall(doInheritsFrom); }
+        cat.forall(state.doInheritsFrom);
+        if (cat2 != null) { cat2.forall(state.doInheritsFrom); }
     }
     
     // gathers attrs from a category
@@ -333,71 +359,22 @@ public class Lexicon {
         }
     };
 
-    // a map from indices to atomic categories, reset for each category
-    private TIntObjectHashMap featStrucMap = new TIntObjectHashMap();
-    
-    // fills in featStrucMap for a category
-    private CategoryFcn indexFeatStrucs = new CategoryFcnAdapter() {
-        public void forall(Category c) {
-            FeatureStructure fs = c.getFeatureStructure();
-            if (fs != null && fs.getIndex() != 0)
-                featStrucMap.put(fs.getIndex(), fs);
-        }
-    };
-
-    // adds feature equations to percolate attributes from inheritsFrom feature 
-    // structure, except for any attributes already present
-    private CategoryFcn doInheritsFrom = new CategoryFcnAdapter() {
-        public void forall(Category c) {
-            // get feature structures
-            if (!(c instanceof AtomCat)) return;
-            String type = ((AtomCat)c).getType();
-            FeatureStructure fs = c.getFeatureStructure();
-            GFeatStruc gfs = (GFeatStruc) fs;
-            if (gfs == null || gfs.getInheritsFrom() == 0) return;
-            int inhf = gfs.getInheritsFrom();
-            FeatureStructure inhfFS = (FeatureStructure) featStrucMap.get(inhf);
-            if (inhfFS != null) {
-                // copy values of features from inhfFS not already present
-                for (Iterator<String> it = inhfFS.getAttributes().iterator(); it.hasNext(); ) {
-                    String att = it.next(); 
-                    if (gfs.hasAttribute(att)) continue;
-                    gfs.setFeature(att, UnifyControl.copy(inhfFS.getValue(att)));
-                }
-                // for each possible attr used with this type and not already present, 
-                // add feature equation
-                Collection<String> attrs = (Collection<String>) _catsToAttrs.get(type);
-                if (attrs == null) return;
-                for (Iterator<String> it = attrs.iterator(); it.hasNext(); ) {
-                    String att = it.next(); 
-                    if (gfs.hasAttribute(att)) continue;
-                    String varName = att.toUpperCase() + inhf;
-                    if (_lfAttrs.contains(att)) {
-                        gfs.setFeature(att, new HyloVar(varName));
-                        inhfFS.setFeature(att, new HyloVar(varName));
-                    }
-                    else {
-                        gfs.setFeature(att, new GFeatVar(varName));
-                        inhfFS.setFeature(att, new GFeatVar(varName));
-                    }
-                }
-            }
-            else {
-                System.err.println(
-                    "Warning: no feature structure with inheritsFrom index of " + inhf + 
-                    " found in category " + c
-                );
-            }
-        }
-    };
-
     
     /**
-     * Returns the lexical signs indexed by the given rel, or null if none. 
+     * Returns the lexical signs indexed by the given rel, or null if none, 
+     * filtered by the default supertagger (if any). 
      */
     public Collection<Sign> getSignsFromRel(String rel) {
+        return getSignsFromRel(rel, _supertagger);
+    }
+    
+    /**
+     * Returns the lexical signs indexed by the given rel, or null if none, 
+     * filtered by the given supertagger (if non-null). 
+     */
+    public Collection<Sign> getSignsFromRel(String rel, SupertaggerAdapter supertagger) {
         // check cache (if not doing supertagging)
-    	if (_supertagger == null) {
+    	if (supertagger == null) {
 	        RelLookup lookup = new RelLookup(rel);
 	        RelLookup retLookup = (RelLookup) lookupCache.getInterned(lookup);
 	        if (retLookup != null) return retLookup.signs;
@@ -405,9 +382,9 @@ public class Lexicon {
         // lookup signs via preds
         Collection<String> preds = (Collection<String>) _relsToPreds.get(rel);
         if (preds == null) return null;
-        Collection<Sign> retval = getSignsFromRelAndPreds(rel, preds);
+        Collection<Sign> retval = getSignsFromRelAndPreds(rel, preds, supertagger);
         // cache non-null result (if not doing supertagging)
-        if (_supertagger == null && retval != null) {
+        if (supertagger == null && retval != null) {
         	RelLookup lookup = new RelLookup(rel);
             lookup.signs = retval; lookupCache.intern(lookup);
         }
@@ -415,11 +392,11 @@ public class Lexicon {
     }
 
     // get signs for rel via preds, or null if none
-    private Collection<Sign> getSignsFromRelAndPreds(String rel, Collection<String> preds) {
+    private Collection<Sign> getSignsFromRelAndPreds(String rel, Collection<String> preds, SupertaggerAdapter supertagger) {
         List<Sign> retval = new ArrayList<Sign>();
         for (Iterator<String> it = preds.iterator(); it.hasNext(); ) {
             String pred = it.next();
-            Collection<Sign> signs = getSignsFromPredAndTargetRel(pred, rel);
+            Collection<Sign> signs = getSignsFromPredAndTargetRel(pred, rel, supertagger);
             if (signs != null) retval.addAll(signs);
         }
         // return null if none survive filter
@@ -433,21 +410,31 @@ public class Lexicon {
      * consulted to see if it is a special token (date, time, etc.); 
      * otherwise, null is returned.
      * Coarticulations are applied for the given rels, if non-null.
+     * The signs are filtered by the default supertagger (if any).
      */
     public Collection<Sign> getSignsFromPred(String pred, List<String> coartRels) {
+        return getSignsFromPred(pred, coartRels, _supertagger);
+    }
+    
+    /**
+     * Returns the lexical signs indexed by the given pred, 
+     * as with getSignsFromPred(pred, coartRels), but 
+     * filtered by the given supertagger (if non-null).
+     */
+    public Collection<Sign> getSignsFromPred(String pred, List<String> coartRels, SupertaggerAdapter supertagger) {
         // check cache (if not doing supertagging)
-    	if (_supertagger == null) {
+    	if (supertagger == null) {
 	        PredLookup lookup = new PredLookup(pred, coartRels);
 	        PredLookup retLookup = (PredLookup) lookupCache.getInterned(lookup);
 	        if (retLookup != null) return retLookup.signs;
     	}
         // lookup pred
-        Collection<Sign> result = getSignsFromPredAndTargetRel(pred, null);
+        Collection<Sign> result = getSignsFromPredAndTargetRel(pred, null, supertagger);
         if (result == null) return null;
         // apply coarts for rels
-        if (coartRels != null) applyCoarts(coartRels, result);
+        if (coartRels != null) applyCoarts(coartRels, result, supertagger);
         // cache result (if not doing supertagging)
-    	if (_supertagger == null) {
+    	if (supertagger == null) {
 	        PredLookup lookup = new PredLookup(pred, coartRels);
     		lookup.signs = result; lookupCache.intern(lookup);
     	}
@@ -456,14 +443,14 @@ public class Lexicon {
     }
         
     // get signs using an additional arg for a target rel
-    private Collection<Sign> getSignsFromPredAndTargetRel(String pred, String targetRel) {
+    private Collection<Sign> getSignsFromPredAndTargetRel(String pred, String targetRel, SupertaggerAdapter supertagger) {
         
         Collection<Word> words = (Collection<Word>) _predToWords.get(pred);
         String specialTokenConst = null;
         
         // for robustness, when using supertagger, add words for pred sans sense index
         int dotIndex = -1;
-        if (_supertagger != null && !Character.isDigit(pred.charAt(0)) && // skip numbers 
+        if (supertagger != null && !Character.isDigit(pred.charAt(0)) && // skip numbers 
         		(dotIndex = pred.lastIndexOf('.')) > 0 && pred.length() > dotIndex+1 &&
         		pred.charAt(dotIndex+1) != '_') // skip titles, eg Mr._Smith
         {
@@ -496,7 +483,7 @@ public class Lexicon {
         for (Iterator<Word> it = words.iterator(); it.hasNext(); ) {
             Word w = it.next();
             try {
-                SignHash signs = getSignsFromWord(w, specialTokenConst, pred, targetRel);
+                SignHash signs = getSignsFromWord(w, specialTokenConst, pred, targetRel, supertagger);
                 retval.addAll(signs.asSignSet());
             }
             // shouldn't happen
@@ -508,7 +495,7 @@ public class Lexicon {
     }
     
     // look up and apply coarts for given rels to each sign in result
-    private void applyCoarts(List<String> coartRels, Collection<Sign> result) {
+    private void applyCoarts(List<String> coartRels, Collection<Sign> result, SupertaggerAdapter supertagger) {
         List<Sign> inputSigns = new ArrayList<Sign>(result);
         result.clear();
         List<Sign> outputSigns = new ArrayList<Sign>(inputSigns.size());
@@ -517,7 +504,7 @@ public class Lexicon {
             String rel = it.next();
             Collection<String> preds = (Collection<String>) _coartRelsToPreds.get(rel);
             if (preds == null) continue; // not expected
-            Collection<Sign> coartResult = getSignsFromRelAndPreds(rel, preds);
+            Collection<Sign> coartResult = getSignsFromRelAndPreds(rel, preds, supertagger);
             if (coartResult == null) continue;
             for (Iterator<Sign> it2 = coartResult.iterator(); it2.hasNext(); ) {
                 Sign coartSign = it2.next();
@@ -567,32 +554,47 @@ public class Lexicon {
      * otherwise an exception is thrown.
      * If the word has coarticulations, all applicable coarticulation 
      * entries are applied to the base word, in an arbitrary order.
+     * The signs are filtered by the default supertagger (if any).
      *
      * @param w the word
      * @return a sign hash
      * @exception LexException thrown if word not found
      */
     public SignHash getSignsFromWord(Word w) throws LexException {
+        return getSignsFromWord(w, _supertagger);
+    }
+    
+    /**
+     * For a given word, return all of its surface word's lexical entries, 
+     * as with getSignsFromWord(w), but filtered by the given supertagger 
+     * (if non-null).
+     *
+     * @param w the word
+     * @param supertagger the supertagger (or null if none)
+     * @return a sign hash
+     * @exception LexException thrown if word not found
+     */
+    public SignHash getSignsFromWord(Word w, SupertaggerAdapter supertagger) throws LexException {
         // reduce word to its core, removing coart attrs if any
     	Word surfaceWord = Word.createSurfaceWord(w);
         Word coreWord = (surfaceWord.attrsIntersect(_coartAttrs)) 
             ? Word.createCoreSurfaceWord(surfaceWord, _coartAttrs) 
             : surfaceWord;
         // lookup core word
-        SignHash result = getSignsFromWord(coreWord, null, null, null);
+        SignHash result = getSignsFromWord(coreWord, null, null, null, supertagger);
         if (result.size() == 0) {
             throw new LexException(coreWord + " not found in lexicon");
         }
         // return signs if no coart attrs
         if (coreWord == surfaceWord) return result; 
         // otherwise apply coarts for word
-        applyCoarts(surfaceWord, result);
+        applyCoarts(surfaceWord, result, supertagger);
         return result; 
     }
     
     // look up and apply coarts for w to each sign in result
     @SuppressWarnings("unchecked")
-	private void applyCoarts(Word w, SignHash result) throws LexException {
+	private void applyCoarts(Word w, SignHash result, SupertaggerAdapter supertagger) throws LexException {
         List<Sign> inputSigns = new ArrayList<Sign>(result.asSignSet());
         result.clear();
         List<Sign> outputSigns = new ArrayList<Sign>(inputSigns.size());
@@ -603,7 +605,7 @@ public class Lexicon {
             if (!_indexedCoartAttrs.contains(attr)) continue;
             String val = (String) p.b;
             Word coartWord = Word.createWord(attr, val);
-            SignHash coartResult = getSignsFromWord(coartWord, null, null, null);
+            SignHash coartResult = getSignsFromWord(coartWord, null, null, null, supertagger);
             for (Iterator<Sign> it2 = coartResult.iterator(); it2.hasNext(); ) {
                 Sign coartSign = it2.next();
                 // apply to each input
@@ -622,7 +624,19 @@ public class Lexicon {
     }
     
     // get signs with additional args for a known special token const, target pred and target rel        
-    private SignHash getSignsFromWord(Word w, String specialTokenConst, String targetPred, String targetRel) throws LexException {
+    private SignHash getSignsFromWord(Word w, String specialTokenConst, String targetPred, String targetRel, SupertaggerAdapter supertagger) throws LexException {
+    	
+    	// get supertags for filtering, if a supertagger is given
+    	Map<String,Double> supertags = (supertagger != null) ? supertagger.getSupertags() : null;
+    	
+    	// check cache, when looking up by word alone
+    	LexicalSignCache cache = signCache;
+    	LexicalSignCache.Key cacheKey = null;
+    	if (cache != null && specialTokenConst == null && targetPred == null && targetRel == null) {
+    		cacheKey = LexicalSignCache.key(w, supertags);
+    		SignHash retval = cache.get(cacheKey);
+    		if (retval != null) return retval;
+    	}
 
         Collection<MorphItem> morphItems = (specialTokenConst == null)
             ? (Collection<MorphItem>) _words.get(w)
@@ -646,24 +660,24 @@ public class Lexicon {
         SignHash result = new SignHash();
 
         for (Iterator<MorphItem> MI = morphItems.iterator(); MI.hasNext();) {
-            getWithMorphItem(w, MI.next(), targetPred, targetRel, result);
+            getWithMorphItem(w, MI.next(), targetPred, targetRel, supertags, result);
         }
+        
+        // update cache
+        if (cacheKey != null) cache.put(cacheKey, result);
 
         return result;
     }
 
 
     // given MorphItem
-    private void getWithMorphItem(Word w, MorphItem mi, String targetPred, String targetRel, SignHash result)
+    private void getWithMorphItem(Word w, MorphItem mi, String targetPred, String targetRel, 
+    							  Map<String,Double> supertags, SignHash result)
         throws LexException 
     {
-    	// get supertags for filtering, if a supertagger is installed
-    	Map<String,Double> supertags = null;
+    	// track supertags found, if filtering by supertags
     	Set<String> supertagsFound = null;
-    	if (_supertagger != null) {
-    		supertags = _supertagger.getSupertags();
-    		if (supertags != null) supertagsFound = new HashSet<String>(supertags.size());
-    	}
+    	if (supertags != null) supertagsFound = new HashSet<String>(supertags.size());
     	
         // get macro adder
         MacroAdder macAdder = getMacAdder(mi);
@@ -770,8 +784,9 @@ public class Lexicon {
 	        // replace DEFAULT_VAL with pred, after first 
 	        // unifying type of associated nom var(s) with sem class 
 	        unifySemClass(cat, mi.getWord().getSemClass());
-	        REPLACEMENT = pred; 
-	        cat.deepMap(defaultReplacer);
+	        LookupState state = lookupState.get();
+	        state.REPLACEMENT = pred; 
+	        cat.deepMap(state.defaultReplacer);
 	        
 	        // check supertag
 	        // TODO: think about earlier checks for efficiency, for grammars where macros and preds don't matter
@@ -813,15 +828,13 @@ public class Lexicon {
         }
     }
 
-    // the sem class for defaultNomvarSetter
-    private SimpleType SEMCLASS = null;
-    
     // unify sem class with default nom var(s)
     private void unifySemClass(Category cat, String semClass) {
         if (semClass == null || cat.getLF() == null) return;
-        SEMCLASS = grammar.types.getSimpleType(semClass);
+        LookupState state = lookupState.get();
+        state.SEMCLASS = grammar.types.getSimpleType(semClass);
         try {
-            cat.getLF().deepMap(defaultNomvarUnifier);
+            cat.getLF().deepMap(state.defaultNomvarUnifier);
         } catch (TypePropagationException tpe) {
         	if (debugSemClasses) {
 	            System.err.println(
@@ -832,57 +845,8 @@ public class Lexicon {
         }
     }
     
-    // mod function to unify type of nom var for DEFAULT_VAL with SEMCLASS
-    private ModFcn defaultNomvarUnifier = new ModFcn() {
-        public void modify(Mutable m) {
-            if (!(m instanceof SatOp)) return;
-            SatOp satop = (SatOp) m;
-            if (!(satop.getArg() instanceof Proposition)) return; 
-            Proposition prop = (Proposition) satop.getArg();
-            if (!prop.getName().equals(DEFAULT_VAL)) return;
-            if (!(satop.getNominal() instanceof NominalVar)) return;
-            NominalVar nv = (NominalVar) satop.getNominal();
-            SimpleType st = nv.getType();
-            // check equality
-            if (st.equals(SEMCLASS)) return;
-            // otherwise unify types, update nv
-            try {
-                SimpleType stU = (SimpleType) st.unify(SEMCLASS, null);
-                nv.setType(stU);
-            } catch (UnifyFailure uf) {
-                throw new TypePropagationException(st, SEMCLASS);
-            }
-        }
-    };
-
-    // the replacement string for defaultReplacer
-    private String REPLACEMENT = "";
-    
-    // mod function to replace DEFAULT_VAL with REPLACEMENT
-    private ModFcn defaultReplacer = new ModFcn() {
-        public void modify(Mutable m) {
-            if (m instanceof Proposition) {
-                Proposition prop = (Proposition) m; 
-                if (prop.getName().equals(DEFAULT_VAL)) prop.setAtomName(REPLACEMENT);
-            }
-            else if (m instanceof FeatureStructure) {
-                FeatureStructure fs = (FeatureStructure) m;
-                for (Iterator<String> it = fs.getAttributes().iterator(); it.hasNext(); ) {
-                    String attr = it.next();
-                    Object val = fs.getValue(attr);
-                    if (val instanceof SimpleType && 
-                        ((SimpleType)val).getName().equals(DEFAULT_VAL))
-                    {
-                        fs.setFeature(attr, grammar.types.getSimpleType(REPLACEMENT));
-                    }
-                }
-            }
-        }
-    };
-
-
     // a cache for macro adders
-    private Map<MorphItem, MacroAdder> macAdderMap = new HashMap<MorphItem, MacroAdder>();
+    private Map<MorphItem, MacroAdder> macAdderMap = new ConcurrentHashMap<MorphItem, MacroAdder>();
     
     // returns a macro adder for the given morph item
     private MacroAdder getMacAdder(MorphItem mi) {
@@ -930,12 +894,13 @@ public class Lexicon {
     
     /** Propagates types of nomvars in the given categories. */
     public void propagateTypes(Category cat, Category cat2) {
+        LookupState state = lookupState.get();
         try {
-            nomvarMap.clear();
-            cat.deepMap(nomvarTypePropagater);
-            if (cat2 != null) cat2.deepMap(nomvarTypePropagater);
-            cat.deepMap(nomvarTypePropagater);
-            if (cat2 != null) cat2.deepMap(nomvarTypePropagater);
+            state.nomvarMap.clear();
+            cat.deepMap(state.nomvarTypePropagater);
+            if (cat2 != null) cat2.deepMap(state.nomvarTypePropagater);
+            cat.deepMap(state.nomvarTypePropagater);
+            if (cat2 != null) cat2.deepMap(state.nomvarTypePropagater);
         } catch (TypePropagationException tpe) {
         	if (debugSemClasses) {
 	            System.err.println(
@@ -947,21 +912,6 @@ public class Lexicon {
         }
     }
         
-    // a map from a cat's nomvars to types, 
-    // just using the var's name for equality
-    @SuppressWarnings("unchecked")
-	private Map<NominalVar,SimpleType> nomvarMap = new THashMap(
-        new TObjectHashingStrategy() {
-			private static final long serialVersionUID = 1L;
-			public int computeHashCode(Object o) {
-                return ((NominalVar)o).getName().hashCode();
-            }
-            public boolean equals(Object o1, Object o2) {
-                return ((NominalVar)o1).getName().equals(((NominalVar)o2).getName());
-            }
-        }
-    );
-    
     // exception for unification failures in propagating types
     private class TypePropagationException extends RuntimeException {
 		private static final long serialVersionUID = 1L;
@@ -971,29 +921,6 @@ public class Lexicon {
         }
     }
     
-    // mod function to propagate nomvar types; 
-    // needs to be called twice after clearing nomvarMap
-    private ModFcn nomvarTypePropagater = new ModFcn() {
-        public void modify(Mutable m) {
-            if (m instanceof NominalVar) {
-                NominalVar nv = (NominalVar) m;
-                SimpleType st = nv.getType();
-                SimpleType st0 = nomvarMap.get(nv);
-                // add type to map if no type found
-                if (st0 == null) { nomvarMap.put(nv, st); return; }
-                // check equality
-                if (st.equals(st0)) return;
-                // otherwise unify types, update nv and map
-                try {
-                    SimpleType stU = (SimpleType) st.unify(st0, null);
-                    nv.setType(stU);
-                    nomvarMap.put(nv, stU);
-                } catch (UnifyFailure uf) {
-                    throw new TypePropagationException(st, st0);
-                }
-            }
-        }
-    };
     
 
     //
@@ -1019,65 +946,229 @@ public class Lexicon {
      */
     public void propagateDistributiveAttrs(Category cat, Category cat2) {
         if (_distributiveAttrs == null) return;
-        resetDistrAttrVals();
-        cat.forall(gatherDistrAttrVals);
-        if (cat2 != null) { cat2.forall(gatherDistrAttrVals); }
-        cat.forall(propagateUniqueDistrAttrVals);
-        if (cat2 != null) { cat2.forall(propagateUniqueDistrAttrVals); }
+        LookupState state = lookupState.get();
+        state.resetDistrAttrVals();
+        cat.forall(state.gatherDistrAttrVals);
+        if (cat2 != null) { cat2.forall(state.gatherDistrAttrVals); }
+        cat.forall(state.propagateUniqueDistrAttrVals);
+        if (cat2 != null) { cat2.forall(state.propagateUniqueDistrAttrVals); }
     }
     
-    // an array of lists, one for each distributive attr    
-    @SuppressWarnings("rawtypes")
-	private List[] distrAttrVals = null;
-    @SuppressWarnings("rawtypes")
-	private void resetDistrAttrVals() {
-        if (distrAttrVals == null) { 
-            distrAttrVals = new List[_distributiveAttrs.length];
-            for (int i = 0; i < distrAttrVals.length; i++) {
-                distrAttrVals[i] = new ArrayList(3);
+    
+    //
+    // scratch state for lexical lookup
+    //
+    
+    // the scratch state used in lexical lookup, kept per thread 
+    // so that the lexicon can be shared across threads
+    private final ThreadLocal<LookupState> lookupState = new ThreadLocal<LookupState>() {
+        protected LookupState initialValue() { return new LookupState(); }
+    };
+    
+    // reusable maps and functions for expanding lexical categories
+    private class LookupState {
+        
+        // the sem class for defaultNomvarUnifier
+        private SimpleType SEMCLASS = null;
+        
+        // a map from indices to atomic categories, reset for each category
+        private TIntObjectHashMap featStrucMap = new TIntObjectHashMap();
+    
+        // fills in featStrucMap for a category
+        private CategoryFcn indexFeatStrucs = new CategoryFcnAdapter() {
+            public void forall(Category c) {
+                FeatureStructure fs = c.getFeatureStructure();
+                if (fs != null && fs.getIndex() != 0)
+                    featStrucMap.put(fs.getIndex(), fs);
             }
-            return;
-        }
-        for (int i = 0; i < distrAttrVals.length; i++) {
-            distrAttrVals[i].clear();
-        }
-    }
+        };
+
+        // adds feature equations to percolate attributes from inheritsFrom feature 
+        // structure, except for any attributes already present
+        private CategoryFcn doInheritsFrom = new CategoryFcnAdapter() {
+            public void forall(Category c) {
+                // get feature structures
+                if (!(c instanceof AtomCat)) return;
+                String type = ((AtomCat)c).getType();
+                FeatureStructure fs = c.getFeatureStructure();
+                GFeatStruc gfs = (GFeatStruc) fs;
+                if (gfs == null || gfs.getInheritsFrom() == 0) return;
+                int inhf = gfs.getInheritsFrom();
+                FeatureStructure inhfFS = (FeatureStructure) featStrucMap.get(inhf);
+                if (inhfFS != null) {
+                    // copy values of features from inhfFS not already present
+                    for (Iterator<String> it = inhfFS.getAttributes().iterator(); it.hasNext(); ) {
+                        String att = it.next(); 
+                        if (gfs.hasAttribute(att)) continue;
+                        gfs.setFeature(att, UnifyControl.copy(inhfFS.getValue(att)));
+                    }
+                    // for each possible attr used with this type and not already present, 
+                    // add feature equation
+                    Collection<String> attrs = (Collection<String>) _catsToAttrs.get(type);
+                    if (attrs == null) return;
+                    for (Iterator<String> it = attrs.iterator(); it.hasNext(); ) {
+                        String att = it.next(); 
+                        if (gfs.hasAttribute(att)) continue;
+                        String varName = att.toUpperCase() + inhf;
+                        if (_lfAttrs.contains(att)) {
+                            gfs.setFeature(att, new HyloVar(varName));
+                            inhfFS.setFeature(att, new HyloVar(varName));
+                        }
+                        else {
+                            gfs.setFeature(att, new GFeatVar(varName));
+                            inhfFS.setFeature(att, new GFeatVar(varName));
+                        }
+                    }
+                }
+                else {
+                    System.err.println(
+                        "Warning: no feature structure with inheritsFrom index of " + inhf + 
+                        " found in category " + c
+                    );
+                }
+            }
+        };
+
+        // mod function to unify type of nom var for DEFAULT_VAL with SEMCLASS
+        private ModFcn defaultNomvarUnifier = new ModFcn() {
+            public void modify(Mutable m) {
+                if (!(m instanceof SatOp)) return;
+                SatOp satop = (SatOp) m;
+                if (!(satop.getArg() instanceof Proposition)) return; 
+                Proposition prop = (Proposition) satop.getArg();
+                if (!prop.getName().equals(DEFAULT_VAL)) return;
+                if (!(satop.getNominal() instanceof NominalVar)) return;
+                NominalVar nv = (NominalVar) satop.getNominal();
+                SimpleType st = nv.getType();
+                // check equality
+                if (st.equals(SEMCLASS)) return;
+                // otherwise unify types, update nv
+                try {
+                    SimpleType stU = (SimpleType) st.unify(SEMCLASS, null);
+                    nv.setType(stU);
+                } catch (UnifyFailure uf) {
+                    throw new TypePropagationException(st, SEMCLASS);
+                }
+            }
+        };
+
+        // the replacement string for defaultReplacer
+        private String REPLACEMENT = "";
     
-    // gathers distinct values for each distributive attr
-    private CategoryFcn gatherDistrAttrVals = new CategoryFcnAdapter() {
+        // mod function to replace DEFAULT_VAL with REPLACEMENT
+        private ModFcn defaultReplacer = new ModFcn() {
+            public void modify(Mutable m) {
+                if (m instanceof Proposition) {
+                    Proposition prop = (Proposition) m; 
+                    if (prop.getName().equals(DEFAULT_VAL)) prop.setAtomName(REPLACEMENT);
+                }
+                else if (m instanceof FeatureStructure) {
+                    FeatureStructure fs = (FeatureStructure) m;
+                    for (Iterator<String> it = fs.getAttributes().iterator(); it.hasNext(); ) {
+                        String attr = it.next();
+                        Object val = fs.getValue(attr);
+                        if (val instanceof SimpleType && 
+                            ((SimpleType)val).getName().equals(DEFAULT_VAL))
+                        {
+                            fs.setFeature(attr, grammar.types.getSimpleType(REPLACEMENT));
+                        }
+                    }
+                }
+            }
+        };
+
+        // a map from a cat's nomvars to types, 
+        // just using the var's name for equality
         @SuppressWarnings("unchecked")
-		public void forall(Category c) {
-            if (!(c instanceof AtomCat)) return;
-            FeatureStructure fs = c.getFeatureStructure();
-            if (fs == null) return;
-            for (int i = 0; i < _distributiveAttrs.length; i++) {
-                String attr = _distributiveAttrs[i];
-                Object val = fs.getValue(attr);
-                if (val != null && !distrAttrVals[i].contains(val)) { 
-                    distrAttrVals[i].add(val); 
+		private Map<NominalVar,SimpleType> nomvarMap = new THashMap(
+            new TObjectHashingStrategy() {
+				private static final long serialVersionUID = 1L;
+				public int computeHashCode(Object o) {
+                    return ((NominalVar)o).getName().hashCode();
+                }
+                public boolean equals(Object o1, Object o2) {
+                    return ((NominalVar)o1).getName().equals(((NominalVar)o2).getName());
                 }
             }
-        }
-    };
+        );
 
-    // propagates unique values for each distributive attr
-    private CategoryFcn propagateUniqueDistrAttrVals = new CategoryFcnAdapter() {
-        public void forall(Category c) {
-            if (!(c instanceof AtomCat)) return;
-            FeatureStructure fs = c.getFeatureStructure();
-            if (fs == null) return;
-            for (int i = 0; i < _distributiveAttrs.length; i++) {
-                if (distrAttrVals[i].size() != 1) continue;
-                Object distVal = distrAttrVals[i].get(0);
-                String attr = _distributiveAttrs[i];
-                Object val = fs.getValue(attr);
-                if (val == null) {
-                    fs.setFeature(attr, UnifyControl.copy(distVal));
+        // mod function to propagate nomvar types; 
+        // needs to be called twice after clearing nomvarMap
+        private ModFcn nomvarTypePropagater = new ModFcn() {
+            public void modify(Mutable m) {
+                if (m instanceof NominalVar) {
+                    NominalVar nv = (NominalVar) m;
+                    SimpleType st = nv.getType();
+                    SimpleType st0 = nomvarMap.get(nv);
+                    // add type to map if no type found
+                    if (st0 == null) { nomvarMap.put(nv, st); return; }
+                    // check equality
+                    if (st.equals(st0)) return;
+                    // otherwise unify types, update nv and map
+                    try {
+                        SimpleType stU = (SimpleType) st.unify(st0, null);
+                        nv.setType(stU);
+                        nomvarMap.put(nv, stU);
+                    } catch (UnifyFailure uf) {
+                        throw new TypePropagationException(st, st0);
+                    }
                 }
             }
+        };
+
+        // an array of lists, one for each distributive attr    
+        @SuppressWarnings("rawtypes")
+		private List[] distrAttrVals = null;
+        @SuppressWarnings("rawtypes")
+		private void resetDistrAttrVals() {
+            if (distrAttrVals == null) { 
+                distrAttrVals = new List[_distributiveAttrs.length];
+                for (int i = 0; i < distrAttrVals.length; i++) {
+                    distrAttrVals[i] = new ArrayList(3);
+                }
+                return;
+            }
+            for (int i = 0; i < distrAttrVals.length; i++) {
+                distrAttrVals[i].clear();
+            }
         }
-    };
+    
+        // gathers distinct values for each distributive attr
+        private CategoryFcn gatherDistrAttrVals = new CategoryFcnAdapter() {
+            @SuppressWarnings("unchecked")
+			public void forall(Category c) {
+                if (!(c instanceof AtomCat)) return;
+                FeatureStructure fs = c.getFeatureStructure();
+                if (fs == null) return;
+                for (int i = 0; i < _distributiveAttrs.length; i++) {
+                    String attr = _distributiveAttrs[i];
+                    Object val = fs.getValue(attr);
+                    if (val != null && !distrAttrVals[i].contains(val)) { 
+                        distrAttrVals[i].add(val); 
+                    }
+                }
+            }
+        };
 
+        // propagates unique values for each distributive attr
+        private CategoryFcn propagateUniqueDistrAttrVals = new CategoryFcnAdapter() {
+            public void forall(Category c) {
+                if (!(c instanceof AtomCat)) return;
+                FeatureStructure fs = c.getFeatureStructure();
+                if (fs == null) return;
+                for (int i = 0; i < _distributiveAttrs.length; i++) {
+                    if (distrAttrVals[i].size() != 1) continue;
+                    Object distVal = distrAttrVals[i].get(0);
+                    String attr = _distributiveAttrs[i];
+                    Object val = fs.getValue(attr);
+                    if (val == null) {
+                        fs.setFeature(attr, UnifyControl.copy(distVal));
+                    }
+                }
+            }
+        };
+    }
+    
     
     //
     // licensing features
@@ -23,8 +23,9 @@ import java.util.*;
 /**
  * The SupertaggerAdapter interface is for plugging a supertagger into the 
  * lexicon in order to return only the desired, high probability categories 
- * during lexical lookup.  Once the supertagger has been plugged in, 
- * using Lexicon.setSupertagger, the supertagger will be consulted during 
+ * during lexical lookup.  When the supertagger is given to a lookup method 
+ * (or plugged in as the default using Lexicon.setSupertagger), 
+ * the supertagger will be consulted during 
  * each lexical lookup for the desired categories, using getSupertags. 
  * Note that this entails that the supertagger must update its state between lexical 
  * lookup calls; in this way, identical words in a sentence can have different 
@@ -44,8 +45,8 @@ import java.util.*;
  * it is no longer necessary to list stems with categories in the lexicon, as the 
  * supertagger becomes responsible for this mapping.
  *
- * Note also that at present, only one supertagger (for either parsing or realization) 
- * may be plugged in to the lexicon at a time.
+ * Note also that as a supertagger maintains the state of the current lookup, 
+ * each parse or realization request running at the same time needs its own instance.
  *  
  * @author      Michael White
  * @version     $Revision: 1.11 $, $Date: 2010/12/08 15:24:26 $
@@ -6,6 +6,8 @@ package opennlp.ccg.ngrams;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import opennlp.ccg.lexicon.Word;
 import opennlp.ccg.util.Pair;
@@ -23,6 +25,21 @@ abstract class AbstractStandardNgramModel extends NgramScorer {
 
 	/** Reusable list of strings to score. */
     protected List<String> stringsToScore = new ArrayList<String>();
+    
+    /** Reusable array of the ids of the strings to score. */
+    protected int[] idsToScore = new int[0];
+    
+    /** Weak hash map for the strings to score for (interned) words, so they are only derived once. */
+    private Map<Word,String> wordStrings = new WeakHashMap<Word,String>();
+    
+    /** Initializes the scratch state, including the strings to score. */
+    @Override
+    protected void initScratch() {
+        super.initScratch();
+        stringsToScore = new ArrayList<String>();
+        idsToScore = new int[0];
+        wordStrings = new WeakHashMap<Word,String>();
+    }
 	
     /**
      * Creates a new ngram model of the given order.
@@ -44,39 +61,63 @@ abstract class AbstractStandardNgramModel extends NgramScorer {
 	}
 
 	/**
-     * Converts the words in wordsToScore to strings in stringsToScore, before
-     * scoring.
+     * Converts the words in wordsToScore to strings in stringsToScore, 
+     * and then to ids in idsToScore, before scoring.
      */
     @Override
     protected void prepareToScoreWords() {
         stringsToScore.clear();
-        for (int i = 0; i < wordsToScore.size(); i++) {
+        int size = wordsToScore.size();
+        if (idsToScore.length < size) idsToScore = new int[Math.max(size, idsToScore.length*2)];
+        for (int i = 0; i < size; i++) {
             Word w = wordsToScore.get(i);
-            String s = w.getForm();
-            // check for sem class replacement
-            String scr = semClassReplacement(w);
-            if (scr != null) s = scr;
-            // add pitch accent and attrs, if any
-            String pitchAccent = w.getPitchAccent();
-            Iterator<Pair<String,String>> pairs = w.getAttrValPairs();
-            if (pitchAccent != null || pairs.hasNext()) {
-                StringBuffer sb = new StringBuffer();
-                sb.append(s);
-                if (pitchAccent != null) sb.append('_').append(pitchAccent);
-                for (; pairs.hasNext(); ) {
-                	Pair<String,String> p = pairs.next();
-                    sb.append('_').append(p.b);
-                }
-                s = sb.toString().intern();
+            String s = wordStrings.get(w);
+            if (s == null) {
+                s = wordString(w);
+                wordStrings.put(w, s);
             }
-            // check for unknown word
-            if (openVocab && trieMapRoot.getChild(s) == null)
-                s = "<unk>";
-            // add key
+            // add key and id
             stringsToScore.add(s);
+            idsToScore[i] = wordId(s);
         }
     }
     
+    /** Returns the string to score for the given word. */
+    protected String wordString(Word w) {
+        String s = w.getForm();
+        // check for sem class replacement
+        String scr = semClassReplacement(w);
+        if (scr != null) s = scr;
+        // add pitch accent and attrs, if any
+        String pitchAccent = w.getPitchAccent();
+        Iterator<Pair<String,String>> pairs = w.getAttrValPairs();
+        if (pitchAccent != null || pairs.hasNext()) {
+            StringBuffer sb = new StringBuffer();
+            sb.append(s);
+            if (pitchAccent != null) sb.append('_').append(pitchAccent);
+            for (; pairs.hasNext(); ) {
+            	Pair<String,String> p = pairs.next();
+                sb.append('_').append(p.b);
+            }
+            s = sb.toString().intern();
+        }
+        // check for unknown word
+        if (openVocab && !inVocab(s))
+            s = "<unk>";
+        return s;
+    }
+    
+    /** Returns the id of the given word string, or -1 if none. */
+    protected int wordId(String s) {
+        return trie.id(s);
+    }
+    
+    /** Returns whether the given word string is in the model's vocabulary. */
+    protected boolean inVocab(String s) {
+        int id = trie.id(s);
+        return id >= 0 && trie.child(NgramTrie.ROOT, id) >= 0;
+    }
+    
     /**
      * Returns the log prob of the ngram starting at the given index 
      * in wordsToScore and with the given order, with backoff. 
@@ -87,10 +128,12 @@ abstract class AbstractStandardNgramModel extends NgramScorer {
     protected float logProbFromNgram(int i, int order) {
         // skip initial start tag
         if (i == 0 && order == 1 && stringsToScore.get(0) == "<s>") return 0;
-        // set keys list
+        // set keys list and ids
         keysList.clear();
+        ensureKeyIds(order);
         for (int j = i; j < i+order; j++) {
             keysList.add(stringsToScore.get(j));
+            keyIds[j-i] = idsToScore[j];
         }
         if (debugScore) {
             System.out.print("logp( " + keysList.get(order-1) + " | ");
@@ -46,6 +46,12 @@ public class FactoredNgramModel extends NgramScorer
     /** The parent variables to condition on, backing off from the end. */
     public final ModelVariable[] parents;
     
+    /** The distinct attrs of the child and parent variables. */
+    private final String[] attrs;
+    
+    /** Weak hash map for the factor keys of (interned) words, by attr, so they are only made once. */
+    private Map<Word,Object[]> wordFactorKeys = new WeakHashMap<Word,Object[]>();
+    
     /** A variable in a factored n-gram model. */
     public class ModelVariable {
         /** The variable name. */
@@ -88,6 +94,12 @@ public class FactoredNgramModel extends NgramScorer
             this.parents[i] = new ModelVariable(parents[i]);
             order = Math.max(order, this.parents[i].position + 1);
         }
+        List<String> attrList = new ArrayList<String>();
+        attrList.add(this.child.name);
+        for (int i = 0; i < parents.length; i++) {
+            if (!attrList.contains(this.parents[i].name)) attrList.add(this.parents[i].name);
+        }
+        this.attrs = attrList.toArray(new String[attrList.size()]);
         this.numNgrams = new int[(int)Math.pow(2, parents.length)];
         // check cache
     	FactoredNgramModel cachedModel = modelCache.get(filename);
@@ -95,7 +107,7 @@ public class FactoredNgramModel extends NgramScorer
     		// share trie etc.
     		numNgrams = cachedModel.numNgrams;
     		openVocab = cachedModel.openVocab;
-    		trieMapRoot = cachedModel.trieMapRoot;
+    		trie = cachedModel.trie;
     		cachedLogProbs = cachedModel.cachedLogProbs;
     	}
     	// otherwise load model
@@ -150,6 +162,7 @@ public class FactoredNgramModel extends NgramScorer
         if (i == 0 && order == 1 && ((Word)wordsToScore.get(0)).getForm() == "<s>") return 0;
         // set up factor keys
         keysList.clear();
+        ensureKeyIds(parents.length+1);
         int i0 = i + order-1; // index of current word
         // determine last available parent, if full context not available
         int lastParentIndex = parents.length-1;
@@ -164,11 +177,11 @@ public class FactoredNgramModel extends NgramScorer
             int pos_j = i0 - parents[j].position;
             if (pos_j < i) continue; // skip if pos_j past i
             Word w = (Word) wordsToScore.get(pos_j);
-            keysList.add(makeFactorKey(w, parents[j].name));
+            addFactorKey(w, parents[j].name);
         }
         // add factor key for child
         Word current = (Word) wordsToScore.get(i0);
-        keysList.add(makeFactorKey(current, child.name));
+        addFactorKey(current, child.name);
         if (debugScore) {
             System.out.print("logp( " + keysList.get(keysList.size()-1) + " | ");
             for (int j = keysList.size()-2; j >= 0; j--) {
@@ -186,6 +199,40 @@ public class FactoredNgramModel extends NgramScorer
         return retval;
     }
     
+    /** Initializes the scratch state, including the factor keys of words. */
+    protected void initScratch() {
+        super.initScratch();
+        wordFactorKeys = new WeakHashMap<Word,Object[]>();
+    }
+    
+    // adds the factor key for the given word and attr to keysList, 
+    // along with its id to keyIds
+    private void addFactorKey(Word w, String attr) {
+        Object key = factorKey(w, attr);
+        keyIds[keysList.size()] = trie.id(key);
+        keysList.add(key);
+    }
+    
+    // returns the factor key for the given word and attr, 
+    // using wordFactorKeys to cache the keys
+    private Object factorKey(Word w, String attr) {
+        Object[] keys = wordFactorKeys.get(w);
+        if (keys == null) {
+            keys = new Object[attrs.length];
+            wordFactorKeys.put(w, keys);
+        }
+        int a = 0;
+        while (attrs[a] != attr) a++;
+        if (keys[a] == null) keys[a] = makeFactorKey(w, attr);
+        return keys[a];
+    }
+    
+    // returns whether the given key is in the model as a unigram
+    private boolean inVocab(Object key) {
+        int id = trie.id(key);
+        return id >= 0 && trie.child(NgramTrie.ROOT, id) >= 0;
+    }
+    
     // makes a factor key from the given word by extracting 
     // the attribute with the given name, where
     // the delimiter tokens are treated as a special case,  
@@ -207,7 +254,7 @@ public class FactoredNgramModel extends NgramScorer
         // make factor key 
         Object retval = FactorKey.getKey(attr, val);
         // check for unknown val
-        if (openVocab && trieMapRoot.getChild(retval) == null) {
+        if (openVocab && !inVocab(retval)) {
             val = "<unk>";
             retval = FactorKey.getKey(attr, val);
         }
@@ -229,8 +276,7 @@ public class FactoredNgramModel extends NgramScorer
         int numParents = -1;
         int parentsInt = -1;
         List<Object> currentPrefix = new ArrayList<Object>();
-        List<Object> currentKeys = null;
-        List<TrieMap<Object,NgramFloats>> currentChildren = null;
+        int currentPrefixNode = NgramTrie.ROOT;
         // loop through lines
         while (tokenizer.ttype != StreamTokenizer.TT_EOF) {
             // read line into tokens
@@ -246,11 +292,6 @@ public class FactoredNgramModel extends NgramScorer
                 int n = Integer.decode(tokens[1].substring(0,equalPos)).intValue(); 
                 int total = Integer.parseInt(tokens[1].substring(equalPos+1));
                 numNgrams[n] = total;
-                // init children, keys lists
-                if (currentChildren == null) { 
-                    currentChildren = new ArrayList<TrieMap<Object,NgramFloats>>(total);  
-                    currentKeys = new ArrayList<Object>(total);  
-                }
                 // calc totals (not actually used anymore)
                 if (n == numNgrams.length-1) {
                     @SuppressWarnings("unused")
@@ -261,15 +302,12 @@ public class FactoredNgramModel extends NgramScorer
                 continue;
             }
             // check for final delimiter
-            if (tokens[0].equals("\\end\\")) {
-                addTrieMapChildren(currentPrefix, currentKeys, currentChildren);
-                break;
-            }
+            if (tokens[0].equals("\\end\\")) break;
             // read line starting new parents context
             int gramsPos = -1;
             if (tokens[0].startsWith("\\") && (gramsPos = tokens[0].indexOf("-grams:")) > 0) {
-                // add current children
-                addTrieMapChildren(currentPrefix, currentKeys, currentChildren);
+                // reset prefix
+                currentPrefix.clear(); currentPrefixNode = NgramTrie.ROOT;
                 // update num parents
                 // System.out.println(tokens[0]);
                 parentsInt = Integer.decode(tokens[0].substring(1,gramsPos)).intValue();
@@ -313,29 +351,29 @@ public class FactoredNgramModel extends NgramScorer
             for (int i = 0; samePrefix && i < currentOrder-1; i++) {
                 if (factorKeys[i] != currentPrefix.get(i)) samePrefix = false; 
             }
-            // if changed, add current children, reset prefix 
+            // if changed, find prefix node
             if (!samePrefix) {
-                addTrieMapChildren(currentPrefix, currentKeys, currentChildren);
+                currentPrefix.clear(); currentPrefixNode = NgramTrie.ROOT;
                 for (int i = 0; i < currentOrder-1; i++) {
                     currentPrefix.add(factorKeys[i]);
+                    currentPrefixNode = trie.addNode(currentPrefixNode, factorKeys[i]);
                 }
             }
-            Object key = factorKeys[currentOrder-1];
-            currentKeys.add(key);
-            currentChildren.add(new TrieMap<Object,NgramFloats>(new NgramFloats(logprob, 0)));
+            // add node, keeping any back-off weight
+            int node = trie.addNode(currentPrefixNode, factorKeys[currentOrder-1]);
+            trie.setData(node, logprob, trie.hasTmpData(node) ? trie.tmpBow(node) : 0);
             // read back-off weight, if present
             if (tokens[currentOrder+1] != null) {
                 float bow = Float.parseFloat(tokens[currentOrder+1]);
                 // add to prefix node
-                TrieMap<Object,NgramFloats> prefixNode = trieMapRoot.findChildFromList(currentPrefix);
-                NgramFloats nfloats = prefixNode.data;
-                if (nfloats != null) nfloats.bow = bow;
-                else prefixNode.data = new NgramFloats(0, bow); 
+                if (trie.hasTmpData(currentPrefixNode)) trie.setBow(currentPrefixNode, bow);
+                else trie.setData(currentPrefixNode, 0, bow); 
             }
         }
+        trie.compact();
         // set openVocab according to presence of child <unk>
         Object unkKey = FactorKey.getKey(child.name,"<unk>");
-        openVocab = (trieMapRoot.getChild(unkKey) != null);
+        openVocab = inVocab(unkKey);
     }
 
     
@@ -168,9 +168,49 @@ public class FactoredNgramModelFamily extends NgramScorer
     }
     
 
+    /** The workers for the component models, when this family is a worker (otherwise null). */
+    private Map<FactoredNgramModel,FactoredNgramModel> componentWorkers = null;
+    
+    /** Returns a new worker, with workers for the component models sharing its wordsToScore. */
+    protected NgramScorer newWorker() {
+        FactoredNgramModelFamily retval = (FactoredNgramModelFamily) super.newWorker();
+        retval.componentWorkers = new IdentityHashMap<FactoredNgramModel,FactoredNgramModel>();
+        retval.addComponentWorkers(primaryGroup);
+        if (furtherGroups != null) {
+            for (int i = 0; i < furtherGroups.length; i++) retval.addComponentWorkers(furtherGroups[i]);
+        }
+        return retval;
+    }
+    
+    // adds workers for the models in the given group
+    private void addComponentWorkers(ModelGroup modelGroup) {
+        addComponentWorker(modelGroup.primaryModel);
+        if (modelGroup.secondaryModels == null) return;
+        for (int i = 0; i < modelGroup.secondaryModels.length; i++) 
+            addComponentWorker(modelGroup.secondaryModels[i]);
+    }
+    
+    // adds a worker for the given model, sharing wordsToScore
+    private void addComponentWorker(FactoredNgramModel model) {
+        FactoredNgramModel worker = (FactoredNgramModel) model.newWorker();
+        worker.shareWordsToScore(wordsToScore);
+        componentWorkers.put(model, worker);
+    }
+    
+    // returns the given component model, or its worker if this family is a worker
+    private FactoredNgramModel component(FactoredNgramModel model) {
+        if (componentWorkers == null) return model;
+        return componentWorkers.get(model);
+    }
+    
     /** Sets wordsToScore to the given list, for sharing purposes. */
     protected void shareWordsToScore(List<Word> wordsToScore) {
         this.wordsToScore = wordsToScore;
+        if (componentWorkers != null) {
+            for (FactoredNgramModel worker : componentWorkers.values()) 
+                worker.shareWordsToScore(wordsToScore);
+            return;
+        }
         primaryGroup.shareWordsToScore(wordsToScore);
         if (furtherGroups == null) return;
         for (int i = 0; i < furtherGroups.length; i++) {
@@ -218,7 +258,7 @@ public class FactoredNgramModelFamily extends NgramScorer
         if (order < modelToUse.order) {
             modelToUse = modelGroup.getModel(order); 
         }
-        return modelToUse.ngram(i, order);
+        return component(modelToUse).ngram(i, order);
     }
     
     
@@ -247,7 +287,7 @@ public class FactoredNgramModelFamily extends NgramScorer
                 System.out.print("[2ndary model " + modelNum + "] ");
             }
         }
-        return modelToUse.logProbFromNgram(i, order);
+        return component(modelToUse).logProbFromNgram(i, order);
     }
     
     /** The max number of tokens to allow per line in the spec file. */
@@ -64,7 +64,7 @@ public class KenNgramModel extends AbstractStandardNgramModel {
      * Integerize a word and register it with the LM, if needed.
      */
     public int id(String token) {
-	synchronized (this) {
+	synchronized (vocabList) { // nb: shared with workers
 	    long hash = 0;
 	    try {
 		hash = MurmurHash.hash64(token);
@@ -74,6 +74,25 @@ public class LinearNgramScorerCombo extends NgramScorer implements FeatureExtrac
         }
     }
     
+    /** Returns true if all the component models are concurrent. */
+    protected boolean isConcurrent() {
+        for (int i = 0; i < models.length; i++) {
+            if (!models[i].isConcurrent()) return false;
+        }
+        return true;
+    }
+    
+    /** Returns a new worker, with workers for the component models sharing its wordsToScore. */
+    protected NgramScorer newWorker() {
+        LinearNgramScorerCombo retval = (LinearNgramScorerCombo) super.newWorker();
+        retval.models = new NgramScorer[models.length];
+        for (int i = 0; i < models.length; i++) {
+            retval.models[i] = models[i].newWorker();
+            retval.models[i].shareWordsToScore(retval.wordsToScore);
+        }
+        return retval;
+    }
+    
     /** Sets wordsToScore to the given list, for sharing purposes. */
     protected void shareWordsToScore(List<Word> wordsToScore) {
         this.wordsToScore = wordsToScore;
@@ -121,6 +140,7 @@ public class LinearNgramScorerCombo extends NgramScorer implements FeatureExtrac
 	/** Sets the flag for including interpolated log prob as a feature. */
 	public void setInterpLogProb(boolean useInterpLogProb) { 
 		this.useInterpLogProb = useInterpLogProb; 
+		resetWorkers();
 	}
 	
     /**
@@ -132,7 +152,7 @@ public class LinearNgramScorerCombo extends NgramScorer implements FeatureExtrac
 	 * the flag for including the interpolated log prob as a feature is set (the default).
      */
     public FeatureVector extractLogProbs(Sign sign, boolean complete) {
-		FeatureList retval = new FeatureList(models.length+1);
+		SparseFeatureVector retval = new SparseFeatureVector(models.length+1);
 		if (useInterpLogProb) {
 	        Alphabet.Feature f = alphabet.index("$ngram");
 			if (f != null) retval.add(f, (float)logprob(sign, complete));
@@ -0,0 +1,632 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (C) 2026 OpenCCG contributors
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+//////////////////////////////////////////////////////////////////////////////
+
+package opennlp.ccg.ngrams;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+import gnu.trove.TFloatHashSet;
+import gnu.trove.TObjectIntHashMap;
+
+import opennlp.ccg.lexicon.DefaultTokenizer;
+import opennlp.ccg.lexicon.Tokenizer;
+import opennlp.ccg.lexicon.Word;
+
+/**
+ * A scorer for a standard n-gram backoff model stored in a compact
+ * binary format, which is memory-mapped rather than read into the heap,
+ * so that loading takes little time and the pages can be shared
+ * by multiple processes.  The scores are the same as with
+ * StandardNgramModel, up to the quantization of the log probs
+ * and backoff weights, which only takes place if there are more
+ * than 65536 distinct values for an n-gram order.
+ * Unknown words are mapped to &lt;unk&gt; if the latter is present in
+ * the model.
+ * <p>
+ * A model in ARPA format is converted to the binary format using
+ * <code>convert</code>, or from the command line via <code>main</code>.
+ * In the binary format, the words are assigned integer ids, and
+ * for each order, the n-grams are stored as a sorted array of
+ * their word ids, together with parallel arrays of 16-bit codes
+ * for the log probs and backoff weights, which index per-order tables
+ * of values.
+ */
+public class MappedNgramModel extends AbstractStandardNgramModel
+{
+	/** The magic number identifying the binary format. */
+	public static final int MAGIC = 0x43434c4d; // "CCLM"
+
+	/** The version of the binary format. */
+	public static final int VERSION = 1;
+
+	// the max number of values per order in the log prob and backoff tables
+	private static final int MAX_CODES = 1 << 16;
+
+	// the vocab, mapping words to ids
+	private TObjectIntHashMap vocab;
+
+	// the number of n-grams, per order
+	// nb: numNgrams is limited to ints, so the searches use these counts
+	private long[] ngramCounts;
+
+	// the n-gram word ids, per order
+	private MappedInts[] ngramIds;
+
+	// the log prob and backoff codes, per order
+	private MappedChars[] logprobCodes, bowCodes;
+
+	// the log prob and backoff values, per order
+	private float[][] logprobValues, bowValues;
+
+
+	/**
+     * Loads an n-gram model of the given order in binary format from
+     * the given file, with the given flag controlling whether words are
+     * replaced by their semantic classes.
+     * The order must not exceed the order of the stored model.
+     */
+	public MappedNgramModel(int order, String filename, boolean useSemClasses) throws IOException {
+		super(order, useSemClasses);
+		readModel(new File(filename));
+	}
+
+	/**
+     * Loads an n-gram model of the given order in binary format from
+     * the given file. Words are not replaced by their semantic classes.
+     */
+	public MappedNgramModel(int order, String filename) throws IOException {
+		this(order, filename, false);
+	}
+
+
+	//-----------------------------------------------------------------
+	// loading
+
+	// reads the header and maps the n-gram arrays
+	private void readModel(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(raf.getFD())));
+			if (in.readInt() != MAGIC) throw new IOException("Not a binary n-gram model: " + file);
+			int version = in.readInt();
+			if (version != VERSION) throw new IOException("Unsupported binary n-gram model version: " + version);
+			int storedOrder = in.readInt();
+			if (order > storedOrder)
+				throw new IOException("Order " + order + " exceeds that of the stored model: " + storedOrder);
+			long dataOffset = in.readLong();
+			// vocab
+			int numWords = in.readInt();
+			vocab = new TObjectIntHashMap(numWords * 2);
+			for (int i = 0; i < numWords; i++) vocab.put(in.readUTF().intern(), i);
+			// counts
+			long[] counts = new long[storedOrder];
+			for (int n = 0; n < storedOrder; n++) counts[n] = in.readLong();
+			// value tables
+			logprobValues = new float[order][]; bowValues = new float[order][];
+			for (int n = 0; n < storedOrder; n++) {
+				float[] logprobs = readFloats(in), bows = readFloats(in);
+				if (n < order) { logprobValues[n] = logprobs; bowValues[n] = bows; }
+			}
+			// map the arrays
+			FileChannel channel = raf.getChannel();
+			ngramCounts = new long[order];
+			ngramIds = new MappedInts[order];
+			logprobCodes = new MappedChars[order]; bowCodes = new MappedChars[order];
+			long offset = dataOffset;
+			for (int n = 0; n < order; n++) {
+				long count = counts[n];
+				ngramCounts[n] = count;
+				numNgrams[n] = (int) Math.min(count, Integer.MAX_VALUE);
+				ngramIds[n] = new MappedInts(channel, offset, count * (n+1));
+				offset = align(offset + count * (n+1) * 4);
+				logprobCodes[n] = new MappedChars(channel, offset, count);
+				offset = align(offset + count * 2);
+				if (n < storedOrder-1) {
+					bowCodes[n] = new MappedChars(channel, offset, count);
+					offset = align(offset + count * 2);
+				}
+			}
+		}
+		finally { raf.close(); } // nb: mappings remain valid after closing
+        // set openVocab according to presence of <unk>
+		openVocab = inVocab("<unk>");
+	}
+
+	// reads a table of floats
+	private static float[] readFloats(DataInputStream in) throws IOException {
+		float[] retval = new float[in.readInt()];
+		for (int i = 0; i < retval.length; i++) retval[i] = in.readFloat();
+		return retval;
+	}
+
+	// aligns the offset to a multiple of 8
+	private static long align(long offset) { return (offset + 7) & ~7L; }
+
+
+	/** A read-only array of ints mapped from a file, in chunks of up to 1G. */
+	private static class MappedInts {
+		static final int SHIFT = 28, MASK = (1 << SHIFT) - 1;
+		final IntBuffer[] chunks;
+		MappedInts(FileChannel channel, long offset, long length) throws IOException {
+			chunks = new IntBuffer[(int) ((length + MASK) >>> SHIFT)];
+			for (int i = 0; i < chunks.length; i++) {
+				long size = Math.min(length - ((long) i << SHIFT), 1L << SHIFT);
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + ((long) i << SHIFT) * 4, size * 4).asIntBuffer();
+			}
+		}
+		int get(long index) { return chunks[(int) (index >>> SHIFT)].get((int) (index & MASK)); }
+	}
+
+	/** A read-only array of chars (unsigned shorts) mapped from a file, in chunks of up to 512M. */
+	private static class MappedChars {
+		static final int SHIFT = 28, MASK = (1 << SHIFT) - 1;
+		final CharBuffer[] chunks;
+		MappedChars(FileChannel channel, long offset, long length) throws IOException {
+			chunks = new CharBuffer[(int) ((length + MASK) >>> SHIFT)];
+			for (int i = 0; i < chunks.length; i++) {
+				long size = Math.min(length - ((long) i << SHIFT), 1L << SHIFT);
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + ((long) i << SHIFT) * 2, size * 2).asCharBuffer();
+			}
+		}
+		char get(long index) { return chunks[(int) (index >>> SHIFT)].get((int) (index & MASK)); }
+	}
+
+
+	//-----------------------------------------------------------------
+	// scoring
+
+	/** Returns the id of the given word string in the stored vocab, or -1 if none. */
+	@Override
+	protected int wordId(String s) {
+		return vocab.containsKey(s) ? vocab.get(s) : -1;
+	}
+
+	/** Returns whether the given word string is in the model as a unigram. */
+	@Override
+	protected boolean inVocab(String s) {
+		keyIds[0] = wordId(s);
+		return find(0, 1) >= 0;
+	}
+
+	/**
+	 * Returns the log prob (base 10) of the given sublist of keysList, with
+	 * backoff, or -99 if not found.
+	 */
+	@Override
+    protected float logProb(int pos, int len) {
+		long index = find(pos, len);
+		if (index >= 0) return logprobValues[len-1][logprobCodes[len-1].get(index)];
+        if (len == 1) return -99;
+        float retval = logProb(pos+1, len-1);
+        if (debugScore) System.out.print("(" + (len-1) + "-gram: " + retval + ") ");
+        if (retval > -99) retval += backoffWeight(pos, len-1);
+        return retval;
+    }
+
+    /**
+	 * Returns the back-off weight (log base 10) of the given sublist of
+	 * keysList, or 0 if not found.
+	 */
+	@Override
+    protected float backoffWeight(int pos, int len) {
+		if (bowCodes[len-1] == null) return 0;
+		long index = find(pos, len);
+		if (index >= 0) return bowValues[len-1][bowCodes[len-1].get(index)];
+		return 0;
+    }
+
+	// returns the index of the n-gram with the given sublist of keyIds,
+	// or -1 if not found, using binary search
+	private long find(int pos, int len) {
+		for (int j = pos; j < pos+len; j++) {
+			if (keyIds[j] < 0) return -1;
+		}
+		MappedInts ids = ngramIds[len-1];
+		long lo = 0, hi = ngramCounts[len-1] - 1;
+		while (lo <= hi) {
+			long mid = (lo + hi) >>> 1;
+			long base = mid * len;
+			int cmp = 0;
+			for (int j = 0; j < len && cmp == 0; j++) {
+				int id = ids.get(base + j), key = keyIds[pos+j];
+				cmp = (id < key) ? -1 : ((id > key) ? 1 : 0);
+			}
+			if (cmp < 0) lo = mid + 1;
+			else if (cmp > 0) hi = mid - 1;
+			else return mid;
+		}
+		return -1;
+	}
+
+
+	//-----------------------------------------------------------------
+	// conversion
+
+	// the max number of n-grams sorted in memory at a time when converting
+	// (package-private for testing)
+	static int runSize = 1 << 22;
+
+	/**
+	 * Converts an n-gram model of the given order in ARPA (Doug Paul) format
+	 * from the given reader to the binary format, writing it to the given file.
+	 * The n-grams of each order are sorted in runs of limited size, which are
+	 * written to temporary files in the same directory as the output file and
+	 * then merged, so that the memory required does not depend on the number
+	 * of n-grams.
+	 */
+	public static void convert(int order, Reader in, String filename) throws IOException {
+		File tmpDir = new File(filename).getAbsoluteFile().getParentFile();
+		TObjectIntHashMap vocab = new TObjectIntHashMap();
+		List<String> words = new ArrayList<String>();
+		NgramRuns[] runs = new NgramRuns[order];
+		try {
+			// read n-grams
+			StreamTokenizer tokenizer = initTokenizer(in);
+			String[] tokens = new String[order+2];
+			int[] keyIds = new int[order];
+			boolean foundData = false;
+			int currentOrder = 0;
+			while (tokenizer.ttype != StreamTokenizer.TT_EOF) {
+				readLine(tokenizer, tokens);
+				if (tokens[0] == null) continue;
+				if (tokens[0].equals("\\data\\")) { foundData = true; continue; }
+				if (!foundData) continue;
+				if (tokens[0].equals("ngram")) continue;
+				if (tokens[0].equals("\\end\\")) break;
+				if (tokens[0].equals("\\" + (currentOrder+1) + "-grams:")) {
+					if (currentOrder > 0 && currentOrder <= order) runs[currentOrder-1].finish();
+					currentOrder++;
+					if (currentOrder <= order) runs[currentOrder-1] = new NgramRuns(currentOrder, tmpDir);
+					continue;
+				}
+				if (currentOrder == 0) continue;
+				if (currentOrder > order) break;
+				int n = currentOrder;
+				float logprob = Float.parseFloat(tokens[0]);
+				float bow = (n < order && tokens[n+1] != null) ? Float.parseFloat(tokens[n+1]) : 0;
+				for (int i = 1; i <= n; i++) {
+					String w = tokens[i];
+					if (!vocab.containsKey(w)) { vocab.put(w, words.size()); words.add(w); }
+					keyIds[i-1] = vocab.get(w);
+				}
+				runs[n-1].add(keyIds, logprob, bow);
+			}
+			if (currentOrder > 0 && currentOrder <= order) runs[currentOrder-1].finish();
+			for (int n = 0; n < order; n++) {
+				if (runs[n] == null) runs[n] = new NgramRuns(n+1, tmpDir);
+			}
+			// write header
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)));
+			try {
+				out.writeInt(MAGIC); out.writeInt(VERSION); out.writeInt(order);
+				// compute data offset after writing rest of header to a buffer
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				DataOutputStream header = new DataOutputStream(bytes);
+				header.writeInt(words.size());
+				for (String w : words) header.writeUTF(w);
+				for (int n = 0; n < order; n++) header.writeLong(runs[n].count);
+				float[][] logprobValues = new float[order][], bowValues = new float[order][];
+				for (int n = 0; n < order; n++) {
+					logprobValues[n] = valueTable(runs[n].logprobValues.toArray());
+					writeFloats(header, logprobValues[n]);
+					bowValues[n] = (n < order-1) ? valueTable(runs[n].bowValues.toArray()) : null;
+					writeFloats(header, (n < order-1) ? bowValues[n] : new float[0]);
+				}
+				header.flush();
+				long offset = align(12 + 8 + bytes.size());
+				out.writeLong(offset);
+				bytes.writeTo(out);
+				pad(out, 12 + 8 + bytes.size());
+				// write n-grams, merging the sorted runs, with their codes
+				for (int n = 0; n < order; n++) {
+					offset = runs[n].merge(out, offset, logprobValues[n], bowValues[n]);
+				}
+			}
+			finally { out.close(); }
+		}
+		finally {
+			for (NgramRuns r : runs) {
+				if (r != null) r.delete();
+			}
+		}
+	}
+
+	/**
+	 * The n-grams of one order read so far, with their log probs and backoff weights,
+	 * which are sorted in runs that are written to temporary files.
+	 */
+	private static class NgramRuns {
+
+		// the order
+		final int n;
+
+		// the directory for the temporary files
+		final File tmpDir;
+
+		// the current run, whose buffers grow up to the run size
+		int[] ids; float[] logprobs, bows;
+		int size = 0;
+
+		// the number of n-grams
+		long count = 0;
+
+		// the distinct log probs and backoff weights
+		final TFloatHashSet logprobValues = new TFloatHashSet(), bowValues = new TFloatHashSet();
+
+		// the files with the sorted runs, and the ones with the merged codes
+		final List<File> files = new ArrayList<File>();
+
+		NgramRuns(int n, File tmpDir) {
+			this.n = n; this.tmpDir = tmpDir;
+			int capacity = Math.min(runSize, 1024);
+			ids = new int[capacity * n];
+			logprobs = new float[capacity]; bows = new float[capacity];
+		}
+
+		// adds an n-gram with the given word ids, log prob and backoff weight
+		void add(int[] keyIds, float logprob, float bow) throws IOException {
+			if (size == runSize) flush();
+			if (size == logprobs.length) {
+				int capacity = (int) Math.min(2L * size, runSize);
+				ids = Arrays.copyOf(ids, capacity * n);
+				logprobs = Arrays.copyOf(logprobs, capacity); bows = Arrays.copyOf(bows, capacity);
+			}
+			System.arraycopy(keyIds, 0, ids, size * n, n);
+			logprobs[size] = logprob; bows[size] = bow;
+			// nb: adding 0 turns -0 into 0, so that the tables do not depend on which zero comes first
+			logprobValues.add(logprob + 0f); bowValues.add(bow + 0f);
+			size++; count++;
+		}
+
+		// sorts the current run and writes it to a temporary file
+		void flush() throws IOException {
+			if (size == 0) return;
+			int[] sorted = sortNgrams(ids, n, size);
+			File file = newTempFile();
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			try {
+				for (int i = 0; i < size; i++) {
+					for (int j = 0; j < n; j++) out.writeInt(ids[sorted[i]*n + j]);
+					out.writeFloat(logprobs[sorted[i]]); out.writeFloat(bows[sorted[i]]);
+				}
+			}
+			finally { out.close(); }
+			size = 0;
+		}
+
+		// writes the last run, and releases the buffers
+		void finish() throws IOException {
+			flush();
+			ids = null; logprobs = null; bows = null;
+		}
+
+		// returns a new temporary file, to be deleted when done
+		File newTempFile() throws IOException {
+			File retval = File.createTempFile("ngrams" + n + "-", ".tmp", tmpDir);
+			retval.deleteOnExit();
+			files.add(retval);
+			return retval;
+		}
+
+		// deletes the temporary files
+		void delete() {
+			for (File file : files) file.delete();
+		}
+
+		/**
+		 * Merges the sorted runs, writing the word ids of the n-grams to the given stream,
+		 * followed by the codes for their log probs and then (unless the given backoff
+		 * table is null) the codes for their backoff weights, each padded to an aligned
+		 * offset, and returns the offset after the last padding.
+		 */
+		long merge(DataOutputStream out, long offset, float[] logprobTable, float[] bowTable) throws IOException {
+			List<File> runFiles = new ArrayList<File>(files);
+			File logprobFile = newTempFile(), bowFile = newTempFile();
+			DataOutputStream logprobOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logprobFile)));
+			DataOutputStream bowOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(bowFile)));
+			PriorityQueue<Run> queue = new PriorityQueue<Run>(Math.max(1, runFiles.size()));
+			List<Run> toClose = new ArrayList<Run>();
+			try {
+				for (File file : runFiles) {
+					Run run = new Run(file, n, toClose.size());
+					toClose.add(run);
+					if (run.next()) queue.add(run);
+				}
+				while (!queue.isEmpty()) {
+					Run run = queue.poll();
+					for (int j = 0; j < n; j++) out.writeInt(run.ids[j]);
+					logprobOut.writeChar(code(run.logprob, logprobTable));
+					if (bowTable != null) bowOut.writeChar(code(run.bow, bowTable));
+					if (run.next()) queue.add(run);
+				}
+			}
+			finally {
+				for (Run run : toClose) run.in.close();
+				logprobOut.close(); bowOut.close();
+			}
+			offset = pad(out, offset + count * n * 4);
+			copy(logprobFile, out);
+			offset = pad(out, offset + count * 2);
+			if (bowTable != null) {
+				copy(bowFile, out);
+				offset = pad(out, offset + count * 2);
+			}
+			return offset;
+		}
+	}
+
+	/** A sorted run of n-grams being read back for merging, ordered by its current n-gram. */
+	private static class Run implements Comparable<Run> {
+		final DataInputStream in;
+		final int index;
+		long remaining;
+		final int[] ids;
+		float logprob, bow;
+		Run(File file, int n, int index) throws IOException {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			this.index = index;
+			remaining = file.length() / (4 * n + 8);
+			ids = new int[n];
+		}
+		// reads the next n-gram, returning false if none
+		boolean next() throws IOException {
+			if (remaining == 0) return false;
+			for (int j = 0; j < ids.length; j++) ids[j] = in.readInt();
+			logprob = in.readFloat(); bow = in.readFloat();
+			remaining--;
+			return true;
+		}
+		public int compareTo(Run run) {
+			for (int j = 0; j < ids.length; j++) {
+				if (ids[j] != run.ids[j]) return (ids[j] < run.ids[j]) ? -1 : 1;
+			}
+			return (index < run.index) ? -1 : ((index > run.index) ? 1 : 0);
+		}
+	}
+
+	// copies the given file to the given stream
+	private static void copy(File file, OutputStream out) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] buf = new byte[1 << 16];
+			int len;
+			while ((len = in.read(buf)) > 0) out.write(buf, 0, len);
+		}
+		finally { in.close(); }
+	}
+
+	// writes padding to align the given offset, returning the aligned one
+	private static long pad(DataOutputStream out, long offset) throws IOException {
+		long aligned = align(offset);
+		for (long i = offset; i < aligned; i++) out.writeByte(0);
+		return aligned;
+	}
+
+	// writes a table of floats
+	private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+		out.writeInt(values.length);
+		for (float f : values) out.writeFloat(f);
+	}
+
+	// returns the table of values for the given distinct ones: the values sorted,
+	// if there are not too many, otherwise the midpoints of groups of
+	// consecutive values (keeping the min value, eg -99, as is)
+	private static float[] valueTable(float[] distinct) {
+		float[] sorted = distinct;
+		Arrays.sort(sorted);
+		int numDistinct = sorted.length;
+		if (numDistinct <= MAX_CODES) return sorted;
+		float[] retval = new float[MAX_CODES];
+		retval[0] = sorted[0];
+		int groups = MAX_CODES - 1;
+		for (int g = 0; g < groups; g++) {
+			int first = 1 + (int) ((long) g * (numDistinct-1) / groups);
+			int last = (int) ((long) (g+1) * (numDistinct-1) / groups);
+			retval[g+1] = (sorted[first] + sorted[last]) / 2;
+		}
+		return retval;
+	}
+
+	// returns the code for the given value, ie the index of the nearest one in the table
+	private static char code(float value, float[] table) {
+		int index = Arrays.binarySearch(table, value);
+		if (index < 0) {
+			int ins = -index - 1;
+			if (ins == 0) index = 0;
+			else if (ins == table.length) index = table.length - 1;
+			else index = (value - table[ins-1] <= table[ins] - value) ? ins-1 : ins;
+		}
+		return (char) index;
+	}
+
+	// returns the permutation which sorts the n-grams by their ids, using merge sort
+	private static int[] sortNgrams(final int[] ids, final int n, int total) {
+		int[] perm = new int[total], tmp = new int[total];
+		for (int i = 0; i < total; i++) perm[i] = i;
+		for (int width = 1; width < total; width *= 2) {
+			for (int lo = 0; lo < total; lo += 2*width) {
+				int mid = Math.min(lo + width, total), hi = Math.min(lo + 2*width, total);
+				int i = lo, j = mid, k = lo;
+				while (i < mid && j < hi)
+					tmp[k++] = (compareNgrams(ids, n, perm[i], perm[j]) <= 0) ? perm[i++] : perm[j++];
+				while (i < mid) tmp[k++] = perm[i++];
+				while (j < hi) tmp[k++] = perm[j++];
+			}
+			int[] swap = perm; perm = tmp; tmp = swap;
+		}
+		return perm;
+	}
+
+	// compares the n-grams at the given indices by their ids
+	private static int compareNgrams(int[] ids, int n, int a, int b) {
+		for (int j = 0; j < n; j++) {
+			int idA = ids[a*n + j], idB = ids[b*n + j];
+			if (idA != idB) return (idA < idB) ? -1 : 1;
+		}
+		return 0;
+	}
+
+
+    /** Converts an ARPA model to the binary format, or tests loading and scoring. */
+    public static void main(String[] args) throws IOException {
+
+        String usage = "Usage: java opennlp.ccg.ngrams.MappedNgramModel -convert <order> <arpafile> <binfile>\n" +
+        	"   or: java opennlp.ccg.ngrams.MappedNgramModel <order> <binfile> <tokens> (-reverse)";
+
+        if (args.length == 0 || args[0].equals("-h")) {
+            System.out.println(usage);
+            System.exit(0);
+        }
+
+        long start = System.currentTimeMillis();
+        if (args[0].equals("-convert")) {
+        	String order = args[1]; String lmfile = args[2]; String binfile = args[3];
+        	System.out.println("Converting n-gram model with order " + order + " from: " + lmfile + " to: " + binfile);
+        	convert(Integer.parseInt(order), new BufferedReader(new FileReader(lmfile)), binfile);
+            int secs = (int) (System.currentTimeMillis() - start) / 1000;
+            System.out.println("secs: " + secs);
+        	return;
+        }
+
+        String order = args[0]; String binfile = args[1]; String tokens = args[2];
+        String reversed = (args.length >= 4 && args[3].equals("-reverse")) ? "reversed " : "";
+        System.out.println("Loading " + reversed + "n-gram model with order " + order + " from: " + binfile);
+        MappedNgramModel lm = new MappedNgramModel(Integer.parseInt(order), binfile);
+        if (reversed.length() > 0) lm.setReverse(true);
+        System.out.println("openVocab: " + lm.openVocab);
+        System.out.println("ms: " + (System.currentTimeMillis() - start));
+        System.out.println();
+
+        Tokenizer tokenizer = new DefaultTokenizer();
+        List<Word> words = tokenizer.tokenize(tokens);
+        System.out.println("scoring: " + tokens);
+        System.out.println();
+        lm.debugScore = true;
+        lm.setWordsToScore(words, true);
+        lm.prepareToScoreWords();
+        double logprob = lm.logprob();
+        double score = convertToProb(logprob);
+        System.out.println();
+        System.out.println("score: " + score);
+        System.out.println("logprob: " + logprob);
+        System.out.println("ppl: " + NgramScorer.convertToPPL(logprob / (words.size()-1)));
+    }
+}
@@ -125,6 +125,10 @@ public class NgramPrecisionModel extends NgramScorer implements SelfParaphraseBi
     public boolean getExactMatches() { return exactMatches; }
     
     
+    /** Returns false, as scoring is synchronized instead. */
+    @Override
+    protected boolean isConcurrent() { return false; }
+    
     /** Reduces the words in wordsToScore to reducedWords, before scoring. */
     protected void prepareToScoreWords() {
         reducedWords.clear();
@@ -30,11 +30,17 @@ import java.io.*;
 
 /**
  * Super class for n-gram scoring models.
+ * <p>
+ * A loaded model may be shared across threads: the public scoring methods 
+ * delegate to a per-thread worker, which shares the model data and the 
+ * cache of boundary states but has its own scratch state.
+ * Models which cannot be shared this way (see <code>isConcurrent</code>) 
+ * are synchronized instead.
  *
  * @author      Michael White
  * @version     $Revision: 1.37 $, $Date: 2010/02/25 22:26:11 $
  */
-public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtractor
+public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtractor, Cloneable
 {
 	protected NgramScorer() {}
 	
@@ -62,6 +68,7 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
     /** Set reverse flag, and propagate to any reversible filters. */
     public void setReverse(boolean reverse) { 
         this.reverse = reverse; 
+        resetWorkers();
         if (ngramFilters != null) {
             for (int i = 0; i < ngramFilters.size(); i++) {
                 NgramFilter filter = ngramFilters.get(i);
@@ -71,23 +78,8 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
         }
     }
     
-    /** Root of the n-gram trie.  Nodes store NgramFloats instances. */
-    protected TrieMap<Object,NgramFloats> trieMapRoot = new TrieMap<Object,NgramFloats>(null);
-
-    /** An ngram data object, for holding the log prob and backoff weight. */
-    public static class NgramFloats {
-        /** The log prob. */
-        public float logprob;
-        /** The backoff weight. */
-        public float bow;
-        /** Constructor. */
-        public NgramFloats(float logprob, float bow) {
-            this.logprob = logprob; this.bow = bow; 
-        }
-        
-        @Override
-        public String toString() { return "logprob: " + logprob + ", bow: " + bow; }
-    }
+    /** The n-gram trie, over the ids of the keys in its vocab. */
+    protected NgramTrie trie = new NgramTrie();
 
     
     /** The n-gram totals for different histories. */
@@ -100,7 +92,7 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
     protected boolean debugScore = false;
     
     /** Sets the debug score flag. */
-    public void setDebug(boolean debugScore) { this.debugScore = debugScore; } 
+    public void setDebug(boolean debugScore) { this.debugScore = debugScore; resetWorkers(); } 
     
     /** List of n-gram filters, for identifying unhappy sequences. */
     protected List<NgramFilter> ngramFilters = null;
@@ -109,6 +101,7 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
     public void addFilter(NgramFilter filter) { 
         if (ngramFilters == null) { ngramFilters = new ArrayList<NgramFilter>(); }
         ngramFilters.add(filter);
+        resetWorkers();
     }
 
     
@@ -116,11 +109,40 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
     protected Alphabet alphabet = null;
     
     /** Sets the alphabet, so that features can be filtered to the relevant ones (when present). */
-    public void setAlphabet(Alphabet alphabet) { this.alphabet = alphabet; }
+    public void setAlphabet(Alphabet alphabet) { this.alphabet = alphabet; resetWorkers(); }
     
     
-    /** Weak hash map for cached log probs, keyed from a sign's words. */
-    protected Map<List<Word>,Float> cachedLogProbs = null;
+    /**
+     * The boundary state of a sequence of words, for incremental scoring,
+     * in the manner of KenLM's left and right states.
+     * The state holds the inner log prob of the words, where the
+     * first n-1 words are scored using only the context available
+     * within the words, together with the log probs of these left
+     * boundary words.  When words are combined with preceding ones,
+     * only the left boundary words need to be rescored with
+     * the fuller context; the right boundary context is simply the last
+     * n-1 words, which are available from the words themselves.
+     */
+    public static class NgramState {
+        /** The inner log prob. */
+        public final double logprob;
+        /** The log probs of the left boundary words, using only the context within the words. */
+        public final float[] leftLogProbs;
+        /** Constructor. */
+        public NgramState(double logprob, float[] leftLogProbs) {
+            this.logprob = logprob; this.leftLogProbs = leftLogProbs;
+        }
+
+        @Override
+        public String toString() { return "logprob: " + logprob + ", left: " + Arrays.toString(leftLogProbs); }
+    }
+
+    /** The max number of boundary states to cache per model. */
+    public static int CACHE_CAPACITY = 1 << 17;
+    
+    /** Concurrent bounded cache for boundary states, keyed from a sign's words. */
+    protected ConcurrentBoundedCache<List<Word>,NgramState> cachedLogProbs = 
+        new ConcurrentBoundedCache<List<Word>,NgramState>(CACHE_CAPACITY);
     
     /** Reference to current sign to score. */
     protected Sign signToScore = null;
@@ -130,27 +152,121 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
 
     /** Flag for whether start/end tags were added with the current words. */
     protected boolean tagsAdded = false;
+
+    /** Flags for whether the start and end tags in particular were added with the current words. */
+    protected boolean startTagAdded = false, endTagAdded = false;
+
+    /** Reusable list of segments of the words to score, for incremental scoring. */
+    protected List<Sign> segments = new ArrayList<Sign>();
     
     /** Reusable list of keys for n-gram lookups. */
     protected List<Object> keysList = new ArrayList<Object>();
     
+    /** Reusable array of key ids for n-gram lookups, parallel to keysList. */
+    protected int[] keyIds = new int[8];
+    
+    /** Ensures that keyIds can hold the given number of ids. */
+    protected void ensureKeyIds(int size) {
+        if (keyIds.length < size) keyIds = new int[Math.max(size, keyIds.length*2)];
+    }
+    
     /** Reusable list of keys for n-gram feature lookups. */
     protected List<String> featureKeysList = new ArrayList<String>();
     
     
     /** Gets a cached log prob for the given list of words (or null if none). */
     protected Float getCachedLogProb(List<Word> words) {
-        if (cachedLogProbs == null) return null;
+        NgramState state = getCachedState(words);
+        if (state == null) return null;
+        return (float) state.logprob;
+    }
+
+    /** Gets a cached boundary state for the given list of words (or null if none). */
+    protected NgramState getCachedState(List<Word> words) {
         return cachedLogProbs.get(words);
     }
-    
-    /** Caches a log prob for the given list of words. */
-    protected void putCachedLogProb(List<Word> words, Float logprob) {
-        if (cachedLogProbs == null) cachedLogProbs = new WeakHashMap<List<Word>,Float>();
-        cachedLogProbs.put(words, logprob);
+
+    /** Caches a boundary state for the given list of words. */
+    protected void putCachedState(List<Word> words, NgramState state) {
+        cachedLogProbs.put(words, state);
     }
 
     
+    /** The per-thread workers (null if not yet needed, or if this scorer is a worker). */
+    private transient volatile ThreadLocal<NgramScorer> workers = null;
+    
+    /** Flag for whether this scorer is a worker. */
+    private boolean isWorker = false;
+    
+    /** 
+     * Returns whether this scorer may be shared across threads by using per-thread 
+     * workers (defaults to true).  Scorers which return false are instead 
+     * synchronized.
+     */
+    protected boolean isConcurrent() { return true; }
+    
+    /**
+     * Returns the worker for the current thread, which shares the model data 
+     * and cache with this scorer but has its own scratch state, so that 
+     * scoring can proceed without contention; returns this scorer itself 
+     * if it is a worker or is not concurrent.
+     */
+    protected NgramScorer worker() {
+        if (isWorker || !isConcurrent()) return this;
+        ThreadLocal<NgramScorer> workers = this.workers;
+        if (workers == null) {
+            synchronized (this) {
+                if (this.workers == null) this.workers = new ThreadLocal<NgramScorer>();
+                workers = this.workers;
+            }
+        }
+        NgramScorer retval = workers.get();
+        if (retval == null) {
+            retval = newWorker();
+            workers.set(retval);
+        }
+        return retval;
+    }
+    
+    /** 
+     * Discards the current workers, so that changes to the configuration 
+     * are reflected in new ones. 
+     */
+    protected void resetWorkers() { workers = null; }
+    
+    /**
+     * Returns a new worker, by cloning this scorer and then 
+     * resetting the scratch state with <code>initScratch</code>.
+     * Composite scorers should override this method to give the worker 
+     * workers for the component models.
+     */
+    protected NgramScorer newWorker() {
+        try {
+            NgramScorer retval = (NgramScorer) clone();
+            retval.workers = null;
+            retval.isWorker = true;
+            retval.initScratch();
+            return retval;
+        }
+        catch (CloneNotSupportedException exc) {
+            throw (RuntimeException) new RuntimeException().initCause(exc);
+        }
+    }
+    
+    /** 
+     * Initializes the scratch state, ie the reusable lists for scoring.
+     * Subclasses with further scratch state should override this method.
+     */
+    protected void initScratch() {
+        signToScore = null;
+        wordsToScore = new ArrayList<Word>();
+        segments = new ArrayList<Sign>();
+        keysList = new ArrayList<Object>();
+        keyIds = new int[keyIds.length];
+        featureKeysList = new ArrayList<String>();
+    }
+    
+    
     /** 
      * Returns a score between 0 (worst) and 1 (best) for the given sign 
      * and completeness flag, based on the n-gram score of the sign's words.
@@ -161,7 +277,7 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
      * Otherwise, sets <code>signToScore</code>, calls <code>prepareToScoreWords</code>, 
      * and then returns the result of <code>logprob()</code> converted to a probability.
      */
-    public synchronized double score(Sign sign, boolean complete) {
+    public double score(Sign sign, boolean complete) {
     	return convertToProb(logprob(sign, complete));
     }
     
@@ -175,32 +291,36 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
      * Otherwise, sets <code>signToScore</code>, calls <code>prepareToScoreWords</code>, 
      * and then returns the result of <code>logProb()</code>.
      */
-    public synchronized double logprob(Sign sign, boolean complete) {
+    public double logprob(Sign sign, boolean complete) {
         List<Word> words = sign.getWords(); 
         if (words == null) return 0;
         if (!complete) { // check cache
-            Float logprob = getCachedLogProb(words);
-            if (logprob != null) return logprob;
+            NgramState state = getCachedState(words);
+            if (state != null) return (float) state.logprob;
         }
-        signToScore = sign;
-        setWordsToScore(words, complete);
-        if (ngramFilters != null) {
-            for (int i = 0; i < ngramFilters.size(); i++) {
-                NgramFilter filter = ngramFilters.get(i);
-                if (filter.filterOut(wordsToScore)) return convertToLogProb(0);
+        NgramScorer worker = worker();
+        if (worker != this) return worker.logprob(sign, complete);
+        synchronized (this) {
+            signToScore = sign;
+            setWordsToScore(words, complete);
+            if (ngramFilters != null) {
+                for (int i = 0; i < ngramFilters.size(); i++) {
+                    NgramFilter filter = ngramFilters.get(i);
+                    if (filter.filterOut(wordsToScore)) { signToScore = null; return convertToLogProb(0); }
+                }
             }
+            prepareToScoreWords();
+            double retval = logprob();
+            signToScore = null;
+            return retval;
         }
-        prepareToScoreWords();
-        double retval = logprob();
-        signToScore = null;
-        return retval;
     }
     
     /**
      * Returns an n-gram probability from the given list of words, 
      * by converting the result of the <code>logprob</code> method.
      */
-    public synchronized double score(List<Word> words) {
+    public double score(List<Word> words) {
     	return convertToProb(logprob(words));
     }
     
@@ -210,10 +330,14 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
      * that does not cache results, filter n-grams or ever add 
      * sentence delimiters.
      */
-    public synchronized double logprob(List<Word> words) {
-        setWordsToScore(words, false);
-        prepareToScoreWords();
-        return logprob();
+    public double logprob(List<Word> words) {
+        NgramScorer worker = worker();
+        if (worker != this) return worker.logprob(words);
+        synchronized (this) {
+            setWordsToScore(words, false);
+            prepareToScoreWords();
+            return logprob();
+        }
     }
     
     /** Sets wordsToScore to the given list, for sharing purposes. */
@@ -224,14 +348,15 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
     /**
 	 * Resets wordsToScore to the given ones, reversing them when the reverse
 	 * flag is true, and adding sentence delimiters if not already present, when
-	 * the completeness flag is true. Also sets the tagsAdded flag.
+	 * the completeness flag is true. Also sets the tagsAdded, startTagAdded 
+	 * and endTagAdded flags.
 	 */
     protected void setWordsToScore(List<Word> words, boolean complete) {
         wordsToScore.clear();
-        tagsAdded = false; 
+        tagsAdded = false; startTagAdded = false; endTagAdded = false;
         if (complete && (reverse || words.get(0).getForm() != "<s>")) { 
             wordsToScore.add(Word.createWord("<s>"));
-            tagsAdded = true;
+            tagsAdded = true; startTagAdded = true;
         }
         if (reverse) {
             for (int j = words.size()-1; j >= 0; j--) {
@@ -244,7 +369,7 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
             wordsToScore.addAll(words);
         if (complete && (reverse || words.get(words.size()-1).getForm() != "</s>")) {
             wordsToScore.add(Word.createWord("</s>"));
-            tagsAdded = true;
+            tagsAdded = true; endTagAdded = true;
         }
     }
     
@@ -258,20 +383,24 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
     	// do setup as with scoring
         List<Word> words = sign.getWords(); 
         if (words == null) return featmap;
-        signToScore = sign;
-        setWordsToScore(words, complete);
-        prepareToScoreWords();
-        // count ngrams 
-        int numWords = wordsToScore.size();
-        for (int k=1; k <= order; k++) {
-            int numNgrams = numWords - (k-1);
-            if (numNgrams <= 0) continue;
-            for (int i = 0; i < numNgrams; i++) {
-                incNgrams(featmap, i, k);
+        NgramScorer worker = worker();
+        if (worker != this) return worker.extractFeatureMap(sign, complete);
+        synchronized (this) {
+            signToScore = sign;
+            setWordsToScore(words, complete);
+            prepareToScoreWords();
+            // count ngrams 
+            int numWords = wordsToScore.size();
+            for (int k=1; k <= order; k++) {
+                int numNgrams = numWords - (k-1);
+                if (numNgrams <= 0) continue;
+                for (int i = 0; i < numNgrams; i++) {
+                    incNgrams(featmap, i, k);
+                }
             }
+            // return
+            signToScore = null;
         }
-        // return
-        signToScore = null;
     	return featmap;
     }
     
@@ -282,7 +411,7 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
 	 * the value of a feature named '$ngram' plus the counts of each ngram.
      */
     public FeatureVector extractLogProbs(Sign sign, boolean complete) {
-    	FeatureList retval = new FeatureList(1);
+    	SparseFeatureVector retval = new SparseFeatureVector(1);
 		Alphabet.Feature f = alphabet.index("$ngram");
 		if (f != null) retval.add(f, (float)logprob(sign, complete));
 		return retval;
@@ -342,35 +471,98 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
      * as determined by this language model's <code>logProbFromNgram</code> method.
      * The probabilities for the first n-1 words are backed off to the  
      * lower order probabilities.
-     * If the tagsAdded flag is false, the cache is checked to see whether 
-     * the log prob of the words of signToScore's initial sign has already 
-     * been calculated, and at the end the log prob of signToScore's words 
-     * is stored in the cache.
+     * When the words of signToScore consist of segments with cached boundary 
+     * states, namely the words of its inputs (or the sign itself, 
+     * when complete), plus any added sentence delimiters, the inner 
+     * log probs of the segments are reused, and only the left boundary 
+     * words of each segment are rescored, making the cost proportional 
+     * to the order rather than the length of the words.
+     * If the tagsAdded flag is false, the boundary state of signToScore's 
+     * words is stored in the cache at the end.
+     * The log probs are summed as doubles, to keep rounding differences 
+     * between incremental and from-scratch scoring negligible.
      */
     protected double logprob() {
-        float logProbTotal = 0;
-        int numCached = 0;
-        if (!tagsAdded && signToScore != null) { // check cache for initial words
-            Sign[] inputs = signToScore.getDerivationHistory().getInputs();
-            if (inputs != null) {
-                Sign initialSign = (!reverse) ? inputs[0] : inputs[inputs.length-1];
-                List<Word> initialWords = initialSign.getWords();
-                Float logprob = getCachedLogProb(initialWords);
-                if (logprob != null) {
-                    logProbTotal = logprob.floatValue();
-                    numCached = initialWords.size();
+        double logProbTotal = 0;
+        int numWords = wordsToScore.size();
+        if (setSegments()) {
+            int pos = 0;
+            for (int s = 0; s < segments.size(); s++) {
+                Sign segment = segments.get(s);
+                if (segment == null) { // added tag
+                    logProbTotal += logProbFromNgram(pos);
+                    pos++; continue;
+                }
+                NgramState state = getCachedState(segment.getWords());
+                int len = segment.getWords().size();
+                if (state == null) {
+                    for (int i = pos; i < pos+len; i++) logProbTotal += logProbFromNgram(i);
+                }
+                else {
+                    logProbTotal += state.logprob;
+                    // rescore left boundary words with the preceding context
+                    if (pos > 0) {
+                        for (int j = 0; j < state.leftLogProbs.length; j++) 
+                            logProbTotal += logProbFromNgram(pos+j) - state.leftLogProbs[j];
+                    }
                 }
+                pos += len;
             }
         }
-        for (int i = numCached; i < wordsToScore.size(); i++) {
-            int orderToUse = Math.min(order, i+1);
-            int startPos = i - (orderToUse-1);
-            logProbTotal += logProbFromNgram(startPos, orderToUse);
+        else {
+            for (int i = 0; i < numWords; i++) logProbTotal += logProbFromNgram(i);
         }
-        if (!tagsAdded && signToScore != null) { // add log prob to cache
-            putCachedLogProb(signToScore.getWords(), new Float(logProbTotal));
+        if (!tagsAdded && signToScore != null) { // add boundary state to cache
+            float[] leftLogProbs = new float[Math.min(order-1, numWords)];
+            NgramState firstState = (!segments.isEmpty() && segments.get(0) != null) 
+                ? getCachedState(segments.get(0).getWords()) : null;
+            for (int i = 0; i < leftLogProbs.length; i++) {
+                leftLogProbs[i] = (firstState != null && i < firstState.leftLogProbs.length) 
+                    ? firstState.leftLogProbs[i] : logProbFromNgram(i);
+            }
+            putCachedState(signToScore.getWords(), new NgramState(logProbTotal, leftLogProbs));
         }
-        return logProbTotal;
+        segments.clear();
+        return (float) logProbTotal;
+    }
+    
+    /**
+     * Sets the segments of wordsToScore for incremental scoring, 
+     * returning false if there are none. 
+     * Null segments stand for added sentence delimiters.
+     */
+    private boolean setSegments() {
+        segments.clear();
+        if (signToScore == null) return false;
+        Sign[] inputs = signToScore.getDerivationHistory().getInputs();
+        if (startTagAdded) segments.add(null);
+        if (tagsAdded && getCachedState(signToScore.getWords()) != null) 
+            segments.add(signToScore);
+        else if (inputs == null) { segments.clear(); return false; }
+        else if (!reverse) {
+            for (int i = 0; i < inputs.length; i++) segments.add(inputs[i]);
+        }
+        else {
+            for (int i = inputs.length-1; i >= 0; i--) segments.add(inputs[i]);
+        }
+        if (endTagAdded) segments.add(null);
+        // check that segments cover the words
+        int len = 0;
+        for (int s = 0; s < segments.size(); s++) {
+            Sign segment = segments.get(s);
+            len += (segment == null) ? 1 : segment.getWords().size();
+        }
+        if (len != wordsToScore.size()) { segments.clear(); return false; }
+        return true;
+    }
+    
+    /**
+     * Returns the log prob of the word at the given index in wordsToScore,
+     * using up to n-1 words of preceding context.
+     */
+    protected float logProbFromNgram(int i) {
+        int orderToUse = Math.min(order, i+1);
+        return logProbFromNgram(i - (orderToUse-1), orderToUse);
     }
     
     
@@ -398,6 +590,7 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
     /** Sets the the flag for using ngrams as features. */
 	public void setNgramFeatures(boolean useNgramFeatures) { 
 		this.useNgramFeatures = useNgramFeatures; 
+		resetWorkers();
 	}
 
 	
@@ -437,21 +630,12 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
     }
     
     
-    /**
-	 * Adds the TrieMap children, with their keys, under the given prefix, then
-	 * resets the lists.
-	 */
-    protected void addTrieMapChildren(List<Object> prefix, List<Object> keys, List<TrieMap<Object,NgramFloats>> children) {
-        if (!keys.isEmpty()) {
-            TrieMap<Object,NgramFloats> prefixNode = trieMapRoot.findChildFromList(prefix);
-            prefixNode.addChildren(keys, children);
-        }
-        prefix.clear(); keys.clear(); children.clear();
-    }
-    
-    /** Returns the TrieMap node for the given sublist of keysList. */ 
-    protected TrieMap<Object,NgramFloats> getNode(int pos, int len) {
-        return trieMapRoot.getChildFromList(keysList.subList(pos, pos+len));
+    /** 
+     * Returns the trie node for the given sublist of keyIds (parallel to keysList), 
+     * or -1 if none. 
+     */ 
+    protected int getNode(int pos, int len) {
+        return trie.find(keyIds, pos, len);
     }
     
     
@@ -469,8 +653,8 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
 	 * backoff, or -99 if not found.
 	 */
     protected float logProb(int pos, int len) {
-        TrieMap<Object,NgramFloats> node = getNode(pos, len);
-        if (node != null && node.data != null) return node.data.logprob;
+        int node = getNode(pos, len);
+        if (node >= 0 && trie.hasData(node)) return trie.logprob(node);
         if (len == 1) return -99;
         float retval = logProb(pos+1, len-1);
         if (debugScore) System.out.print("(" + (len-1) + "-gram: " + retval + ") ");
@@ -483,9 +667,9 @@ public abstract class NgramScorer implements SignScorer, Reversible, FeatureExtr
 	 * keysList, or 0 if not found.
 	 */
     protected float backoffWeight(int pos, int len) {
-        TrieMap<Object,NgramFloats> node = getNode(pos, len);
-        if (node != null && node.data != null) {
-            float retval = node.data.bow;
+        int node = getNode(pos, len);
+        if (node >= 0 && trie.hasData(node)) {
+            float retval = trie.bow(node);
             // if (debugScore && retval != 0) System.out.print("(bow: " + retval + ") ");
             return retval;
         }
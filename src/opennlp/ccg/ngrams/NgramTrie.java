@@ -0,0 +1,231 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (C) 2026 OpenCCG contributors
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+//////////////////////////////////////////////////////////////////////////////
+
+package opennlp.ccg.ngrams;
+
+import gnu.trove.*;
+
+/**
+ * A compact n-gram trie over integer key ids, stored in primitive arrays.
+ * Keys (interned word strings or factor keys) are mapped to ids by the
+ * trie's vocabulary.
+ * The nodes are numbered breadth first, with the children of each node
+ * stored contiguously and sorted by key id, so that a child is found by
+ * binary search; each node has a log prob and backoff weight, where a
+ * log prob of NaN indicates a node with no data.
+ * <p>
+ * A trie is built by adding nodes with <code>addNode</code> and setting
+ * their data, and then calling <code>compact</code>, after which it can
+ * be used for lookups (and not further changed).
+ * Once compacted, a trie may be shared across threads.
+ */
+public class NgramTrie {
+
+	/** The index of the root node. */
+	public static final int ROOT = 0;
+
+	// the vocab, mapping keys to ids plus one (so that zero means none)
+	private TObjectIntHashMap vocab = new TObjectIntHashMap();
+
+	// the number of keys
+	private int numKeys = 0;
+
+	// the key ids of the nodes
+	private int[] nodeKeys;
+
+	// the index of the first child of each node, plus an end marker
+	private int[] childStart;
+
+	// the log probs and backoff weights of the nodes
+	private float[] logprobs, bows;
+
+	// the nodes while building, with their children keyed by parent and key id
+	private TIntArrayList tmpParents = new TIntArrayList(), tmpKeys = new TIntArrayList();
+	private TFloatArrayList tmpLogprobs = new TFloatArrayList(), tmpBows = new TFloatArrayList();
+	private TLongIntHashMap tmpChildren = new TLongIntHashMap();
+
+
+	/** Constructor. */
+	public NgramTrie() {
+		// add root
+		tmpParents.add(-1); tmpKeys.add(-1);
+		tmpLogprobs.add(Float.NaN); tmpBows.add(0);
+	}
+
+
+	//-----------------------------------------------------------------
+	// vocab
+
+	/** Returns the id for the given key, or -1 if none. */
+	public int id(Object key) { return vocab.get(key) - 1; }
+
+	/** Returns the id for the given key, adding it to the vocab if necessary. */
+	public int addKey(Object key) {
+		int retval = vocab.get(key) - 1;
+		if (retval >= 0) return retval;
+		retval = numKeys++;
+		vocab.put(key, retval + 1);
+		return retval;
+	}
+
+	/** Returns the number of keys in the vocab. */
+	public int numKeys() { return numKeys; }
+
+
+	//-----------------------------------------------------------------
+	// building
+
+	/**
+	 * Returns the (temporary) index of the child of the given node with
+	 * the given key, adding the child if necessary.
+	 */
+	public int addNode(int parent, Object key) {
+		int keyId = addKey(key);
+		long pair = ((long) parent << 32) | keyId;
+		int retval = tmpChildren.get(pair) - 1;
+		if (retval >= 0) return retval;
+		retval = tmpParents.size();
+		tmpParents.add(parent); tmpKeys.add(keyId);
+		tmpLogprobs.add(Float.NaN); tmpBows.add(0);
+		tmpChildren.put(pair, retval + 1);
+		return retval;
+	}
+
+	/** Sets the log prob and backoff weight of the node with the given (temporary) index. */
+	public void setData(int node, float logprob, float bow) {
+		tmpLogprobs.set(node, logprob); tmpBows.set(node, bow);
+	}
+
+	/** Sets the backoff weight of the node with the given (temporary) index. */
+	public void setBow(int node, float bow) { tmpBows.set(node, bow); }
+
+	/** Returns whether the node with the given (temporary) index has data. */
+	public boolean hasTmpData(int node) { return !Float.isNaN(tmpLogprobs.get(node)); }
+
+	/** Returns the backoff weight of the node with the given (temporary) index. */
+	public float tmpBow(int node) { return tmpBows.get(node); }
+
+	/**
+	 * Compacts the nodes into breadth first order, with the children of
+	 * each node sorted by key id, and releases the structures for building.
+	 */
+	public void compact() {
+		int numNodes = tmpParents.size();
+		int[] parents = tmpParents.toNativeArray();
+		int[] keys = tmpKeys.toNativeArray();
+		// group nodes by depth, noting that parents precede children
+		int[] depths = new int[numNodes];
+		int maxDepth = 0;
+		for (int i = 1; i < numNodes; i++) {
+			depths[i] = depths[parents[i]] + 1;
+			maxDepth = Math.max(maxDepth, depths[i]);
+		}
+		int[] levelStart = new int[maxDepth + 2];
+		for (int i = 0; i < numNodes; i++) levelStart[depths[i] + 1]++;
+		for (int d = 1; d <= maxDepth + 1; d++) levelStart[d] += levelStart[d-1];
+		int[] order = new int[numNodes];
+		int[] fill = levelStart.clone();
+		for (int i = 0; i < numNodes; i++) order[fill[depths[i]]++] = i;
+		// sort each level by new parent index then key id, assigning new indices
+		int[] newIndex = new int[numNodes];
+		long[] sortKeys = new long[numNodes];
+		for (int d = 1; d <= maxDepth; d++) {
+			for (int j = levelStart[d]; j < levelStart[d+1]; j++) {
+				int node = order[j];
+				sortKeys[node] = ((long) newIndex[parents[node]] << 32) | keys[node];
+			}
+			sort(order, levelStart[d], levelStart[d+1], sortKeys);
+			for (int j = levelStart[d]; j < levelStart[d+1]; j++) newIndex[order[j]] = j;
+		}
+		// fill in arrays
+		nodeKeys = new int[numNodes];
+		logprobs = new float[numNodes]; bows = new float[numNodes];
+		childStart = new int[numNodes + 1];
+		for (int j = 0; j < numNodes; j++) {
+			int node = order[j];
+			nodeKeys[j] = keys[node];
+			logprobs[j] = tmpLogprobs.get(node); bows[j] = tmpBows.get(node);
+			if (j > 0) childStart[newIndex[parents[node]] + 1]++;
+		}
+		childStart[0] = 1;
+		for (int j = 1; j <= numNodes; j++) childStart[j] += childStart[j-1];
+		// release building structures
+		tmpParents = null; tmpKeys = null; tmpLogprobs = null; tmpBows = null; tmpChildren = null;
+	}
+
+	// sorts the given range of nodes by their sort keys, using merge sort
+	private static void sort(int[] nodes, int from, int to, long[] sortKeys) {
+		int n = to - from;
+		int[] src = new int[n], dst = new int[n];
+		System.arraycopy(nodes, from, src, 0, n);
+		for (int width = 1; width < n; width *= 2) {
+			for (int lo = 0; lo < n; lo += 2*width) {
+				int mid = Math.min(lo + width, n), hi = Math.min(lo + 2*width, n);
+				int i = lo, j = mid, k = lo;
+				while (i < mid && j < hi)
+					dst[k++] = (sortKeys[src[i]] <= sortKeys[src[j]]) ? src[i++] : src[j++];
+				while (i < mid) dst[k++] = src[i++];
+				while (j < hi) dst[k++] = src[j++];
+			}
+			int[] tmp = src; src = dst; dst = tmp;
+		}
+		System.arraycopy(src, 0, nodes, from, n);
+	}
+
+
+	//-----------------------------------------------------------------
+	// lookup
+
+	/** Returns the index of the child of the given node with the given key id, or -1 if none. */
+	public int child(int node, int keyId) {
+		int lo = childStart[node], hi = childStart[node+1] - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int key = nodeKeys[mid];
+			if (key < keyId) lo = mid + 1;
+			else if (key > keyId) hi = mid - 1;
+			else return mid;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the node for the given sublist of key ids,
+	 * or -1 if none.
+	 */
+	public int find(int[] keyIds, int pos, int len) {
+		int node = ROOT;
+		for (int i = pos; i < pos+len && node >= 0; i++) {
+			if (keyIds[i] < 0) return -1;
+			node = child(node, keyIds[i]);
+		}
+		return node;
+	}
+
+	/** Returns whether the given node has data. */
+	public boolean hasData(int node) { return !Float.isNaN(logprobs[node]); }
+
+	/** Returns the log prob of the given node. */
+	public float logprob(int node) { return logprobs[node]; }
+
+	/** Returns the backoff weight of the given node. */
+	public float bow(int node) { return bows[node]; }
+
+	/** Returns the number of nodes, including the root. */
+	public int numNodes() { return (nodeKeys != null) ? nodeKeys.length : tmpParents.size(); }
+}
@@ -157,6 +157,10 @@ public class SRILMNgramModel extends AbstractStandardNgramModel {
 	 */
 	private native float doLogProb(String word, String[] context);
 
+	/** Returns false, as the native model cannot be shared by per-thread workers. */
+	@Override
+	protected boolean isConcurrent() { return false; }
+
 	/**
 	 * Invokes SRILM to clean up any initialized objects.
 	 */
@@ -68,8 +68,11 @@ public class SRILM_ScorerMaker implements ScorerMaker {
     public void setCVR(CrossValidateRealizer cvr) { this.cvr = cvr; }
     
     
-    /** Stores perplexities for each fold, after calls to prepScorer. */
-    protected List<Double> perplexities = new ArrayList<Double>();
+    /** 
+     * Stores perplexities by fold number, after calls to prepScorer, 
+     * which may be made concurrently. 
+     */
+    protected SortedMap<Integer,Double> perplexities = Collections.synchronizedSortedMap(new TreeMap<Integer,Double>());
     
     /** Gets the n-gram order from the context, defaulting to 3. */
     protected int getOrder() {
@@ -92,6 +95,8 @@ public class SRILM_ScorerMaker implements ScorerMaker {
      * The training/test data are written to foldN-train.txt and foldN-test.txt, 
      * if not already present.
      * The LM file's name is determined by filename(N).
+     * The tool output is shown once the fold is done, so that the output 
+     * of concurrent folds is not interleaved.
      */
     public void prepScorer(File tmpDir, int foldNum, File trainFile, File testFile) throws IOException {
         // write training/test files, if not already present
@@ -99,32 +104,33 @@ public class SRILM_ScorerMaker implements ScorerMaker {
         // make counting command
         String cmd = countNgrams(foldNum);
         // exec command
-        System.out.print("Writing " + getOrder() + "-gram model: " + filename(foldNum) + "\n");
+        StringBuffer log = new StringBuffer();
+        log.append("Writing " + getOrder() + "-gram model: " + filename(foldNum) + "\n");
         Process makeLM = Runtime.getRuntime().exec(cmd, null, tmpDir);
         try {
             InputStream istr = makeLM.getErrorStream(); //.getInputStream();
             int b;
-            while ((b = istr.read()) != -1) { System.out.print((char)b); }
+            while ((b = istr.read()) != -1) { log.append((char)b); }
             int exitval = makeLM.waitFor();
             if (exitval != 0) {
-                System.out.println("(f)ngram-count exitval: " + exitval);
+                log.append("(f)ngram-count exitval: " + exitval + "\n");
             }
         }
         catch (InterruptedException exc) {
             throw (RuntimeException) new RuntimeException().initCause(exc);
         }
-        System.out.println();
+        log.append("\n");
         // make scoring command, for perplexity
         String cmd2 = scoreNgrams(foldNum);
         // exec command
-        System.out.print("Measuring perplexity with: " + filename(foldNum) + "\n");
+        log.append("Measuring perplexity with: " + filename(foldNum) + "\n");
         Process measurePPL = Runtime.getRuntime().exec(cmd2, null, tmpDir);
         try {
             InputStream istr = measurePPL.getInputStream();
             int b;
             StringBuffer sb = new StringBuffer();
             while ((b = istr.read()) != -1) { 
-                System.out.print((char)b); sb.append((char)b); 
+                log.append((char)b); sb.append((char)b); 
             }
             int exitval = measurePPL.waitFor();
             // extract perplexity following "ppl= "
@@ -133,20 +139,21 @@ public class SRILM_ScorerMaker implements ScorerMaker {
             int pplEnd = pplOut.indexOf(" ", pplStart);
             String pplStr = pplOut.substring(pplStart, pplEnd);
             try {
-                perplexities.add(new Double(pplStr));
+                perplexities.put(foldNum, new Double(pplStr));
             }
             catch (NumberFormatException exc) { 
-                System.out.println("Warning, unable to extract perplexity from: " + pplStr);
-                System.out.println(exc.toString());
+                log.append("Warning, unable to extract perplexity from: " + pplStr + "\n");
+                log.append(exc.toString() + "\n");
             }
             if (exitval != 0) {
-                System.out.println("(f)ngram exitval: " + exitval);
+                log.append("(f)ngram exitval: " + exitval + "\n");
             }
         }
         catch (InterruptedException exc) {
             throw (RuntimeException) new RuntimeException().initCause(exc);
         }
-        System.out.println();
+        log.append("\n");
+        System.out.print(log);
     }
     
     /** Writes the training and test files, if not already present. */
@@ -212,10 +219,9 @@ public class SRILM_ScorerMaker implements ScorerMaker {
         // summarize to sysout
         double sum = 0;
         System.out.print("Perplexities: ");
-        for (int i = 0; i < perplexities.size(); i++) {
-            double ppl = perplexities.get(i).doubleValue();
+        for (Double ppl : perplexities.values()) {
             System.out.print(ppl + " ");
-            sum += ppl;
+            sum += ppl.doubleValue();
         }
         System.out.println();
         double avg = sum / perplexities.size();
@@ -227,8 +233,8 @@ public class SRILM_ScorerMaker implements ScorerMaker {
         System.out.println("Writing perplexities: " + filename);
         PrintWriter pw = new PrintWriter(new FileWriter(new File(tmpDir, filename)));
         pw.println("<perplexities avg=\"" + avg + "\">");
-        for (int i = 0; i < perplexities.size(); i++) {
-            pw.println("  <fold num=\"" + i + "\" ppl=\"" + perplexities.get(i) + "\"/>");
+        for (Map.Entry<Integer,Double> entry : perplexities.entrySet()) {
+            pw.println("  <fold num=\"" + entry.getKey() + "\" ppl=\"" + entry.getValue() + "\"/>");
         }
         pw.println("</perplexities>");
         pw.close();
@@ -29,7 +29,6 @@ import java.util.List;
 import opennlp.ccg.lexicon.DefaultTokenizer;
 import opennlp.ccg.lexicon.Tokenizer;
 import opennlp.ccg.lexicon.Word;
-import opennlp.ccg.util.TrieMap;
 
 /**
  * A scorer for a standard n-gram backoff model. 
@@ -83,16 +82,12 @@ public class StandardNgramModel extends AbstractStandardNgramModel
 	// reads in model
     private void readModel(Reader in) throws IOException {
         // setup
-		//Tokenizer wordTokenizer = (Grammar.theGrammar != null)  
-		//    ? Grammar.theGrammar.lexicon.tokenizer
-		//    : new DefaultTokenizer();
         StreamTokenizer tokenizer = initTokenizer(in); 
         String[] tokens = new String[order+2];
         boolean foundData = false;
         int currentOrder = 0;
-        List<Object> currentPrefix = new ArrayList<Object>();
-        List<Object> currentKeys = null;
-        List<TrieMap<Object,NgramFloats>> currentChildren = null;
+        List<String> currentPrefix = new ArrayList<String>();
+        int currentPrefixNode = NgramTrie.ROOT;
         // loop through lines
         while (tokenizer.ttype != StreamTokenizer.TT_EOF) {
             // read line into tokens
@@ -108,31 +103,13 @@ public class StandardNgramModel extends AbstractStandardNgramModel
                 int total = Integer.parseInt(tokens[1].substring(2));
                 if (n > order) continue;
                 numNgrams[n-1] = total;
-                // init children, keys lists
-                if (currentChildren == null) { 
-                    currentChildren = new ArrayList<TrieMap<Object,NgramFloats>>(total);  
-                    currentKeys = new ArrayList<Object>(total);  
-                }
-                // calc totals (not actually used anymore)
-                if (n == order) {
-                    @SuppressWarnings("unused")
-					int totalNgrams = 0;
-                    for (int i = 0; i < order; i++) { totalNgrams += numNgrams[i]; }
-                    // System.out.println("totalNgrams: " + totalNgrams);
-                }
                 continue;
             }
             // check for final delimiter
-            if (tokens[0].equals("\\end\\")) {
-                // add current children
-                addTrieMapChildren(currentPrefix, currentKeys, currentChildren);
-                break;
-            }
+            if (tokens[0].equals("\\end\\")) break;
             // read line starting new order
             if (tokens[0].equals("\\" + (currentOrder+1) + "-grams:")) { 
-                // add current children
-                addTrieMapChildren(currentPrefix, currentKeys, currentChildren);
-                // System.out.println(tokens[0]);
+                currentPrefix.clear(); currentPrefixNode = NgramTrie.ROOT;
                 currentOrder++; continue; 
             } 
             if (currentOrder == 0) continue;
@@ -153,19 +130,21 @@ public class StandardNgramModel extends AbstractStandardNgramModel
             for (int i = 1; samePrefix && i < currentOrder; i++) {
                 if (tokens[i] != currentPrefix.get(i-1)) samePrefix = false; 
             }
-            // if changed, add current children, reset prefix 
+            // if changed, find prefix node
             if (!samePrefix) {
-                addTrieMapChildren(currentPrefix, currentKeys, currentChildren);
+                currentPrefix.clear(); currentPrefixNode = NgramTrie.ROOT;
                 for (int i = 1; i < currentOrder; i++) {
                     currentPrefix.add(tokens[i]);
+                    currentPrefixNode = trie.addNode(currentPrefixNode, tokens[i]);
                 }
             }
-            String key = tokens[currentOrder];
-            currentKeys.add(key);
-            currentChildren.add(new TrieMap<Object,NgramFloats>(new NgramFloats(logprob, bow)));
+            // add node
+            int node = trie.addNode(currentPrefixNode, tokens[currentOrder]);
+            trie.setData(node, logprob, bow);
         }
+        trie.compact();
         // set openVocab according to presence of <unk>
-        openVocab = (trieMapRoot.getChild("<unk>") != null);
+        openVocab = inVocab("<unk>");
     }
     
     /** Test loading and scoring. */
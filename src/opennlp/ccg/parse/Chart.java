@@ -20,10 +20,13 @@ package opennlp.ccg.parse;
 
 import opennlp.ccg.grammar.*;
 import opennlp.ccg.synsem.*;
+import opennlp.ccg.unify.UnifyControl;
 import gnu.trove.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * An implementation of the table (or chart) used for chart parsers like CKY.
@@ -31,6 +34,11 @@ import java.util.*;
  * cell.  Time or edge or cell limits can be placed on initial chart construction. 
  * A pruning value applies to unpacking, which also limits the number of equivalent 
  * edges kept during chart construction.
+ * The cells for all spans of a given length may also be filled in parallel, 
+ * since they depend only on the cells for shorter spans.
+ * A completed chart may also be extended with further lexical edges, 
+ * in which case only combinations involving at least one new edge are 
+ * tried (semi-naive evaluation).
  * 
  * @author Jason Baldridge
  * @author Gann Bierner
@@ -127,7 +135,7 @@ public class Chart {
 	protected int _size;
 
 	/** The count of edges created before unpacking. */
-	protected int _numEdges = 0;
+	protected volatile int _numEdges = 0;
 	
 	/** The count of edges created while unpacking. */
 	protected int _numUnpackingEdges = 0;
@@ -156,6 +164,12 @@ public class Chart {
 	/** The cell limit on non-lexical edges (0 if none). */
 	protected int _cellLimit = 0;
 	
+	/** The exception which aborted parallel chart construction (null if none). */
+	protected volatile ParseException _abort = null;
+	
+	/** The signs of the edges in the chart prior to the current increment (null if none). */
+	protected Set<Sign> _oldSigns = null;
+	
 	/** Constructor. */
 	public Chart(int s, RuleGroup _R) {
 		_rules = _R; _size = s;
@@ -183,7 +197,13 @@ public class Chart {
 	/** Returns the edge count prior to unpacking. */
 	public int edgeCount() { return _numEdges; }
 	
-	/** Returns the edge count while unpacking. */
+	/** 
+	 * Returns the edge count while unpacking.
+	 * With lazy unpacking, a derivation reached from more than one predecessor 
+	 * in the candidate queue is only created once, so the count can be lower than 
+	 * it was with the earlier sorted-list implementation, which recreated such 
+	 * edges; the n-best lists themselves are unchanged.
+	 */
 	public int unpackingEdgeCount() { return _numUnpackingEdges; }
 	
 	/** Returns the max cell size prior to unpacking. */
@@ -200,6 +220,8 @@ public class Chart {
 	public boolean insert(int x, int y, Sign w) {
 		Cell cell = get(x, y);
 		boolean retval = false;
+		// freeze cat, caching its hash codes for the equiv class lookups
+		w.getCategory().freeze();
 		// make edge
 		Edge edge = new Edge(w);
 		if (w.isLexical()) edge.setWordPos(x);
@@ -215,11 +237,40 @@ public class Chart {
 			addEdgeSorted(edge, rep.altEdges, null, _pruneVal);
 		}
 		// update edge count, max cell size
-		_numEdges++;
-		if (cell.size() > _maxCellSize) _maxCellSize = cell.size();
+		updateCounts(cell.size());
 		// done
 		return retval;
 	}
+	
+	// updates edge count and max cell size, which are shared by parallel cell tasks
+	private synchronized void updateCounts(int cellSize) {
+		_numEdges++;
+		if (cellSize > _maxCellSize) _maxCellSize = cellSize;
+	}
+
+	/** 
+	 * Starts an increment of chart construction, marking the edges 
+	 * currently in the chart as old.  Subsequently, rules are only 
+	 * applied to combinations of edges that involve at least one 
+	 * new edge, as the rest have already been tried. 
+	 * Edge counts and limits carry over from the chart so far, 
+	 * apart from the start time.
+	 */
+	@SuppressWarnings("unchecked")
+	public void startIncrement() {
+		_oldSigns = new THashSet(new TObjectIdentityHashingStrategy());
+		for (int i = 0; i < _size; i++) {
+			for (int j = i; j < _size; j++) {
+				if (_table[i][j] == null) continue;
+				for (Edge edge : _table[i][j].list) _oldSigns.add(edge.sign);
+			}
+		}
+	}
+	
+	// returns whether the given sign's edge predates the current increment
+	private boolean isOld(Sign sign) {
+		return _oldSigns != null && _oldSigns.contains(sign);
+	}
 
 	/** Returns the given cell (ensuring non-null). */
 	protected Cell get(int x, int y) {
@@ -238,6 +289,12 @@ public class Chart {
 	protected void insertCell(int x, int y) throws ParseException {
 		if (_table[x][y] == null) return;
 		List<Sign> inputs = _table[x][y].getSignsSorted();
+		// skip old edges, whose results are already there
+		if (_oldSigns != null) {
+			for (Iterator<Sign> it = inputs.iterator(); it.hasNext(); ) {
+				if (isOld(it.next())) it.remove();
+			}
+		}
 		List<Sign> nextInputs = new ArrayList<Sign>(inputs.size());
 		// repeat until no more inputs
 		while (inputs.size() > 0) {
@@ -270,7 +327,10 @@ public class Chart {
 		List<Sign> inputs1 = _table[x1][y1].getSignsSorted();
 		List<Sign> inputs2 = _table[x2][y2].getSignsSorted();
 		for (Sign sign1 : inputs1) {
+			boolean old1 = isOld(sign1);
 			for (Sign sign2 : inputs2) {
+				// skip combos of old edges, which have already been tried
+				if (old1 && isOld(sign2)) continue;
 				checkLimits();
 				List<Sign> results = _rules.applyBinaryRules(sign1, sign2);
 				for (Sign result : results)
@@ -300,8 +360,81 @@ public class Chart {
 		}
 	}
 
-    // check edge and time limit
+	/**
+	 * Fills in the cells for all spans of the given length using the given pool, 
+	 * as with insertCell(i,k,k+1,j,i,j) for each k followed by insertCell(i,j), 
+	 * or just insertCell(i,i) for spans of length one. 
+	 * Each cell is filled in by a single task in the same order as 
+	 * sequential CKY parsing, so that the results of each task are 
+	 * deterministically merged into the chart.
+	 * The tasks share the current unification session.
+	 * @throws ParseException 
+	 */
+	public void insertCells(int length, ForkJoinPool pool) throws ParseException {
+		insertCells(length, pool, false);
+	}
+	
+	/**
+	 * Fills in the cells for all spans of the given length using the given pool, 
+	 * as with insertCellFrag(i,k,k+1,j,i,j) for each k.
+	 * @throws ParseException 
+	 */
+	public void insertCellsFrag(int length, ForkJoinPool pool) throws ParseException {
+		insertCells(length, pool, true);
+	}
+	
+	// fills in cells for spans of the given length in parallel, rethrowing the first exception
+	private void insertCells(int length, ForkJoinPool pool, boolean frag) throws ParseException {
+		UnifyControl session = UnifyControl.current();
+		List<CellTask> tasks = new ArrayList<CellTask>(_size - length + 1);
+		for (int i = 0; i + length - 1 < _size; i++) 
+			tasks.add(new CellTask(i, i + length - 1, frag, session));
+		try { pool.invoke(new DiagonalTask(tasks)); }
+		catch (AbortException exc) { throw _abort; }
+		finally { _abort = null; }
+	}
+	
+	// unchecked wrapper for the exception which aborted a cell task
+	private static class AbortException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+	}
+	
+	// task for filling in all cells of a diagonal
+	private static class DiagonalTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		final List<CellTask> tasks;
+		DiagonalTask(List<CellTask> tasks) { this.tasks = tasks; }
+		protected void compute() { invokeAll(tasks); }
+	}
+	
+	// task for filling in a single cell, using the given unification session
+	private class CellTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		final int x, y; final boolean frag; final UnifyControl session;
+		CellTask(int x, int y, boolean frag, UnifyControl session) {
+			this.x = x; this.y = y; this.frag = frag; this.session = session;
+		}
+		protected void compute() {
+			UnifyControl prevSession = UnifyControl.bind(session);
+			try {
+				for (int k = x; k < y; k++) {
+					if (frag) insertCellFrag(x, k, k+1, y, x, y);
+					else insertCell(x, k, k+1, y, x, y);
+				}
+				if (!frag) insertCell(x, y);
+			}
+			catch (ParseException exc) {
+				synchronized (Chart.this) { if (_abort == null) _abort = exc; }
+				throw new AbortException();
+			}
+			finally { UnifyControl.bind(prevSession); }
+		}
+	}
+	
+    // check edge and time limit, or abort of parallel tasks
     private void checkLimits() throws ParseException {
+    	ParseException abort = _abort;
+    	if (abort != null) throw abort;
     	if (_edgeLimit > 0 && _numEdges > _edgeLimit) {
     		throw new ParseException(ParseException.EDGE_LIMIT_EXCEEDED);
     	}
@@ -460,7 +593,8 @@ public class Chart {
 	 * Lazily unpacks the edges in the given cell as an n-best list 
 	 * using a variant of "cube pruning".  The algorithm essentially 
 	 * follows Algorithm 2 of Huang and Chiang (2005), with checking 
-	 * for spurious ambiguity.
+	 * for spurious ambiguity.  The candidates are kept in a priority 
+	 * queue, with hashed sets of the candidates seen so far.
 	 */ 
 	@SuppressWarnings("unchecked")
 	public List<Edge> lazyUnpack(int x, int y) {
@@ -479,8 +613,9 @@ public class Chart {
 		// NB: no single edge for top cell, so must treat it as a special case of findKBest
 		List<Edge> retval = new ArrayList<Edge>(_pruneVal);
     	EdgeHash merged = new EdgeHash();
-    	while (merged.size() < _pruneVal && !topcands.isEmpty()) {
-    		appendNext(topcands, merged, derivsmap);
+    	CandidateQueue queue = new CandidateQueue(topcands);
+    	while (merged.size() < _pruneVal && !queue.isEmpty()) {
+    		appendNext(queue, merged, derivsmap);
     	}
     	retval.addAll(merged.asEdgeSet());
     	// rescore edges if apropos
@@ -500,10 +635,10 @@ public class Chart {
     // lazily find k-best derivations, if edge not already visited
     private void findKBest(Edge edge, Map<Edge, List<Edge>> derivsmap) {
     	if (derivsmap.containsKey(edge)) return;
-    	List<Candidate> cands = getCandidates(edge, derivsmap);
+    	CandidateQueue queue = new CandidateQueue(getCandidates(edge, derivsmap));
     	EdgeHash merged = new EdgeHash();
-    	while (merged.size() < _pruneVal && !cands.isEmpty()) {
-    		appendNext(cands, merged, derivsmap);
+    	while (merged.size() < _pruneVal && !queue.isEmpty()) {
+    		appendNext(queue, merged, derivsmap);
     	}
     	List<Edge> derivs = new ArrayList<Edge>(_pruneVal);
     	derivs.addAll(merged.asEdgeSet());
@@ -512,38 +647,95 @@ public class Chart {
     }
     
     // appends next candidate, expands frontier
-    private void appendNext(List<Candidate> cands, EdgeHash merged, Map<Edge, List<Edge>> derivsmap) {
+    private void appendNext(CandidateQueue queue, EdgeHash merged, Map<Edge, List<Edge>> derivsmap) {
     	// append next
-    	Candidate cand = cands.remove(0);
+    	Candidate cand = queue.poll();
     	merged.add(cand.edge);
 		// check for lex cand
 		if (cand.indices == null) return;
 		// enumerate frontier
 		for (int i=0; i < cand.indices.length; i++) {
-			// inc nextIndices at i
-			int[] nextIndices = new int[cand.indices.length];
-			for (int m=0; m < nextIndices.length; m++) nextIndices[m] = cand.indices[m];
-			nextIndices[i]++;
+			// skip next indices if already seen with the same input reps
+			int[] nextIndices = queue.probeIndices(cand, i);
+			if (nextIndices == null) continue;
 			Edge next = getEdgeForIndices(cand.edge, cand.inputReps, nextIndices, derivsmap); 
-			// add next candidate, if any, if not already there
-			if (next != null) {
-				Candidate nextCand = new Candidate(next, cand.inputReps, nextIndices);
-				if (!cands.contains(nextCand)) {
-					int index = Collections.binarySearch(cands, nextCand);
-		            index = Math.abs(index) - 1; // convert index to insertion point
-		            if (index >= 0) 
-		            	cands.add(index, nextCand);
-		            else cands.add(nextCand);
-				}
-			}
+			// add next candidate, if any, if not already seen
+			if (next != null) queue.offer(new Candidate(next, cand.inputReps, nextIndices));
 		}
     }
     
+    // hashing strategy for candidates with the same input reps (by identity) and indices, 
+    // which yield the same edge
+    private static TObjectHashingStrategy sameInputsStrategy = new TObjectHashingStrategy() {
+		private static final long serialVersionUID = 1L;
+		public int computeHashCode(Object o) {
+			Candidate c = (Candidate) o;
+			return 31 * System.identityHashCode(c.inputReps) + Arrays.hashCode(c.indices);
+		}
+		public boolean equals(Object o1, Object o2) {
+			Candidate c1 = (Candidate) o1; Candidate c2 = (Candidate) o2;
+			return c1.inputReps == c2.inputReps && Arrays.equals(c1.indices, c2.indices);
+		}
+    };
+    
+    // priority queue of candidates, which ignores candidates already seen; 
+    // the candidates are ordered as in a stably sorted list
+    private static class CandidateQueue {
+    	final PriorityQueue<Candidate> queue;
+    	// candidates seen so far, with equal edges and indices
+    	final Set<Candidate> seen = new HashSet<Candidate>();
+    	// candidates seen so far, with the same input reps and indices
+    	@SuppressWarnings("unchecked")
+    	final Set<Candidate> seenInputs = new THashSet(sameInputsStrategy);
+    	// reusable candidate for probing seenInputs
+    	final Candidate probe = new Candidate(null, null, null);
+    	// count of candidates added, for breaking ties in order of addition
+    	int count = 0;
+    	// makes a queue from the given sorted candidates
+    	CandidateQueue(List<Candidate> cands) {
+    		queue = new PriorityQueue<Candidate>(Math.max(cands.size(), 1), candidateComparator);
+    		for (Candidate cand : cands) {
+    			cand.order = count++; queue.add(cand);
+    			seen.add(cand);
+    			if (cand.indices != null) seenInputs.add(cand);
+    		}
+    	}
+    	boolean isEmpty() { return queue.isEmpty(); }
+    	Candidate poll() { return queue.poll(); }
+    	// returns the given candidate's indices incremented at i, or null if already seen with the same input reps
+    	int[] probeIndices(Candidate cand, int i) {
+    		int len = cand.indices.length;
+    		if (probe.indices == null || probe.indices.length != len) probe.indices = new int[len];
+    		System.arraycopy(cand.indices, 0, probe.indices, 0, len);
+    		probe.indices[i]++;
+    		probe.inputReps = cand.inputReps;
+    		if (seenInputs.contains(probe)) return null;
+    		int[] retval = probe.indices; 
+    		probe.indices = null;
+    		return retval;
+    	}
+    	// adds the given candidate, unless already seen
+    	void offer(Candidate cand) {
+    		seenInputs.add(cand);
+    		if (!seen.add(cand)) return;
+    		cand.order = count++; queue.add(cand);
+    	}
+    }
+    
+	// orders candidates by their natural ordering, then by the order in which they were added
+    private static final Comparator<Candidate> candidateComparator = new Comparator<Candidate>() {
+		public int compare(Candidate c1, Candidate c2) {
+			int retval = c1.compareTo(c2);
+			if (retval != 0) return retval;
+			return (c1.order < c2.order) ? -1 : ((c1.order > c2.order) ? 1 : 0);
+		}
+	};
+	
 	// candidate is an edge plus an array of indices for keeping track of 
 	// where to pull candidates from next (or null if lexical),  
     // using the input representatives
 	private static class Candidate implements Comparable<Candidate> {
-		Edge edge; Edge[] inputReps; int[] indices;
+		Edge edge; Edge[] inputReps; int[] indices; int order;
 		Candidate(Edge edge, Edge[] inputReps, int[] indices) { 
 			this.edge = edge; this.inputReps = inputReps; this.indices = indices; 
 		}
@@ -574,6 +766,9 @@ public class Chart {
 			}
 			return edge.equals(c.edge);
 		}
+		public int hashCode() {
+			return 31 * edge.hashCode() + Arrays.hashCode(indices);
+		}
 	}
 	
 	// get candidates for unpacking an edge
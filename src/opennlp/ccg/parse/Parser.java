@@ -29,11 +29,16 @@ import opennlp.ccg.unify.*;
 import opennlp.ccg.util.Pair;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.prefs.Preferences;
 
 /**
  * The parser is a CKY chart parser for CCG, optionally  
  * with iterative beta-best supertagging and n-best output.
+ * A parser holds the state of its latest parse, including its own 
+ * unification session (see UnifyControl), and is thus cheap to create. 
+ * To parse concurrently, a separate parser should be used for each thread;  
+ * the grammar (lexicon, rules and types) can be shared by all of them.
  *
  * @author      Jason Baldridge
  * @author      Gann Bierner
@@ -66,6 +71,12 @@ public class Parser
     /** Preference key for whether to use lazy unpacking. */
     public static final String PARSE_LAZY_UNPACKING = "Parse Lazy Unpacking";
     
+    /** Preference key for whether to fill in the chart in parallel. */
+    public static final String PARSE_PARALLEL_CHART = "Parse Parallel Chart";
+    
+    /** Preference key for whether to extend the chart incrementally across supertagger beta settings. */
+    public static final String PARSE_INCREMENTAL_CHART = "Parse Incremental Chart";
+    
 	/** The grammar. */
 	public final Grammar grammar;
 	
@@ -90,6 +101,15 @@ public class Parser
 	/** The lazy unpacking flag. (Default is none.) */
 	protected Boolean lazyUnpacking = null;
 	
+	/** The parallel chart flag. (Default is none.) */
+	protected Boolean parallelChart = null;
+	
+	/** The incremental chart flag. (Default is none.) */
+	protected Boolean incrementalChart = null;
+	
+	/** The pool for filling in the chart in parallel. (Default is the common pool.) */
+	protected ForkJoinPool chartPool = null;
+	
     /** Supertagger to use. (Default is none.) */
     protected Supertagger supertagger = null;
     
@@ -132,9 +152,26 @@ public class Parser
     // lazy unpacking flag to use
     private boolean lazyUnpackingToUse = true;
     
+    // parallel chart flag to use
+    private boolean parallelChartToUse = false;
+    
+    // incremental chart flag to use
+    private boolean incrementalChartToUse = false;
+    
+    // unification session for this parser
+    private final UnifyControl unifyControl = new UnifyControl();
+    
     // current chart
     private Chart chart = null;
     
+    // the number of var indices allotted to the lexical signs for each word, 
+    // when the chart may be extended
+    private static final int LEX_VAR_INDICES_PER_WORD = 1000;
+    
+    // the next var index for the lexical signs for each word, 
+    // if the chart may be extended (otherwise null)
+    private int[] lexVarIndices = null;
+    
     // parse results
     private ArrayList<Sign> result;
 
@@ -169,6 +206,22 @@ public class Parser
 	/** Sets the lazy unpacking flag. */
 	public void setLazyUnpacking(Boolean b) { this.lazyUnpacking = b; }
 	
+	/** Sets the parallel chart flag. */
+	public void setParallelChart(Boolean b) { this.parallelChart = b; }
+	
+	/** 
+	 * Sets the incremental chart flag.  With a supertagger, when no parse 
+	 * is found and the next beta setting is tried, the chart is then 
+	 * extended with just the newly admitted lexical signs, rather than 
+	 * being rebuilt.  The chart is not extended when a cell pruning 
+	 * value is in effect, as the edges displaced from a full cell 
+	 * may already have been combined.
+	 */
+	public void setIncrementalChart(Boolean b) { this.incrementalChart = b; }
+	
+	/** Sets the pool for filling in the chart in parallel. */
+	public void setChartPool(ForkJoinPool pool) { this.chartPool = pool; }
+	
 	/** Sets the supertagger. */
 	public void setSupertagger(Supertagger supertagger) { this.supertagger = supertagger; }
 
@@ -195,6 +248,14 @@ public class Parser
      * Parses a list of words.
      */
     public void parse(List<Word> words) throws ParseException {
+    	// use this parser's unification session while parsing
+    	UnifyControl prevSession = UnifyControl.bind(unifyControl);
+    	try { parseWords(words); }
+    	finally { UnifyControl.bind(prevSession); }
+    }
+    
+    // parses words using the current unification session
+    private void parseWords(List<Word> words) throws ParseException {
     	// set up timing: use limit from prefs unless explicitly set
 		Preferences prefs = Preferences.userNodeForPackage(TextCCG.class);
     	if (timeLimit >= 0) timeLimitToUse = timeLimit;
@@ -207,6 +268,10 @@ public class Parser
     	else cellPruneValToUse = prefs.getInt(PARSE_CELL_PRUNING_VALUE, NO_PRUNING);
     	if (lazyUnpacking != null) lazyUnpackingToUse = lazyUnpacking;
     	else lazyUnpackingToUse = prefs.getBoolean(PARSE_LAZY_UNPACKING, true);
+    	if (parallelChart != null) parallelChartToUse = parallelChart;
+    	else parallelChartToUse = prefs.getBoolean(PARSE_PARALLEL_CHART, false);
+    	if (incrementalChart != null) incrementalChartToUse = incrementalChart;
+    	else incrementalChartToUse = prefs.getBoolean(PARSE_INCREMENTAL_CHART, false);
     	// supertagger case: iterative beta-best
     	if (supertagger != null) {
     		parseWithSupertagger(words);
@@ -217,13 +282,14 @@ public class Parser
         	// init
         	long lexStartTime = System.currentTimeMillis();
             UnifyControl.startUnifySequence();
-            // get entries for each word
+            // get unfiltered entries for each word, whatever the default supertagger in the shared lexicon
             List<SignHash> entries = new ArrayList<SignHash>(words.size());
             for (Word w : words) {
-            	entries.add(lexicon.getSignsFromWord(w));
+            	entries.add(lexicon.getSignsFromWord(w, null));
             }
             lexTime = (int) (System.currentTimeMillis() - lexStartTime);
             // do parsing
+            lexVarIndices = null;
             parseEntries(entries);
         } catch (LexException e) {
         	setGiveUpTime();
@@ -246,35 +312,56 @@ public class Parser
 
     // iterative beta-best parsing
     private void parseWithSupertagger(List<Word> words) throws ParseException {
-    	// set supertagger in lexicon
-    	grammar.lexicon.setSupertagger(supertagger);
     	// ensure gluing off
     	gluingFragments = false;
     	// reset beta
     	if (stMostToLeastDir) supertagger.resetBeta();
     	else supertagger.resetBetaToMax();
+    	// check whether the chart may be extended
+    	boolean extensible = incrementalChartToUse && cellPruneValToUse == NO_PRUNING;
+    	// the entries in the current chart, if it can be extended at the next beta setting
+    	List<SignHash> chartEntries = null;
     	// loop
     	boolean done = false;
     	while (!done) {
+            List<SignHash> entries = new ArrayList<SignHash>(words.size());
     		try {
     	    	// init
             	long lexStartTime = System.currentTimeMillis();
-    	        UnifyControl.startUnifySequence();
-                // get filtered entries for each word
-                List<SignHash> entries = new ArrayList<SignHash>(words.size());
+            	// nb: when extending the chart, the unification sequence continues, 
+            	//     so that the vars in the new lexical signs are kept distinct; 
+            	//     when the chart may be extended, var indices are reserved 
+            	//     for the lexical signs for each word, so that they are ordered 
+            	//     by word, as with the chart built all at once
+    	        if (chartEntries == null) {
+    	        	if (extensible) UnifyControl.startUnifySequence(words.size() * LEX_VAR_INDICES_PER_WORD);
+    	        	else UnifyControl.startUnifySequence();
+    	        }
+                // get entries for each word, filtered by the supertagger
                 supertagger.mapWords(words);
                 for (int i=0; i < words.size(); i++) {
                 	supertagger.setWord(i);
                     Word word = words.get(i);
-            		entries.add(lexicon.getSignsFromWord(word));
+            		entries.add(lexicon.getSignsFromWord(word, supertagger));
                 }
                 lexTime = (int) (System.currentTimeMillis() - lexStartTime);
-                // do parsing
-                parseEntries(entries);
+                // get new entries, if the chart can be extended
+                List<List<Sign>> newEntries = null;
+                if (chartEntries != null) {
+                	newEntries = newEntries(chartEntries, entries);
+                	// restart the unification sequence if the chart is to be rebuilt after all
+                	if (newEntries == null) UnifyControl.startUnifySequence(words.size() * LEX_VAR_INDICES_PER_WORD);
+                }
+                chartEntries = null;
+                // do parsing, incrementally if apropos
+                if (newEntries != null) parseNewEntries(newEntries);
+                else {
+                	lexVarIndices = (extensible) ? allotLexVarIndices(entries) : null;
+                	parseEntries(entries);
+                }
                 // done
                 done = true;
-            	// reset supertagger in lexicon, turn gluing off
-            	grammar.lexicon.setSupertagger(null);
+            	// turn gluing off
             	gluingFragments = false;
     		}
     		catch (LexException e) {
@@ -285,8 +372,7 @@ public class Parser
     			// otherwise give up
     			else {
     	        	setGiveUpTime();
-    	        	// reset supertagger in lexicon, turn gluing off
-    	        	grammar.lexicon.setSupertagger(null);
+    	        	// turn gluing off
                 	gluingFragments = false;
     	        	// throw parse exception
     	        	String msg = "Unable to retrieve lexical entries:\n\t" + e.toString();
@@ -298,9 +384,12 @@ public class Parser
     			// check if limits exceeded
     			boolean outwith = e.getMessage() == ParseException.EDGE_LIMIT_EXCEEDED || 
 					e.getMessage() == ParseException.TIME_LIMIT_EXCEEDED;
-    			// continue if more betas and limits not exceeded
-    			if (stMostToLeastDir && supertagger.hasMoreBetas() && !outwith) 
+    			// continue if more betas and limits not exceeded, 
+    			// keeping the completed chart to extend if apropos
+    			if (stMostToLeastDir && supertagger.hasMoreBetas() && !outwith) {
+    				if (lexVarIndices != null) chartEntries = entries;
     				supertagger.nextBeta();
+    			}
     			// or if limits exceeded and moving in the opposite direction
     			else if (!stMostToLeastDir && supertagger.hasLessBetas() && outwith)
     				supertagger.previousBeta();
@@ -318,8 +407,7 @@ public class Parser
 	    				System.out.println("Chart for failed parse:");
 	    				chart.printChart();
     				}
-    	        	// reset supertagger in lexicon, turn gluing off
-    	        	grammar.lexicon.setSupertagger(null);
+    	        	// turn gluing off
                 	gluingFragments = false;
     	        	// rethrow
     				throw e;
@@ -338,10 +426,13 @@ public class Parser
      */
     public List<Double> getScores() { return scores; }
 
+	/** Returns the chart for the latest parse (or null if none). */
+	Chart getChart() { return chart; }
+	
 	/** Returns the edge count prior to unpacking. */
 	public int edgeCount() { return (chart != null) ? chart.edgeCount() : 0; }
 	
-	/** Returns the edge count while unpacking. */
+	/** Returns the edge count while unpacking (see Chart.unpackingEdgeCount). */
 	public int unpackingEdgeCount() { return (chart != null) ? chart.unpackingEdgeCount() : 0; }
 
 	/** Returns the max cell size prior to unpacking. */
@@ -380,6 +471,55 @@ public class Parser
         parse(entries.size());
     }
     
+    // extends the chart with the new lex entries, and parses incrementally
+    private void parseNewEntries(List<List<Sign>> newEntries) throws ParseException {
+    	startTime = System.currentTimeMillis();
+    	// add new entries, with the existing edges marked as old
+    	chart.startIncrement();
+        for (int i=0; i < newEntries.size(); i++) {
+            for (Sign sign : newEntries.get(i)) {
+                Category cat = sign.getCategory();
+                UnifyControl.reindex(cat, lexVarIndices[i]++);
+                chart.insert(i, i, sign);
+            }
+        }
+        // restart the clock, keeping the other settings
+        chart.setStartTime(startTime);
+        // do parsing
+        parse(newEntries.size());
+    }
+    
+    // returns the entries not among the given previous ones for each word, 
+    // or null if any of the previous ones are missing, or if there are 
+    // too many new ones for the var indices remaining for the word
+    private List<List<Sign>> newEntries(List<SignHash> prevEntries, List<SignHash> entries) {
+    	List<List<Sign>> retval = new ArrayList<List<Sign>>(entries.size());
+    	for (int i=0; i < entries.size(); i++) {
+    		SignHash prev = prevEntries.get(i);
+    		List<Sign> newSigns = new ArrayList<Sign>();
+    		int numPrev = 0;
+    		for (Sign sign : entries.get(i).getSignsSorted()) {
+    			if (prev.contains(sign)) numPrev++;
+    			else newSigns.add(sign);
+    		}
+    		if (numPrev < prev.size()) return null;
+    		if (lexVarIndices[i] + newSigns.size() > (i+1) * LEX_VAR_INDICES_PER_WORD) return null;
+    		retval.add(newSigns);
+    	}
+    	return retval;
+    }
+    
+    // returns the first var index reserved for the lexical signs for each word, 
+    // or null if there are too many signs for any word
+    private int[] allotLexVarIndices(List<SignHash> entries) {
+    	int[] retval = new int[entries.size()];
+    	for (int i=0; i < entries.size(); i++) {
+    		if (entries.get(i).size() > LEX_VAR_INDICES_PER_WORD) return null;
+    		retval[i] = i * LEX_VAR_INDICES_PER_WORD;
+    	}
+    	return retval;
+    }
+    
     // initialize the chart
     private void initializeChart(List<SignHash> entries) {
         chart = new Chart(entries.size(), rules);
@@ -387,7 +527,8 @@ public class Parser
             SignHash wh = entries.get(i);
             for (Sign sign : wh.getSignsSorted()) {
                 Category cat = sign.getCategory();
-                UnifyControl.reindex(cat);
+                if (lexVarIndices != null) UnifyControl.reindex(cat, lexVarIndices[i]++);
+                else UnifyControl.reindex(cat);
                 chart.insert(i, i, sign);
             }
         }
@@ -395,7 +536,18 @@ public class Parser
     
     // actual CKY parsing
     private void parse(int size) throws ParseException {
-    	// fill in chart
+    	// fill in chart, in parallel if apropos
+    	if (parallelChartToUse) parseInParallel(size);
+    	else parseSequentially(size);
+        chartTime = (int) (System.currentTimeMillis() - startTime);
+        // extract results
+        createResult(size);
+        parseTime = (int) (System.currentTimeMillis() - startTime);
+        unpackingTime = parseTime - chartTime;
+    }
+    
+    // fills in chart in (j, i, k) order
+    private void parseSequentially(int size) throws ParseException {
         for (int i=0; i<size; i++) {
         	chart.insertCell(i,i);
         }
@@ -417,11 +569,20 @@ public class Parser
                 }
             }
         }
-        chartTime = (int) (System.currentTimeMillis() - startTime);
-        // extract results
-        createResult(size);
-        parseTime = (int) (System.currentTimeMillis() - startTime);
-        unpackingTime = parseTime - chartTime;
+    }
+    
+    // fills in chart one span length at a time, with the cells for each length in parallel
+    private void parseInParallel(int size) throws ParseException {
+    	ForkJoinPool pool = (chartPool != null) ? chartPool : ForkJoinPool.commonPool();
+        for (int length=1; length<=size; length++) {
+        	chart.insertCells(length, pool);
+        }
+        // glue fragments if apropos
+        if (gluingFragments && chart.cellIsEmpty(0, size-1)) {
+            for (int length=2; length<=size; length++) {
+            	chart.insertCellsFrag(length, pool);
+            }
+        }
     }
 	
     // create answer ArrayList
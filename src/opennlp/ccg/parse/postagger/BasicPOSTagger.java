@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -39,6 +40,7 @@ import java.util.logging.Logger;
 import opennlp.ccg.lexicon.Word;
 import opennlp.ccg.parse.tagger.TaggedWord;
 import opennlp.ccg.parse.tagger.ml.MaxentModel;
+import opennlp.ccg.parse.tagger.ml.ZLMEM;
 import opennlp.ccg.parse.supertagger.ml.FeatureExtractor;
 import opennlp.ccg.util.Pair;
 import opennlp.ccg.parse.tagger.io.SRILMFactoredBundleCorpusIterator;
@@ -94,10 +96,20 @@ public class BasicPOSTagger extends POSTagger {
         
         double[] distro = null;        
         
+        // with a ZL model, evaluate the whole sentence in one go
+        double[] sentDistros = null;
+        int numOutcomes = 0;
+        if(tagMod instanceof ZLMEM) {
+            sentDistros = ((ZLMEM)tagMod).evalAll(ftss, Constants.Domain.PROB, null);
+            numOutcomes = ((ZLMEM)tagMod).numOutcomes();
+        }
+        
         int wordIndex = 0;
         for(Collection<Pair<String,Double>> fts : ftss) {
             
-            distro = tagMod.eval(fts);
+            distro = (sentDistros != null) 
+                ? Arrays.copyOfRange(sentDistros, wordIndex * numOutcomes, (wordIndex + 1) * numOutcomes) 
+                : tagMod.eval(fts);
             List<Pair<Double,Integer>> distroList = new ArrayList<Pair<Double,Integer>>(distro.length);
             ind = 0; for(double prob : distro) { distroList.add(new Pair<Double,Integer>(prob, ind++)); }            
             Collections.sort(distroList, comp);                        
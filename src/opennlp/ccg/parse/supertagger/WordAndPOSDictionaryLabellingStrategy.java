@@ -87,6 +87,14 @@ public class WordAndPOSDictionaryLabellingStrategy implements LabellingStrategy,
     // the current tagging.
     private List<TaggedWord> tagging;
     
+    // the sentence most recently tagged, with its POS tagging, its words 
+    // (with POS tags) and their model outcomes (in descending order of probability), 
+    // which don't depend on beta, and are thus cached for reuse across beta levels
+    private List<Word> cachedSentence = null;
+    private List<TaggedWord> cachedTagging = null;
+    private List<Word> cachedWords = null;
+    private List<ProbIndexPair[]> cachedOutcomes = null;
+    
     // POS-specific multipliers to "tighten" or "loosen" up the tagging beam width
     // ("beta") as needed. E.g., the beta for period/full stop might not need to be
     // very permissive, while those for lexical verbs or some fancy punctuation marks
@@ -221,15 +229,29 @@ public class WordAndPOSDictionaryLabellingStrategy implements LabellingStrategy,
      *         {o: score(o)>=[beta * score(bestLabel)]}.
      */
     public List<Pair<Double, String>> multitagWithScores(Word thisWord, Collection<Pair<String, Double>> context, double beta) {
+        return multitagWithScores(thisWord, sortOutcomes(context), beta);
+    }
+
+    // returns the model's outcomes for the given context, in descending order of probability
+    private ProbIndexPair[] sortOutcomes(Collection<Pair<String, Double>> context) {
         // All the scores of the outcomes (the index of each double score
         // is the key which allows us to retrieve the outcome from the model).
         double[] ocs = mo.eval(context);
-        // Sort in descending order of probability.
-        ProbIndexPair[] sortedOutcomes = new ProbIndexPair[ocs.length];
-        for (int i = 0; i < ocs.length; i++) {
-            sortedOutcomes[i] = new ProbIndexPair(new Double(ocs[i]), new Integer(i));
+        return sortOutcomes(ocs, 0, ocs.length);
+    }
+
+    // returns the n outcomes scored in ocs from offset on, in descending order of probability
+    private ProbIndexPair[] sortOutcomes(double[] ocs, int offset, int n) {
+        ProbIndexPair[] sortedOutcomes = new ProbIndexPair[n];
+        for (int i = 0; i < n; i++) {
+            sortedOutcomes[i] = new ProbIndexPair(new Double(ocs[offset + i]), new Integer(i));
         }
         Arrays.sort(sortedOutcomes);
+        return sortedOutcomes;
+    }
+
+    // returns the outcomes among the given sorted ones that meet the beta and dictionary constraints
+    private List<Pair<Double, String>> multitagWithScores(Word thisWord, ProbIndexPair[] sortedOutcomes, double beta) {
         String tempOutcome = "";
         String word = thisWord.getForm();
         String pos = thisWord.getPOS();
@@ -376,8 +398,44 @@ public class WordAndPOSDictionaryLabellingStrategy implements LabellingStrategy,
     // set the current tagging (now only used to set the current POS tagging).
     public void setCurrentTagging(List<TaggedWord> tgging) { tagging = tgging; }
     
+    /**
+     * Returns the beta-best tags for each word in the given sentence.
+     * The POS tagging, features and model outcomes for the sentence are 
+     * cached, so that tagging the same sentence again with a different beta 
+     * only requires filtering the outcomes (and rescoring the tag sequences, 
+     * if apropos, as the rescored probabilities depend on the tags admitted).
+     */
     public List<List<Pair<Double, String>>> multitag(List<Word> sentence, double beta) {
-        List<List<Pair<Double, String>>> results = new ArrayList<List<Pair<Double, String>>>(sentence.size());
+        // get beta-independent results for the sentence, unless already cached
+        if (!sentence.equals(cachedSentence)) cacheSentence(sentence);
+        else setCurrentTagging(cachedTagging);
+        
+        int numWords = cachedWords.size();
+        List<List<Pair<Double, String>>> results = new ArrayList<List<Pair<Double, String>>>(numWords);
+        for (int cursor = 0; cursor < numWords; cursor++) {
+            Word w = cachedWords.get(cursor);
+            ProbIndexPair[] sortedOutcomes = cachedOutcomes.get(cursor);
+            if (seqScorer != null) {
+                // increase the tag ambiguity (for re-scoring using forward-backward).
+                double newBeta = Math.min(beta * minMultiplier, beta / 8);
+                if(beta < 0.00001) { newBeta = Math.min(beta * minMultiplier, beta / 2);  }
+                    results.add(multitagWithScores(w, sortedOutcomes, newBeta));
+            } else { results.add(multitagWithScores(w, sortedOutcomes, beta)); }
+        }
+        
+        List<List<Pair<Double,String>>> finalResults = null;
+        if (seqScorer != null) {
+            // rescore and filter. pass in input sentence (in case, e.g., we have set the includeGold flag).
+            finalResults = betaBestFilter(seqScorer.rescoreSequence(results), beta, sentence);
+        } else {
+            finalResults = results;
+        }       
+        return finalResults;
+    }
+
+    // POS tags the given sentence, extracts its features and gets the model outcomes 
+    // for each word, caching the results
+    private void cacheSentence(List<Word> sentence) {
         Map<Integer, TaggedWord> sent = new TreeMap<Integer, TaggedWord>();
         int cnt = 0;
         
@@ -389,12 +447,21 @@ public class WordAndPOSDictionaryLabellingStrategy implements LabellingStrategy,
         }
 
         List<Collection<Pair<String, Double>>> contexts = fexer.getSentenceFeatures(sent);
+        // With a ZL model, evaluate the whole sentence in one go.
+        double[] sentOcs = null;
+        int numOcs = 0;
+        if (mo instanceof ZLMEM) {
+            ZLMEM zlmo = (ZLMEM) mo;
+            sentOcs = zlmo.evalAll(contexts, Constants.Domain.PROB, null);
+            numOcs = zlmo.numOutcomes();
+        }
 
         // Iterate simultaneously through both the words and the contextual features.
+        List<Word> words = new ArrayList<Word>(sentence.size());
+        List<ProbIndexPair[]> outcomes = new ArrayList<ProbIndexPair[]>(sentence.size());
         Iterator<Word> wds = sentence.iterator();
         Word w = null;
         Iterator<Collection<Pair<String, Double>>> ctxts = contexts.iterator();
-        Collection<Pair<String, Double>> context = null;
 
         int cursor = 0;
         while (wds.hasNext() && ctxts.hasNext()) {
@@ -403,24 +470,16 @@ public class WordAndPOSDictionaryLabellingStrategy implements LabellingStrategy,
             if(w.getPOS() == null) {
                 w = Word.createFullWord(w, w.getForm(), tagging.get(cursor).getPOSTagging().get(0).b, w.getSupertag(), w.getSemClass()); 
             }
-            context = ctxts.next();
-            if (seqScorer != null) {
-                // increase the tag ambiguity (for re-scoring using forward-backward).
-                double newBeta = Math.min(beta * minMultiplier, beta / 8);
-                if(beta < 0.00001) { newBeta = Math.min(beta * minMultiplier, beta / 2);  }
-                    results.add(multitagWithScores(w, context, newBeta));
-            } else { results.add(multitagWithScores(w, context, beta)); }
+            words.add(w);
+            Collection<Pair<String, Double>> context = ctxts.next();
+            outcomes.add((sentOcs != null) ? sortOutcomes(sentOcs, cursor * numOcs, numOcs) : sortOutcomes(context));
             cursor++;
         }
         
-        List<List<Pair<Double,String>>> finalResults = null;
-        if (seqScorer != null) {
-            // rescore and filter. pass in input sentence (in case, e.g., we have set the includeGold flag).
-            finalResults = betaBestFilter(seqScorer.rescoreSequence(results), beta, sentence);
-        } else {
-            finalResults = results;
-        }       
-        return finalResults;
+        cachedSentence = new ArrayList<Word>(sentence);
+        cachedTagging = taggedSent;
+        cachedWords = words;
+        cachedOutcomes = outcomes;
     }
 
     /** 
@@ -553,6 +612,8 @@ public class WordAndPOSDictionaryLabellingStrategy implements LabellingStrategy,
      * Maps the given words to their predicted categories, 
      * so that the beta-best categories can be returned by calls to setWord
      * and getSupertags.
+     * The model outcomes are computed once per sentence, and 
+     * reused when the same words are mapped again at another beta level.
      */
     public void mapWords(List<Word> words) {
         if(hasMoreBetas()) {
@@ -40,15 +40,6 @@ public class ZLMEM extends ZLMaxentModel implements MaxentModel {
      * retrievable by its index with getOutcome(index);
      */
     public double[] eval(Collection<Pair<String, Double>> context) {
-        // Have to turn a collection of pairs into a String[] of feature:activation Strings.
-        // Sloppy and inefficient.  
-        // TODO: A better solution would be to refactor ZLMaxentModel (DNM)
-        String[] inpt = new String[context.size()];
-        int index = -1;
-        for(Pair<String,Double> inp : context) {
-            inpt[++index] = inp.a + ":" + inp.b;
-        }
-        
         return super.eval(context, true, Constants.Domain.PROB);
     }
 }
@@ -0,0 +1,235 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (C) 2026 OpenCCG contributors
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+//////////////////////////////////////////////////////////////////////////////
+
+package opennlp.ccg.parse.tagger.ml;
+
+import gnu.trove.TObjectIntHashMap;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import opennlp.ccg.parse.tagger.Constants.Domain;
+import opennlp.ccg.util.Pair;
+
+/**
+ * Inference for maxent models in the format of Zhang Le's maxent toolkit,
+ * shared by the supertagging, POS tagging and hypertagging models.
+ * Contextual predicates are mapped to int ids at load time, and the parameters
+ * are stored in compressed rows: the parameters of the predicate with id p are
+ * those from predStarts[p] up to predStarts[p+1] in paramOutcomes and paramWeights.
+ * An engine is not changed after loading, so it may be shared across threads;
+ * the distributions are written into caller-supplied buffers.
+ */
+public class ZLMaxentEngine {
+
+    // map from predicates to their ids plus one (as trove returns 0 for missing keys)
+    private final TObjectIntHashMap predIds = new TObjectIntHashMap();
+    private final String[] outcomes;
+    private final int[] predStarts;
+    private final int[] paramOutcomes;
+    private final double[] paramWeights;
+
+    /** Loads the model from the given file. */
+    public ZLMaxentEngine(File modelFile) throws IOException {
+        BufferedReader br = new BufferedReader(new FileReader(modelFile));
+        try {
+            String line = readLine(br);
+            if (line.contains("#")) {
+                line = readLine(br);
+            }
+            // Read in contextual predicates.
+            int numPreds = Integer.parseInt(line.trim());
+            for (int i = 0; i < numPreds; i++) {
+                predIds.put(readLine(br).trim(), i + 1);
+            }
+            // Read in outcomes (labels).
+            outcomes = new String[Integer.parseInt(readLine(br).trim())];
+            for (int j = 0; j < outcomes.length; j++) {
+                outcomes[j] = readLine(br).trim();
+            }
+            // Read parameters, ie the outcomes for each predicate,
+            // whose weights follow in the same order.
+            predStarts = new int[numPreds + 1];
+            int[] oids = new int[Math.max(numPreds, 16)];
+            int fid = 0;
+            for (int q = 0; q < numPreds; q++) {
+                String[] lineParts = readLine(br).trim().split("\\s+");
+                predStarts[q] = fid;
+                for (int p = 1; p < lineParts.length; p++) {
+                    if (fid == oids.length) oids = Arrays.copyOf(oids, 2 * fid);
+                    oids[fid++] = Integer.parseInt(lineParts[p]);
+                }
+            }
+            predStarts[numPreds] = fid;
+            paramOutcomes = Arrays.copyOf(oids, fid);
+            // Load theta.
+            int nTheta = Integer.parseInt(readLine(br).trim());
+            if (nTheta < fid) {
+                throw new IOException("Expected " + fid + " parameters in " + modelFile + ", found " + nTheta);
+            }
+            paramWeights = new double[nTheta];
+            for (int z = 0; z < nTheta; z++) {
+                paramWeights[z] = Double.parseDouble(readLine(br).trim());
+            }
+        } finally {
+            br.close();
+        }
+    }
+
+    // reads the next line, which must be present
+    private static String readLine(BufferedReader br) throws IOException {
+        String line = br.readLine();
+        if (line == null) throw new IOException("Unexpected end of model file");
+        return line;
+    }
+
+    /** Returns the number of outcomes. */
+    public int numOutcomes() {
+        return outcomes.length;
+    }
+
+    /** Returns the outcome with the given index. */
+    public String getOutcome(int index) {
+        return outcomes[index];
+    }
+
+    /** Returns the id of the given contextual predicate, or -1 if the model does not know it. */
+    public int predId(String pred) {
+        return predIds.get(pred) - 1;
+    }
+
+    /**
+     * Computes the distribution over outcomes for the context consisting of the
+     * predicate ids and activations from start (inclusive) to end (exclusive),
+     * writing it into out from offset on, in the given domain.
+     */
+    public void eval(int[] preds, double[] values, int start, int end, double[] out, int offset, Domain domain) {
+        int n = outcomes.length;
+        Arrays.fill(out, offset, offset + n, 0.0);
+        // build up unnormalised log scores
+        for (int i = start; i < end; i++) {
+            int p = preds[i];
+            double v = values[i];
+            for (int j = predStarts[p]; j < predStarts[p + 1]; j++) {
+                out[offset + paramOutcomes[j]] += paramWeights[j] * v;
+            }
+        }
+        // normalise, shifting by the max score to keep the exponents in range
+        double max = Double.NEGATIVE_INFINITY;
+        for (int k = offset; k < offset + n; k++) {
+            if (out[k] > max) max = out[k];
+        }
+        double sum = 0.0;
+        for (int k = offset; k < offset + n; k++) {
+            sum += Math.exp(out[k] - max);
+        }
+        double logZ = max + Math.log(sum);
+        for (int k = offset; k < offset + n; k++) {
+            out[k] = (domain == Domain.PROB) ? Math.exp(out[k] - logZ) : out[k] - logZ;
+        }
+    }
+
+    /**
+     * Computes the distributions over outcomes for each of the given contexts,
+     * writing the one for the i-th context into out from i * numOutcomes() on.
+     */
+    public void eval(Contexts contexts, double[] out, Domain domain) {
+        int n = outcomes.length;
+        for (int i = 0; i < contexts.size; i++) {
+            eval(contexts.preds, contexts.values, contexts.starts[i], contexts.starts[i + 1], out, i * n, domain);
+        }
+    }
+
+    /**
+     * A reusable buffer of contexts, eg those of a sentence's words,
+     * with their predicates mapped to ids; predicates unknown to the
+     * engine are dropped.
+     */
+    public static class Contexts {
+
+        private final ZLMaxentEngine engine;
+        private int[] preds = new int[64];
+        private double[] values = new double[64];
+        // starts[i] is where the i-th context begins, and starts[size] where the last one ends
+        private int[] starts = new int[16];
+        private int size = 0;
+        private int numFeats = 0;
+
+        /** Constructor. */
+        public Contexts(ZLMaxentEngine engine) {
+            this.engine = engine;
+        }
+
+        /** Adds the given predicate and activation to the current context. */
+        public void add(String pred, double value) {
+            int id = engine.predId(pred);
+            if (id < 0) return;
+            if (numFeats == preds.length) {
+                preds = Arrays.copyOf(preds, 2 * numFeats);
+                values = Arrays.copyOf(values, 2 * numFeats);
+            }
+            preds[numFeats] = id;
+            values[numFeats++] = value;
+        }
+
+        /** Ends the current context. */
+        public void endContext() {
+            if (size + 1 == starts.length) starts = Arrays.copyOf(starts, 2 * starts.length);
+            starts[++size] = numFeats;
+        }
+
+        /** Adds a context of predicate-activation pairs. */
+        public void addContext(Collection<Pair<String, Double>> context) {
+            for (Pair<String, Double> pv : context) {
+                add(pv.a, pv.b.doubleValue());
+            }
+            endContext();
+        }
+
+        /**
+         * Adds a context of predicates, which are followed by a colon and
+         * their activation if realValued is true, and are otherwise binary.
+         */
+        public void addContext(String[] context, boolean realValued) {
+            for (String feat : context) {
+                if (realValued) {
+                    int splitPoint = feat.lastIndexOf(':');
+                    add(feat.substring(0, splitPoint), Double.parseDouble(feat.substring(splitPoint + 1)));
+                } else {
+                    add(feat, 1.0);
+                }
+            }
+            endContext();
+        }
+
+        /** Returns the number of contexts. */
+        public int size() {
+            return size;
+        }
+
+        /** Removes all the contexts. */
+        public void clear() {
+            size = 0;
+            numFeats = 0;
+        }
+    }
+}
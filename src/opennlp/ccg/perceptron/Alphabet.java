@@ -19,6 +19,7 @@
 package opennlp.ccg.perceptron;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.io.*;
 
 import opennlp.ccg.util.*;
@@ -36,6 +37,19 @@ import opennlp.ccg.lexicon.DefaultTokenizer;
  * accept new features, and thus can be used to filter out features 
  * not already in the alphabet.
  * 
+ * An alphabet can also be hashed, in which case each feature is mapped to 
+ * one of a fixed number of buckets by hashing its (interned) keys, so that 
+ * no feature names need to be constructed or stored, and the size of the 
+ * alphabet (and thus models) is bounded.  The features for the buckets 
+ * are named by the bucket number prefixed by '#', which is how they 
+ * appear in saved models; a model (or alphabet) file for a hashed alphabet 
+ * has the token "#hashed" and the number of buckets after the size.
+ * Since distinct features may share a bucket, a hashed alphabet keeps 
+ * statistics on collisions, by storing a fingerprint (second hash) of 
+ * the first feature seen in each bucket, and counting the lookups of 
+ * features with different fingerprints.  (With concurrent lookups, 
+ * the statistics are only approximate.)
+ * 
  * The main routine filters the input event file to an output alphabet file,
  * optionally with a table size and pruning threshold.
  * 
@@ -68,6 +82,19 @@ public class Alphabet {
 		public Integer getIndex() { return data; }
 	}
 	
+	/** Feature for a bucket in a hashed alphabet, named by the bucket number prefixed by '#'. */
+	public static class HashedFeature extends Feature {
+		
+		/** Constructor with bucket number. */
+		public HashedFeature(int bucket) { super(bucket); }
+		
+		/** Returns the bucket number prefixed by '#'. */
+		public String name() { return "#" + data; }
+	}
+	
+	/** The token marking a hashed alphabet in model and alphabet files. */
+	public static final String HASHED = "#hashed";
+	
 	
 	// mappings
 	private Feature dict;
@@ -79,18 +106,41 @@ public class Alphabet {
 	// closed flag
 	private boolean closed = false;
 	
+	// the number of hash buckets, or zero if not hashed
+	private int numBuckets = 0;
+	
+	// the features for the buckets, created lazily
+	private AtomicReferenceArray<Feature> buckets;
+	
+	// the fingerprint of the first feature hashed to each bucket (zero if none)
+	private int[] fingerprints;
+	
+	// collision statistics
+	private int occupied = 0;
+	private long lookups = 0, collisions = 0;
+	
 	
 	/** Constructor with initial size. The alphabet is left open. */
 	public Alphabet(int size) {
 		init(size);
 	}
 
-	/** Constructor to load an alphabet from a file. The alphabet is set to closed. */
+	/** 
+	 * Constructor to load an alphabet from a file. The alphabet is set to closed. 
+	 * If the file is for a hashed alphabet, a hashed alphabet with the same 
+	 * number of buckets is created instead.
+	 */
 	public Alphabet(String filename) throws IOException {
 		Reader reader = EventFile.openReader(new File(filename));
 		StreamTokenizer tokenizer = EventFile.initTokenizer(reader);
 		tokenizer.nextToken();
 		int size = Integer.parseInt(tokenizer.sval);
+		int hashedBuckets = readHashed(tokenizer);
+		if (hashedBuckets > 0) {
+			reader.close();
+			initHashed(hashedBuckets);
+			return;
+		}
 		init(size);
 		for (int i=0; i < size; i++) {
 			tokenizer.nextToken();
@@ -107,6 +157,41 @@ public class Alphabet {
 		dictInv = new ArrayList<Feature>(size);
 	}
 	
+	/** 
+	 * Returns a hashed alphabet with the given number of buckets, 
+	 * rounded up to a power of two.
+	 */
+	public static Alphabet hashed(int numBuckets) {
+		Alphabet retval = new Alphabet(0);
+		retval.initHashed(numBuckets);
+		return retval;
+	}
+	
+	// initializes the buckets for a hashed alphabet
+	private void initHashed(int numBuckets) {
+		if (numBuckets <= 0 || numBuckets > (1 << 30)) throw new IllegalArgumentException("Bad number of buckets: " + numBuckets);
+		this.numBuckets = (numBuckets == 1) ? 1 : Integer.highestOneBit(numBuckets - 1) << 1;
+		size = this.numBuckets;
+		dict = null; dictInv = null;
+		buckets = new AtomicReferenceArray<Feature>(this.numBuckets);
+		fingerprints = new int[this.numBuckets];
+	}
+	
+	/** 
+	 * Reads the hashed alphabet token and number of buckets, if present, 
+	 * after the size from the given tokenizer, returning the number of 
+	 * buckets, or zero if not hashed.
+	 */
+	public static int readHashed(StreamTokenizer tokenizer) throws IOException {
+		tokenizer.nextToken();
+		if (tokenizer.ttype == StreamTokenizer.TT_WORD && tokenizer.sval.equals(HASHED)) {
+			tokenizer.nextToken();
+			return Integer.parseInt(tokenizer.sval);
+		}
+		tokenizer.pushBack();
+		return 0;
+	}
+	
 	
 	/** Size. */
 	public int size() { return size; }
@@ -114,6 +199,29 @@ public class Alphabet {
 	/** Closed. */
 	public boolean closed() { return closed; }
 	
+	/** Returns whether the alphabet is hashed. */
+	public boolean hashed() { return numBuckets > 0; }
+	
+	/** Returns the number of buckets used so far in a hashed alphabet. */
+	public int occupiedBuckets() { return occupied; }
+	
+	/** Returns the number of feature lookups in a hashed alphabet. */
+	public long hashedLookups() { return lookups; }
+	
+	/** 
+	 * Returns the number of feature lookups in a hashed alphabet which 
+	 * collided with a different feature already in the bucket. 
+	 */
+	public long hashCollisions() { return collisions; }
+	
+	/** Returns a summary of the collision statistics for a hashed alphabet. */
+	public String collisionStats() {
+		return "buckets: " + numBuckets + " occupied: " + occupied + 
+			" (" + (100.0 * occupied / numBuckets) + "%)" + 
+			" lookups: " + lookups + " collisions: " + collisions + 
+			" (" + ((lookups > 0) ? 100.0 * collisions / lookups : 0) + "%)";
+	}
+	
 	/** Set closed. */
 	public void setClosed(boolean closed) { this.closed = closed; }
 	
@@ -130,6 +238,7 @@ public class Alphabet {
 	
 	/** Add feature with given keys, if not already present, returning added feature. */
 	public Feature add(List<String> keys) {
+		if (numBuckets > 0) return hashedFeature(keys);
 		if (closed) throw new RuntimeException("Can't add to a closed alphabet!");
 		Feature node = (Feature) dict.findChildFromList(keys);
 		return addNode(node);
@@ -137,6 +246,7 @@ public class Alphabet {
 	
 	/** Add feature with given keys, if not already present, returning added feature. */
 	public Feature addLazy(List<TrieMap.KeyExtractor<String>> keyExtractors) {
+		if (numBuckets > 0) return hashedFeatureLazy(keyExtractors);
 		if (closed) throw new RuntimeException("Can't add to a closed alphabet!");
 		Feature node = (Feature) dict.findChildFromLazyList(keyExtractors);
 		return addNode(node);
@@ -181,11 +291,13 @@ public class Alphabet {
 	
 	/** Get or add index of equivalent feature (null if none when closed). */
 	public Feature index(Feature f) {
+		if (f instanceof HashedFeature) return index(f.name());
 		return index(f.traceKeys());
 	}
 	
 	/** Get or add index of feature with given keys (null if none when closed). */
 	public Feature index(List<String> keys) {
+		if (numBuckets > 0) return hashedFeature(keys);
 		if (!closed) return add(keys);
 		Feature node = (Feature) dict.getChildFromList(keys);
 		return node;
@@ -193,13 +305,87 @@ public class Alphabet {
 	
 	/** Get or add index of feature with given key extractors (null if none when closed). */
 	public Feature indexLazy(List<TrieMap.KeyExtractor<String>> keyExtractors) {
+		if (numBuckets > 0) return hashedFeatureLazy(keyExtractors);
 		if (!closed) return addLazy(keyExtractors);
 		Feature node = (Feature) dict.getChildFromLazyList(keyExtractors);
 		return node;
 	}
 	
 	/** Get indexed feature. */
-	public Feature feature(int index) { return dictInv.get(index); }
+	public Feature feature(int index) { 
+		if (numBuckets > 0) return bucket(index);
+		return dictInv.get(index); 
+	}
+	
+	
+	// seeds for the bucket hash and fingerprint
+	private static final int SEED = 0, FINGERPRINT_SEED = 0x9747b28c;
+	
+	// returns the hashed feature for the given keys, 
+	// treating a bucket name as the feature for that bucket
+	private Feature hashedFeature(List<String> keys) {
+		if (keys.size() == 1) {
+			String key = keys.get(0);
+			if (key.length() > 1 && key.charAt(0) == '#') {
+				try { return bucket(Integer.parseInt(key.substring(1))); }
+				catch (NumberFormatException exc) {}
+			}
+		}
+		int h = SEED, fp = FINGERPRINT_SEED;
+		for (int i=0; i < keys.size(); i++) {
+			int k = hashCode(keys.get(i));
+			h = mix(h, k); fp = mix(fp, k);
+		}
+		return hashedFeature(h, fp, keys.size());
+	}
+	
+	// returns the hashed feature for the given key extractors
+	private Feature hashedFeatureLazy(List<TrieMap.KeyExtractor<String>> keyExtractors) {
+		int h = SEED, fp = FINGERPRINT_SEED;
+		for (int i=0; i < keyExtractors.size(); i++) {
+			int k = hashCode(keyExtractors.get(i).getKey());
+			h = mix(h, k); fp = mix(fp, k);
+		}
+		return hashedFeature(h, fp, keyExtractors.size());
+	}
+	
+	// returns the hashed feature for the given hash and fingerprint states, 
+	// updating the collision statistics
+	private Feature hashedFeature(int h, int fp, int len) {
+		int bucket = finish(h, len) & (numBuckets - 1);
+		fp = finish(fp, len) | 1;
+		lookups++;
+		if (fingerprints[bucket] == 0) { fingerprints[bucket] = fp; occupied++; }
+		else if (fingerprints[bucket] != fp) collisions++;
+		return bucket(bucket);
+	}
+	
+	// returns the feature for the given bucket, creating it if necessary
+	private Feature bucket(int bucket) {
+		Feature retval = buckets.get(bucket);
+		if (retval != null) return retval;
+		buckets.compareAndSet(bucket, null, new HashedFeature(bucket));
+		return buckets.get(bucket);
+	}
+	
+	// returns the (cached) hash code of an interned string key
+	private static int hashCode(String key) { return (key != null) ? key.hashCode() : 0; }
+	
+	// mixes a key's hash code into a hash state, as in MurmurHash3
+	private static int mix(int h, int k) {
+		k *= 0xcc9e2d51; k = Integer.rotateLeft(k, 15); k *= 0x1b873593;
+		h ^= k; h = Integer.rotateLeft(h, 13);
+		return h * 5 + 0xe6546b64;
+	}
+	
+	// finishes a hash state, as in MurmurHash3
+	private static int finish(int h, int len) {
+		h ^= len;
+		h ^= h >>> 16; h *= 0x85ebca6b;
+		h ^= h >>> 13; h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
 	
 	
 	/** 
@@ -0,0 +1,357 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (C) 2026 OpenCCG contributors
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+//////////////////////////////////////////////////////////////////////////////
+
+package opennlp.ccg.perceptron;
+
+import java.util.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An event file in a binary format, where the features have already been
+ * indexed using an alphabet, and which is memory-mapped for reading,
+ * so that no parsing or feature lookups are needed on each pass.
+ *
+ * The binary format consists of a header, the blocks, a block index 
+ * and the feature names.
+ * The header contains a magic number, the format version, the number of 
+ * features, the number of blocks and the offset of the block index.
+ * The feature names are those of the alphabet used to create the file, 
+ * in index order, as of when the file was completed; when the file is opened, they are looked up once in 
+ * the given alphabet, so that the file can be read with any alphabet 
+ * (e.g. one loaded with a model), with the features not in a closed 
+ * alphabet skipped, just as with a text event file.
+ * For a hashed alphabet, the feature names are replaced by the 
+ * <code>#hashed</code> marker and the number of buckets, and the file 
+ * must be read with a hashed alphabet with the same number of buckets, 
+ * whose bucket features are then used directly.
+ * Each block consists of the number of events, followed by each event's
+ * count, number of feature-value pairs and the pairs themselves,
+ * where the counts and feature indices are written as variable-length
+ * (base 128) ints, and the values as floats.
+ * The block index contains the offset of each block, which allows the
+ * file to be mapped in segments that break at block boundaries.
+ *
+ * A binary event file can be created from a (text) event file using
+ * the main routine.  The <code>split</code> method splits an event file
+ * into binary shards, for training in parallel.
+ */
+public class BinaryEventFile extends EventFile {
+
+	/** The magic number at the start of a binary event file. */
+	public static final int MAGIC = 0x43434745; // "CCGE"
+
+	/** The format version. */
+	public static final int VERSION = 1;
+
+	// the size of the header
+	private static final int HEADER_SIZE = 24;
+
+	// the max size of a mapped segment
+	private static final long MAX_SEGMENT = 1L << 30;
+
+	// the mapped segments, and the index of the first block in each segment
+	private ByteBuffer[] segments;
+	private int[] segmentStarts;
+
+	// the features in the given alphabet for the ones in the file, or null if none
+	private Alphabet.Feature[] features;
+
+	// the hashed alphabet whose buckets the feature indices are, if the file is hashed
+	private Alphabet bucketAlphabet = null;
+
+	// the number of blocks
+	private int numBlocks;
+
+	// the index of the next block and its segment
+	private int nextBlock = 0;
+	private int nextSegment = 0;
+
+	// the decoded blocks, if kept in memory
+	private Block[] blocks = null;
+
+
+	/** Constructor with filename and alphabet. */
+	public BinaryEventFile(String filename, Alphabet alphabet) throws IOException {
+		this(filename, alphabet, false);
+	}
+
+	/** Constructor with filename, alphabet and in-memory flag. */
+	public BinaryEventFile(String filename, Alphabet alphabet, boolean inMemory) throws IOException {
+		super(new File(filename), alphabet);
+		RandomAccessFile raf = new RandomAccessFile(filename, "r");
+		try {
+			// read header
+			if (raf.readInt() != MAGIC) throw new IOException("Not a binary event file: " + filename);
+			int version = raf.readInt();
+			if (version != VERSION) throw new IOException("Unsupported binary event file version: " + version);
+			int numFeatures = raf.readInt();
+			numBlocks = raf.readInt();
+			long indexOffset = raf.readLong();
+			// read block index
+			long[] offsets = new long[numBlocks+1];
+			raf.seek(indexOffset);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(raf.getFD())));
+			for (int i=0; i < numBlocks; i++) offsets[i] = in.readLong();
+			// look up features, unless hashed
+			features = new Alphabet.Feature[numFeatures];
+			for (int i=0; i < numFeatures; i++) {
+				String name = in.readUTF();
+				if (i == 0 && name.equals(Alphabet.HASHED)) {
+					int numBuckets = in.readInt();
+					if (!alphabet.hashed() || alphabet.size() != numBuckets) {
+						throw new IOException("Binary event file " + filename + " needs a hashed alphabet with " + numBuckets + " buckets");
+					}
+					features = null; bucketAlphabet = alphabet;
+					break;
+				}
+				Alphabet.Feature f = alphabet.index(name);
+				if (f != null && f.getIndex() != null) features[i] = f;
+			}
+			offsets[numBlocks] = indexOffset;
+			// map segments, breaking at block boundaries
+			List<ByteBuffer> segmentList = new ArrayList<ByteBuffer>();
+			List<Integer> startList = new ArrayList<Integer>();
+			FileChannel channel = raf.getChannel();
+			int start = 0;
+			while (start < numBlocks) {
+				int end = start + 1;
+				while (end < numBlocks && offsets[end+1] - offsets[start] <= MAX_SEGMENT) end++;
+				segmentList.add(channel.map(FileChannel.MapMode.READ_ONLY, offsets[start], offsets[end] - offsets[start]));
+				startList.add(start);
+				start = end;
+			}
+			segments = segmentList.toArray(new ByteBuffer[segmentList.size()]);
+			segmentStarts = new int[startList.size() + 1];
+			for (int i=0; i < startList.size(); i++) segmentStarts[i] = startList.get(i);
+			segmentStarts[startList.size()] = numBlocks;
+		}
+		finally {
+			raf.close();
+		}
+		if (inMemory) blocks = new Block[numBlocks];
+	}
+
+
+	/** Returns whether the given file is a binary event file, by checking its magic number. */
+	public static boolean isBinary(File file) throws IOException {
+		if (!file.isFile() || file.length() < HEADER_SIZE) return false;
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try { return in.readInt() == MAGIC; }
+		finally { in.close(); }
+	}
+
+	/** Returns the number of blocks. */
+	public int numBlocks() { return numBlocks; }
+
+	/** Does nothing, as the mapped segments are released when no longer referenced. */
+	public void close() {}
+
+	/** Resets the event file for reading again. */
+	public void reset() {
+		nextBlock = 0; nextSegment = 0;
+		for (ByteBuffer segment : segments) segment.rewind();
+	}
+
+	/** Returns whether the end of the file has been reached. */
+	public boolean endOfFile() { return nextBlock >= numBlocks; }
+
+	/** Reads the next block, or null if none. */
+	public Block nextBlock() {
+		if (nextBlock >= numBlocks) return null;
+		if (nextBlock == segmentStarts[nextSegment+1]) nextSegment++;
+		ByteBuffer buf = segments[nextSegment];
+		// check for saved block
+		if (blocks != null && blocks[nextBlock] != null) {
+			return blocks[nextBlock++];
+		}
+		// otherwise decode block
+		int numEvents = readVarInt(buf);
+		List<Event> events = new ArrayList<Event>(numEvents);
+		for (int i=0; i < numEvents; i++) {
+			int count = readVarInt(buf);
+			int numFeats = readVarInt(buf);
+			SparseFeatureVector fv = new SparseFeatureVector(numFeats);
+			for (int j=0; j < numFeats; j++) {
+				int index = readVarInt(buf);
+				Alphabet.Feature f = (features != null) ? features[index] : bucketAlphabet.feature(index);
+				float value = buf.getFloat();
+				if (f != null) fv.add(f, value);
+			}
+			events.add(new Event(fv, count));
+		}
+		Block retval = new Block(events);
+		if (blocks != null) blocks[nextBlock] = retval;
+		nextBlock++;
+		return retval;
+	}
+
+	// reads a variable-length int
+	private static int readVarInt(ByteBuffer buf) {
+		int retval = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = buf.get();
+			retval |= (b & 0x7f) << shift;
+			if (b >= 0) return retval;
+		}
+	}
+
+
+	/**
+	 * Writer for binary event files.
+	 */
+	public static class Writer {
+
+		// the file
+		private File file;
+
+		// the output stream
+		private DataOutputStream out;
+
+		// the alphabet
+		private Alphabet alphabet;
+
+		// the number of bytes written
+		private long position = HEADER_SIZE;
+
+		// the block offsets
+		private List<Long> offsets = new ArrayList<Long>();
+
+		/** Constructor with file and alphabet. */
+		public Writer(File file, Alphabet alphabet) throws IOException {
+			this.file = file;
+			this.alphabet = alphabet;
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			// write placeholder header
+			out.writeInt(MAGIC); out.writeInt(VERSION);
+			out.writeInt(0); out.writeInt(0); out.writeLong(0);
+		}
+
+		/** Writes the given block, skipping any features not in the alphabet. */
+		public void write(Block block) throws IOException {
+			offsets.add(position);
+			writeVarInt(block.events.size());
+			for (Event event : block.events) {
+				writeVarInt(event.count);
+				int numFeats = 0;
+				for (FeatureVector.Iterator it = event.features.iterator(); it.hasNext(); ) {
+					Integer index = it.nextFeature().getIndex();
+					it.nextValue();
+					if (index != null) numFeats++;
+				}
+				writeVarInt(numFeats);
+				for (FeatureVector.Iterator it = event.features.iterator(); it.hasNext(); ) {
+					Integer index = it.nextFeature().getIndex();
+					Float value = it.nextValue();
+					if (index == null) continue;
+					writeVarInt(index);
+					out.writeFloat(value); position += 4;
+				}
+			}
+		}
+
+		// writes a variable-length int
+		private void writeVarInt(int num) throws IOException {
+			while ((num & ~0x7f) != 0) {
+				out.writeByte((num & 0x7f) | 0x80); position++;
+				num >>>= 7;
+			}
+			out.writeByte(num); position++;
+		}
+
+		/** 
+		 * Writes the block index and feature names (or the hashed marker and 
+		 * number of buckets), and completes the header. 
+		 */
+		public void close() throws IOException {
+			long indexOffset = position;
+			for (long offset : offsets) out.writeLong(offset);
+			int numFeatures = alphabet.size();
+			if (alphabet.hashed()) {
+				out.writeUTF(Alphabet.HASHED); out.writeInt(numFeatures);
+			}
+			else {
+				for (int i=0; i < numFeatures; i++) out.writeUTF(alphabet.feature(i).name());
+			}
+			out.close();
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				raf.seek(8);
+				raf.writeInt(numFeatures);
+				raf.writeInt(offsets.size());
+				raf.writeLong(indexOffset);
+			}
+			finally {
+				raf.close();
+			}
+		}
+	}
+
+
+	/** Converts the given event file to a binary event file with the given name. */
+	public static void convert(EventFile eventFile, String filename) throws IOException {
+		Writer writer = new Writer(new File(filename), eventFile.getAlphabet());
+		EventFile.Block block;
+		while ( (block = eventFile.nextBlock()) != null ) writer.write(block);
+		writer.close();
+	}
+
+	/**
+	 * Splits the given event file into the given number of binary shards,
+	 * assigning the blocks to the shards in turn, and returns the
+	 * shard files, which are created as temporary files.
+	 */
+	public static List<File> split(EventFile eventFile, int numShards) throws IOException {
+		List<File> retval = new ArrayList<File>(numShards);
+		Writer[] writers = new Writer[numShards];
+		for (int i=0; i < numShards; i++) {
+			File shardFile = File.createTempFile("shard" + i + "-", ".bin");
+			shardFile.deleteOnExit();
+			retval.add(shardFile);
+			writers[i] = new Writer(shardFile, eventFile.getAlphabet());
+		}
+		EventFile.Block block;
+		int shard = 0;
+		while ( (block = eventFile.nextBlock()) != null ) {
+			writers[shard].write(block);
+			shard = (shard + 1) % numShards;
+		}
+		for (Writer writer : writers) writer.close();
+		return retval;
+	}
+
+
+	/**
+	 * Converts an event file to a binary event file using the given alphabet.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.out.println("Usage: java perceptron.BinaryEventFile <eventfile> <alphabetfile> <binaryeventfile>");
+			System.exit(0);
+		}
+		String eventfile = args[0];
+		String alphabetfile = args[1];
+		String binaryfile = args[2];
+		System.out.println("Converting " + eventfile + " to " + binaryfile + " using " + alphabetfile);
+		Alphabet alphabet = new Alphabet(alphabetfile);
+		EventFile eventFile = new EventFile(eventfile, alphabet);
+		convert(eventFile, binaryfile);
+		eventFile.close();
+	}
+}
@@ -59,6 +59,11 @@ import opennlp.ccg.synsem.Sign;
  * 0 2 feat1 1.32 feat4 3.21
  * </pre>
  * 
+ * Event files can also be compiled into a binary format, using 
+ * BinaryEventFile, which avoids parsing them on every pass; 
+ * the <code>open</code> factory method returns an event file 
+ * of the appropriate kind.
+ * 
  * @author Michael White
  * @version     $Revision: 1.5 $, $Date: 2009/11/01 22:26:29 $
  */
@@ -138,6 +143,24 @@ public class EventFile {
 		this.alphabet = alphabet;
 		if (inMemory) this.blocks = new ArrayList<Block>(10000);
 	}
+	
+	/** Constructor for subclasses which read the file themselves. */
+	protected EventFile(File file, Alphabet alphabet) {
+		this.file = file;
+		this.alphabet = alphabet;
+	}
+	
+	/**
+	 * Returns an event file for the given filename, alphabet and in-memory flag, 
+	 * which is a BinaryEventFile if the file is in the binary format, and 
+	 * a regular (text) event file otherwise.
+	 */
+	public static EventFile open(String filename, Alphabet alphabet, boolean inMemory) throws IOException {
+		if (BinaryEventFile.isBinary(new File(filename))) 
+			return new BinaryEventFile(filename, alphabet, inMemory);
+		else
+			return new EventFile(filename, alphabet, inMemory);
+	}
 
 	
 	/** Returns the alphabet. */
@@ -196,7 +219,7 @@ public class EventFile {
 		int count = Integer.parseInt(tokenizer.sval); 
 		tokenizer.nextToken();
 		int numFeats = Integer.parseInt(tokenizer.sval); 
-		FeatureList fv = new FeatureList(numFeats);
+		SparseFeatureVector fv = new SparseFeatureVector(numFeats);
 		for (int i=0; i < numFeats; i++) {
 			tokenizer.nextToken();
 			String feat = tokenizer.sval;
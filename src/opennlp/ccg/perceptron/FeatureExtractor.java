@@ -28,7 +28,11 @@ import opennlp.ccg.synsem.*;
  */ 
 public interface FeatureExtractor {
 	
-	/** Returns the features for the given sign and completeness flag. */
+	/** 
+	 * Returns the features for the given sign and completeness flag. 
+	 * Implementations should normally return a SparseFeatureVector (e.g. a FeatureMap), 
+	 * or a ComposedFeatureVector of them, which models can score without boxing. 
+	 */
 	public FeatureVector extractFeatures(Sign sign, boolean complete);
 	
 	/** Sets the alphabet. */
@@ -52,6 +52,7 @@ public class FeatureList implements FeatureVector {
 	
 	/** Constructor from feature vector. */
 	public FeatureList(FeatureVector fv) {
+		this(fv.size());
 		for (Iterator it = fv.iterator(); it.hasNext(); ) 
 			add(it.nextFeature(), it.nextValue());
 	}
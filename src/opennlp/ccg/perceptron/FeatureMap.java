@@ -18,85 +18,28 @@
 
 package opennlp.ccg.perceptron;
 
-import java.util.*;
-
 /** 
- * A feature vector represented using a <Alphabet.Feature,Float> map. 
+ * A feature vector with map operations, which is now just a 
+ * SparseFeatureVector (formerly a <Alphabet.Feature,Float> map), 
+ * with the features kept in insertion order as before.
  * 
  * @author Michael White
  * @version     $Revision: 1.9 $, $Date: 2011/10/11 03:20:06 $
  */ 
-public class FeatureMap implements FeatureVector {
+public class FeatureMap extends SparseFeatureVector {
 
 	@SuppressWarnings("unused")
 	private static final long serialVersionUID = -5054109887068464041L;
 
-	// the map
-	private HashMap<Alphabet.Feature,Float> map;
-	
 	/** Default constructor. */
-	public FeatureMap() { map = new LinkedHashMap<Alphabet.Feature,Float>(); } 
+	public FeatureMap() { super(); } 
 	
 	/** Constructor with size. */
-	public FeatureMap(int size) { map = new LinkedHashMap<Alphabet.Feature,Float>(size*2); }
+	public FeatureMap(int size) { super(size); }
 	
 	/** Constructor from feature vector. */
-	public FeatureMap(FeatureVector fv) { 
-		this(fv.size()*4);
-		for (Iterator it = fv.iterator(); it.hasNext(); ) 
-			map.put(it.nextFeature(), it.nextValue());
-	}
+	public FeatureMap(FeatureVector fv) { super(fv); }
 	
 	/** Constructor from two feature vectors. */
-	public FeatureMap(FeatureVector fv1, FeatureVector fv2) { 
-		this((fv1.size()+fv2.size())*3);
-		for (Iterator it = fv1.iterator(); it.hasNext(); ) 
-			map.put(it.nextFeature(), it.nextValue());
-		add(fv2);
-	}
-	
-	
-	/** Increments a feature count. */
-	public void inc(Alphabet.Feature feature) {
-		float count = 1;
-		Float val = map.get(feature);
-		if (val != null) count = Math.round(val) + 1;
-		map.put(feature, count);
-	}
-	
-	/** Adds to a feature's value (starting with zero). */
-	public void add(Alphabet.Feature feature, Float value) {
-		Float val = map.get(feature);
-		if (val != null) map.put(feature, val + value);
-		else map.put(feature, value);
-	}
-	
-	/** Adds a feature vector. */
-	public void add(FeatureVector fv) {
-		for (Iterator it = fv.iterator(); it.hasNext(); ) 
-			add(it.nextFeature(), it.nextValue());
-	}
-	
-	/** Returns the feature's value (zero if not present). */
-	public float get(Alphabet.Feature feature) {
-		Float retval = map.get(feature);
-		return (retval != null) ? retval : 0;
-	}
-	
-	/** Clears the map. */
-	public void clear() { map.clear(); }
-	
-	/** Size. */
-	public int size() { return map.size(); }
-	
-	/** Returns an iterator over the entries. */
-	public Iterator iterator() {
-		return new Iterator() {
-			java.util.Iterator<Map.Entry<Alphabet.Feature,Float>> it = map.entrySet().iterator();
-			Map.Entry<Alphabet.Feature,Float> entry = null;
-			public boolean hasNext() { return it.hasNext(); }
-			public Alphabet.Feature nextFeature() { entry = it.next(); return entry.getKey(); }
-			public Float nextValue() { return entry.getValue(); }
-		};
-	}
+	public FeatureMap(FeatureVector fv1, FeatureVector fv2) { super(fv1, fv2); }
 }
@@ -33,6 +33,11 @@ import opennlp.ccg.util.Pair;
  * 
  * A new model with all zero weights can also be created from an alphabet.
  * 
+ * A model with a hashed alphabet is saved with the hashed alphabet token 
+ * and number of buckets after the size, and its features are named by 
+ * their buckets; when such a model is loaded, a hashed alphabet with the 
+ * same number of buckets is created for it.
+ * 
  * The main routine tests the model on an event file.
  * 
  * @author Michael White
@@ -77,8 +82,9 @@ public class Model {
 		StreamTokenizer tokenizer = EventFile.initTokenizer(reader);
 		tokenizer.nextToken();
 		int size = Integer.parseInt(tokenizer.sval);
-		alphabet = new Alphabet(size);
-		weights = new double[size];
+		int numBuckets = Alphabet.readHashed(tokenizer);
+		alphabet = (numBuckets > 0) ? Alphabet.hashed(numBuckets) : new Alphabet(size);
+		weights = new double[alphabet.hashed() ? alphabet.size() : size];
 		for (int i = 0; i < size; i++) {
 			tokenizer.nextToken();
 			String name = tokenizer.sval;
@@ -86,6 +92,10 @@ public class Model {
 			double weight = Double.parseDouble(tokenizer.sval);
 			if (filter != null)
 				weight = filter.adjustedWeight(name, weight);
+			if (alphabet.hashed()) {
+				weights[alphabet.index(name).getIndex()] = weight;
+				continue;
+			}
 			alphabet.add(name);
 			weights[i] = weight;
 		}
@@ -121,37 +131,69 @@ public class Model {
 	
 	/** Returns the dot product of the weights and features. */
 	public double score(FeatureVector fv) {
-		double retval = 0.0;
-		for (FeatureVector.Iterator it = fv.iterator(); it.hasNext(); ) {
-			Feature feat = it.nextFeature();
-			Float value = it.nextValue();
-			Integer index = feat.getIndex();
-			if (index == null) continue;
-			retval += weights[index] * value;
-		}
+		double retval = score(fv, 0.0);
 		if (debug) System.err.println("score: " + retval + " " + fv);
 		return retval;
 	}
 	
-	/** Adds the feature vector values to the weights. */
-	public void add(FeatureVector fv) {
+	// adds the dot product of the weights and features to the given score, 
+	// using the arrays directly for sparse feature vectors, and 
+	// recursing into the components of composed ones
+	private double score(FeatureVector fv, double retval) {
+		if (fv instanceof SparseFeatureVector) {
+			SparseFeatureVector sfv = (SparseFeatureVector) fv;
+			for (int i=0; i < sfv.size(); i++) {
+				int index = sfv.getIndex(i);
+				if (index < 0) continue;
+				retval += weights[index] * sfv.getValue(i);
+			}
+			return retval;
+		}
+		if (fv instanceof ComposedFeatureVector) {
+			for (FeatureVector component : ((ComposedFeatureVector) fv).featureVectors) 
+				retval = score(component, retval);
+			return retval;
+		}
 		for (FeatureVector.Iterator it = fv.iterator(); it.hasNext(); ) {
 			Feature feat = it.nextFeature();
 			Float value = it.nextValue();
 			Integer index = feat.getIndex();
 			if (index == null) continue;
-			weights[index] += value;
+			retval += weights[index] * value;
 		}
+		return retval;
 	}
 	
+	/** Adds the feature vector values to the weights. */
+	public void add(FeatureVector fv) { add(fv, 1); }
+	
 	/** Subtracts the feature vector values from the weights. */
-	public void subtract(FeatureVector fv) {
+	public void subtract(FeatureVector fv) { add(fv, -1); }
+	
+	// adds or subtracts (according to the sign) the feature vector values to/from the weights
+	private void add(FeatureVector fv, int sign) {
+		if (fv instanceof SparseFeatureVector) {
+			SparseFeatureVector sfv = (SparseFeatureVector) fv;
+			for (int i=0; i < sfv.size(); i++) {
+				int index = sfv.getIndex(i);
+				if (index < 0) continue;
+				if (sign > 0) weights[index] += sfv.getValue(i);
+				else weights[index] -= sfv.getValue(i);
+			}
+			return;
+		}
+		if (fv instanceof ComposedFeatureVector) {
+			for (FeatureVector component : ((ComposedFeatureVector) fv).featureVectors) 
+				add(component, sign);
+			return;
+		}
 		for (FeatureVector.Iterator it = fv.iterator(); it.hasNext(); ) {
 			Feature feat = it.nextFeature();
 			Float value = it.nextValue();
 			Integer index = feat.getIndex();
 			if (index == null) continue;
-			weights[index] -= value;
+			if (sign > 0) weights[index] += value;
+			else weights[index] -= value;
 		}
 	}
 
@@ -163,6 +205,11 @@ public class Model {
 		}
 	}
 	
+	/** Sets this model's weights to the given model's ones.  The models are assumed to share the same alphabet. */
+	public void copy(Model model) {
+		System.arraycopy(model.weights, 0, weights, 0, weights.length);
+	}
+	
 	/** Multiplies the weights by the given number. */
 	public void multiply(double num) {
 		for (int i=0; i < weights.length; i++) {
@@ -244,8 +291,9 @@ public class Model {
 		int pruned = 0;
 		for (int i=0; i < size; i++) if (Math.abs(weights[i]) <= minPrune) pruned++;
 		int prunedSize = size - pruned;
-		// write pruned size 
-		out.println(Integer.toString(prunedSize));
+		// write pruned size, and number of buckets if hashed
+		if (alphabet.hashed()) out.println(prunedSize + " " + Alphabet.HASHED + " " + alphabet.size());
+		else out.println(Integer.toString(prunedSize));
 		// collect unpruned weights
 		List<Pair<Feature,Double>> featWeights = new ArrayList<Pair<Feature,Double>>(prunedSize);
 		for (int i=0; i < size; i++) {
@@ -295,7 +343,7 @@ public class Model {
 		System.out.println("debug: " + debug);
 		// compute accuracy
 		System.out.println("Scoring events in: " + eventfile);
-		EventFile eventFile = new EventFile(eventfile, model.alphabet);
+		EventFile eventFile = EventFile.open(eventfile, model.alphabet, false);
 		double accuracy = model.accuracy(eventFile);
 		System.out.println("accuracy: " + accuracy);
 	}
@@ -0,0 +1,217 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (C) 2026 OpenCCG contributors
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+//////////////////////////////////////////////////////////////////////////////
+
+package opennlp.ccg.perceptron;
+
+import java.util.Arrays;
+
+/**
+ * A sparse feature vector stored in parallel arrays of features,
+ * feature indices and (unboxed) values, in insertion order.
+ * Adding a feature that is already present adds to its value in place,
+ * so that the features remain unique; features are found by a linear
+ * scan for small vectors, and otherwise using an open addressing hash
+ * table of positions keyed on the feature index.
+ * The Model class scores these vectors directly from the arrays.
+ */
+public class SparseFeatureVector implements FeatureVector {
+
+	// the max size for finding features by a linear scan
+	private static final int LINEAR_MAX = 8;
+
+	// the features
+	private Alphabet.Feature[] features;
+
+	// the feature indices (-1 if none)
+	private int[] indices;
+
+	// the values
+	private float[] values;
+
+	// the size
+	private int size = 0;
+
+	// the hash table of positions plus one (zero for empty slots), if the size exceeds LINEAR_MAX
+	private int[] table = null;
+
+
+	/** Default constructor. */
+	public SparseFeatureVector() { this(LINEAR_MAX); }
+
+	/** Constructor with initial capacity. */
+	public SparseFeatureVector(int capacity) {
+		capacity = Math.max(capacity, 2);
+		features = new Alphabet.Feature[capacity];
+		indices = new int[capacity];
+		values = new float[capacity];
+	}
+
+	/** Constructor from feature vector. */
+	public SparseFeatureVector(FeatureVector fv) {
+		this(fv, fv.size());
+	}
+
+	/** Constructor from two feature vectors, adding the values of any shared features. */
+	public SparseFeatureVector(FeatureVector fv1, FeatureVector fv2) {
+		this(fv1, fv1.size() + fv2.size());
+		add(fv2);
+	}
+
+	// constructor from feature vector with initial capacity
+	private SparseFeatureVector(FeatureVector fv, int capacity) {
+		this(capacity);
+		if (fv instanceof SparseFeatureVector) {
+			SparseFeatureVector sfv = (SparseFeatureVector) fv;
+			size = sfv.size;
+			System.arraycopy(sfv.features, 0, features, 0, size);
+			System.arraycopy(sfv.indices, 0, indices, 0, size);
+			System.arraycopy(sfv.values, 0, values, 0, size);
+			if (size > LINEAR_MAX) rehash();
+		}
+		else add(fv);
+	}
+
+
+	/** Increments a feature count. */
+	public void inc(Alphabet.Feature feature) {
+		int pos = find(feature);
+		if (pos >= 0) values[pos] = Math.round(values[pos]) + 1;
+		else append(feature, 1);
+	}
+
+	/** Adds to a feature's value (starting with zero). */
+	public void add(Alphabet.Feature feature, float value) {
+		int pos = find(feature);
+		if (pos >= 0) values[pos] += value;
+		else append(feature, value);
+	}
+
+	/** Adds a feature vector. */
+	public void add(FeatureVector fv) {
+		if (fv instanceof SparseFeatureVector) {
+			SparseFeatureVector sfv = (SparseFeatureVector) fv;
+			for (int i=0; i < sfv.size; i++) add(sfv.features[i], sfv.values[i]);
+		}
+		else {
+			for (Iterator it = fv.iterator(); it.hasNext(); )
+				add(it.nextFeature(), it.nextValue());
+		}
+	}
+
+	/** Returns the feature's value (zero if not present). */
+	public float get(Alphabet.Feature feature) {
+		int pos = find(feature);
+		return (pos >= 0) ? values[pos] : 0;
+	}
+
+	/** Clears the vector. */
+	public void clear() {
+		Arrays.fill(features, 0, size, null);
+		size = 0; table = null;
+	}
+
+
+	/** Size. */
+	public int size() { return size; }
+
+	/** Returns the feature at the given position. */
+	public Alphabet.Feature getFeature(int pos) { return features[pos]; }
+
+	/** Returns the index of the feature at the given position (-1 if none). */
+	public int getIndex(int pos) { return indices[pos]; }
+
+	/** Returns the value at the given position. */
+	public float getValue(int pos) { return values[pos]; }
+
+	/** Returns an iterator over the entries. */
+	public Iterator iterator() {
+		return new Iterator() {
+			int pos = 0;
+			public boolean hasNext() { return pos < size; }
+			public Alphabet.Feature nextFeature() { return features[pos]; }
+			public Float nextValue() { return values[pos++]; }
+		};
+	}
+
+
+	// returns the position of the given feature, or -1 if none
+	private int find(Alphabet.Feature feature) {
+		if (table == null) {
+			for (int i=0; i < size; i++) {
+				if (features[i] == feature) return i;
+			}
+			return -1;
+		}
+		int mask = table.length - 1;
+		for (int slot = hash(feature) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+			int pos = table[slot] - 1;
+			if (features[pos] == feature) return pos;
+		}
+		return -1;
+	}
+
+	// appends the given feature and value
+	private void append(Alphabet.Feature feature, float value) {
+		if (size == features.length) {
+			int capacity = size * 2;
+			features = Arrays.copyOf(features, capacity);
+			indices = Arrays.copyOf(indices, capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+		Integer index = feature.getIndex();
+		features[size] = feature;
+		indices[size] = (index != null) ? index : -1;
+		values[size] = value;
+		size++;
+		if (size > LINEAR_MAX) {
+			if (table == null || size * 2 > table.length) rehash();
+			else insert(size - 1);
+		}
+	}
+
+	// rebuilds the hash table for the current size
+	private void rehash() {
+		int tableSize = Integer.highestOneBit(size * 4);
+		table = new int[tableSize];
+		for (int i=0; i < size; i++) insert(i);
+	}
+
+	// inserts the given position into the hash table
+	private void insert(int pos) {
+		int mask = table.length - 1;
+		int slot = hash(features[pos]) & mask;
+		while (table[slot] != 0) slot = (slot + 1) & mask;
+		table[slot] = pos + 1;
+	}
+
+	// returns a hash code for the given feature, based on its index if any
+	private static int hash(Alphabet.Feature feature) {
+		Integer index = feature.getIndex();
+		int h = (index != null) ? index : System.identityHashCode(feature);
+		return h * 0x9E3779B9 >>> 7;
+	}
+
+
+	/** toString. */
+	public String toString() {
+		StringBuffer sb = new StringBuffer("features: ");
+		for (int i=0; i < size; i++)
+			sb.append("<" + features[i].name() + "," + values[i] + "> ");
+		return sb.toString();
+	}
+}
@@ -18,7 +18,8 @@
 
 package opennlp.ccg.perceptron;
 
-//import java.util.*;
+import java.util.*;
+import java.util.concurrent.*;
 import java.io.*;
 
 /**
@@ -27,17 +28,223 @@ import java.io.*;
  * The main routine trains and saves a model.  Options include saving 
  * the final, non-averaged model, and saving the averaged model after 
  * every N iterations.  There's also an option to keep the events in 
- * memory for subsequent iterations.
+ * memory for subsequent iterations.  The training file may also be 
+ * a binary event file (see BinaryEventFile), which avoids parsing 
+ * the events on each iteration.
+ * 
+ * The averaging is done lazily: within an iteration, the current weight 
+ * of a feature is only added to the iteration model when the feature 
+ * is updated (multiplied by the number of blocks since it was last added), 
+ * and at the end of the iteration, rather than for every feature after 
+ * every block.  The averaged model is thus the same as with eager 
+ * averaging, up to floating point rounding (and exactly the same when 
+ * the feature values are integers), while the time per block 
+ * only depends on the number of features in the updated events.
+ * 
+ * Training can also be done in parallel using iterative parameter mixing 
+ * (McDonald et al., 2010), where the training data is split into shards, 
+ * an epoch is run over each shard starting from the current weights, 
+ * and the resulting weights are then mixed (uniformly) to yield the 
+ * new current weights.  The shards are trained by a pluggable shard 
+ * trainer; the -threads option uses a ThreadedShardTrainer, which 
+ * trains the shards in separate threads.
  * 
  * An alphabet must be supplied as input.  The main routine of the 
  * Alphabet class can be used to derive an alphabet from a training
- * file.
+ * file.  Alternatively, the -hash option uses a hashed alphabet with 
+ * the given number of bits for the number of buckets, in which 
+ * case the alphabet file argument is ignored (and may be given as '-').
  * 
  * @author Michael White
  * @version     $Revision: 1.4 $, $Date: 2009/06/18 23:38:57 $
  */
 public class Trainer {
 
+	/**
+	 * An epoch of training over (a shard of) the training data, 
+	 * which updates the weights of its model for each incorrectly 
+	 * ranked block, and lazily sums the weights after each block.
+	 * The epoch also tallies the number of updates, the number of 
+	 * blocks and the number of blocks ranked correctly by the averaged 
+	 * model.
+	 */
+	public static class Epoch {
+		
+		/** The model being trained. */
+		public final Model model;
+		
+		/** The sum of the model's weights after each block. */
+		public final Model sum;
+		
+		/** The number of updates. */
+		public int updates = 0;
+		
+		/** The number of blocks ranked correctly by the averaged model. */
+		public int correct = 0;
+		
+		/** The number of blocks. */
+		public int total = 0;
+		
+		/** The number of blocks through which the weight of each feature has been added to the sum. */
+		private int[] lastAdded;
+		
+		/** Constructor with the model to train and the model for summing its weights. */
+		public Epoch(Model model, Model sum) {
+			this.model = model; this.sum = sum;
+			lastAdded = new int[model.size()];
+		}
+		
+		/** Runs the epoch over the given event file, scoring the blocks with the given averaged model. */
+		public void run(EventFile eventFile, Model averagedModel) throws IOException {
+			// zero sum and counters
+			sum.zero();
+			Arrays.fill(lastAdded, 0);
+			updates = 0; correct = 0; total = 0;
+			EventFile.Block block;
+			// go through training file
+			while ( (block = eventFile.nextBlock()) != null ) {
+				total++;
+				// update if wrong
+				EventFile.Event modelBest = model.best(block);
+				EventFile.Event actualBest = block.best();
+				if (modelBest != actualBest) {
+					updates++;
+					// bring sum up to date for the features to be updated
+					addWeights(actualBest.features, total-1);
+					addWeights(modelBest.features, total-1);
+					model.add(actualBest.features);
+					model.subtract(modelBest.features);
+				}
+				// see if averaged model correct
+				EventFile.Event avgModelBest = averagedModel.best(block);
+				if (avgModelBest == actualBest) correct++;
+			}
+			// bring sum up to date for all features
+			for (int j=0; j < lastAdded.length; j++) addWeight(j, total);
+		}
+		
+		// adds the weights of the features in the given vector to the sum, 
+		// for the blocks since they were last added through the given number of blocks
+		private void addWeights(FeatureVector fv, int blocks) {
+			for (FeatureVector.Iterator it = fv.iterator(); it.hasNext(); ) {
+				Integer index = it.nextFeature().getIndex();
+				it.nextValue();
+				if (index == null) continue;
+				addWeight(index, blocks);
+			}
+		}
+		
+		// adds the weight of the feature with the given index to the sum, 
+		// for the blocks since it was last added through the given number of blocks
+		private void addWeight(int index, int blocks) {
+			int n = blocks - lastAdded[index];
+			if (n == 0) return;
+			double weight = model.getWeight(index);
+			if (weight != 0) sum.setWeight(index, sum.getWeight(index) + n * weight);
+			lastAdded[index] = blocks;
+		}
+	}
+	
+	
+	/**
+	 * Interface for running epochs over shards of the training data, 
+	 * for iterative parameter mixing.  Implementations may train the 
+	 * shards in separate threads or processes.
+	 */
+	public interface ShardTrainer {
+		
+		/** Returns the number of shards. */
+		public int numShards();
+		
+		/**
+		 * Runs an epoch over each shard, starting from the given model's weights 
+		 * and scoring the blocks with the given averaged model, returning the 
+		 * epochs in shard order.
+		 */
+		public List<Epoch> runEpochs(Model model, Model averagedModel) throws IOException;
+		
+		/** Releases any resources held by the shard trainer. */
+		public void close() throws IOException;
+	}
+	
+	
+	/**
+	 * A shard trainer that splits the training file into binary shards 
+	 * (in temporary files), and trains each shard in its own thread.
+	 */
+	public static class ThreadedShardTrainer implements ShardTrainer {
+		
+		// the shard files
+		private List<File> shardFiles;
+		
+		// the event files for the shards
+		private List<EventFile> eventFiles = new ArrayList<EventFile>();
+		
+		// the epochs for the shards
+		private List<Epoch> epochs = new ArrayList<Epoch>();
+		
+		// the thread pool
+		private ExecutorService executor;
+		
+		/** Constructor with the training file, alphabet, number of shards and in-memory flag. */
+		public ThreadedShardTrainer(String trainfile, Alphabet alphabet, int numShards, boolean inMemory) throws IOException {
+			EventFile eventFile = EventFile.open(trainfile, alphabet, false);
+			shardFiles = BinaryEventFile.split(eventFile, numShards);
+			eventFile.close();
+			for (File shardFile : shardFiles) {
+				eventFiles.add(new BinaryEventFile(shardFile.getPath(), alphabet, inMemory));
+				epochs.add(new Epoch(new Model(alphabet), new Model(alphabet)));
+			}
+			executor = Executors.newFixedThreadPool(numShards);
+		}
+		
+		/** Returns the number of shards. */
+		public int numShards() { return epochs.size(); }
+		
+		/** Runs an epoch over each shard in its own thread. */
+		public List<Epoch> runEpochs(Model model, final Model averagedModel) throws IOException {
+			List<Future<Epoch>> results = new ArrayList<Future<Epoch>>(epochs.size());
+			for (int i=0; i < epochs.size(); i++) {
+				final Epoch epoch = epochs.get(i);
+				final EventFile eventFile = eventFiles.get(i);
+				epoch.model.copy(model);
+				results.add(executor.submit(new Callable<Epoch>() {
+					public Epoch call() throws IOException {
+						eventFile.reset();
+						epoch.run(eventFile, averagedModel);
+						return epoch;
+					}
+				}));
+			}
+			List<Epoch> retval = new ArrayList<Epoch>(epochs.size());
+			try {
+				for (Future<Epoch> result : results) retval.add(result.get());
+			}
+			catch (InterruptedException exc) {
+				throw (IOException) new InterruptedIOException().initCause(exc);
+			}
+			catch (ExecutionException exc) {
+				Throwable cause = exc.getCause();
+				if (cause instanceof IOException) throw (IOException) cause;
+				if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+				throw new RuntimeException(cause);
+			}
+			return retval;
+		}
+		
+		/** Shuts down the threads, and closes and deletes the shard files. */
+		public void close() throws IOException {
+			executor.shutdown();
+			try {
+				for (EventFile eventFile : eventFiles) eventFile.close();
+			}
+			finally {
+				for (File shardFile : shardFiles) shardFile.delete();
+			}
+		}
+	}
+	
+	
 	/** The training file. */
 	public final String trainfile;
 	
@@ -64,12 +271,20 @@ public class Trainer {
 	
 	/** The number of iterations to use when saving every N iterations. */
 	private int saveEveryNth = 0;
+	
+	/** The shard trainer, if training in parallel. */
+	private ShardTrainer shardTrainer = null;
 
 	
 	/** Constructor. */
 	public Trainer(String trainfile, String alphabetfile, int iterations, String modelfile, boolean inMemory) throws IOException {
+		this(trainfile, new Alphabet(alphabetfile), iterations, modelfile, inMemory);
+	}
+	
+	/** Constructor with alphabet. */
+	public Trainer(String trainfile, Alphabet alphabet, int iterations, String modelfile, boolean inMemory) {
 		this.trainfile = trainfile;
-		this.alphabet = new Alphabet(alphabetfile);
+		this.alphabet = alphabet;
 		this.iterations = iterations;
 		this.modelfile = modelfile;
 		this.inMemory = inMemory;
@@ -85,38 +300,40 @@ public class Trainer {
 		averagedModel.set(model);
 	}
 	
+	/** Sets the shard trainer, for training in parallel with iterative parameter mixing (or null for none). */
+	public void setShardTrainer(ShardTrainer shardTrainer) { this.shardTrainer = shardTrainer; }
+	
 	
 	/** Train the model, reporting accuracy of the averaged model for each iteration and the final model. */
 	public void train() throws IOException {
-		// open training file
-		EventFile eventFile = new EventFile(trainfile, alphabet, inMemory);
+		// open training file, unless using shards
+		EventFile eventFile = (shardTrainer == null) ? EventFile.open(trainfile, alphabet, inMemory) : null;
+		Epoch epoch = new Epoch(currentModel, iterationModel);
 		// iterate
 		boolean converged = false;
 		for (int i=0; i < iterations; i++) {
 			System.out.println("iteration: " + i);
-			// reset training file
-			eventFile.reset();
-			// zero iteration model
-			iterationModel.zero();
 			// init counters
 			int updates = 0; int correct = 0; int total = 0;
-			EventFile.Block block;
-			// go through training file
-			while ( (block = eventFile.nextBlock()) != null ) {
-				total++;
-				// update if wrong
-				EventFile.Event modelBest = currentModel.best(block);
-				EventFile.Event actualBest = block.best();
-				if (modelBest != actualBest) {
-					updates++;
-					currentModel.add(actualBest.features);
-					currentModel.subtract(modelBest.features);
+			if (shardTrainer == null) {
+				// reset training file
+				eventFile.reset();
+				// run epoch, updating current and iteration model
+				epoch.run(eventFile, averagedModel);
+				updates = epoch.updates; correct = epoch.correct; total = epoch.total;
+			}
+			else {
+				// run epochs over shards
+				List<Epoch> shardEpochs = shardTrainer.runEpochs(currentModel, averagedModel);
+				// mix weights into current model, and sum the iteration models
+				currentModel.zero();
+				iterationModel.zero();
+				for (Epoch shardEpoch : shardEpochs) {
+					currentModel.add(shardEpoch.model);
+					iterationModel.add(shardEpoch.sum);
+					updates += shardEpoch.updates; correct += shardEpoch.correct; total += shardEpoch.total;
 				}
-				// see if averaged model correct
-				EventFile.Event avgModelBest = averagedModel.best(block);
-				if (avgModelBest == actualBest) correct++;
-				// update iteration model
-				iterationModel.add(currentModel);
+				currentModel.multiply(1.0 / shardEpochs.size());
 			}
 			// divide iteration model by total to yield an average for this iteration, 
 			// and divide by iteration number (+1) to yield proportion of this 
@@ -150,8 +367,9 @@ public class Trainer {
 		// do one more iteration to compute accuracy if not converged
 		if (!converged) {
 			System.out.println("final iteration: ");
-			// reset training file
-			eventFile.reset();
+			// reset training file, or open it if using shards
+			if (eventFile != null) eventFile.reset();
+			else eventFile = EventFile.open(trainfile, alphabet, false);
 			// init counters
 			int finalCorrect = 0; int correct = 0; int total = 0;
 			EventFile.Block block;
@@ -171,7 +389,7 @@ public class Trainer {
 			System.out.println();
 		}
 		// close training file
-		eventFile.close();
+		if (eventFile != null) eventFile.close();
 	}
 
 	
@@ -189,13 +407,17 @@ public class Trainer {
 	 * The final (non-averaged) model can optionally be saved using the -f option, 
 	 * and intermediate models can be saved every N iterations using the -n option.
 	 * The -in_mem option keeps the events in memory for subsequent iterations.
+	 * The -threads option trains in parallel with iterative parameter mixing, 
+	 * using the given number of shards (and threads).
+	 * The -hash option uses a hashed alphabet with 2^bits buckets, instead of the alphabet file, 
+	 * reporting the collision statistics after training.
 	 */
 	public static void main(String[] args) throws IOException {
 		// help
 		if (args.length < 4) {
 			System.out.println(
 				"Usage: java perceptron.Trainer <traineventfile> <alphabetfile> <iterations> <modelfile> " + 
-				"(-i <initmodelfile>) (-f <finalmodelfile>) (-n <save-every-nth>) (-in_mem)"
+				"(-i <initmodelfile>) (-f <finalmodelfile>) (-n <save-every-nth>) (-in_mem) (-threads <numthreads>) (-hash <bits>)"
 			);
 			System.exit(0);
 		}
@@ -208,21 +430,43 @@ public class Trainer {
 		String finalmodelfile = null;
 		int saveEveryNth = 0;
 		boolean inMemory = false;
+		int numThreads = 1;
+		int hashBits = 0;
 		for (int i=4; i < args.length; i++) {
 			if (args[i].equals("-i")) initmodelfile = args[++i]; 
 			if (args[i].equals("-f")) finalmodelfile = args[++i]; 
 			if (args[i].equals("-n")) saveEveryNth = Integer.parseInt(args[++i]); 
 			if (args[i].equals("-in_mem")) inMemory = true;
+			if (args[i].equals("-threads")) numThreads = Integer.parseInt(args[++i]); 
+			if (args[i].equals("-hash")) hashBits = Integer.parseInt(args[++i]); 
 		}
 		// setup, train
-		System.out.println("Training on " + traineventfile + " using " + alphabetfile + " for " + iterations + " iterations");
+		String alphabetDesc = (hashBits > 0) ? "a hashed alphabet with 2^" + hashBits + " buckets" : alphabetfile;
+		System.out.println("Training on " + traineventfile + " using " + alphabetDesc + " for " + iterations + " iterations");
 		if (initmodelfile != null) System.out.println("with " + initmodelfile + " as the initial model");
 		if (inMemory) System.out.println("keeping events in memory");
+		if (numThreads > 1) System.out.println("mixing parameters over " + numThreads + " shards in parallel");
 		System.out.println();
-		Trainer trainer = new Trainer(traineventfile, alphabetfile, iterations, modelfile, inMemory);
+		Alphabet alphabet = (hashBits > 0) ? Alphabet.hashed(1 << hashBits) : new Alphabet(alphabetfile);
+		Trainer trainer = new Trainer(traineventfile, alphabet, iterations, modelfile, inMemory);
 		if (initmodelfile != null) trainer.initModel(initmodelfile);
 		trainer.saveEveryNth = saveEveryNth;
-		trainer.train();
+		ThreadedShardTrainer shardTrainer = null;
+		if (numThreads > 1) {
+			shardTrainer = new ThreadedShardTrainer(traineventfile, trainer.alphabet, numThreads, inMemory);
+			trainer.setShardTrainer(shardTrainer);
+		}
+		// nb: the shard trainer's threads and files must be released even if training fails
+		try {
+			trainer.train();
+		}
+		finally {
+			if (shardTrainer != null) shardTrainer.close();
+		}
+		if (alphabet.hashed()) {
+			System.out.println("Hashed alphabet " + alphabet.collisionStats());
+			System.out.println();
+		}
 		// save model
 		System.out.println("Saving model to " + modelfile);
 		trainer.averagedModel.save(modelfile);
@@ -0,0 +1,155 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (C) 2026 OpenCCG contributors
+// 
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+// 
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Lesser General Public License for more details.
+// 
+// You should have received a copy of the GNU Lesser General Public
+// License along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+//////////////////////////////////////////////////////////////////////////////
+
+package opennlp.ccg.realize;
+
+import java.util.*;
+
+/**
+ * The agenda of edges that have yet to be added to the chart, 
+ * implemented as an indexed binary heap, so that edges can be added, 
+ * removed or taken from the front in logarithmic time. 
+ * Each edge stores its own position in the heap.
+ * Edges are ordered by the current comparator, with ties broken 
+ * in the order in which the edges were added, just as with 
+ * sorted insertion into a list; as before, edges with a zero score 
+ * go after all the others, as if appended to the list. 
+ * Alternatively, edges can be taken in last-in first-out order, 
+ * for depth-first search.
+ */
+class Agenda {
+
+	// the heap
+	private Edge[] heap = new Edge[64];
+	
+	// the number of edges on the agenda
+	private int size = 0;
+	
+	// the number of edges added so far
+	private long count = 0;
+	
+	// the comparator for ordering edges
+	private Comparator<Edge> comparator = Chart.edgeComparator;
+	
+	// whether to use last-in first-out order instead
+	private boolean lifo = false;
+	
+	
+	/** 
+	 * Sets the comparator and last-in first-out flag, 
+	 * reordering the edges already on the agenda if either has changed. 
+	 */
+	void setOrder(Comparator<Edge> comparator, boolean lifo) {
+		if (this.comparator == comparator && this.lifo == lifo) return;
+		this.comparator = comparator; this.lifo = lifo;
+		for (int i = size/2 - 1; i >= 0; i--) siftDown(i);
+	}
+	
+	/** Returns whether the agenda is empty. */
+	boolean isEmpty() { return size == 0; }
+	
+	/** Returns the number of edges on the agenda. */
+	int size() { return size; }
+	
+	/** Adds an edge to the agenda. */
+	void add(Edge edge) {
+		if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+		edge.agendaOrder = count++;
+		heap[size] = edge; edge.agendaIndex = size;
+		siftUp(size++);
+	}
+	
+	/** Removes and returns the first edge on the agenda, or null if none. */
+	Edge poll() {
+		if (size == 0) return null;
+		Edge retval = heap[0];
+		removeAt(0);
+		return retval;
+	}
+	
+	/** Removes the given edge, returning whether it was on the agenda. */
+	boolean remove(Edge edge) {
+		int i = edge.agendaIndex;
+		if (i < 0 || i >= size || heap[i] != edge) return false;
+		removeAt(i);
+		return true;
+	}
+	
+	/** Returns the edges on the agenda, in order. */
+	List<Edge> toSortedList() {
+		List<Edge> retval = new ArrayList<Edge>(size);
+		for (int i = 0; i < size; i++) retval.add(heap[i]);
+		Collections.sort(retval, new Comparator<Edge>() {
+			public int compare(Edge edge1, Edge edge2) { return Agenda.this.compare(edge1, edge2); }
+		});
+		return retval;
+	}
+	
+	
+	// removes the edge at position i
+	private void removeAt(int i) {
+		heap[i].agendaIndex = -1;
+		Edge last = heap[--size]; heap[size] = null;
+		if (i == size) return;
+		heap[i] = last; last.agendaIndex = i;
+		siftDown(i);
+		if (heap[i] == last) siftUp(i);
+	}
+	
+	// moves the edge at position i up until in order
+	private void siftUp(int i) {
+		Edge edge = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			Edge p = heap[parent];
+			if (compare(edge, p) >= 0) break;
+			heap[i] = p; p.agendaIndex = i;
+			i = parent;
+		}
+		heap[i] = edge; edge.agendaIndex = i;
+	}
+	
+	// moves the edge at position i down until in order
+	private void siftDown(int i) {
+		Edge edge = heap[i];
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2*i + 1;
+			Edge c = heap[child];
+			int right = child + 1;
+			if (right < size && compare(heap[right], c) < 0) c = heap[child = right];
+			if (compare(edge, c) <= 0) break;
+			heap[i] = c; c.agendaIndex = i;
+			i = child;
+		}
+		heap[i] = edge; edge.agendaIndex = i;
+	}
+	
+	// compares edges with zero scores last, then by the comparator, then by the order added 
+	// (or just the reverse order added, if lifo)
+	private int compare(Edge edge1, Edge edge2) {
+		if (!lifo) {
+			boolean zero1 = (edge1.score == 0), zero2 = (edge2.score == 0);
+			if (zero1 != zero2) return (zero1) ? 1 : -1;
+			int retval = comparator.compare(edge1, edge2);
+			if (retval != 0) return retval;
+		}
+		int retval = (edge1.agendaOrder < edge2.agendaOrder) ? -1 : ((edge1.agendaOrder > edge2.agendaOrder) ? 1 : 0);
+		return (lifo) ? -retval : retval;
+	}
+}
@@ -126,15 +126,19 @@ public class Chart
     /** Flag for whether to glue fragments currently. Defaults to false. */
     public boolean gluingFragments = false;
 
+    /** Flag for whether to use the edge index to find the edges to combine with, 
+        when the edge factory uses indexing, rather than scanning all the edges. Defaults to true. */
+    public boolean useEdgeIndex = true;
+
     
     // the agenda of edges that have yet to be added to the chart
-    private List<Edge> agenda = new ArrayList<Edge>();
+    private Agenda agenda = new Agenda();
     
     // the (representative) edges in the chart
     private List<Edge> edges = new ArrayList<Edge>();
     
     // all unpruned (and unpacked, if apropos) edges in the chart
-    private List<Edge> allEdges = new ArrayList<Edge>();
+    private LinkedEdgeSet allEdges = new LinkedEdgeSet();
 
     // edges to be removed from the chart, after having been superceded 
     // by an edge with an equivalent sign (up to surface words) and 
@@ -147,6 +151,9 @@ public class Chart
     // the edges seen so far
     private EdgeHash edgeHash = new EdgeHash();
     
+    // index of the edges to combine with, by their nominal indices
+    private EdgeIndex edgeIndex = null;
+    
 
     // maps edges to representative edges, according to their 
     // coverage vectors and their cats, sans LFs
@@ -209,6 +216,9 @@ public class Chart
     /** The maximum number of edges in a cell. */
     public int cellMax = 0;
     
+    /** The number of times the chart has been extended with new initial edges. */
+    public int numExtensions = 0;
+    
     /** The time at which realization started. */
     protected long startTime = System.currentTimeMillis();
     /** The time in ms until lex lookup was completed. */
@@ -234,6 +244,7 @@ public class Chart
     public Chart(EdgeFactory edgeFactory, PruningStrategy pruningStrategy) {
         this.edgeFactory = edgeFactory;
         this.pruningStrategy = pruningStrategy;
+        this.edgeIndex = new EdgeIndex(edgeFactory);
         Preferences prefs = Preferences.userNodeForPackage(TextCCG.class);
         newBestTimeLimitPct = prefs.getDouble(NEW_BEST_TIME_LIMIT, NO_TIME_LIMIT);
         if (newBestTimeLimitPct >= 1) {
@@ -272,6 +283,35 @@ public class Chart
         timeTilLex = (int) (currentTime - startTime);
     }
     
+    /** 
+     * Extends the agenda with the initial edges that have become available since 
+     * it was initialized, typically after the hypertagger has moved to a less 
+     * restrictive beta setting, so that the search can be resumed by combine 
+     * without recreating the edges already in the chart.  
+     * As each edge taken from the agenda is combined with all the edges in the chart, 
+     * only combinations involving the new edges (or their descendants) are tried. 
+     * The start time is reset, and the number of edges keeps counting from 
+     * the previous search.
+     * Returns false if the chart cannot be extended, either because cell pruning 
+     * is in effect (as the previously pruned edges are not recoverable) or because 
+     * the edge factory is unable to extend its initial edges; in this case, 
+     * the chart should be discarded.
+     */
+    public boolean extend() {
+    	if (cellPruningValue != NO_PRUNING) return false;
+    	List<Edge> newEdges = edgeFactory.createNewInitialEdges();
+    	if (newEdges == null) return false;
+    	startTime = System.currentTimeMillis();
+    	done = false;
+        for (Edge edge : newEdges)  
+            addEdgeToAgenda(edge);
+        // record time 'til lex
+        long currentTime = System.currentTimeMillis();
+        timeTilLex = (int) (currentTime - startTime);
+        numExtensions++;
+        return true;
+    }
+    
     /** Returns whether there were no uncovered lexical or featural preds after lex lookup. */
     public boolean noUncoveredPreds() { return !edgeFactory.hasUncoveredPreds; }
     
@@ -344,7 +384,7 @@ public class Chart
                    (double) timeSinceFirst / timeTilFirst > newBestTimeLimitPct)))
             ) {
                 // ensure best edge in chart
-                if (!allEdges.contains(bestEdge)) { addEdgeToChart(bestEdge); }
+                if (!inChart(bestEdge)) { addEdgeToChart(bestEdge); }
                 // set timing
                 timeTilStopped = timeSoFar;
                 // stop
@@ -352,7 +392,7 @@ public class Chart
             }
             
             // take edge from agenda
-            Edge next = agenda.remove(0);
+            Edge next = agenda.poll();
             
             // add edge to chart
             boolean actuallyAdded = addEdgeToChart(next);
@@ -401,9 +441,15 @@ public class Chart
                 return;
             }
         }
-        // otherwise combine edge with those in chart 
-        List<Edge> edgesToUse = (usePacking || collectCombos) ? edges : allEdges;
+        // otherwise combine edge with those in chart, 
+        // using the index to find the edges it can combine with, if apropos
+        boolean repsOnly = usePacking || collectCombos;
+        Collection<Edge> edgesToUse = (repsOnly) ? edges : allEdges;
+        boolean indexed = useEdgeIndex && edgeFactory.useIndexing && !edgeIndex.combinesWithAll(next);
+        if (indexed) edgesToUse = edgeIndex.candidates(next);
         for (Edge edge : edgesToUse) {
+        	// skip edges pruned since being indexed (anytime case)
+            if (indexed && !repsOnly && !allEdges.contains(edge)) continue;
             if (edge == next) continue; // skip this edge
             // skip fragment gluing if semantically null or if result cell non-empty
             if (gluingFragments) {
@@ -439,7 +485,7 @@ public class Chart
     	while (true) {
         	Edge bestFrag = null;
         	for (Edge edge : allEdges) bestFrag = chooseBestFrag(bitset, bestFrag, edge);
-        	for (Edge edge : agenda) bestFrag = chooseBestFrag(bitset, bestFrag, edge);
+        	for (Edge edge : agenda.toSortedList()) bestFrag = chooseBestFrag(bitset, bestFrag, edge);
         	if (bestFrag == null) break;
         	fragments.add(bestFrag);
         	bitset = (BitSet) bitset.clone();
@@ -609,7 +655,7 @@ public class Chart
     	if (bestEdges != null) return bestEdges;
         bestEdges = new ArrayList<Edge>();
         if (!bestEdge.complete()) return bestEdges;
-        List<Edge> edgesToUse = (usePacking && !doUnpacking) ? edges : allEdges;
+        Collection<Edge> edgesToUse = (usePacking && !doUnpacking) ? edges : allEdges;
         for (Edge edge : edgesToUse) {
             if (edge.complete()) bestEdges.add(edge); 
         }
@@ -725,7 +771,7 @@ public class Chart
      * the unpruned (and possibly unpacked) edges are shown.
      */ 
     public void printEdges(boolean complete, boolean sort) {
-        List<Edge> edgeList = (usePacking && !doUnpacking) ? edges : allEdges;
+        List<Edge> edgeList = (usePacking && !doUnpacking) ? edges : new ArrayList<Edge>(allEdges);
         if (sort) {
             edgeList = new ArrayList<Edge>(edgeList);
             Collections.sort(edgeList, edgeComparator);
@@ -745,7 +791,7 @@ public class Chart
      * Prints the agenda.
      */
     public void printAgenda() {
-        for (Edge edge : agenda) {
+        for (Edge edge : agenda.toSortedList()) {
             printEdge(edge);
         }
         out.flush();
@@ -916,6 +962,8 @@ public class Chart
     // then sign score
     private void addEdgeToAgenda(Edge edge) {
     	numEdges++;
+    	// freeze cat, caching its hash codes for the edge and equiv class lookups
+    	edge.sign.getCategory().freeze();
     	if (!usePacking) {
 	    	// update edgeHash, checking for equivalent edge of equal or lower complexity
     		Edge retEdge = edgeHash.insert(edge);
@@ -934,18 +982,27 @@ public class Chart
 	    		if (!onAgenda) {
 	    	        Edge repEdge = catMap.get(oldEdge);
 	    	        if (repEdge != null) {
-	    	        	boolean inChart = repEdge.altEdges.remove(oldEdge);
+	    	        	boolean inChart = removeSorted(repEdge.altEdges, oldEdge);
 	    	        	if (inChart) supercededEdgesPendingRemoval.add(oldEdge);
 	    	        }
 	    		}
 	    	}
     	}
-        if (depthFirst) { agenda.add(0, edge); }
-        else if (edge.score == 0) { agenda.add(edge); }
-        else { addSorted(agenda, edge); }
+        // when gluing fragments, edges are sorted first by size, otherwise by score
+        agenda.setOrder((gluingFragments) ? edgeSizeComparator : edgeComparator, depthFirst);
+        agenda.add(edge);
         updateBestEdge(edge);
     }
     
+    // returns whether the given edge, or an equal one, is among the unpruned edges in the chart
+    private boolean inChart(Edge edge) {
+    	if (allEdges.contains(edge)) return true;
+    	for (Edge e : allEdges) {
+    		if (e.equals(edge)) return true;
+    	}
+    	return false;
+    }
+    
     // update bestEdge wrt given edge, and adjust timing info
     private void updateBestEdge(Edge edge) {
         if (bestEdge == null) {
@@ -1005,7 +1062,8 @@ public class Chart
             edges.add(edge);
         	signMap.put(edge.sign, edge);
             // anytime case: add to all edges list too
-            if (!usePacking) allEdges.add(edge);
+            if (usePacking || collectCombos) edgeIndex.add(edge);
+            if (!usePacking) addToAllEdges(edge);
             // and return
             return true;
         }
@@ -1017,7 +1075,7 @@ public class Chart
         }
         // anytime case: if not pruning, just add edge to all edges list, and return
         if (pruningValue == NO_PRUNING) {
-            allEdges.add(edge);
+            addToAllEdges(edge);
         	signMap.put(edge.sign, edge); // for debugging
             return true;
         }
@@ -1033,7 +1091,7 @@ public class Chart
         }
         // add edge to all edges list, if it was not pruned
         if (!edgeItselfPruned) {
-            allEdges.add(edge);
+            addToAllEdges(edge);
         	signMap.put(edge.sign, edge); // for debugging
             return true;
         }
@@ -1042,6 +1100,12 @@ public class Chart
         return false;
     }
     
+    // adds the edge to the list of all unpruned edges (anytime case), 
+    // indexing it too when all edges are combined with
+    private void addToAllEdges(Edge edge) {
+    	if (allEdges.add(edge) && !collectCombos) edgeIndex.add(edge);
+    }
+    
     // cell count
     private int cellCount(Edge edge) {
     	Integer count = cellMap.get(edge.bitset);
@@ -1085,6 +1149,23 @@ public class Chart
         list.add(index, edge); 
     }
 
+    // removes the given edge from the already sorted list, if present, 
+    // returning whether it was removed; 
+    // uses binary search to find the edges with the same sort pos
+    private boolean removeSorted(List<Edge> list, Edge edge) {
+    	Comparator<Edge> comparator = (gluingFragments) ? edgeSizeComparator : edgeComparator; 
+    	int index = Collections.binarySearch(list, edge, comparator);
+    	if (index < 0) return false;
+    	// check sort equiv edges before and after index
+    	for (int i = index; i >= 0 && comparator.compare(list.get(i), edge) == 0; i--) {
+    		if (list.get(i) == edge) { list.remove(i); return true; }
+    	}
+    	for (int i = index+1; i < list.size() && comparator.compare(list.get(i), edge) == 0; i++) {
+    		if (list.get(i) == edge) { list.remove(i); return true; }
+    	}
+    	return false;
+    }
+
     /** Compares edges based on their relative score, in descending order. */
     public static final Comparator<Edge> edgeComparator = new Comparator<Edge>() {
         public int compare(Edge edge1, Edge edge2) {
@@ -84,6 +84,17 @@ public class Edge extends Tracker
         by marking optional bits as completed. */
     protected Edge optCompletes = null;
     
+    // the position of this edge on the agenda (or -1 if none), and the order in which it was added
+    transient int agendaIndex = -1;
+    transient long agendaOrder = 0;
+    
+    // the links for this edge in the chart's set of edges, and whether it is in the set
+    transient Edge prevInSet = null, nextInSet = null;
+    transient boolean inEdgeSet = false;
+    
+    // the order in which this edge was added to the chart's edge index
+    transient int indexOrder = 0;
+    
     
     /** Constructor. */
     public Edge(Sign sign, BitSet bitset, BitSet indices, 
@@ -186,6 +186,13 @@ public class EdgeFactory
     /** Flag for whether to use relaxed relation matching. */  // XXX tmp switch
     protected boolean useRelaxedRelationMatching = Boolean.getBoolean("useRelaxedRelationMatching");
     
+    // the rule instances created for each pred index, for replaying 
+    // their feature map updates when extending the initial edges
+    private final Map<Integer,List<RuleInstance>> ruleInstancesForPreds = new HashMap<Integer,List<RuleInstance>>();
+    
+    // flag for whether the initial edges are being extended
+    private boolean extending = false;
+    
     
     /** Constructor. */
     public EdgeFactory(Grammar grammar, List<SatOp> preds, SignScorer signScorer) {
@@ -572,6 +579,25 @@ public class EdgeFactory
         }
     }
     
+    /** Returns whether there are any paired nominals in the input LF. */
+    public boolean hasPairedNominals() { return anyPairedNominals; }
+    
+    /** Returns whether edges missing an index nominal may combine with any edge. */
+    public boolean allowsMissingIndexCombos() { return allowMissingIndexCombos; }
+    
+    /**
+     * Returns the indices paired with the given ones in the input LF, in either order.
+     */
+    public List<BitSet> pairedIndices(BitSet indices) {
+    	List<BitSet> retval = new ArrayList<BitSet>(1);
+        for (int i = 0; i < pairedNominals.size(); i++) {
+            BitSet[] pair = pairedNominals.get(i);
+            if (pair[1].equals(indices)) retval.add(pair[0]);
+            if (pair[0].equals(indices)) retval.add(pair[1]);
+        }
+        return retval;
+    }
+    
     /**
      * Returns whether the indices for the two edges are paired in the input LF.
      */
@@ -805,14 +831,14 @@ public class EdgeFactory
             // add signs and rules for lex pred
             if (key != null) {
                 List<String> coartRels = getCoartRels(i);
-                Collection<Sign> lexPredSigns = lexicon.getSignsFromPred(key, coartRels);
+                Collection<Sign> lexPredSigns = lexicon.getSignsFromPred(key, coartRels, hypertagger);
                 if (lexPredSigns != null) { signs.addAll(lexPredSigns); }
                 Collection<TypeChangingRule> lexPredRules = grammar.rules.getRulesForPred(key);
                 if (lexPredRules != null) { typeChangingRules.addAll(lexPredRules); }
             }
             // add signs and rules for indexed rel
             if (rel != null) {
-                Collection<Sign> indexedRelSigns = lexicon.getSignsFromRel(rel);
+                Collection<Sign> indexedRelSigns = lexicon.getSignsFromRel(rel, hypertagger);
                 if (indexedRelSigns != null) { signs.addAll(indexedRelSigns); }
                 Collection<TypeChangingRule> indexedRelRules = grammar.rules.getRulesForRel(rel);
                 if (indexedRelRules != null) { typeChangingRules.addAll(indexedRelRules); }
@@ -832,12 +858,30 @@ public class EdgeFactory
                     }
                 }
             }
+            // when extending, just update feature map with existing rule instances, 
+            // as type changing rules are not filtered by the hypertagger
+            if (extending) {
+                List<RuleInstance> ruleInstancesForPred = ruleInstancesForPreds.get(i);
+                if (ruleInstancesForPred != null) {
+                    for (RuleInstance ruleInst : ruleInstancesForPred) {
+                        featureLicenser.updateFeatureMap(ruleInst.rule.getArg());
+                        featureLicenser.updateFeatureMap(ruleInst.rule.getResult());
+                    }
+                }
+                continue;
+            }
             // create rules instances for each rule, updating feature map
             for (TypeChangingRule rule : typeChangingRules) {
                 List<RuleInstance> ruleInstancesForRule = createRuleInstances(rule, i);
                 if (ruleInstancesForRule != null) {
                     for (RuleInstance ruleInst : ruleInstancesForRule) { 
                         ruleInstances.add(ruleInst);
+                        List<RuleInstance> ruleInstancesForPred = ruleInstancesForPreds.get(i);
+                        if (ruleInstancesForPred == null) {
+                            ruleInstancesForPred = new ArrayList<RuleInstance>();
+                            ruleInstancesForPreds.put(i, ruleInstancesForPred);
+                        }
+                        ruleInstancesForPred.add(ruleInst);
                         featureLicenser.updateFeatureMap(ruleInst.rule.getArg());
                         featureLicenser.updateFeatureMap(ruleInst.rule.getResult());
                     }
@@ -863,8 +907,8 @@ public class EdgeFactory
             }
         } while (markedEdgesForLicensing.size() != prevSize);
         
-        // initialize general rules
-        initGeneralRules();
+        // initialize general rules, unless already done
+        if (!extending) initGeneralRules();
 
         // initialize edges for semantically null lexical items        
         initNoSemEdges();
@@ -896,11 +940,62 @@ public class EdgeFactory
         return retval;
     }
     
+    /**
+     * Creates and returns the initial edges that have become available 
+     * since the initial edges were last created, typically after the 
+     * hypertagger has moved to a less restrictive beta setting. 
+     * The lexical lookup and feature licensing are redone from scratch, 
+     * so that the same edges are licensed as with a new edge factory; 
+     * the lists of initial edges are updated accordingly, retaining the 
+     * previously created edges, while the rule instances are reused. 
+     * Null is returned if the previous edges cannot simply be extended, 
+     * ie if relaxed relation matching is in use, if any new nominals 
+     * have been added for semantically null words, or if any previously 
+     * created edge is no longer licensed; in this case, the edge factory 
+     * should not be used further.
+     */
+    public List<Edge> createNewInitialEdges() {
+        if (useRelaxedRelationMatching) return null;
+        // save previous edges
+        Map<Edge,Edge> prevEdges = new HashMap<Edge,Edge>();
+        List<List<Edge>> edgeLists = new ArrayList<List<Edge>>(4);
+        edgeLists.add(initialEdges); edgeLists.add(markedEdges);
+        edgeLists.add(instantiatedNoSemEdges); edgeLists.add(noSemEdges);
+        for (List<Edge> edgeList : edgeLists) {
+            for (Edge edge : edgeList) prevEdges.put(edge, edge);
+            edgeList.clear();
+        }
+        int numNominals = nominals.size();
+        // redo lexical lookup and licensing
+        featureLicenser.clearFeatureMap();
+        hasUncoveredPreds = false;
+        extending = true;
+        try { createInitialEdges(); }
+        finally { extending = false; }
+        if (nominals.size() != numNominals) return null;
+        // substitute previous edges, collecting new ones
+        List<Edge> retval = new ArrayList<Edge>();
+        Set<Edge> foundEdges = new HashSet<Edge>();
+        for (List<Edge> edgeList : edgeLists) {
+            for (int i = 0; i < edgeList.size(); i++) {
+                Edge edge = edgeList.get(i);
+                Edge prevEdge = prevEdges.get(edge);
+                if (prevEdge != null) { edgeList.set(i, prevEdge); foundEdges.add(prevEdge); }
+                else retval.add(edge);
+            }
+        }
+        if (foundEdges.size() != prevEdges.size()) return null;
+        // return
+        return retval;
+    }
+    
     // return null if LF doesn't unify with preds
     private List<Edge> createInitialEdges(Sign sign, int predIndex) {
         // get parts of sign 
         List<Word> words = sign.getWords();
-        Category cat = sign.getCategory();
+        // copy the cat, as it is reindexed during instantiation, 
+        // and the sign may be cached by the lexicon and shared across threads
+        Category cat = sign.getCategory().copy();
         // instantiate
         List<Pair<Substitution,BitSet>> instantiations = instantiate(cat, null, predIndex);
         // check for failure
@@ -931,9 +1026,10 @@ public class EdgeFactory
     
     // return null if result LF doesn't unify with preds
     private List<RuleInstance> createRuleInstances(TypeChangingRule rule, int predIndex) {
-        // get parts of rule
-        Category result = rule.getResult();
-        Category arg = rule.getArg();
+        // get copies of parts of rule, as they are reindexed during instantiation, 
+        // and the rule may be shared across threads
+        Category result = rule.getResult().copy();
+        Category arg = rule.getArg().copy();
         // instantiate
         List<Pair<Substitution,BitSet>> instantiations = instantiate(result, arg, predIndex);
         // check for failure
@@ -1522,11 +1618,14 @@ public class EdgeFactory
     // creates edges for signs flagged as having no semantics,  
     // and with appropriate licensing values in the initial edges
     private void initNoSemEdges() {
-        // lookup signs by special index rel constant NO_SEM_FLAG
-        lexicon.setSupertagger(null); // turn off hypertagger first
-        Collection<Sign> noSemSigns = lexicon.getSignsFromRel(Lexicon.NO_SEM_FLAG);
-        lexicon.setSupertagger(hypertagger); // reset hypertagger
+        // lookup signs by special index rel constant NO_SEM_FLAG, without the hypertagger
+        Collection<Sign> noSemSigns = lexicon.getSignsFromRel(Lexicon.NO_SEM_FLAG, null);
         if (noSemSigns == null) return;
+        // copy the cats, as they are reindexed during licensing, 
+        // and the signs may be cached by the lexicon
+        List<Sign> noSemSignList = new ArrayList<Sign>(noSemSigns);
+        List<Category> noSemCats = new ArrayList<Category>(noSemSignList.size());
+        for (Sign sign : noSemSignList) noSemCats.add(sign.getCategory().copy());
         // sets for accumulating no sem edges
         Set<Edge> instEdges = new HashSet<Edge>();
         Set<Edge> uninstEdges = new HashSet<Edge>();
@@ -1538,8 +1637,9 @@ public class EdgeFactory
         int numInstEdges, numUninstEdges;
         do {
         	numInstEdges = instEdges.size(); numUninstEdges = uninstEdges.size();
-	        for (Sign sign : noSemSigns) {
-	            Category cat = sign.getCategory();
+	        for (int i = 0; i < noSemSignList.size(); i++) {
+	        	Sign sign = noSemSignList.get(i);
+	            Category cat = noSemCats.get(i);
 	            // get licensed, potentially instantiated cats
 	            instantiatedCats.clear();
 	            uninstantiatedCats.clear();
@@ -0,0 +1,135 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (C) 2026 OpenCCG contributors
+// 
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+// 
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Lesser General Public License for more details.
+// 
+// You should have received a copy of the GNU Lesser General Public
+// License along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+//////////////////////////////////////////////////////////////////////////////
+
+package opennlp.ccg.realize;
+
+import java.util.*;
+
+/**
+ * An inverted index from nominal indices to the chart edges 
+ * that may be combined with a given edge, for use when the edge factory 
+ * only combines edges whose indices intersect or are paired in the input LF 
+ * (or which are missing an index nominal, if allowed).
+ * The candidates are returned in the order in which the edges were added, 
+ * with no edge whose coverage bitset intersects the given edge's, 
+ * so that the combinations are tried in the same order as when 
+ * scanning all the edges in the chart.
+ */
+class EdgeIndex {
+
+	// the edge factory
+	private final EdgeFactory edgeFactory;
+	
+	// edges by the nominal indices they contain
+	private final List<List<Edge>> edgesByIndex = new ArrayList<List<Edge>>();
+	
+	// edges with no indices
+	private final List<Edge> edgesWithNoIndices = new ArrayList<Edge>();
+	
+	// edges whose category has no index nominal
+	private final List<Edge> edgesWithNoIndexNominal = new ArrayList<Edge>();
+	
+	// edges by their indices, for looking up paired nominals; 
+	// nb: the keys are the edges' own (mutable) indices bitsets, which must not 
+	// change once an edge has been added, as otherwise it will be lost from the map; 
+	// EdgeFactory.checkInstantiation sets all the indices of edges with an 
+	// uninstantiated outer arg, but only for newly made edges, before they reach 
+	// the chart (alt edges share the indices of their rep but are not checked again)
+	private final Map<BitSet,List<Edge>> edgesByIndices = new HashMap<BitSet,List<Edge>>();
+	
+	// the number of edges added so far
+	private int count = 0;
+	
+	/** Constructor. */
+	EdgeIndex(EdgeFactory edgeFactory) { this.edgeFactory = edgeFactory; }
+	
+	/** Adds an edge to the index. */
+	void add(Edge edge) {
+		edge.indexOrder = count++;
+		BitSet indices = edge.indices;
+		if (indices.isEmpty()) edgesWithNoIndices.add(edge);
+		for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i+1)) {
+			while (edgesByIndex.size() <= i) edgesByIndex.add(null);
+			List<Edge> edges = edgesByIndex.get(i);
+			if (edges == null) { edges = new ArrayList<Edge>(); edgesByIndex.set(i, edges); }
+			edges.add(edge);
+		}
+		if (edgeFactory.allowsMissingIndexCombos() && edge.getIndexNominal() == null) 
+			edgesWithNoIndexNominal.add(edge);
+		if (edgeFactory.hasPairedNominals()) {
+			List<Edge> edges = edgesByIndices.get(indices);
+			if (edges == null) { edges = new ArrayList<Edge>(); edgesByIndices.put(indices, edges); }
+			edges.add(edge);
+		}
+	}
+	
+	/** 
+	 * Returns whether all the edges may be combined with the given one, 
+	 * ie whether it has no indices or (if allowed) no index nominal, 
+	 * in which case the candidates are not narrowed by the index.
+	 */
+	boolean combinesWithAll(Edge next) {
+		return next.indices.isEmpty() || 
+			(edgeFactory.allowsMissingIndexCombos() && next.getIndexNominal() == null);
+	}
+	
+	/** 
+	 * Returns the edges, in the order added, which may be combined with the 
+	 * given one, ie those whose indices intersect it (or which are missing an 
+	 * index nominal, if allowed) or whose indices are paired with it, 
+	 * excluding the given edge itself and edges whose coverage intersects it.
+	 */
+	List<Edge> candidates(Edge next) {
+		List<Edge> retval = new ArrayList<Edge>();
+		addCandidates(retval, edgesWithNoIndices, next);
+		BitSet indices = next.indices;
+		for (int i = indices.nextSetBit(0); i >= 0 && i < edgesByIndex.size(); i = indices.nextSetBit(i+1)) 
+			addCandidates(retval, edgesByIndex.get(i), next);
+		addCandidates(retval, edgesWithNoIndexNominal, next);
+		if (edgeFactory.hasPairedNominals()) {
+			for (BitSet pairedIndices : edgeFactory.pairedIndices(indices)) 
+				addCandidates(retval, edgesByIndices.get(pairedIndices), next);
+		}
+		// sort by order added, removing duplicates
+		Collections.sort(retval, orderComparator);
+		int j = 0;
+		for (int i = 0; i < retval.size(); i++) {
+			Edge edge = retval.get(i);
+			if (j == 0 || retval.get(j-1) != edge) retval.set(j++, edge);
+		}
+		while (retval.size() > j) retval.remove(retval.size()-1);
+		return retval;
+	}
+	
+	// adds the edges that do not overlap with the given one to the list
+	private void addCandidates(List<Edge> list, List<Edge> edges, Edge next) {
+		if (edges == null) return;
+		BitSet bitset = next.bitset;
+		for (int i = 0; i < edges.size(); i++) {
+			Edge edge = edges.get(i);
+			if (edge != next && !edge.bitset.intersects(bitset)) list.add(edge);
+		}
+	}
+	
+	// compares edges by the order added
+	private static final Comparator<Edge> orderComparator = new Comparator<Edge>() {
+		public int compare(Edge edge1, Edge edge2) {
+			return (edge1.indexOrder < edge2.indexOrder) ? -1 : ((edge1.indexOrder > edge2.indexOrder) ? 1 : 0);
+		}
+	};
+}
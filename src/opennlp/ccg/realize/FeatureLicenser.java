@@ -116,6 +116,15 @@ public class FeatureLicenser
         currentFeatureMap = null;
     }
     
+    /**
+     * Clears the licensed feature map, for redoing the licensing of the initial categories.
+     * The indices for semantically null words are retained.
+     */
+    public void clearFeatureMap() {
+        featureMap.clear();
+        allInitialAtomCats.clear();
+    }
+    
     // updates the category-specific licensed feature map
     private void updateCatFeatureMap(Category cat) {
         catFeatureMap.clear(); 
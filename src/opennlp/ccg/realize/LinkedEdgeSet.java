@@ -0,0 +1,97 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (C) 2026 OpenCCG contributors
+// 
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+// 
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Lesser General Public License for more details.
+// 
+// You should have received a copy of the GNU Lesser General Public
+// License along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+//////////////////////////////////////////////////////////////////////////////
+
+package opennlp.ccg.realize;
+
+import java.util.*;
+
+/**
+ * An insertion-ordered set of the edges in a chart, implemented as 
+ * a doubly linked list whose links are stored in the edges themselves, 
+ * so that edges can be added, removed or checked for membership 
+ * in constant time.  Membership is by identity, and an edge may 
+ * belong to at most one such set.
+ */
+class LinkedEdgeSet extends AbstractSet<Edge> {
+
+	// first and last edges
+	private Edge head = null, tail = null;
+	
+	// the number of edges
+	private int size = 0;
+	
+	/** Returns the number of edges. */
+	public int size() { return size; }
+	
+	/** Returns whether the given edge is in the set. */
+	public boolean contains(Object o) {
+		return (o instanceof Edge) && ((Edge)o).inEdgeSet;
+	}
+	
+	/** Adds the given edge at the end, unless already present. */
+	public boolean add(Edge edge) {
+		if (edge.inEdgeSet) return false;
+		edge.inEdgeSet = true;
+		edge.prevInSet = tail; edge.nextInSet = null;
+		if (tail == null) head = edge; else tail.nextInSet = edge;
+		tail = edge; size++;
+		return true;
+	}
+	
+	/** Removes the given edge, returning whether it was present. */
+	public boolean remove(Object o) {
+		if (!contains(o)) return false;
+		unlink((Edge)o);
+		return true;
+	}
+	
+	/** Removes all edges. */
+	public void clear() {
+		for (Edge edge = head; edge != null; ) {
+			Edge next = edge.nextInSet;
+			edge.inEdgeSet = false; edge.prevInSet = null; edge.nextInSet = null;
+			edge = next;
+		}
+		head = null; tail = null; size = 0;
+	}
+	
+	/** Returns an iterator over the edges in the order added. */
+	public Iterator<Edge> iterator() {
+		return new Iterator<Edge>() {
+			Edge next = head, last = null;
+			public boolean hasNext() { return next != null; }
+			public Edge next() {
+				if (next == null) throw new NoSuchElementException();
+				last = next; next = next.nextInSet;
+				return last;
+			}
+			public void remove() {
+				if (last == null || !last.inEdgeSet) throw new IllegalStateException();
+				unlink(last); last = null;
+			}
+		};
+	}
+	
+	// unlinks the given edge
+	private void unlink(Edge edge) {
+		if (edge.prevInSet == null) head = edge.nextInSet; else edge.prevInSet.nextInSet = edge.nextInSet;
+		if (edge.nextInSet == null) tail = edge.prevInSet; else edge.nextInSet.prevInSet = edge.prevInSet;
+		edge.inEdgeSet = false; edge.prevInSet = null; edge.nextInSet = null;
+		size--;
+	}
+}
@@ -78,6 +78,13 @@ public class Realizer
     /** Hypertagger to use. (Default is none.) */
     public Hypertagger hypertagger = null;
     
+    /** 
+     * Flag for whether to extend the packed chart with the newly licensed initial edges 
+     * when moving to the next hypertagger beta setting, rather than starting over 
+     * with a new chart. (Default is false.) 
+     */
+    public boolean incrementalChart = false;
+    
 
     //-----------------------------------------------------------------
     // get LF from doc    
@@ -176,8 +183,6 @@ public class Realizer
         // get edge limit
         Preferences prefs = Preferences.userNodeForPackage(TextCCG.class);
         int edgeLimit = prefs.getInt(Chart.EDGE_LIMIT, Chart.NO_EDGE_LIMIT);
-    	// set supertagger in lexicon
-    	grammar.lexicon.setSupertagger(hypertagger);
     	// reset beta
     	hypertagger.resetBeta();
         // loop until retval set or need to give up
@@ -189,15 +194,18 @@ public class Realizer
         long iterStartTime = 0, currentTime = 0;
         int iterTime = 0;
         while (retval == null && !outOfBetas && !pastTimeLimit && !exceededEdgeLimit) {
-        	// instantiate chart and set start time for this iteration
-            chart = new Chart(new EdgeFactory(grammar, preds, signScorer, hypertagger), pruningStrategy);
             iterStartTime = System.currentTimeMillis();
-        	// do realization in packing mode to see if a complete realization 
-        	// can be found with this hypertagger setting
-            chart.usePacking = true; chart.collectCombos = false;
-            chart.doUnpacking = false; chart.joinFragments = false;
-            // run request
-            chart.initialize();
+            // extend chart from previous iteration with the newly licensed initial edges, 
+            // if apropos, otherwise instantiate chart for this iteration
+            if (!incrementalChart || chart == null || !chart.extend()) {
+	            chart = new Chart(new EdgeFactory(grammar, preds, signScorer, hypertagger), pruningStrategy);
+	        	// do realization in packing mode to see if a complete realization 
+	        	// can be found with this hypertagger setting
+	            chart.usePacking = true; chart.collectCombos = false;
+	            chart.doUnpacking = false; chart.joinFragments = false;
+	            // run request
+	            chart.initialize();
+            }
             if (chart.noUncoveredPreds()) 
             	chart.combine(timeLimitMS, false);
             // check time limit
@@ -274,8 +282,6 @@ public class Realizer
     	// update end time
         long endTime = System.currentTimeMillis();
         chart.timeTilDone = (int) (endTime - startTime);
-    	// reset supertagger in lexicon
-    	grammar.lexicon.setSupertagger(null);
         // return
     	return retval;
     }
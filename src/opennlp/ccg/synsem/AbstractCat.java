@@ -53,6 +53,12 @@ public abstract class AbstractCat implements Category, Serializable {
     
     /** The mapping from vars to ints, if already computed. */
     private transient TObjectIntHashMap _varMap = null;
+    
+    /** Whether the category has been frozen. */
+    private transient volatile boolean _frozen = false;
+    
+    /** The fingerprint, once frozen. */
+    private transient long _fingerprint = 0;
 
     /** The supertag, if already computed. */
     protected String _supertag = null;
@@ -88,6 +94,62 @@ public abstract class AbstractCat implements Category, Serializable {
     	in.defaultReadObject();
     	if (_supertag != null) _supertag = _supertag.intern();
     	_varMap = null;
+    	_frozen = false;
+    }
+    
+    
+    /**
+     * Freezes this category, caching its hash codes, var map and fingerprint, 
+     * so that they need not be recomputed when the category is used 
+     * as a key in a chart.  A frozen category may not be modified 
+     * through its setters or deepMap; this is checked via {@link #checkNotFrozen()}.
+     * The nested categories and feature structures are frozen too, 
+     * via {@link #freezeParts()}.
+     * Freezing is done when a category is added to a chart, 
+     * after which it is treated as immutable.
+     */
+    public void freeze() {
+    	if (_frozen) return;
+    	freezeParts();
+    	TObjectIntHashMap varMap = new TObjectIntHashMap();
+    	int hcNoLF = hashCodeNoLF(varMap);
+    	int hcLF = (_lf != null) ? _lf.hashCode(varMap) : 0;
+    	_varMap = varMap;
+    	_hashCodeNoLF = hcNoLF;
+    	_hashCode = hcNoLF + hcLF;
+    	_fingerprint = ((long) hcNoLF << 32) | (hcLF & 0xffffffffL);
+    	_frozen = true;
+    }
+    
+    /** 
+     * Freezes the parts of this category which contribute to its hash codes, 
+     * ie its nested categories and feature structures; does nothing by default.
+     */
+    protected void freezeParts() {}
+    
+    /** Returns whether this category has been frozen. */
+    public boolean isFrozen() { return _frozen; }
+    
+    /**
+     * Returns a 64-bit fingerprint for the category, which is the same for 
+     * equivalent categories up to variable names: the high 32 bits 
+     * are the hash code sans LF, and the low 32 bits are the hash code 
+     * of the LF (if any).  The fingerprint is cached once the category is frozen.
+     */
+    public long fingerprint() {
+    	if (_frozen) return _fingerprint;
+    	TObjectIntHashMap varMap = new TObjectIntHashMap();
+    	int hcNoLF = hashCodeNoLF(varMap);
+    	int hcLF = (_lf != null) ? _lf.hashCode(varMap) : 0;
+    	return ((long) hcNoLF << 32) | (hcLF & 0xffffffffL);
+    }
+    
+    /** 
+     * Throws an IllegalStateException if this category has been frozen; 
+     * should be called by any method which modifies the category. 
+     */
+    protected void checkNotFrozen() {
+    	if (_frozen) throw new IllegalStateException("Attempt to modify frozen category: " + this);
     }
     
     
@@ -98,6 +160,7 @@ public abstract class AbstractCat implements Category, Serializable {
 
     /** Sets the feature structure. */
     public void setFeatureStructure(FeatureStructure fs) { 
+    	checkNotFrozen();
         _featStruc = fs; 
     }
     
@@ -105,7 +168,7 @@ public abstract class AbstractCat implements Category, Serializable {
     public LF getLF() { return _lf; }
     
     /** Sets the LF. */
-    public void setLF(LF lf) { _lf = lf; }
+    public void setLF(LF lf) { checkNotFrozen(); _lf = lf; }
     
 
     //-----------------------------------------------------------------
@@ -152,6 +215,7 @@ public abstract class AbstractCat implements Category, Serializable {
     }
 
     public void deepMap(ModFcn mf) { 
+    	checkNotFrozen();
         if (_lf != null) _lf.deepMap(mf);
         mf.modify(this);
     }
@@ -187,16 +251,16 @@ public abstract class AbstractCat implements Category, Serializable {
      * as long as features and predicates are in the same order.
      * The implementation calls hashCodeNoLF(varMap) and hashCode(varMap) 
      * on the LF.
+     * The hash code is only cached once the category is frozen.
      */
     public int hashCode() {
-    	// NB: caching of the hash code has been turned off to avoid problems with stale values;
-    	//     in principle, a check for staleness could be added
-        //if (_varMap != null && _hashCode != -1) { return _hashCode; }
-        _varMap = new TObjectIntHashMap();
-        _hashCodeNoLF = hashCodeNoLF(_varMap);
-        _hashCode = _hashCodeNoLF;
-        if (_lf != null) { _hashCode += _lf.hashCode(_varMap); }
-        return _hashCode;
+    	// NB: caching of the hash code is only done for frozen categories, 
+    	//     to avoid problems with stale values
+        if (_frozen) { return _hashCode; }
+        TObjectIntHashMap varMap = new TObjectIntHashMap();
+        int retval = hashCodeNoLF(varMap);
+        if (_lf != null) { retval += _lf.hashCode(varMap); }
+        return retval;
     }
     
     /** 
@@ -204,14 +268,13 @@ public abstract class AbstractCat implements Category, Serializable {
      * The hash code handles equivalence up to variable names 
      * as long as features and predicates are in the same order.
      * The implementation calls hashCodeNoLF(varMap). 
+     * The hash code is only cached once the category is frozen.
      */
     public int hashCodeNoLF() {
-    	// NB: caching of the hash code has been turned off to avoid problems with stale values;
-    	//     in principle, a check for staleness could be added
-        //if (_varMap != null && _hashCodeNoLF != -1) { return _hashCodeNoLF; }
-        _varMap = new TObjectIntHashMap();
-        _hashCodeNoLF = hashCodeNoLF(_varMap);
-        return _hashCodeNoLF;
+    	// NB: caching of the hash code is only done for frozen categories, 
+    	//     to avoid problems with stale values
+        if (_frozen) { return _hashCodeNoLF; }
+        return hashCodeNoLF(new TObjectIntHashMap());
     }
     
     /**
@@ -245,22 +308,39 @@ public abstract class AbstractCat implements Category, Serializable {
         if (obj == null) return false;
         if (obj.getClass() != this.getClass()) { return false; }
         AbstractCat ac = (AbstractCat) obj;
-        // ensure var maps in place
-        if (checkLF) {
-        	hashCode(); ac.hashCode();
-        } else {
-        	hashCodeNoLF(); ac.hashCodeNoLF();
+        // with frozen cats, check fingerprints first
+        if (_frozen && ac._frozen) {
+        	if (checkLF && _fingerprint != ac._fingerprint) return false;
+        	if (!checkLF && _hashCodeNoLF != ac._hashCodeNoLF) return false;
         }
+        // get var maps
+        // nb: the var map of a frozen cat includes the vars in its LF, 
+        //     which does not affect equality checking sans LF, as 
+        //     the vars in the cat are mapped first
+        TObjectIntHashMap varMap = varMap(checkLF);
+        TObjectIntHashMap varMap2 = ac.varMap(checkLF);
         // check equality wrt mappings
         if (checkLF) {
             if (_lf != null && ac._lf == null) { return false; }
             if (_lf == null && ac._lf != null) { return false; }
         }
-        if (!equalsNoLF(obj, _varMap, ac._varMap)) return false;
-        if (checkLF && _lf != null && !_lf.equals(ac._lf, _varMap, ac._varMap)) { return false; }
+        if (!equalsNoLF(obj, varMap, varMap2)) return false;
+        if (checkLF && _lf != null && !_lf.equals(ac._lf, varMap, varMap2)) { return false; }
         return true;
     }
 
+    // returns the cached var map of a frozen cat, or otherwise a new one, 
+    // optionally including the vars in the LF;
+    // nb: the var map of an unfrozen cat is not cached, as categories 
+    //     (e.g. lexical ones) may be shared across threads
+    private TObjectIntHashMap varMap(boolean withLF) {
+    	if (_frozen) return _varMap;
+    	TObjectIntHashMap retval = new TObjectIntHashMap();
+    	hashCodeNoLF(retval);
+    	if (withLF && _lf != null) _lf.hashCode(retval);
+    	return retval;
+    }
+
     /**
      * Returns whether this category equals the given object  
      * up to variable names, using the given maps from vars to ints, 
@@ -377,7 +377,7 @@ public class ArgStack implements Serializable {
 			$args = unifySimple(as, upto, sub);
 		} else {
 			$args = unifyComplex(as, upto, sub);
-			// throw new UnifyFailure();
+			// throw UnifyFailure.FAILURE;
 		}
 		return $args;
 	}
@@ -421,7 +421,7 @@ public class ArgStack implements Serializable {
 							int idInSet = ((SetArg) bArg)
 									.indexOf((BasicArg) aArg);
 							if (idInSet == -1)
-								throw new UnifyFailure();
+								throw UnifyFailure.FAILURE;
 							$args.addFront((Arg) aArg.unify(((SetArg) bArg)
 									.get(idInSet), sub));
 							aArg = get(aIndex);
@@ -430,16 +430,16 @@ public class ArgStack implements Serializable {
 					}
 					bIndex--;
 				} else {
-					throw new UnifyFailure();
+					throw UnifyFailure.FAILURE;
 				}
 			} else if (aArg instanceof SetArg && bArg instanceof BasicArg) {
-				throw new UnifyFailure();
+				throw UnifyFailure.FAILURE;
 			} else {
-				throw new UnifyFailure();
+				throw UnifyFailure.FAILURE;
 			}
 		}
 		if (aIndex > -1 || bIndex > -1) {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 		return $args;
 	}
@@ -449,7 +449,7 @@ public class ArgStack implements Serializable {
 
 		if ((!(_hasSet || otherStack._hasSet) && uptoThis > uptoOther + 1)
 				|| (uptoThis > 1 && uptoOther < 1)) {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 		ArgStack $args = new ArgStack();
 		otherStack = otherStack.subList(0, uptoOther);
@@ -459,7 +459,7 @@ public class ArgStack implements Serializable {
 			Arg argi = get(i);
 			if (argi instanceof Dollar) {
 				if (i > 0) {
-					throw new UnifyFailure();
+					throw UnifyFailure.FAILURE;
 				} else {
 					ArgStack $subArgs = otherStack.subList(0, otherIndex + 1);
 					// Slash dsl = ((Dollar) argi).getSlash();
@@ -469,7 +469,7 @@ public class ArgStack implements Serializable {
 				}
 			} else if (argi instanceof BasicArg) {
 				if (otherIndex < 0) {
-					throw new UnifyFailure();
+					throw UnifyFailure.FAILURE;
 				}
 
 				Arg otherArg = otherStack.get(otherIndex);
@@ -480,16 +480,16 @@ public class ArgStack implements Serializable {
 					SetArg sa = (SetArg) otherArg;
 					int id = sa.indexOf((BasicArg) argi);
 					if (id == -1)
-						throw new UnifyFailure();
+						throw UnifyFailure.FAILURE;
 					$args.addFront((Arg) argi.unify(sa.get(id), sub));
 					otherStack.set(otherIndex, sa.copyWithout(id));
 				}
 			} else {
-				throw new UnifyFailure();
+				throw UnifyFailure.FAILURE;
 			}
 		}
 		if (otherIndex > 0) {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 		return $args;
 	}
@@ -507,7 +507,7 @@ public class ArgStack implements Serializable {
 		} else if (upto == size()) {
 			$args = unifySimple(as, upto, sub);
 		} else {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 		return $args;
 	}
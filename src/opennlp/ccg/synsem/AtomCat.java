@@ -121,17 +121,22 @@ public final class AtomCat extends AbstractCat implements TargetCat {
         _featStruc.deepMap(mf);
     }
 
+    /** Freezes the feature structure. */
+    protected void freezeParts() {
+    	if (_featStruc instanceof GFeatStruc) ((GFeatStruc)_featStruc).freeze();
+    }
+
     public void unifyCheck (Object u) throws UnifyFailure {
         if (u instanceof AtomCat) {
             AtomCat u_ac = (AtomCat)u;
             if (!(type.equals(u_ac.type))) {
-                throw new UnifyFailure();
+                throw UnifyFailure.FAILURE;
             }
             if (_featStruc != null && u_ac._featStruc != null) {
                 _featStruc.unifyCheck(u_ac._featStruc);
             }
         } else if (!(u instanceof Variable)) {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
     }
 
@@ -152,7 +157,7 @@ public final class AtomCat extends AbstractCat implements TargetCat {
             return new AtomCat(type, $fs);
         }
         else {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
     }
 
@@ -84,7 +84,7 @@ public final class BasicArg implements Arg, Serializable {
 					.unify(((BasicArg) u)._slash, sub), (Category) _cat.unify(
 					((BasicArg) u)._cat, sub));
 		} else {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 
 	}
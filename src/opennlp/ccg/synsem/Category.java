@@ -74,6 +74,22 @@ public interface Category extends Unifiable, Mutable, java.io.Serializable {
     /** Shallow copies this category. */
     public Category shallowCopy();
     
+    /**
+     * Freezes this category, so that its hash codes and fingerprint 
+     * may be cached; a frozen category may no longer be modified.
+     * Copies of a frozen category are not frozen.
+     */
+    public void freeze();
+    
+    /** Returns whether this category has been frozen. */
+    public boolean isFrozen();
+    
+    /**
+     * Returns a 64-bit fingerprint for this category, 
+     * which is the same for equivalent categories up to variable names. 
+     */
+    public long fingerprint();
+    
 
     /**
      * Iterates through this Category applying a function to this category
@@ -164,14 +164,17 @@ public final class ComplexCat extends AbstractCat {
 	}
 
 	public void add(Arg a) {
+		checkNotFrozen();
 		_args.add(a);
 	}
 
 	public void add(ArgStack as) {
+		checkNotFrozen();
 		_args.add(as);
 	}
 
 	public void addBeforeEnd(ArgStack as) {
+		checkNotFrozen();
 		int size = _args.size();
 		if (size < 1) {
 			add(as);
@@ -181,22 +184,27 @@ public final class ComplexCat extends AbstractCat {
 	}
 
 	public void addFront(ArgStack as) {
+		checkNotFrozen();
 		_args.addFront(as);
 	}
 
 	public void insertFront(ArgStack as) {
+		checkNotFrozen();
 		_args.insertFront(as);
 	}
 
 	public void insertEnd(ArgStack as) {
+		checkNotFrozen();
 		_args.insertEnd(as);
 	}
 
 	public void set(int index, Arg c) {
+		checkNotFrozen();
 		_args.set(index, c);
 	}
 
 	public void setOuterArgument(Arg c) {
+		checkNotFrozen();
 		_args.setLast(c);
 	}
 
@@ -219,6 +227,14 @@ public final class ComplexCat extends AbstractCat {
 		_args.deepMap(mf);
 	}
 
+	/** Freezes the target and argument categories. */
+	protected void freezeParts() {
+		_target.freeze();
+		_args.forall(new CategoryFcnAdapter() {
+			public void forall(Category c) { c.freeze(); }
+		});
+	}
+
 	public void forall(CategoryFcn f) {
 		f.forall(this);
 		_target.forall(f);
@@ -248,7 +264,7 @@ public final class ComplexCat extends AbstractCat {
 				return new ComplexCat((TargetCat) $target, $args);
 			}
 		} else {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 	}
 
@@ -272,7 +288,7 @@ public final class ComplexCat extends AbstractCat {
 			$target.setLF($lf);
 			return $target;
 		} else {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 	}
 
@@ -117,7 +117,7 @@ public final class Dollar implements Arg, Variable, Mutable, Indexed, Serializab
 		} else {
 			// System.out.println("Error in value for dollar: " + this +" = " +
 			// value);
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 	}
 
@@ -134,7 +134,7 @@ public final class Dollar implements Arg, Variable, Mutable, Indexed, Serializab
 		} else if (u instanceof Arg && !((Arg) u).occurs(this)) {
 			((Arg) u).unifySlash(_slash);
 		} else {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 		sub.makeSubstitution(this, u);
 		return u;
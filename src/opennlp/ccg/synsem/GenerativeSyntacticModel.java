@@ -161,7 +161,7 @@ public class GenerativeSyntacticModel implements FeatureExtractor, SignScorer {
 	
 	/** Returns a feature vector with the given gen log prob. */
 	protected FeatureVector genLogProbVector(float logprob) {
-		FeatureList retval = new FeatureList(1);
+		SparseFeatureVector retval = new SparseFeatureVector(1);
 		if (genlogprobFeature != null) retval.add(genlogprobFeature, logprob);
 		return retval;
 	}
@@ -82,7 +82,7 @@ public class LexLogProbFeatureExtractor implements FeatureExtractor, SignScorer
 	
 	/** Returns a feature vector with the given lex log prob total. */
 	protected FeatureVector lexLogProbVector(float logprob) {
-		FeatureList retval = new FeatureList(1);
+		SparseFeatureVector retval = new SparseFeatureVector(1);
 		if (lexlogprobFeature != null) retval.add(lexlogprobFeature, logprob);
 		return retval;
 	}
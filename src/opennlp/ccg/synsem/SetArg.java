@@ -176,7 +176,7 @@ public final class SetArg implements Arg, Serializable {
 
 	// nb: direct unification not implemented ...
 	public Object unify(Object u, Substitution sub) throws UnifyFailure {
-		throw new UnifyFailure();
+		throw UnifyFailure.FAILURE;
 	}
 
 	public Object fill(Substitution s) throws UnifyFailure {
@@ -188,14 +188,14 @@ public final class Slash implements Unifiable, Mutable, Serializable {
 	public void unifyCheck(Object u) throws UnifyFailure {
 		if (u instanceof Slash) {
 			if (!abilitiesMatch(_ability, ((Slash) u)._ability)) {
-				throw new UnifyFailure();
+				throw UnifyFailure.FAILURE;
 			}
 			if (!directionsMatch(_dir, ((Slash) u)._dir)) {
-				throw new UnifyFailure();
+				throw UnifyFailure.FAILURE;
 			}
 			_modality.unifyCheck(((Slash) u)._modality);
 		} else {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 	}
 
@@ -209,7 +209,7 @@ public final class Slash implements Unifiable, Mutable, Serializable {
 			} else if (s2._ability == INERT_OR_ACTIVE) {
 				newAbility = _ability;
 			} else if (_ability != s2._ability) {
-				throw new UnifyFailure();
+				throw UnifyFailure.FAILURE;
 			}
 
 			byte newDir = _dir;
@@ -218,7 +218,7 @@ public final class Slash implements Unifiable, Mutable, Serializable {
 			} else if (s2._dir == B) {
 				newDir = _dir;
 			} else if (_dir != s2._dir) {
-				throw new UnifyFailure();
+				throw UnifyFailure.FAILURE;
 			}
 
 			Modality newModality = (Modality) _modality.unify(((Slash) u)._modality, sub);
@@ -226,7 +226,7 @@ public final class Slash implements Unifiable, Mutable, Serializable {
 			retval._modifier = _modifier;
 			return retval;
 		} else {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 
 	}
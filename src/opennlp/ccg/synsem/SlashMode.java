@@ -100,7 +100,7 @@ public final class SlashMode implements Modality, Serializable {
 	public void unifyCheck(Object o) throws UnifyFailure {
 		if (!(o instanceof VarModality || (o instanceof SlashMode && modesMatch(
 				_mode, ((SlashMode) o)._mode)))) {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 	}
 
@@ -111,10 +111,10 @@ public final class SlashMode implements Modality, Serializable {
 			if (modesMatch(_mode, ((SlashMode) o)._mode)) {
 				return copy();
 			} else {
-				throw new UnifyFailure();
+				throw UnifyFailure.FAILURE;
 			}
 		} else {
-			throw new UnifyFailure();
+			throw UnifyFailure.FAILURE;
 		}
 	}
 
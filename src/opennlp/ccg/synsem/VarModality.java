@@ -116,7 +116,7 @@ public class VarModality implements Variable, Indexed, Mutable, Modality, Serial
     
     public void unifyCheck(Object o) throws UnifyFailure {
         if (!(o instanceof SlashMode || o instanceof VarModality)) {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
     }
     
@@ -132,7 +132,7 @@ public class VarModality implements Variable, Indexed, Mutable, Modality, Serial
             sub.makeSubstitution(var2, $var);
             return $var;
         } else {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
     }
 
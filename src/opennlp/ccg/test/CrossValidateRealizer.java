@@ -25,6 +25,7 @@ import opennlp.ccg.ngrams.*;
 import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.*;
 //import java.util.prefs.*;
 //import java.text.NumberFormat;
 
@@ -57,6 +58,22 @@ public class CrossValidateRealizer implements ScorerMaker {
     /** The pruning strategy, if any. */
     public PruningStrategy pruningStrategy = null;
     
+    /** 
+     * The pruning strategy's class name, if any, from which 
+     * each concurrent fold gets its own instance. 
+     */
+    public String pruningStrategyClass = null;
+    
+    /** 
+     * The max number of folds to prep or realize concurrently (1 for sequential testing).
+     * With concurrent folds, the scorer maker's prepScorer and loadScorer methods 
+     * are invoked concurrently, and each fold gets its own realizer, along with 
+     * its own instance of the pruning strategy class (if any). 
+     * A pruning strategy set without its class name cannot be instantiated 
+     * per fold, so the folds are then realized sequentially.
+     */
+    public int numThreads = 1;
+    
     
     /** Sets up the tester with the given grammar. */
     public CrossValidateRealizer(URL grammarURL) throws IOException {
@@ -187,13 +204,20 @@ public class CrossValidateRealizer implements ScorerMaker {
         if (tmpDir == null) tmpDir = new File(tmpdir);
         System.out.println("Preparing scorers in tmpdir: " + tmpdir);
         System.out.println();
-        // do each fold
-        for (int i = 0; i < numFolds; i++) {
-            // make training/test files for fold
-            File trainFile = new File(tmpDir, trainingFileName(i));
-            File testFile = new File(tmpDir, testFileName(i));
-            // prep scorer
-            scorerMaker.prepScorer(tmpDir, i, trainFile, testFile);
+        // do each fold, concurrently if apropos
+        FoldTask<Object> prep = new FoldTask<Object>() {
+            public Object run(int foldNum) throws IOException {
+                // make training/test files for fold
+                File trainFile = new File(tmpDir, trainingFileName(foldNum));
+                File testFile = new File(tmpDir, testFileName(foldNum));
+                // prep scorer
+                scorerMaker.prepScorer(tmpDir, foldNum, trainFile, testFile);
+                return null;
+            }
+        };
+        if (numThreads > 1 && numFolds > 1) runFoldsInParallel(prep);
+        else {
+            for (int i = 0; i < numFolds; i++) prep.run(i);
         }
         // summary
         scorerMaker.prepScorersSummary(tmpDir);
@@ -246,21 +270,105 @@ public class CrossValidateRealizer implements ScorerMaker {
         // show realizer settings
         Regression.showRealizerSettings();
         
-        // do each fold
-        for (int i = 0; i < numFolds; i++) {
-            // make files for fold
-            File trainFile = new File(tmpDir, trainingFileName(i));
-            File testFile = new File(tmpDir, testFileName(i));
-            // load scorer
-            tester.scorer = scorerMaker.loadScorer(tmpDir, i, trainFile);
-            // run test
-            tester.runTest(testFile);
+        // do each fold, concurrently if apropos
+        boolean concurrent = numThreads > 1 && numFolds > 1;
+        if (concurrent && pruningStrategy != null && pruningStrategyClass == null) {
+            System.out.println("Testing folds sequentially, as the pruning strategy has no class name to instantiate per fold");
+            System.out.println();
+            concurrent = false;
+        }
+        if (concurrent) {
+            List<Regression> foldTesters = runFoldsInParallel(new FoldTask<Regression>() {
+                public Regression run(int foldNum) throws IOException {
+                    // make files for fold
+                    File trainFile = new File(tmpDir, trainingFileName(foldNum));
+                    File testFile = new File(tmpDir, testFileName(foldNum));
+                    // set up part tester with its own realizer and scorer
+                    Regression foldTester = tester.newPartTester();
+                    foldTester.realizer = new Realizer(tester.grammar);
+                    if (pruningStrategyClass != null) {
+                        foldTester.realizer.pruningStrategy = newPruningStrategy();
+                    }
+                    foldTester.scorer = scorerMaker.loadScorer(tmpDir, foldNum, trainFile);
+                    // run test
+                    foldTester.runTest(testFile);
+                    return foldTester;
+                }
+            });
+            for (int i = 0; i < foldTesters.size(); i++) {
+                tester.addResults(foldTesters.get(i));
+                foldTesters.set(i, null); // release the fold's results
+            }
+        }
+        else {
+	        for (int i = 0; i < numFolds; i++) {
+	            // make files for fold
+	            File trainFile = new File(tmpDir, trainingFileName(i));
+	            File testFile = new File(tmpDir, testFileName(i));
+	            // load scorer
+	            tester.scorer = scorerMaker.loadScorer(tmpDir, i, trainFile);
+	            // run test
+	            tester.runTest(testFile);
+	        }
         }
         
         // show stats
         tester.showStats();
     }
     
+    /** Returns a new instance of the pruning strategy class. */
+    public PruningStrategy newPruningStrategy() {
+        try {
+            return (PruningStrategy) Class.forName(pruningStrategyClass).getDeclaredConstructor().newInstance();
+        } catch (Exception exc) {
+            throw (RuntimeException) new RuntimeException().initCause(exc);
+        }
+    }
+    
+    // a task to do for each fold
+    private interface FoldTask<T> {
+        public T run(int foldNum) throws IOException;
+    }
+    
+    // runs the task for each fold concurrently, returning the results in fold order
+    private <T> List<T> runFoldsInParallel(final FoldTask<T> task) throws IOException {
+        int numFoldsInt = (int) Math.ceil(numFolds);
+        int threads = Math.min(numThreads, numFoldsInt);
+        System.out.println("Running folds in parallel with " + threads + " threads");
+        System.out.println();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<T>> futures = new ArrayList<Future<T>>(numFoldsInt);
+            for (int i = 0; i < numFolds; i++) {
+                final int foldNum = i;
+                futures.add(executor.submit(new Callable<T>() {
+                    public T call() throws Exception {
+                        return task.run(foldNum);
+                    }
+                }));
+            }
+            List<T> retval = new ArrayList<T>(futures.size());
+            for (int i = 0; i < futures.size(); i++) {
+                retval.add(futures.get(i).get());
+                futures.set(i, null);
+            }
+            return retval;
+        }
+        catch (InterruptedException exc) {
+            throw (IOException) new InterruptedIOException().initCause(exc);
+        }
+        catch (ExecutionException exc) {
+            Throwable cause = exc.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new RuntimeException(cause);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+    
     
    
     /** Command-line routine for cross-validating realizer. */
@@ -273,6 +381,7 @@ public class CrossValidateRealizer implements ScorerMaker {
                        "(-ngramorder N) " + 
                        "(-scorermaker <scorermakerclass>) " + 
                        "(-pruningstrategy <pruningstrategyclass>) " +
+                       "(-threads N) " +
                        "(-g <grammarfile>) (-s <statsfile>) (<testbedfile>)";
                        
         if (args.length > 0 && args[0].equals("-h")) {
@@ -290,6 +399,7 @@ public class CrossValidateRealizer implements ScorerMaker {
         int ngramOrder = 0;
         String scorerMakerClass = null;
         String pruningStrategyClass = null; 
+        int numThreads = 0;
         String grammarfile = "grammar.xml";
         String testbedfile = "testbed.xml";
         String statsfile = null;
@@ -310,6 +420,7 @@ public class CrossValidateRealizer implements ScorerMaker {
             if (args[i].equals("-ngramorder")) { ngramOrder = Integer.parseInt(args[++i]); continue; }
             if (args[i].equals("-scorermaker")) { scorerMakerClass = args[++i]; continue; }
             if (args[i].equals("-pruningstrategy")) { pruningStrategyClass = args[++i]; continue; }
+            if (args[i].equals("-threads")) { numThreads = Integer.parseInt(args[++i]); continue; }
             if (args[i].equals("-g")) { grammarfile = args[++i]; continue; }
             if (args[i].equals("-s")) { statsfile = args[++i]; continue; }
             testbedfile = args[i];
@@ -321,6 +432,7 @@ public class CrossValidateRealizer implements ScorerMaker {
         if (numFolds > 0) cvr.numFolds = numFolds;
         if (tmpdir != null) cvr.tmpdir = tmpdir;
         if (ngramOrder > 0) cvr.tester.ngramOrder = ngramOrder;
+        if (numThreads > 0) cvr.numThreads = numThreads;
         if (scorerMakerClass != null) {
             try {
                 cvr.scorerMaker = (ScorerMaker) Class.forName(scorerMakerClass).newInstance();
@@ -330,11 +442,8 @@ public class CrossValidateRealizer implements ScorerMaker {
             }
         }
         if (pruningStrategyClass != null) {
-            try {
-                cvr.pruningStrategy = (PruningStrategy) Class.forName(pruningStrategyClass).newInstance();
-            } catch (Exception exc) {
-                throw (RuntimeException) new RuntimeException().initCause(exc);
-            }
+            cvr.pruningStrategyClass = pruningStrategyClass;
+            cvr.pruningStrategy = cvr.newPruningStrategy();
         }
         if (statsfile != null) cvr.tester.statsfile = statsfile;
 
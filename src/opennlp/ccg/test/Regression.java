@@ -21,6 +21,7 @@ import java.io.*;
 import java.net.URL;
 import java.text.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.prefs.Preferences;
 
 import opennlp.ccg.TextCCG;
@@ -134,6 +135,26 @@ public class Regression {
     /** The feature extractor to use in extracting events. */
     public FeatureExtractor featureExtractor = null;
     
+    /** The number of threads to use for testing items in parallel (1 for sequential testing). */
+    public int numThreads = 1;
+    
+    /** The factory for the sessions used by the worker threads in parallel testing. */
+    public SessionFactory sessionFactory = null;
+    
+    /**
+     * Interface for setting up the sessions used by the worker threads 
+     * when testing items in parallel.
+     */
+    public interface SessionFactory {
+        /**
+         * Sets up the parser and realizer (as apropos) of the given worker tester, 
+         * together with its scorers, none of which may be shared with another 
+         * worker unless they are safe to use concurrently (as with n-gram models).
+         * The worker is otherwise a copy of the tester it works for, sharing its grammar.
+         */
+        public void setUpSession(Regression worker);
+    }
+    
     //
     // the various totals
     //
@@ -236,6 +257,16 @@ public class Regression {
     
     private XMLOutputter xmlOutputter = new XMLOutputter(); // for xml-escaping strings
     
+    private PrintStream out = System.out; // for showing test output
+    
+    // for testing items in parallel: the worker sessions and their threads
+    private BlockingQueue<Regression> sessions = null;
+    private ExecutorService executor = null;
+    
+    // for an item tested in parallel: the buffered stdout, and the events to write
+    private ByteArrayOutputStream outBuffer = null;
+    private List<Pair<List<Sign>,Sign>> pendingEvents = null;
+    
     /** Constructor. */
     public Regression() {
         // init
@@ -277,6 +308,66 @@ public class Regression {
             lexMap = new TimingMap("lex"); firstMap = new TimingMap("first"); bestMap = new TimingMap("best"); allMap = new TimingMap("all");
         }
     }
+    
+    /** 
+     * Adds the totals from the given tester, as if its items had been 
+     * tested after the ones tested so far.
+     */
+    public void addTotals(Regression tester) {
+    	// parser
+        pCount += tester.pCount; pBadCount += tester.pBadCount; pFailedCount += tester.pFailedCount; pExactCount += tester.pExactCount;
+        totalF += tester.totalF; totalRecall += tester.totalRecall; totalPrecision += tester.totalPrecision;
+        totalDepsF += tester.totalDepsF; totalDepsRecall += tester.totalDepsRecall; totalDepsPrecision += tester.totalDepsPrecision;
+        totalUnlabeledDepsF += tester.totalUnlabeledDepsF; totalUnlabeledDepsRecall += tester.totalUnlabeledDepsRecall; 
+        totalUnlabeledDepsPrecision += tester.totalUnlabeledDepsPrecision;
+        totalFComplete += tester.totalFComplete; totalRecallComplete += tester.totalRecallComplete; 
+        totalPrecisionComplete += tester.totalPrecisionComplete;
+        totalDepsFComplete += tester.totalDepsFComplete; totalDepsRecallComplete += tester.totalDepsRecallComplete; 
+        totalDepsPrecisionComplete += tester.totalDepsPrecisionComplete;
+        totalUnlabeledDepsFComplete += tester.totalUnlabeledDepsFComplete; totalUnlabeledDepsRecallComplete += tester.totalUnlabeledDepsRecallComplete; 
+        totalUnlabeledDepsPrecisionComplete += tester.totalUnlabeledDepsPrecisionComplete;
+        pTotalEdges += tester.pTotalEdges; pTotalEdgesGood += tester.pTotalEdgesGood; 
+        pMaxEdges = Math.max(pMaxEdges, tester.pMaxEdges); pMaxEdgesGood = Math.max(pMaxEdgesGood, tester.pMaxEdgesGood);
+        pTotalUnpackingEdges += tester.pTotalUnpackingEdges; pMaxUnpackingEdges = Math.max(pMaxUnpackingEdges, tester.pMaxUnpackingEdges);
+        pTotalCellMax += tester.pTotalCellMax; pTotalCellMaxGood += tester.pTotalCellMaxGood; 
+        pMaxCellMax = Math.max(pMaxCellMax, tester.pMaxCellMax); pMaxCellMaxGood = Math.max(pMaxCellMaxGood, tester.pMaxCellMaxGood);
+        pTotalLexTime += tester.pTotalLexTime; pTotalParseTime += tester.pTotalParseTime; 
+        pTotalChartTime += tester.pTotalChartTime; pTotalUnpackingTime += tester.pTotalUnpackingTime;
+        pMaxLexTime = Math.max(pMaxLexTime, tester.pMaxLexTime); pMaxParseTime = Math.max(pMaxParseTime, tester.pMaxParseTime); 
+        pMaxChartTime = Math.max(pMaxChartTime, tester.pMaxChartTime); pMaxUnpackingTime = Math.max(pMaxUnpackingTime, tester.pMaxUnpackingTime);
+        if (pBetaTallies != null && tester.pBetaTallies != null) {
+        	for (Map.Entry<Double,Integer> entry : tester.pBetaTallies.entrySet()) {
+        		Integer betaTally = pBetaTallies.get(entry.getKey());
+        		pBetaTallies.put(entry.getKey(), (betaTally != null) ? betaTally + entry.getValue() : entry.getValue());
+        	}
+        }
+        // realizer
+        rCount += tester.rCount; rDoneCount += tester.rDoneCount; rBadCount += tester.rBadCount; rExactCount += tester.rExactCount;
+        totalScore += tester.totalScore; totalScoreComplete += tester.totalScoreComplete;
+        totalReciprocalRank += tester.totalReciprocalRank;
+        totalNominals += tester.totalNominals;
+        totalTokens += tester.totalTokens; 
+        if (tester.minTokens != 0 && (tester.minTokens < minTokens || minTokens == 0)) minTokens = tester.minTokens; 
+        maxTokens = Math.max(maxTokens, tester.maxTokens);
+        totalRuleApps += tester.totalRuleApps;
+        totalEdges += tester.totalEdges; totalEdgesCreated += tester.totalEdgesCreated; totalUnprunedEdges += tester.totalUnprunedEdges; 
+        totalPrunedRemoved += tester.totalPrunedRemoved; totalPrunedNeverAdded += tester.totalPrunedNeverAdded; totalCellMax += tester.totalCellMax;
+        totalNewBest += tester.totalNewBest; totalLex += tester.totalLex; totalFirst += tester.totalFirst; 
+        totalBest += tester.totalBest; totalPacked += tester.totalPacked; totalStoppedOrDone += tester.totalStoppedOrDone;
+        // nb: the max strings are for the first item with the max time, except for new best, where it's the last
+        if (tester.maxLex > maxLex) { maxLex = tester.maxLex; maxLexStr = tester.maxLexStr; }
+        if (tester.maxFirst > maxFirst) { maxFirst = tester.maxFirst; maxFirstStr = tester.maxFirstStr; }
+        if (tester.maxBest > maxBest) { maxBest = tester.maxBest; maxBestStr = tester.maxBestStr; }
+        if (tester.maxNewBestStr != null && tester.maxNewBest >= maxNewBest) { maxNewBest = tester.maxNewBest; maxNewBestStr = tester.maxNewBestStr; }
+        if (tester.maxPacked > maxPacked) { maxPacked = tester.maxPacked; maxPackedStr = tester.maxPackedStr; }
+        if (tester.maxStoppedOrDone > maxStoppedOrDone) { maxStoppedOrDone = tester.maxStoppedOrDone; maxStoppedOrDoneStr = tester.maxStoppedOrDoneStr; }
+        oracleBetter += tester.oracleBetter; goldMissing += tester.goldMissing;
+        if (bestActualScores != null && tester.bestActualScores != null) {
+            bestActualScores.addAll(tester.bestActualScores); bestEstimatedScores.addAll(tester.bestEstimatedScores); 
+            itemRanks.addAll(tester.itemRanks);
+            lexMap.add(tester.lexMap); firstMap.add(tester.firstMap); bestMap.add(tester.bestMap); allMap.add(tester.allMap);
+        }
+    }
 
     
     // sets up bleu output
@@ -408,9 +499,17 @@ public class Regression {
     	if (eventfile != null) events = EventFile.openWriter(new File(eventfile));
         // set up bleu output, n-best realizations, rescoring, n-best parses (if apropos)
     	bleuSetup(); nbestrealSetup(); rescoreSetup(); nbestparseSetup();
+    	// set up worker sessions for testing in parallel (if apropos)
+    	parallelSetup();
     	// do each file or files
-    	for (File f : getXMLFiles(regressionFile))
-    		runSingleTest(f);
+    	try {
+	    	for (File f : getXMLFiles(regressionFile))
+	    		runSingleTest(f);
+    	}
+    	finally {
+    		// shut down worker threads (if any)
+    		parallelFinish();
+    	}
     	// finish bleu, n-best realization output, rescoring, n-best parses (if apropos)
     	bleuFinish(); nbestrealFinish(); rescoreFinish(); nbestparseFinish();
     	// close event file (if any)
@@ -442,8 +541,8 @@ public class Regression {
     	if (lastDot > 0) testName = testName.substring(0, lastDot);
     	
         // load testfile
-    	System.out.println("Loading: " + testName);
-    	System.out.println();
+    	out.println("Loading: " + testName);
+    	out.println();
         RegressionInfo rinfo = new RegressionInfo(grammar, regressionFile);
 
         // start bleu doc (if apropos)
@@ -453,585 +552,745 @@ public class Regression {
         
         // do each test
         int numItems = rinfo.numberOfItems();
-        System.out.println("Parse\tRealize\tString");
-        System.out.println("-----\t-------\t------");
+        out.println("Parse\tRealize\tString");
+        out.println("-----\t-------\t------");
         
+        List<Integer> items = new ArrayList<Integer>(numItems);
         for (int i=0; i < numItems; i++) {
-
             // check even/odd only
             if (i % 2 == 1 && evenOnly) continue;
             if (i % 2 == 0 && oddOnly) continue;
-            
-            RegressionInfo.TestItem testItem = rinfo.getItem(i);
-            if (doGC) System.gc();
-            
-            // short circuit for sign rescoring; realization only at the moment
-            if (rescorefile != null) {
-                String id = testItem.info;
-                double score = scorer.score(testItem.sign, true);
-            	rescorePW.println("<seg id=\"" + id + "\" score=\"" + score + "\"/>");
-                showOutcome("-", nfE.format(score), "", testItem.sign.getOrthography());
-            	continue;
-            }
-            
-            List<Sign> parses = null;
-            List<Double> parseScores = null;
-            LF parsedLF = null;
-            LF compactedLF = null;
-            LF transformedParsedLF = null;
-            boolean parsed = false;
-            boolean parsedComplete = false;
-            if (doParsing) {
-                try {
-            		// use full-words or words from stored sign if possible
-            		List<Word> words = null;
-            		if (testItem.fullWords != null) {
-                		words = grammar.lexicon.tokenizer.tokenize(testItem.fullWords, true);
-                		// strip <s> and </s>
-                		if (words.get(0).getForm() == "<s>") words.remove(0);
-                		if (words.get(words.size()-1).getForm() == "</s>") words.remove(words.size()-1);
-            		}
-            		else if (testItem.sign != null) {
-            			words = testItem.sign.getWords();
-            		}
-            		if (words != null) {
-	            		// parse 'em
-	            		parser.parse(words);
-            		}
-                	else { 
-                		parser.parse(testItem.sentence);
-                	}
-                	// retrieve results
-                    parses = parser.getResult();
-                    parseScores = parser.getScores();
-                    parsed = true;
-                    parsedComplete = !parses.get(0).getCategory().isFragment();
-                    // get LF of best parse, if needed
-                    if (showParseStats || (doRealization && testItem.lfElt == null && testItem.sign == null)) {
-	                    Sign sign = parses.get(0);
-	                    Category cat = sign.getCategory().copy();
-	                    Nominal index = cat.getIndexNominal();
-	                    parsedLF = cat.getLF();
-	                    index = HyloHelper.convertNominals(parsedLF, sign, index);
-	                    compactedLF = HyloHelper.compact(parsedLF, index);
-	                    // get transformed version if needed
-	                    if (testItem.sign == null) {
-		                    transformedParsedLF = grammar.transformLF(compactedLF); 
-	                    }
-                    }
-                } catch (ParseException e) {
-                	parses = Collections.emptyList();
-                    parsed = false;
-                } catch (Exception e) {
-                	parses = Collections.emptyList();
-                    parsed = false;
-                    System.err.println("Uncaught exception in parsing: " + testItem.sentence);
-                    e.printStackTrace(System.err);
-                }
-                  
-                // update parse stats
-                int count = parser.edgeCount();
-                pTotalEdges += count;
-                if (count > pMaxEdges) pMaxEdges = count;
-                if (parsedComplete) {
-                	pTotalEdgesGood += count;
-                	if (count > pMaxEdgesGood) pMaxEdgesGood = count;
-                }
-                count = parser.unpackingEdgeCount();
-                pTotalUnpackingEdges += count;
-                if (count > pMaxUnpackingEdges) pMaxUnpackingEdges = count;
-                int cellMax = parser.maxCellSize();
-                pTotalCellMax += cellMax;
-                if (cellMax > pMaxCellMax) pMaxCellMax = cellMax;
-                if (parsedComplete) {
-                	pTotalCellMaxGood += cellMax;
-                    if (cellMax > pMaxCellMaxGood) pMaxCellMaxGood = cellMax;
-                }
-                int time = parser.getLexTime();
-                pTotalLexTime += time;
-                if (time > pMaxLexTime) pMaxLexTime = time;
-                time = parser.getParseTime();
-                pTotalParseTime += time;
-                if (time > pMaxParseTime) pMaxParseTime = time;
-                time = parser.getChartTime();
-                pTotalChartTime += time;
-                if (time > pMaxChartTime) pMaxChartTime = time;
-                time = parser.getUnpackingTime();
-                pTotalUnpackingTime += time;
-                if (time > pMaxUnpackingTime) pMaxUnpackingTime = time;
-                double beta = parser.getSupertaggerBeta();
-                Integer betaTally = pBetaTallies.get(beta);
-                pBetaTallies.put(beta, (betaTally != null) ? ++betaTally : 1);
-            }
-            
-            // get test item LF, if needed
-            LF testItemLF = null;
-            if (testItem.lfElt != null && (doRealization || (showParseStats && parsed && testItem.sign == null))) {
-                Element lfElt = testItem.lfElt;
-                Document doc = new Document();
-                lfElt.detach();
-                doc.setRootElement(lfElt);
-                testItemLF = grammar.loadLF(doc);
-            }
-            
-            // compare EPs
-            EPsScorer.Results parseScore = null;
-            LF goldLF = null;
-            if (showParseStats && parsedLF != null) {
-                // get LF to score, gold LF
-            	LF lfToScore = null;
-                if (testItem.sign != null) {
-                	// use LF from stored sign if available
-                	lfToScore = parsedLF;
-                    Category cat = testItem.sign.getCategory().copy();
-                    Nominal index = cat.getIndexNominal();
-                    goldLF = cat.getLF();
-                    index = HyloHelper.convertNominals(goldLF, testItem.sign, index);
-                }
-                else {
-                	// otherwise use test item LF
-                	lfToScore = transformedParsedLF;
-                	goldLF = testItemLF;
-                }
-        		if (goldLF == null) {
-        			throw new RuntimeException(
-        				"Can't score parse: " + testItem.sentence + "!\n" +
-        				"No gold LF."
-    				);
+            items.add(i);
+        }
+        
+        if (sessions != null) testItemsInParallel(rinfo, items);
+        else {
+            for (int i : items) testItem(i, rinfo.getItem(i));
+        }
+        
+        // end bleu doc (if apropos)
+        bleuEndDoc();
+        out.println();
+        
+        // serialize best realizations (if apropos)
+        realserEndDoc(testName);
+    }
+    
+    // sets up the worker sessions for testing items in parallel, if apropos; 
+    // nb: rescoring is always done sequentially
+    private void parallelSetup() {
+    	if (numThreads < 2 || sessionFactory == null || rescorefile != null) return;
+    	sessions = new ArrayBlockingQueue<Regression>(numThreads);
+    	for (int i=0; i < numThreads; i++) {
+    		Regression worker = newItemTester();
+    		sessionFactory.setUpSession(worker);
+    		sessions.add(worker);
+    	}
+    	executor = Executors.newFixedThreadPool(numThreads);
+        out.println("Testing items in parallel with " + numThreads + " threads");
+        out.println();
+    }
+    
+    // shuts down the worker threads, if any
+    private void parallelFinish() {
+    	if (executor == null) return;
+    	executor.shutdownNow();
+    	executor = null; sessions = null;
+    }
+    
+    // tests the given items using the worker sessions, 
+    // adding the results in item order
+    private void testItemsInParallel(final RegressionInfo rinfo, List<Integer> items) throws IOException {
+    	List<Future<Regression>> results = new ArrayList<Future<Regression>>(items.size());
+    	for (final int i : items) {
+    		results.add(executor.submit(new Callable<Regression>() {
+    			public Regression call() throws Exception {
+    				Regression worker = sessions.take();
+    				try {
+    					Regression itemTester = worker.newItemTester();
+    					itemTester.bufferOutput(Regression.this);
+    					itemTester.testItem(i, rinfo.getItem(i));
+    					return itemTester;
+    				}
+    				finally { sessions.put(worker); }
+    			}
+    		}));
+    	}
+    	try {
+    		for (int j=0; j < results.size(); j++) {
+    			addItemResults(results.get(j).get());
+    			results.set(j, null); // release the item's results
+    		}
+    	}
+    	catch (InterruptedException exc) {
+    		throw (IOException) new InterruptedIOException().initCause(exc);
+    	}
+    	catch (ExecutionException exc) {
+    		Throwable cause = exc.getCause();
+    		if (cause instanceof IOException) throw (IOException) cause;
+    		if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+    		if (cause instanceof Error) throw (Error) cause;
+    		throw new RuntimeException(cause);
+    	}
+    }
+    
+    // returns a tester for a single item (or a worker session), with the same settings, 
+    // grammar, parser, realizer and scorers as this one, but with its own totals
+    private Regression newItemTester() {
+    	Regression retval = new Regression();
+    	retval.doParsing = doParsing; retval.doRealization = doRealization; retval.doGC = doGC;
+    	retval.eventfile = eventfile; retval.includeGoldInEvents = includeGoldInEvents;
+    	retval.apmldir = apmldir; retval.showStats = showStats; retval.showParseStats = showParseStats;
+    	retval.bleufileprefix = bleufileprefix; retval.nbestrealfile = nbestrealfile; 
+    	retval.nbestnormbleu = nbestnormbleu; retval.realserdir = realserdir; retval.rescorefile = rescorefile;
+    	retval.nbestincludelfs = nbestincludelfs; retval.nbestparsefile = nbestparsefile;
+    	retval.exactMatches = exactMatches; retval.ngramOrder = ngramOrder;
+    	retval.grammar = grammar; retval.parser = parser; retval.realizer = realizer;
+    	retval.scorer = scorer; retval.parseScorer = parseScorer; retval.featureExtractor = featureExtractor;
+    	retval.resetTotals();
+    	return retval;
+    }
+    
+    // buffers this item tester's output for each kind of output the given tester is writing, 
+    // including stdout
+    private void bufferOutput(Regression tester) {
+    	outBuffer = new ByteArrayOutputStream();
+    	out = new PrintStream(outBuffer);
+    	if (tester.events != null) pendingEvents = new ArrayList<Pair<List<Sign>,Sign>>(1);
+    	if (tester.bleuGen != null) {
+    		bleuGen = new BufferedOutput(); bleuRef = new BufferedOutput(); bleuSrc = new BufferedOutput();
+    	}
+    	if (tester.nbestrealPW != null) nbestrealPW = new BufferedOutput();
+    	if (tester.nbestparsePW != null) nbestparsePW = new BufferedOutput();
+    	if (tester.bestRealMap != null) bestRealMap = new HashMap<String,Sign>();
+    }
+    
+    // adds the buffered output and totals of the given item tester
+    private void addItemResults(Regression itemTester) throws IOException {
+    	if (itemTester.pendingEvents != null) {
+    		for (Pair<List<Sign>,Sign> signs : itemTester.pendingEvents)
+    			EventFile.writeEvents(events, signs.a, signs.b, featureExtractor);
+    	}
+    	if (itemTester.bleuGen != null) {
+    		bleuGen.print(itemTester.bleuGen); bleuRef.print(itemTester.bleuRef); bleuSrc.print(itemTester.bleuSrc);
+    	}
+    	if (itemTester.nbestrealPW != null) nbestrealPW.print(itemTester.nbestrealPW);
+    	if (itemTester.nbestparsePW != null) nbestparsePW.print(itemTester.nbestparsePW);
+    	if (itemTester.bestRealMap != null) {
+    		// nb: putAll would size the map differently, changing its serialization
+    		for (Map.Entry<String,Sign> entry : itemTester.bestRealMap.entrySet()) 
+    			bestRealMap.put(entry.getKey(), entry.getValue());
+    	}
+    	addResults(itemTester);
+    }
+    
+    /**
+     * Returns a tester for running a part of a test (e.g. a cross-validation fold) 
+     * concurrently with other parts, with the same settings, grammar, parser, 
+     * realizer and scorers as this one, but with its own totals, 
+     * and with its test output buffered rather than shown.
+     * The parser, realizer and scorers should be replaced as needed, so that 
+     * they're not shared with other parts, unless they can be used concurrently.
+     * The file outputs (events, BLEU, n-best, serialization, rescoring) are turned off.
+     * The buffered output and totals can be added afterwards, in order, 
+     * using addResults.
+     */
+    public Regression newPartTester() {
+    	Regression retval = newItemTester();
+    	retval.eventfile = null; retval.bleufileprefix = null; retval.nbestrealfile = null; 
+    	retval.nbestparsefile = null; retval.realserdir = null; retval.rescorefile = null;
+    	retval.outBuffer = new ByteArrayOutputStream();
+    	retval.out = new PrintStream(retval.outBuffer);
+    	return retval;
+    }
+    
+    /**
+     * Shows the buffered test output and adds the totals of the given 
+     * part tester (see newPartTester), as if its items had been tested 
+     * after the ones tested so far.
+     */
+    public void addResults(Regression partTester) throws IOException {
+    	partTester.out.flush();
+    	partTester.outBuffer.writeTo(out);
+    	addTotals(partTester);
+    }
+    
+    // a print writer whose output is kept in memory, and returned by toString
+    private static class BufferedOutput extends PrintWriter {
+    	BufferedOutput() { super(new StringWriter()); }
+    	public String toString() { return out.toString(); }
+    }
+    
+    // writes events for the given signs, or saves them for writing in item order 
+    // if testing in parallel, as feature extractors aren't generally thread-safe
+    private void writeEvents(List<Sign> bestSigns, Sign best) throws IOException {
+    	if (pendingEvents != null) pendingEvents.add(new Pair<List<Sign>,Sign>(bestSigns, best));
+    	else EventFile.writeEvents(events, bestSigns, best, featureExtractor);
+    }
+    
+    /** Tests the given item, at the given position in its file. */
+    private void testItem(int i, RegressionInfo.TestItem testItem) throws IOException {
+        if (doGC) System.gc();
+        
+        // short circuit for sign rescoring; realization only at the moment
+        if (rescorefile != null) {
+            String id = testItem.info;
+            double score = scorer.score(testItem.sign, true);
+        	rescorePW.println("<seg id=\"" + id + "\" score=\"" + score + "\"/>");
+            showOutcome("-", nfE.format(score), "", testItem.sign.getOrthography());
+        	return;
+        }
+        
+        List<Sign> parses = null;
+        List<Double> parseScores = null;
+        LF parsedLF = null;
+        LF compactedLF = null;
+        LF transformedParsedLF = null;
+        boolean parsed = false;
+        boolean parsedComplete = false;
+        if (doParsing) {
+            try {
+        		// use full-words or words from stored sign if possible
+        		List<Word> words = null;
+        		if (testItem.fullWords != null) {
+            		words = grammar.lexicon.tokenizer.tokenize(testItem.fullWords, true);
+            		// strip <s> and </s>
+            		if (words.get(0).getForm() == "<s>") words.remove(0);
+            		if (words.get(words.size()-1).getForm() == "</s>") words.remove(words.size()-1);
         		}
-                // score parse
-            	parseScore = EPsScorer.score(lfToScore, goldLF);
-            }
-            
-            // update parsing results
-            if (showParseStats && testItem.numOfParses > 0) {
-            	pCount++;
-            	if (parses.size() == 0 || !parsedComplete) pBadCount++;
-            	if (parses.size() == 0) pFailedCount++;
-            	if (parseScore != null) {
-            		if (parseScore.fscore == 1.0) pExactCount++;
-            		totalF += parseScore.fscore;
-            		totalRecall += parseScore.recall;
-            		totalPrecision += parseScore.precision;
-            		totalDepsF += parseScore.depsFscore;
-            		totalDepsRecall += parseScore.depsRecall;
-            		totalDepsPrecision += parseScore.depsPrecision;
-            		totalUnlabeledDepsF += parseScore.unlabeledDepsFscore;
-            		totalUnlabeledDepsRecall += parseScore.unlabeledDepsRecall;
-            		totalUnlabeledDepsPrecision += parseScore.unlabeledDepsPrecision;
-            		if (parsedComplete) {
-                		totalFComplete += parseScore.fscore;
-                		totalRecallComplete += parseScore.recall;
-                		totalPrecisionComplete += parseScore.precision;
-                		totalDepsFComplete += parseScore.depsFscore;
-                		totalDepsRecallComplete += parseScore.depsRecall;
-                		totalDepsPrecisionComplete += parseScore.depsPrecision;
-                		totalUnlabeledDepsFComplete += parseScore.unlabeledDepsFscore;
-                		totalUnlabeledDepsRecallComplete += parseScore.unlabeledDepsRecall;
-                		totalUnlabeledDepsPrecisionComplete += parseScore.unlabeledDepsPrecision;
-            		}
-            	}
-            }
-            
-            // events output
-            if (events != null && doParsing) {
-            	// nb: only dealing with complete parses at the moment
-            	// nb: gold LF must come from saved sign
-            	if (parses.size() > 0 && testItem.sign != null) {
-            		List<Sign> bestSigns = new ArrayList<Sign>(parses);
-            		Sign best = parses.get(0);
-            		// update best if not exact match
-            		if (parseScore.fscore != 1.0) {
-            			// check oracle best
-            			Pair<Sign,Boolean> bestPair = parser.oracleBest(goldLF); 
-            			if (bestPair.a != null) oracleBetter++;
-            			if (bestPair.b) {
-            				best = bestPair.a;
-            				if (!bestSigns.contains(best)) bestSigns.add(best);
-            			}
-            			// add gold if missing, if apropos
-            			else {
-            				goldMissing++;
-            				if (includeGoldInEvents) {
-	                			best = testItem.sign;
-	                    		//parser.addSupertaggerLogProbs(best); 
-	                    		bestSigns.add(best);
-            				}
-            			}
-            		}
-        			EventFile.writeEvents(events, bestSigns, best, featureExtractor);
-            	}
-            }
-            
-            // n-best parses output
-            if (nbestparsePW != null) {
-                XMLOutputter outputter = new XMLOutputter();
-                outputter.setFormat(Format.getPrettyFormat());
-            	// header for item
-                String extras = "";
-                if (parsedComplete) extras += " complete=\"true\"";
-                String id = testItem.info;
-                if (id == null) id = "" + i;
-                nbestparsePW.println("<seg id=\"" + id + "\" str=\"" + xmlEscape(testItem.sentence) + "\"" + extras + ">");
-            	String tagend = (nbestincludelfs) ? ">" : "/>";
-            	// add best parse
-            	if (parseScore != null) { 
-            		double edgeScore = parseScores.get(0);
-                	String scores = "score=\"" + nf.format(parseScore.fscore) + "\" edge-score=\"" + nfE.format(edgeScore) + "\"";
-                	nbestparsePW.println("<best " + scores + tagend);
-                	if (nbestincludelfs) {
-                    	Element lfElt = grammar.makeLfElt(compactedLF);
-                    	nbestparsePW.println(outputter.outputString(lfElt));
-                    	nbestparsePW.println("</best>");                		
-                	}
+        		else if (testItem.sign != null) {
+        			words = testItem.sign.getWords();
+        		}
+        		if (words != null) {
+            		// parse 'em
+            		parser.parse(words);
+        		}
+            	else { 
+            		parser.parse(testItem.sentence);
             	}
-            	// add remaining n-best 
-            	for (int k=1; k < parses.size(); k++) {
-                    Sign sign = parses.get(k);
-            		double edgeScore = parseScores.get(k);
+            	// retrieve results
+                parses = parser.getResult();
+                parseScores = parser.getScores();
+                parsed = true;
+                parsedComplete = !parses.get(0).getCategory().isFragment();
+                // get LF of best parse, if needed
+                if (showParseStats || (doRealization && testItem.lfElt == null && testItem.sign == null)) {
+                    Sign sign = parses.get(0);
                     Category cat = sign.getCategory().copy();
                     Nominal index = cat.getIndexNominal();
-                    LF parsedLFk = cat.getLF();
-                    index = HyloHelper.convertNominals(parsedLFk, sign, index);
-                    LF compactedLFk = HyloHelper.compact(parsedLFk, index);
-                    LF lfToScore = parsedLFk;
-                    if (testItem.sign != null) {
-                        lfToScore = grammar.transformLF(compactedLFk); 
+                    parsedLF = cat.getLF();
+                    index = HyloHelper.convertNominals(parsedLF, sign, index);
+                    compactedLF = HyloHelper.compact(parsedLF, index);
+                    // get transformed version if needed
+                    if (testItem.sign == null) {
+	                    transformedParsedLF = grammar.transformLF(compactedLF); 
                     }
-                    EPsScorer.Results parseScoreK = EPsScorer.score(lfToScore, goldLF);
-                	String scores = "score=\"" + nf.format(parseScoreK.fscore) + "\" edge-score=\"" + nfE.format(edgeScore) + "\"";
-                	nbestparsePW.println("<next " + scores + tagend);
-                	if (nbestincludelfs) {
-                    	Element lfElt = grammar.makeLfElt(compactedLFk);
-                    	nbestparsePW.println(outputter.outputString(lfElt));
-                    	nbestparsePW.println("</next>");
-                	}
-            	}
-                // close item
-                nbestparsePW.println("</seg>");
+                }
+            } catch (ParseException e) {
+            	parses = Collections.emptyList();
+                parsed = false;
+            } catch (Exception e) {
+            	parses = Collections.emptyList();
+                parsed = false;
+                System.err.println("Uncaught exception in parsing: " + testItem.sentence);
+                e.printStackTrace(System.err);
             }
-        
-            // determine string to show for parse result
-            String starForBadSentence = "";
-            if (testItem.numOfParses == 0) starForBadSentence = "*";
-            
-            String parseResult;
-            if (!doParsing) {
-                parseResult = "-";
-            } else if (parseScore != null) {
-                parseResult = nf.format(parseScore.fscore);
-                if (!parsedComplete) parseResult = "[" + parseResult + "]";
-            } else if (testItem.numOfParses == parses.size()) {
-                parseResult = "ok";
-            } else if (testItem.numOfParses > 0 && parses.size() > 0) {
-                // show num parses, if not the number expected
-                parseResult = "(" + parses.size() + ")";
-            } else if (testItem.knownFailure) {
-                parseResult = "(known)";
-            } else {
-                parseResult = "FAILED";
+              
+            // update parse stats
+            int count = parser.edgeCount();
+            pTotalEdges += count;
+            if (count > pMaxEdges) pMaxEdges = count;
+            if (parsedComplete) {
+            	pTotalEdgesGood += count;
+            	if (count > pMaxEdgesGood) pMaxEdgesGood = count;
             }
-                
-            if (!doRealization || (doParsing && !parsed) || testItem.numOfParses == 0) {
-                showOutcome(parseResult, "-", starForBadSentence, testItem.sentence);
-                continue;
+            count = parser.unpackingEdgeCount();
+            pTotalUnpackingEdges += count;
+            if (count > pMaxUnpackingEdges) pMaxUnpackingEdges = count;
+            int cellMax = parser.maxCellSize();
+            pTotalCellMax += cellMax;
+            if (cellMax > pMaxCellMax) pMaxCellMax = cellMax;
+            if (parsedComplete) {
+            	pTotalCellMaxGood += cellMax;
+                if (cellMax > pMaxCellMaxGood) pMaxCellMaxGood = cellMax;
             }
-            
-            LF inputLF = null;
-            // use given LF
-            if (testItemLF != null) inputLF = testItemLF;
-            // or LF from stored sign
-            else if (testItem.sign != null) {
-                Sign sign = testItem.sign;
-                Category cat = sign.getCategory().copy();
+            int time = parser.getLexTime();
+            pTotalLexTime += time;
+            if (time > pMaxLexTime) pMaxLexTime = time;
+            time = parser.getParseTime();
+            pTotalParseTime += time;
+            if (time > pMaxParseTime) pMaxParseTime = time;
+            time = parser.getChartTime();
+            pTotalChartTime += time;
+            if (time > pMaxChartTime) pMaxChartTime = time;
+            time = parser.getUnpackingTime();
+            pTotalUnpackingTime += time;
+            if (time > pMaxUnpackingTime) pMaxUnpackingTime = time;
+            double beta = parser.getSupertaggerBeta();
+            Integer betaTally = pBetaTallies.get(beta);
+            pBetaTallies.put(beta, (betaTally != null) ? ++betaTally : 1);
+        }
+        
+        // get test item LF, if needed
+        LF testItemLF = null;
+        if (testItem.lfElt != null && (doRealization || (showParseStats && parsed && testItem.sign == null))) {
+            Element lfElt = testItem.lfElt;
+            Document doc = new Document();
+            lfElt.detach();
+            doc.setRootElement(lfElt);
+            testItemLF = grammar.loadLF(doc);
+        }
+        
+        // compare EPs
+        EPsScorer.Results parseScore = null;
+        LF goldLF = null;
+        if (showParseStats && parsedLF != null) {
+            // get LF to score, gold LF
+        	LF lfToScore = null;
+            if (testItem.sign != null) {
+            	// use LF from stored sign if available
+            	lfToScore = parsedLF;
+                Category cat = testItem.sign.getCategory().copy();
                 Nominal index = cat.getIndexNominal();
-                LF convertedLF = HyloHelper.compactAndConvertNominals(cat.getLF(), index, sign);
-                inputLF = grammar.transformLF(convertedLF);
+                goldLF = cat.getLF();
+                index = HyloHelper.convertNominals(goldLF, testItem.sign, index);
             }
-            // otherwise use first parse
-            else if (transformedParsedLF != null) inputLF = transformedParsedLF;
-            // otherwise give up
             else {
-                String suggestion = (!doParsing) ? "Try leaving off -noparsing option." : "";
-                throw new RuntimeException("No LF to realize! " + suggestion);
+            	// otherwise use test item LF
+            	lfToScore = transformedParsedLF;
+            	goldLF = testItemLF;
             }
-            
-            // set up n-gram precision scorer for default scoring and/or scoring results
-            String[] targets = (testItem.alt == null) 
-            	? new String[] { testItem.sentence }
-            	: new String[] { testItem.sentence, testItem.alt };
-            NgramPrecisionModel defaultNgramScorer = new NgramPrecisionModel(targets);
-            SignScorer scorerToUse = scorer;
-            if (scorerToUse == null) {
-                if (ngramOrder > 0 || exactMatches) {
-                	if (ngramOrder > 0) scorerToUse = new NgramPrecisionModel(targets, ngramOrder);
-                	else scorerToUse = new NgramPrecisionModel(targets);
-                	((NgramPrecisionModel)scorerToUse).setExactMatches(exactMatches);
-                }
-                else scorerToUse = defaultNgramScorer;
-            }
-            // set targets for self-paraphrase biasing
-            else if (scorerToUse instanceof SelfParaphraseBiaser) {
-            	((SelfParaphraseBiaser)scorerToUse).setTargets(targets);
-            }
-            
-            if (doGC) System.gc(); 
-            try {
-            	//Add gold std pred supertag mapping to the hypertagger class
-            	if (events != null && realizer.hypertagger != null && testItem.predInfo != null) {
-                	realizer.hypertagger.storeGoldStdPredInfo(testItem.predInfo);
-                }
-            	realizer.realize(inputLF, scorerToUse);
-            }
-            catch (Throwable thrwbl) {
-                System.out.println("Unable to process: " + testItem.sentence);
-                thrwbl.printStackTrace(System.out);
-                continue;
-            }
-            opennlp.ccg.realize.Chart chart = realizer.getChart();
-            String realizeResult = "ok"; boolean gramcomplete = true; boolean joined = false;
-            Edge bestEdge = chart.bestEdge;
-            if (!bestEdge.complete() || bestEdge.getSign().getCategory().isFragment()) {
-                realizeResult = "[ok]"; gramcomplete = false;
-                rBadCount++;
-                if (chart.joinFragments) { 
-                	bestEdge = chart.bestJoinedEdge;
-                	joined = true;
+    		if (goldLF == null) {
+    			throw new RuntimeException(
+    				"Can't score parse: " + testItem.sentence + "!\n" +
+    				"No gold LF."
+				);
+    		}
+            // score parse
+        	parseScore = EPsScorer.score(lfToScore, goldLF);
+        }
+        
+        // update parsing results
+        if (showParseStats && testItem.numOfParses > 0) {
+        	pCount++;
+        	if (parses.size() == 0 || !parsedComplete) pBadCount++;
+        	if (parses.size() == 0) pFailedCount++;
+        	if (parseScore != null) {
+        		if (parseScore.fscore == 1.0) pExactCount++;
+        		totalF += parseScore.fscore;
+        		totalRecall += parseScore.recall;
+        		totalPrecision += parseScore.precision;
+        		totalDepsF += parseScore.depsFscore;
+        		totalDepsRecall += parseScore.depsRecall;
+        		totalDepsPrecision += parseScore.depsPrecision;
+        		totalUnlabeledDepsF += parseScore.unlabeledDepsFscore;
+        		totalUnlabeledDepsRecall += parseScore.unlabeledDepsRecall;
+        		totalUnlabeledDepsPrecision += parseScore.unlabeledDepsPrecision;
+        		if (parsedComplete) {
+            		totalFComplete += parseScore.fscore;
+            		totalRecallComplete += parseScore.recall;
+            		totalPrecisionComplete += parseScore.precision;
+            		totalDepsFComplete += parseScore.depsFscore;
+            		totalDepsRecallComplete += parseScore.depsRecall;
+            		totalDepsPrecisionComplete += parseScore.depsPrecision;
+            		totalUnlabeledDepsFComplete += parseScore.unlabeledDepsFscore;
+            		totalUnlabeledDepsRecallComplete += parseScore.unlabeledDepsRecall;
+            		totalUnlabeledDepsPrecisionComplete += parseScore.unlabeledDepsPrecision;
+        		}
+        	}
+        }
+        
+        // events output
+        if (eventfile != null && doParsing) {
+        	// nb: only dealing with complete parses at the moment
+        	// nb: gold LF must come from saved sign
+        	if (parses.size() > 0 && testItem.sign != null) {
+        		List<Sign> bestSigns = new ArrayList<Sign>(parses);
+        		Sign best = parses.get(0);
+        		// update best if not exact match
+        		if (parseScore.fscore != 1.0) {
+        			// check oracle best
+        			Pair<Sign,Boolean> bestPair = parser.oracleBest(goldLF); 
+        			if (bestPair.a != null) oracleBetter++;
+        			if (bestPair.b) {
+        				best = bestPair.a;
+        				if (!bestSigns.contains(best)) bestSigns.add(best);
+        			}
+        			// add gold if missing, if apropos
+        			else {
+        				goldMissing++;
+        				if (includeGoldInEvents) {
+                			best = testItem.sign;
+                    		//parser.addSupertaggerLogProbs(best); 
+                    		bestSigns.add(best);
+        				}
+        			}
+        		}
+    			writeEvents(bestSigns, best);
+        	}
+        }
+        
+        // n-best parses output
+        if (nbestparsePW != null) {
+            XMLOutputter outputter = new XMLOutputter();
+            outputter.setFormat(Format.getPrettyFormat());
+        	// header for item
+            String extras = "";
+            if (parsedComplete) extras += " complete=\"true\"";
+            String id = testItem.info;
+            if (id == null) id = "" + i;
+            nbestparsePW.println("<seg id=\"" + id + "\" str=\"" + xmlEscape(testItem.sentence) + "\"" + extras + ">");
+        	String tagend = (nbestincludelfs) ? ">" : "/>";
+        	// add best parse
+        	if (parseScore != null) { 
+        		double edgeScore = parseScores.get(0);
+            	String scores = "score=\"" + nf.format(parseScore.fscore) + "\" edge-score=\"" + nfE.format(edgeScore) + "\"";
+            	nbestparsePW.println("<best " + scores + tagend);
+            	if (nbestincludelfs) {
+                	Element lfElt = grammar.makeLfElt(compactedLF);
+                	nbestparsePW.println(outputter.outputString(lfElt));
+                	nbestparsePW.println("</best>");                		
+            	}
+        	}
+        	// add remaining n-best 
+        	for (int k=1; k < parses.size(); k++) {
+                Sign sign = parses.get(k);
+        		double edgeScore = parseScores.get(k);
+                Category cat = sign.getCategory().copy();
+                Nominal index = cat.getIndexNominal();
+                LF parsedLFk = cat.getLF();
+                index = HyloHelper.convertNominals(parsedLFk, sign, index);
+                LF compactedLFk = HyloHelper.compact(parsedLFk, index);
+                LF lfToScore = parsedLFk;
+                if (testItem.sign != null) {
+                    lfToScore = grammar.transformLF(compactedLFk); 
                 }
-            }
-            String bestRealization = bestEdge.getSign().getOrthography();
-            double score = defaultNgramScorer.score(bestEdge.getSign(), false); // nb: use default n-gram precision score for reporting 
-            
-            // events output
-            if (events != null) {
-            	List<Edge> bestEdges = chart.bestEdges();
-            	// nb: only dealing with complete realizations at the moment
-            	if (bestEdges.size() > 0) {
-            		Pair<Edge,Boolean> bestPair = chart.oracleBest(testItem.sentence); 
-            		Edge oracleBest = bestPair.a;
-            		if (oracleBest != null) {
-                    	Sign best = oracleBest.getSign();
-                    	List<Sign> bestSigns = new ArrayList<Sign>(bestEdges.size()+1);
-                    	for (Edge e : bestEdges) bestSigns.add(e.getSign());
-            			if (bestEdge != oracleBest) oracleBetter++;
-            			if (!bestPair.b) {
-            				goldMissing++;
-            				if (includeGoldInEvents) {
-            					best = testItem.sign;
-            				}
-            			}
-            			if (!bestSigns.contains(best)) bestSigns.add(best);
-            			EventFile.writeEvents(events, bestSigns, best, featureExtractor);
-            		}
+                EPsScorer.Results parseScoreK = EPsScorer.score(lfToScore, goldLF);
+            	String scores = "score=\"" + nf.format(parseScoreK.fscore) + "\" edge-score=\"" + nfE.format(edgeScore) + "\"";
+            	nbestparsePW.println("<next " + scores + tagend);
+            	if (nbestincludelfs) {
+                	Element lfElt = grammar.makeLfElt(compactedLFk);
+                	nbestparsePW.println(outputter.outputString(lfElt));
+                	nbestparsePW.println("</next>");
             	}
-            }
-            
-            // bleu output
-            if (bleufileprefix != null) {
-                String extras = " time=\"";
-                if (chart.done) extras += chart.timeTilDone;
-                else extras += chart.timeTilStopped;
-                extras += "\"";
-                extras += " score=\"" + nf.format(score) + "\"";
-                if (gramcomplete) extras += " complete=\"true\"";
-                if (joined) extras += " joined=\"true\"";
-                String id = testItem.info;
-                if (id == null) id = "" + i;
-            	bleuGen.println("<seg id=\"" + id + "\"" + extras + ">" + norm_bleu(bestRealization) + "</seg>");
-            	String sent = norm_bleu(testItem.sentence);
-            	bleuRef.println("<seg id=\"" + id + "\">" + sent + "</seg>");
-            	bleuSrc.println("<seg id=\"" + id + "\">" + sent + "</seg>");
-            }
+        	}
+            // close item
+            nbestparsePW.println("</seg>");
+        }
+    
+        // determine string to show for parse result
+        String starForBadSentence = "";
+        if (testItem.numOfParses == 0) starForBadSentence = "*";
+        
+        String parseResult;
+        if (!doParsing) {
+            parseResult = "-";
+        } else if (parseScore != null) {
+            parseResult = nf.format(parseScore.fscore);
+            if (!parsedComplete) parseResult = "[" + parseResult + "]";
+        } else if (testItem.numOfParses == parses.size()) {
+            parseResult = "ok";
+        } else if (testItem.numOfParses > 0 && parses.size() > 0) {
+            // show num parses, if not the number expected
+            parseResult = "(" + parses.size() + ")";
+        } else if (testItem.knownFailure) {
+            parseResult = "(known)";
+        } else {
+            parseResult = "FAILED";
+        }
             
-            // n-best realization output
-            if (nbestrealPW != null) {
-                XMLOutputter outputter = new XMLOutputter();
-                outputter.setFormat(Format.getPrettyFormat());
-            	// header for item
-                String extras = "";
-                if (gramcomplete) extras += " complete=\"true\"";
-                if (joined) extras += " joined=\"true\"";
-                String id = testItem.info;
-                if (id == null) id = "" + i;
-            	nbestrealPW.println("<seg id=\"" + id + "\"" + extras + ">");
-            	// add ref sentence
-            	String ref = (nbestnormbleu) ? norm_bleu(testItem.sentence) : xmlEscape(testItem.sentence); 
-            	nbestrealPW.println("<ref>" + ref + "</ref>");
-            	// add best realization
-            	String scores = "score=\"" + nf.format(score) + "\" edge-score=\"" + nfE.format(bestEdge.score) + "\"";
-            	String best = (nbestnormbleu) ? norm_bleu(bestRealization) : xmlEscape(bestRealization);
-            	if (!nbestincludelfs)
-            		nbestrealPW.println("<best " + scores + ">" + best + "</best>");
-            	else {
-            		nbestrealPW.println("<best " + scores + ">");
-            		nbestrealPW.println("<str>" + best + "</str>");
-                	Sign sign = bestEdge.getSign();
-                    Category cat = sign.getCategory().copy();
-                    Nominal index = cat.getIndexNominal();
-                    LF lf = cat.getLF();
-                	index = HyloHelper.convertNominalsToVars(lf, index);
-                    index = HyloHelper.convertNominals(lf, sign, index);
-                    LF lfc = HyloHelper.compact(lf, index);
-                	Element lfElt = grammar.makeLfElt(lfc);
-                	nbestrealPW.println(outputter.outputString(lfElt));
-            		nbestrealPW.println("</best>");
-            		
-            	}
-                // if complete, add remaining n-best
-                if (bestEdge.complete()) {
-                    List<Edge> bestEdges = chart.bestEdges();
-                    for (int j=1; j < bestEdges.size(); j++) {
-                    	Edge e = bestEdges.get(j);
-                        String eSent = e.getSign().getOrthography();
-                        double eScore = defaultNgramScorer.score(e.getSign(), false); // nb: use default n-gram precision score for reporting
-                    	String eScores = " score=\"" + nf.format(eScore) + "\" edge-score=\"" + nfE.format(e.score) + "\"";
-                    	// add next realization
-                    	String next = (nbestnormbleu) ? norm_bleu(eSent) : xmlEscape(eSent);
-                    	if (!nbestincludelfs)
-                    		nbestrealPW.println("<next" + eScores + ">" + next + "</next>");
-                    	else {
-                    		nbestrealPW.println("<next" + eScores + ">");
-                    		nbestrealPW.println("<str>" + next + "</str>");
-                        	Sign sign = e.getSign();
-                            Category cat = sign.getCategory().copy();
-                            Nominal index = cat.getIndexNominal();
-                            LF lf = cat.getLF();
-                        	index = HyloHelper.convertNominalsToVars(lf, index);
-                            index = HyloHelper.convertNominals(lf, sign, index);
-                            LF lfc = HyloHelper.compact(lf, index);
-                        	Element lfElt = grammar.makeLfElt(lfc);
-                        	nbestrealPW.println(outputter.outputString(lfElt));
-                    		nbestrealPW.println("</next>");
-                    	}
-                    }
-                }
-                // close item
-            	nbestrealPW.println("</seg>");
+        if (!doRealization || (doParsing && !parsed) || testItem.numOfParses == 0) {
+            showOutcome(parseResult, "-", starForBadSentence, testItem.sentence);
+            return;
+        }
+        
+        LF inputLF = null;
+        // use given LF
+        if (testItemLF != null) inputLF = testItemLF;
+        // or LF from stored sign
+        else if (testItem.sign != null) {
+            Sign sign = testItem.sign;
+            Category cat = sign.getCategory().copy();
+            Nominal index = cat.getIndexNominal();
+            LF convertedLF = HyloHelper.compactAndConvertNominals(cat.getLF(), index, sign);
+            inputLF = grammar.transformLF(convertedLF);
+        }
+        // otherwise use first parse
+        else if (transformedParsedLF != null) inputLF = transformedParsedLF;
+        // otherwise give up
+        else {
+            String suggestion = (!doParsing) ? "Try leaving off -noparsing option." : "";
+            throw new RuntimeException("No LF to realize! " + suggestion);
+        }
+        
+        // set up n-gram precision scorer for default scoring and/or scoring results
+        String[] targets = (testItem.alt == null) 
+        	? new String[] { testItem.sentence }
+        	: new String[] { testItem.sentence, testItem.alt };
+        NgramPrecisionModel defaultNgramScorer = new NgramPrecisionModel(targets);
+        SignScorer scorerToUse = scorer;
+        if (scorerToUse == null) {
+            if (ngramOrder > 0 || exactMatches) {
+            	if (ngramOrder > 0) scorerToUse = new NgramPrecisionModel(targets, ngramOrder);
+            	else scorerToUse = new NgramPrecisionModel(targets);
+            	((NgramPrecisionModel)scorerToUse).setExactMatches(exactMatches);
             }
+            else scorerToUse = defaultNgramScorer;
+        }
+        // set targets for self-paraphrase biasing
+        else if (scorerToUse instanceof SelfParaphraseBiaser) {
+        	((SelfParaphraseBiaser)scorerToUse).setTargets(targets);
+        }
         
-        	// if apmldir non-null, output APML as apmldir/ex(i+1).apml
-            if (apmldir != null) {
-                String apmlfn = apmldir + "/ex" + (i+1) + ".apml";
-                grammar.saveToApml(bestEdge.getSign(), apmlfn);
+        if (doGC) System.gc(); 
+        try {
+        	//Add gold std pred supertag mapping to the hypertagger class
+        	if (eventfile != null && realizer.hypertagger != null && testItem.predInfo != null) {
+            	realizer.hypertagger.storeGoldStdPredInfo(testItem.predInfo);
             }
-            
-            // store best realization, if apropos and grammatically complete, keyed by info string or item position
-            if (realserdir != null && gramcomplete) {
-            	String id = testItem.info;
-            	if (id == null) id = "i" + i;
-            	bestRealMap.put(testItem.info, bestEdge.getSign());
+        	realizer.realize(inputLF, scorerToUse);
+        }
+        catch (Throwable thrwbl) {
+            out.println("Unable to process: " + testItem.sentence);
+            thrwbl.printStackTrace(out);
+            return;
+        }
+        opennlp.ccg.realize.Chart chart = realizer.getChart();
+        String realizeResult = "ok"; boolean gramcomplete = true; boolean joined = false;
+        Edge bestEdge = chart.bestEdge;
+        if (!bestEdge.complete() || bestEdge.getSign().getCategory().isFragment()) {
+            realizeResult = "[ok]"; gramcomplete = false;
+            rBadCount++;
+            if (chart.joinFragments) { 
+            	bestEdge = chart.bestJoinedEdge;
+            	joined = true;
             }
-            
-            // compute stats, show outcome
-            rCount++;
-            totalScore += score; 
-            if (gramcomplete) totalScoreComplete += score;
-            int itemRank = 1;
-            Tokenizer tokenizer = grammar.lexicon.tokenizer;
-            String itemOrth = tokenizer.getOrthography(tokenizer.tokenize(testItem.sentence));
-            if (!bestRealization.equals(itemOrth)) {
-                itemRank = 0;
+        }
+        String bestRealization = bestEdge.getSign().getOrthography();
+        double score = defaultNgramScorer.score(bestEdge.getSign(), false); // nb: use default n-gram precision score for reporting 
+        
+        // events output
+        if (eventfile != null) {
+        	List<Edge> bestEdges = chart.bestEdges();
+        	// nb: only dealing with complete realizations at the moment
+        	if (bestEdges.size() > 0) {
+        		Pair<Edge,Boolean> bestPair = chart.oracleBest(testItem.sentence); 
+        		Edge oracleBest = bestPair.a;
+        		if (oracleBest != null) {
+                	Sign best = oracleBest.getSign();
+                	List<Sign> bestSigns = new ArrayList<Sign>(bestEdges.size()+1);
+                	for (Edge e : bestEdges) bestSigns.add(e.getSign());
+        			if (bestEdge != oracleBest) oracleBetter++;
+        			if (!bestPair.b) {
+        				goldMissing++;
+        				if (includeGoldInEvents) {
+        					best = testItem.sign;
+        				}
+        			}
+        			if (!bestSigns.contains(best)) bestSigns.add(best);
+        			writeEvents(bestSigns, best);
+        		}
+        	}
+        }
+        
+        // bleu output
+        if (bleufileprefix != null) {
+            String extras = " time=\"";
+            if (chart.done) extras += chart.timeTilDone;
+            else extras += chart.timeTilStopped;
+            extras += "\"";
+            extras += " score=\"" + nf.format(score) + "\"";
+            if (gramcomplete) extras += " complete=\"true\"";
+            if (joined) extras += " joined=\"true\"";
+            String id = testItem.info;
+            if (id == null) id = "" + i;
+        	bleuGen.println("<seg id=\"" + id + "\"" + extras + ">" + norm_bleu(bestRealization) + "</seg>");
+        	String sent = norm_bleu(testItem.sentence);
+        	bleuRef.println("<seg id=\"" + id + "\">" + sent + "</seg>");
+        	bleuSrc.println("<seg id=\"" + id + "\">" + sent + "</seg>");
+        }
+        
+        // n-best realization output
+        if (nbestrealPW != null) {
+            XMLOutputter outputter = new XMLOutputter();
+            outputter.setFormat(Format.getPrettyFormat());
+        	// header for item
+            String extras = "";
+            if (gramcomplete) extras += " complete=\"true\"";
+            if (joined) extras += " joined=\"true\"";
+            String id = testItem.info;
+            if (id == null) id = "" + i;
+        	nbestrealPW.println("<seg id=\"" + id + "\"" + extras + ">");
+        	// add ref sentence
+        	String ref = (nbestnormbleu) ? norm_bleu(testItem.sentence) : xmlEscape(testItem.sentence); 
+        	nbestrealPW.println("<ref>" + ref + "</ref>");
+        	// add best realization
+        	String scores = "score=\"" + nf.format(score) + "\" edge-score=\"" + nfE.format(bestEdge.score) + "\"";
+        	String best = (nbestnormbleu) ? norm_bleu(bestRealization) : xmlEscape(bestRealization);
+        	if (!nbestincludelfs)
+        		nbestrealPW.println("<best " + scores + ">" + best + "</best>");
+        	else {
+        		nbestrealPW.println("<best " + scores + ">");
+        		nbestrealPW.println("<str>" + best + "</str>");
+            	Sign sign = bestEdge.getSign();
+                Category cat = sign.getCategory().copy();
+                Nominal index = cat.getIndexNominal();
+                LF lf = cat.getLF();
+            	index = HyloHelper.convertNominalsToVars(lf, index);
+                index = HyloHelper.convertNominals(lf, sign, index);
+                LF lfc = HyloHelper.compact(lf, index);
+            	Element lfElt = grammar.makeLfElt(lfc);
+            	nbestrealPW.println(outputter.outputString(lfElt));
+        		nbestrealPW.println("</best>");
+        		
+        	}
+            // if complete, add remaining n-best
+            if (bestEdge.complete()) {
                 List<Edge> bestEdges = chart.bestEdges();
-                for (int j = 0; j < bestEdges.size(); j++) {
-                    Edge edge = bestEdges.get(j);
-                    String str = edge.getSign().getOrthography();
-                    if (str.equals(itemOrth)) {
-                        itemRank = j+1; break;
-                    }
-                }
-                if (itemRank > 0) totalReciprocalRank += (1.0 / itemRank);
-            	if (gramcomplete) {
-	                realizeResult = nf.format(score);
-	                if (itemRank > 0 && itemRank < 10) realizeResult += " ";
-	                if (itemRank > 0 && itemRank < 100) realizeResult += "#" + itemRank;
-            	}
-            	else {
-            		realizeResult = "[" + nf.format(score) + "]";
-            		if (joined) realizeResult += "j";
-            	}
-                showOutcome(parseResult, realizeResult, starForBadSentence, testItem.sentence, bestRealization);
-            }
-            else {
-                rExactCount++;
-                totalReciprocalRank += 1.0;
-                showOutcome(parseResult, realizeResult, starForBadSentence, testItem.sentence);
-            }
-            
-            totalNominals += chart.numNominals;
-            int tokens = testItem.sentence.split("\\s+").length;
-            totalTokens += tokens;
-            if (tokens < minTokens || minTokens == 0) minTokens = tokens;
-            if (tokens > maxTokens) maxTokens = tokens;
-            totalRuleApps += chart.edgeFactory.ruleApps();
-            totalEdges += chart.numEdgesInChart();
-            totalEdgesCreated += chart.numEdges;
-            totalUnprunedEdges += chart.numUnprunedEdges();
-            totalPrunedRemoved += chart.numPrunedRemoved;
-            totalPrunedNeverAdded += chart.numPrunedNeverAdded;
-            totalCellMax += chart.cellMax;
-            totalNewBest += chart.newBest;
-            
-            bestActualScores.add(new Double(score));
-            bestEstimatedScores.add(new Double(bestEdge.score));
-            itemRanks.add(new Integer(itemRank));
-            
-            totalLex += chart.timeTilLex;
-            if (chart.timeTilLex > maxLex) {
-                maxLex = chart.timeTilLex;
-                maxLexStr = testItem.sentence;
-            }
-            lexMap.add(chart.numNominals, chart.timeTilLex);
-            
-            totalFirst += chart.timeTilFirst;
-            if (chart.timeTilFirst > maxFirst) {
-                maxFirst = chart.timeTilFirst;
-                maxFirstStr = testItem.sentence;
-            }
-            firstMap.add(chart.numNominals, chart.timeTilFirst);
-            
-            totalBest += chart.timeTilBest;
-            if (chart.timeTilBest > maxBest) {
-                maxBest = chart.timeTilBest;
-                maxBestStr = testItem.sentence;
-            }
-            bestMap.add(chart.numNominals, chart.timeTilBest);
-            
-            if (chart.newBest > 0 && (chart.timeTilBest - chart.timeTilFirst) >= maxNewBest) {
-                maxNewBest = chart.timeTilBest - chart.timeTilFirst;
-                maxNewBestStr = testItem.sentence;
-            }
-            
-            totalPacked += chart.timeTilPacked;
-            if (chart.timeTilPacked > maxPacked) {
-                maxPacked = chart.timeTilPacked;
-                maxPackedStr = testItem.sentence;
-            }
-            
-            if (chart.done) {
-                rDoneCount++;
-                totalStoppedOrDone += chart.timeTilDone;
-                if (chart.timeTilDone > maxStoppedOrDone) {
-                    maxStoppedOrDone = chart.timeTilDone;
-                    maxStoppedOrDoneStr = testItem.sentence;
+                for (int j=1; j < bestEdges.size(); j++) {
+                	Edge e = bestEdges.get(j);
+                    String eSent = e.getSign().getOrthography();
+                    double eScore = defaultNgramScorer.score(e.getSign(), false); // nb: use default n-gram precision score for reporting
+                	String eScores = " score=\"" + nf.format(eScore) + "\" edge-score=\"" + nfE.format(e.score) + "\"";
+                	// add next realization
+                	String next = (nbestnormbleu) ? norm_bleu(eSent) : xmlEscape(eSent);
+                	if (!nbestincludelfs)
+                		nbestrealPW.println("<next" + eScores + ">" + next + "</next>");
+                	else {
+                		nbestrealPW.println("<next" + eScores + ">");
+                		nbestrealPW.println("<str>" + next + "</str>");
+                    	Sign sign = e.getSign();
+                        Category cat = sign.getCategory().copy();
+                        Nominal index = cat.getIndexNominal();
+                        LF lf = cat.getLF();
+                    	index = HyloHelper.convertNominalsToVars(lf, index);
+                        index = HyloHelper.convertNominals(lf, sign, index);
+                        LF lfc = HyloHelper.compact(lf, index);
+                    	Element lfElt = grammar.makeLfElt(lfc);
+                    	nbestrealPW.println(outputter.outputString(lfElt));
+                		nbestrealPW.println("</next>");
+                	}
                 }
-                allMap.add(chart.numNominals, chart.timeTilDone);
             }
-            else {
-                totalStoppedOrDone += chart.timeTilStopped;
-                if (chart.timeTilStopped > maxStoppedOrDone) {
-                    maxStoppedOrDone = chart.timeTilStopped;
-                    maxStoppedOrDoneStr = testItem.sentence;
+            // close item
+        	nbestrealPW.println("</seg>");
+        }
+    
+    	// if apmldir non-null, output APML as apmldir/ex(i+1).apml
+        if (apmldir != null) {
+            String apmlfn = apmldir + "/ex" + (i+1) + ".apml";
+            grammar.saveToApml(bestEdge.getSign(), apmlfn);
+        }
+        
+        // store best realization, if apropos and grammatically complete, keyed by info string or item position
+        if (realserdir != null && gramcomplete) {
+        	String id = testItem.info;
+        	if (id == null) id = "i" + i;
+        	bestRealMap.put(testItem.info, bestEdge.getSign());
+        }
+        
+        // compute stats, show outcome
+        rCount++;
+        totalScore += score; 
+        if (gramcomplete) totalScoreComplete += score;
+        int itemRank = 1;
+        Tokenizer tokenizer = grammar.lexicon.tokenizer;
+        String itemOrth = tokenizer.getOrthography(tokenizer.tokenize(testItem.sentence));
+        if (!bestRealization.equals(itemOrth)) {
+            itemRank = 0;
+            List<Edge> bestEdges = chart.bestEdges();
+            for (int j = 0; j < bestEdges.size(); j++) {
+                Edge edge = bestEdges.get(j);
+                String str = edge.getSign().getOrthography();
+                if (str.equals(itemOrth)) {
+                    itemRank = j+1; break;
                 }
-                allMap.add(chart.numNominals, chart.timeTilStopped);
             }
+            if (itemRank > 0) totalReciprocalRank += (1.0 / itemRank);
+        	if (gramcomplete) {
+                realizeResult = nf.format(score);
+                if (itemRank > 0 && itemRank < 10) realizeResult += " ";
+                if (itemRank > 0 && itemRank < 100) realizeResult += "#" + itemRank;
+        	}
+        	else {
+        		realizeResult = "[" + nf.format(score) + "]";
+        		if (joined) realizeResult += "j";
+        	}
+            showOutcome(parseResult, realizeResult, starForBadSentence, testItem.sentence, bestRealization);
+        }
+        else {
+            rExactCount++;
+            totalReciprocalRank += 1.0;
+            showOutcome(parseResult, realizeResult, starForBadSentence, testItem.sentence);
         }
         
-        // end bleu doc (if apropos)
-        bleuEndDoc();
-        System.out.println();
+        totalNominals += chart.numNominals;
+        int tokens = testItem.sentence.split("\\s+").length;
+        totalTokens += tokens;
+        if (tokens < minTokens || minTokens == 0) minTokens = tokens;
+        if (tokens > maxTokens) maxTokens = tokens;
+        totalRuleApps += chart.edgeFactory.ruleApps();
+        totalEdges += chart.numEdgesInChart();
+        totalEdgesCreated += chart.numEdges;
+        totalUnprunedEdges += chart.numUnprunedEdges();
+        totalPrunedRemoved += chart.numPrunedRemoved;
+        totalPrunedNeverAdded += chart.numPrunedNeverAdded;
+        totalCellMax += chart.cellMax;
+        totalNewBest += chart.newBest;
         
-        // serialize best realizations (if apropos)
-        realserEndDoc(testName);
+        bestActualScores.add(new Double(score));
+        bestEstimatedScores.add(new Double(bestEdge.score));
+        itemRanks.add(new Integer(itemRank));
+        
+        totalLex += chart.timeTilLex;
+        if (chart.timeTilLex > maxLex) {
+            maxLex = chart.timeTilLex;
+            maxLexStr = testItem.sentence;
+        }
+        lexMap.add(chart.numNominals, chart.timeTilLex);
+        
+        totalFirst += chart.timeTilFirst;
+        if (chart.timeTilFirst > maxFirst) {
+            maxFirst = chart.timeTilFirst;
+            maxFirstStr = testItem.sentence;
+        }
+        firstMap.add(chart.numNominals, chart.timeTilFirst);
+        
+        totalBest += chart.timeTilBest;
+        if (chart.timeTilBest > maxBest) {
+            maxBest = chart.timeTilBest;
+            maxBestStr = testItem.sentence;
+        }
+        bestMap.add(chart.numNominals, chart.timeTilBest);
+        
+        if (chart.newBest > 0 && (chart.timeTilBest - chart.timeTilFirst) >= maxNewBest) {
+            maxNewBest = chart.timeTilBest - chart.timeTilFirst;
+            maxNewBestStr = testItem.sentence;
+        }
+        
+        totalPacked += chart.timeTilPacked;
+        if (chart.timeTilPacked > maxPacked) {
+            maxPacked = chart.timeTilPacked;
+            maxPackedStr = testItem.sentence;
+        }
+        
+        if (chart.done) {
+            rDoneCount++;
+            totalStoppedOrDone += chart.timeTilDone;
+            if (chart.timeTilDone > maxStoppedOrDone) {
+                maxStoppedOrDone = chart.timeTilDone;
+                maxStoppedOrDoneStr = testItem.sentence;
+            }
+            allMap.add(chart.numNominals, chart.timeTilDone);
+        }
+        else {
+            totalStoppedOrDone += chart.timeTilStopped;
+            if (chart.timeTilStopped > maxStoppedOrDone) {
+                maxStoppedOrDone = chart.timeTilStopped;
+                maxStoppedOrDoneStr = testItem.sentence;
+            }
+            allMap.add(chart.numNominals, chart.timeTilStopped);
+        }
     }
 
     /** Shows the various parsing totals. */
@@ -1051,6 +1310,7 @@ public class Regression {
         System.out.println("Max edge count: " + pMaxEdges);
         System.out.println("Max edge count for complete parses: " + pMaxEdgesGood);
         String avgUnpacked = nf.format(1.0 * pTotalUnpackingEdges / pCount);
+        // nb: with lazy unpacking, derivations reached from more than one predecessor are only counted once
         System.out.println("Average edges unpacked (created while unpacking): " + avgUnpacked);
         System.out.println("Max unpacked edges: " + pMaxUnpackingEdges);
         String avgLexTime = nf.format(1.0 * pTotalLexTime / pCount);
@@ -1276,35 +1536,36 @@ public class Regression {
     }
     
     // show outcome, with wrapping
-    private static void showOutcome(String parseResult, String realizeResult, String starForBadSentence, String str) {
+    private void showOutcome(String parseResult, String realizeResult, String starForBadSentence, String str) {
         showOutcome(parseResult, realizeResult, starForBadSentence, str, null);
     }
     
     // show outcome including best realization
-    private static void showOutcome(String parseResult, String realizeResult, String starForBadSentence, 
-                                    String str, String bestRealization) 
+    private void showOutcome(String parseResult, String realizeResult, String starForBadSentence, 
+                             String str, String bestRealization) 
     {
-        System.out.print(parseResult + "\t" + realizeResult + "\t");
+        out.print(parseResult + "\t" + realizeResult + "\t");
         simpleWrap(starForBadSentence + str);
         if (bestRealization != null) {
-            System.out.print("\t\t");
+            out.print("\t\t");
             simpleWrap("(best: " + bestRealization + ")");
         }
     }
     
     // does simple wrapping at TEXTWIDTH
-    private static void simpleWrap(String str) {
+    private void simpleWrap(String str) {
         int TEXTWIDTH = 60;
         for (int i = 0; i <= (str.length()-1)/TEXTWIDTH; i++) {
             if (i != 0) {
-                System.out.print("\t\t");
+                out.print("\t\t");
             }
-            System.out.println(str.substring(i*TEXTWIDTH, Math.min(i*TEXTWIDTH + TEXTWIDTH, str.length())));
+            out.println(str.substring(i*TEXTWIDTH, Math.min(i*TEXTWIDTH + TEXTWIDTH, str.length())));
         }
     }
     
     // formats to three decimal places
-    private static final NumberFormat nf = initNF();
+    // nb: number formats aren't thread-safe, so each tester has its own
+    private final NumberFormat nf = initNF();
     private static NumberFormat initNF() { 
         NumberFormat f = NumberFormat.getInstance();
         f.setMinimumIntegerDigits(1);
@@ -1314,7 +1575,7 @@ public class Regression {
     }
     
     // formats to three decimal places in scientific notation
-    private static final NumberFormat nfE = initNFE();
+    private final NumberFormat nfE = initNFE();
     private static NumberFormat initNFE() {
     	DecimalFormat f = new DecimalFormat("0.###E0");
         return f;
@@ -1493,6 +1754,89 @@ public class Regression {
     }
     
     
+
+    /**
+     * Sets up worker sessions for parallel testing in the same way as 
+     * the tester's session is set up with the command-line options.
+     * Scorers instantiated from a class are instantiated anew for each 
+     * worker, except for n-gram models, which are shared.
+     */
+    private static class CommandLineSessions implements SessionFactory {
+    	
+    	private Regression tester;
+    	private boolean depthFirst;
+    	private boolean ngrampruningstrategy;
+    	private String pruningStrategyClass;
+    	private String scorerClass;
+    	private String parseScorerClass;
+    	private String supertaggerClass, stconfig;
+    	private String hypertaggerClass, htconfig;
+    	private boolean htgold;
+    	
+    	CommandLineSessions(Regression tester, boolean depthFirst, boolean ngrampruningstrategy, 
+    			String pruningStrategyClass, String scorerClass, String parseScorerClass, 
+    			String supertaggerClass, String stconfig, String hypertaggerClass, String htconfig, boolean htgold) 
+    	{
+    		this.tester = tester; this.depthFirst = depthFirst; 
+    		this.ngrampruningstrategy = ngrampruningstrategy; this.pruningStrategyClass = pruningStrategyClass;
+    		this.scorerClass = scorerClass; this.parseScorerClass = parseScorerClass;
+    		this.supertaggerClass = supertaggerClass; this.stconfig = stconfig;
+    		this.hypertaggerClass = hypertaggerClass; this.htconfig = htconfig; this.htgold = htgold;
+    	}
+    	
+    	// nb: each worker gets its own supertagger and hypertagger, as they keep 
+    	//     the state of the current lookup, while the lexicon is shared
+    	public void setUpSession(Regression worker) {
+    		if (worker.doParsing) {
+    			worker.parser = new Parser(worker.grammar);
+    			if (parseScorerClass != null && !(tester.parseScorer instanceof NgramScorer)) 
+    				worker.parseScorer = (SignScorer) newInstance(parseScorerClass);
+    			if (worker.parseScorer != null) worker.parser.setSignScorer(worker.parseScorer);
+    			if (supertaggerClass != null || stconfig != null) {
+    				Supertagger supertagger = (supertaggerClass != null) 
+    					? (Supertagger) newInstance(supertaggerClass) 
+    					: WordAndPOSDictionaryLabellingStrategy.supertaggerFactory(stconfig);
+    				worker.parser.setSupertagger(supertagger);
+    				if (worker.eventfile != null) {
+    					supertagger.setIncludeGold(true);
+    					worker.parser.setSupertaggerMostToLeastRestrictiveDirection(false);
+    				}
+    			}
+    		}
+    		if (worker.doRealization) {
+    			worker.realizer = new Realizer(worker.grammar);
+    			worker.realizer.depthFirst = depthFirst;
+                if (ngrampruningstrategy) {
+                    int order = (worker.ngramOrder > 0) ? worker.ngramOrder : 3;
+                    worker.realizer.pruningStrategy = new NgramDiversityPruningStrategy(order);
+                }
+                if (pruningStrategyClass != null) 
+                	worker.realizer.pruningStrategy = (PruningStrategy) newInstance(pruningStrategyClass);
+    			if (scorerClass != null && !(tester.scorer instanceof NgramScorer)) 
+    				worker.scorer = (SignScorer) newInstance(scorerClass);
+    			if (hypertaggerClass != null || htconfig != null) {
+    				Hypertagger hypertagger;
+    				if (hypertaggerClass != null) hypertagger = (Hypertagger) newInstance(hypertaggerClass);
+    				else {
+    					try { hypertagger = ZLMaxentHypertagger.ZLMaxentHypertaggerFactory(htconfig); }
+    					catch (IOException exc) { throw (RuntimeException) new RuntimeException().initCause(exc); }
+    				}
+    				worker.realizer.hypertagger = hypertagger;
+    				if (worker.eventfile != null || htgold) hypertagger.setIncludeGold(true);
+    			}
+    		}
+    	}
+    	
+    	// instantiates the given class
+    	private static Object newInstance(String className) {
+    		try {
+    			return Class.forName(className).getDeclaredConstructor().newInstance();
+    		} catch (Exception exc) {
+    			throw (RuntimeException) new RuntimeException().initCause(exc);
+    		}
+    	}
+    }
+    
     /** Command-line routine for regression testing. */
     public static void main(String[] args) throws IOException { 
 
@@ -1517,6 +1861,7 @@ public class Regression {
                        "  (-nbestincludelfs) \n" +
                        "  (-rescorefile <rescorefile>) \n" + 
                        "  (-nbestparsefile <nbestparsefile>) \n" + 
+                       "  (-threads N) \n" + 
                        "  (-g <grammarfile>) (-s <statsfile>) (<regressionfile>|<regressiondir>)";
                        
         if (args.length > 0 && args[0].equals("-h")) {
@@ -1608,6 +1953,7 @@ public class Regression {
             if (args[i].equals("-nbestparsefile")) { tester.nbestparsefile = args[++i]; continue; }
             if (args[i].equals("-g")) { grammarfile = args[++i]; continue; }
             if (args[i].equals("-s")) { tester.statsfile = args[++i]; continue; }
+            if (args[i].equals("-threads")) { tester.numThreads = Integer.parseInt(args[++i]); continue; }
             if (args[i].equals("-srilm")) { 
             	srilm = true;
             	if(i < (args.length - 1)) {
@@ -1884,6 +2230,14 @@ public class Regression {
             System.out.println();
         }
                 
+        // set up worker sessions for testing in parallel
+        if (tester.numThreads > 1) {
+        	tester.sessionFactory = new CommandLineSessions(
+        		tester, depthFirst, ngrampruningstrategy, pruningStrategyClass, scorerClass, parseScorerClass, 
+        		supertaggerClass, stconfig, hypertaggerClass, htconfig, htgold
+        	);
+        }
+        
         // run test
         tester.runTest(new File(regressionfile));
     }
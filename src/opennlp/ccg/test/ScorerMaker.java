@@ -41,6 +41,8 @@ public interface ScorerMaker {
      * The test data is also made available to optionally 
      * compute perplexity or other measures.
      * The model can be stored in a file in tmpDir, keyed off of foldNum.
+     * When the folds are prepped concurrently, this method may be 
+     * invoked concurrently for different folds.
      */
     public void prepScorer(File tmpDir, int foldNum, File trainFile, File testFile) throws IOException;
     
@@ -52,6 +54,8 @@ public interface ScorerMaker {
     
     /**
      * Loads a scoring model created from the training data. 
+     * When the folds are realized concurrently, this method may be 
+     * invoked concurrently for different folds.
      */
     public SignScorer loadScorer(File tmpDir, int foldNum, File trainFile) throws IOException;
 }
@@ -51,6 +51,19 @@ public class TimingMap {
         timesPerNum.add(timeInt);
     }
     
+    /** Adds the number, time pairs from the given timing map. */
+    public void add(TimingMap timingMap) {
+        times.addAll(timingMap.times);
+        for (Map.Entry<Integer,List<Integer>> entry : timingMap.map.entrySet()) {
+            List<Integer> timesPerNum = map.get(entry.getKey());
+            if (timesPerNum == null) {
+                timesPerNum = new ArrayList<Integer>();
+                map.put(entry.getKey(), timesPerNum);
+            }
+            timesPerNum.addAll(entry.getValue());
+        }
+    }
+    
     /** Returns the mean time. */
     public double mean() {
         int total = 0;
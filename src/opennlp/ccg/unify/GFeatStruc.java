@@ -23,11 +23,19 @@ import opennlp.ccg.hylo.*;
 import opennlp.ccg.grammar.*;
 import gnu.trove.*;
 import org.jdom.*;
+import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
  * A feature structure for use with CCG categories.
+ * The attributes are stored in an array sorted by their grammar-wide 
+ * integer ids, with their values in a parallel array. 
+ * The (immutable) attribute arrays are shared between copies of the 
+ * feature structure and with the results of unification, where possible, 
+ * so that copying just requires cloning the values, and unification 
+ * proceeds as a linear merge over the attribute ids.
  *
  * @author      Jason Baldridge
  * @author      Gann Bierner
@@ -35,25 +43,108 @@ import java.util.*;
  * @author      Gunes Erkan
  * @version     $Revision: 1.29 $, $Date: 2011/11/11 15:30:42 $
  */
-public class GFeatStruc extends HashMap<String,Object> implements FeatureStructure {
-
-	private static final long serialVersionUID = 1L;
-
-	boolean _empty = true;
+public class GFeatStruc implements FeatureStructure, Serializable {
+
+	private static final long serialVersionUID = 2L;
+
+	
+	/** Grammar-wide attribute ids, assigned as attributes are first seen. */
+	private static final Map<String,Integer> attributeIds = new ConcurrentHashMap<String,Integer>();
+	
+	/** Returns the grammar-wide id for the given attribute. */
+	public static int attributeId(String attribute) {
+		Integer id = attributeIds.get(attribute);
+		if (id != null) return id;
+		synchronized (attributeIds) {
+			id = attributeIds.get(attribute);
+			if (id == null) {
+				id = attributeIds.size();
+				attributeIds.put(attribute, id);
+			}
+			return id;
+		}
+	}
+	
+	
+	/** 
+	 * An immutable set of attributes, sorted by id, 
+	 * which may be shared across feature structures.
+	 */
+	private static final class Keys {
+		// the attributes, sorted by id
+		final String[] attrs; 
+		// the attribute ids
+		final int[] ids;
+		// the positions of the attributes in alphabetical order, computed on demand
+		private int[] byName = null;
+		
+		Keys(String[] attrs, int[] ids) { this.attrs = attrs; this.ids = ids; }
+		
+		// returns the position of the given attribute, or -1 if absent
+		int indexOf(String attr) {
+			for (int i = 0; i < attrs.length; i++) {
+				if (attrs[i] == attr) return i;
+			}
+			for (int i = 0; i < attrs.length; i++) {
+				if (attrs[i].equals(attr)) return i;
+			}
+			return -1;
+		}
+		
+		// returns a copy of these keys with the given attribute inserted at pos
+		Keys insert(int pos, String attr, int id) {
+			int n = attrs.length;
+			String[] attrs2 = new String[n+1]; int[] ids2 = new int[n+1];
+			System.arraycopy(attrs, 0, attrs2, 0, pos); System.arraycopy(ids, 0, ids2, 0, pos);
+			attrs2[pos] = attr; ids2[pos] = id;
+			System.arraycopy(attrs, pos, attrs2, pos+1, n-pos); System.arraycopy(ids, pos, ids2, pos+1, n-pos);
+			return new Keys(attrs2, ids2);
+		}
+		
+		// returns whether the ids are the same as the given ones
+		boolean sameIds(Keys keys) {
+			return this == keys || Arrays.equals(ids, keys.ids);
+		}
+		
+		// returns the positions of the attributes in alphabetical order
+		int[] byName() {
+			int[] retval = byName;
+			if (retval != null) return retval;
+			Integer[] positions = new Integer[attrs.length];
+			for (int i = 0; i < positions.length; i++) positions[i] = i;
+			Arrays.sort(positions, new Comparator<Integer>() {
+				public int compare(Integer i1, Integer i2) { return attrs[i1].compareTo(attrs[i2]); }
+			});
+			retval = new int[positions.length];
+			for (int i = 0; i < positions.length; i++) retval[i] = positions[i];
+			byName = retval; // nb: benign race
+			return retval;
+		}
+	}
+	
+	// the empty set of attributes
+	private static final Keys NO_KEYS = new Keys(new String[0], new int[0]);
+	// no values
+	private static final Object[] NO_VALS = new Object[0];
+	
+
+	// the attributes
+    private transient Keys _keys = NO_KEYS;
+    // the values, parallel to the attributes
+    private transient Object[] _vals = NO_VALS;
+    
     int _index = 0;
     int _inheritsFrom = 0;
     
-    public GFeatStruc() {
-        super(3);
-    }
+    // whether frozen, along with the category containing it
+    private transient volatile boolean _frozen = false;
+    
+    public GFeatStruc() {}
 
-    public GFeatStruc(int i) {
-        super(i);
-    }
+    public GFeatStruc(int i) {}
 
     @SuppressWarnings("unchecked")
 	public GFeatStruc(Element fsEl) {
-        super(fsEl.getChildren().size());
         String index = fsEl.getAttributeValue("id");
         if (index != null) {
             _index = Integer.parseInt(index);
@@ -73,14 +164,18 @@ public class GFeatStruc extends HashMap<String,Object> implements FeatureStructu
         }
     }
     
+    // constructor with the given keys and values
+    private GFeatStruc(Keys keys, Object[] vals) {
+    	_keys = keys; _vals = vals;
+    }
+    
     public Element toXml() {
     	Element retval = new Element("fs");
     	if (_index > 0) retval.setAttribute("id", Integer.toString(_index));
     	if (_inheritsFrom > 0) retval.setAttribute("inheritsFrom", Integer.toString(_inheritsFrom));
-    	List<String> keys = new ArrayList<String>(keySet()); 
-		Collections.sort(keys);
-    	if (size() == 1 && get(keys.get(0)) instanceof SimpleType) {
-    		String attr = keys.get(0); SimpleType val = (SimpleType) get(attr);
+    	String[] keys = sortedKeys(false); 
+    	if (size() == 1 && getValue(keys[0]) instanceof SimpleType) {
+    		String attr = keys[0]; SimpleType val = (SimpleType) getValue(attr);
     		retval.setAttribute("attr", attr);
     		retval.setAttribute("val", val.getName());
     	}
@@ -89,7 +184,7 @@ public class GFeatStruc extends HashMap<String,Object> implements FeatureStructu
     			Element featElt = new Element("feat");
     			featElt.setAttribute("attr", attr);
     			retval.addContent(featElt);
-    			Object val = get(attr);
+    			Object val = getValue(attr);
     			if (val instanceof SimpleType) 
     				featElt.setAttribute("val", ((SimpleType) val).getName());
     			else {
@@ -112,9 +207,25 @@ public class GFeatStruc extends HashMap<String,Object> implements FeatureStructu
     	return retval;
     }
 
+    /** 
+     * Freezes this feature structure, as part of freezing its category, 
+     * after which it may not be modified. 
+     */
+    public void freeze() { _frozen = true; }
+    
+    /** Returns whether this feature structure has been frozen. */
+    public boolean isFrozen() { return _frozen; }
+    
+    // throws an IllegalStateException if frozen
+    private void checkNotFrozen() {
+    	if (_frozen) throw new IllegalStateException("Attempt to modify frozen feature structure: " + this);
+    }
+
     public void deepMap(ModFcn mf) {
-        for (Iterator<String> attributes=keySet().iterator(); attributes.hasNext();) {
-            Object val1 = getValue(attributes.next());
+    	checkNotFrozen();
+    	Object[] vals = _vals;
+        for (int i = 0; i < vals.length; i++) {
+            Object val1 = vals[i];
             if (val1 instanceof Mutable) {
                 ((Mutable)val1).deepMap(mf);
             }
@@ -123,8 +234,21 @@ public class GFeatStruc extends HashMap<String,Object> implements FeatureStructu
     }
 
     public void setFeature(String attribute, Object val) { 
-        put(attribute, val);
-        _empty = false;
+    	checkNotFrozen();
+    	int pos = _keys.indexOf(attribute);
+    	if (pos >= 0) { _vals[pos] = val; return; }
+    	// insert new attribute in id order
+    	int id = attributeId(attribute);
+    	int[] ids = _keys.ids;
+    	pos = 0;
+    	while (pos < ids.length && ids[pos] < id) pos++;
+    	_keys = _keys.insert(pos, attribute, id);
+    	int n = _vals.length;
+    	Object[] vals = new Object[n+1];
+    	System.arraycopy(_vals, 0, vals, 0, pos); 
+    	vals[pos] = val;
+    	System.arraycopy(_vals, pos, vals, pos+1, n-pos);
+    	_vals = vals;
     }
 
     private void setFeature(Element e) {
@@ -156,89 +280,101 @@ public class GFeatStruc extends HashMap<String,Object> implements FeatureStructu
     }
     
     public Object getValue(String attribute) {
-        return get(attribute);
+    	int pos = _keys.indexOf(attribute);
+        return (pos >= 0) ? _vals[pos] : null;
     }
 
     public boolean hasAttribute(String attribute) {
-        return containsKey(attribute);
+        return _keys.indexOf(attribute) >= 0;
     }
 
     public boolean attributeHasValue(String attribute, Object val) {
         return val.equals(getValue(attribute));
     }
 
+    /** Returns a read-only view of the attributes, in id order. */
     public Set<String> getAttributes() {
-        return keySet();
+        return new AbstractSet<String>() {
+        	public int size() { return _keys.attrs.length; }
+        	public boolean contains(Object o) { 
+        		return (o instanceof String) && _keys.indexOf((String)o) >= 0; 
+        	}
+        	public Iterator<String> iterator() { 
+        		return Collections.unmodifiableList(Arrays.asList(_keys.attrs)).iterator(); 
+        	}
+        };
     }
     
+    public int size() { return _vals.length; }
+    
+    public boolean isEmpty() { return _vals.length == 0; }
+    
     public void clear() { 
-        clear();
-        _empty = true;
+    	checkNotFrozen();
+    	_keys = NO_KEYS; _vals = NO_VALS;
     }
 
     /** Returns true iff this feature structure has the same index and set of attr-val pairs. */
     public boolean equals(FeatureStructure fs) {
         if (!(fs instanceof GFeatStruc)) return false;
         GFeatStruc bfs = (GFeatStruc)fs;
-        
         if (_index != bfs._index) return false; 
-
-        if (size() != bfs.size()) return false;
-        Set<String> atts1 = getAttributes();
-        Set<String> atts2 = bfs.getAttributes();
-        if (!atts1.containsAll(atts2)) return false;
-        
-        for (Iterator<String> it = atts1.iterator(); it.hasNext(); ) {
-            String att = it.next();
-            if (!getValue(att).equals(bfs.getValue(att))) return false;
-        }
-        
-        return true;
+        return sameFeats(bfs);
+    }
+    
+    /** Returns true iff the given object is a feature structure with the same set of attr-val pairs. */
+    public boolean equals(Object obj) {
+    	if (obj == this) return true;
+    	if (!(obj instanceof GFeatStruc)) return false;
+    	return sameFeats((GFeatStruc)obj);
+    }
+    
+    // returns whether the attr-val pairs are the same
+    private boolean sameFeats(GFeatStruc fs) {
+    	if (!_keys.sameIds(fs._keys)) return false;
+    	Object[] vals = _vals, vals2 = fs._vals;
+    	for (int i = 0; i < vals.length; i++) {
+    		if (vals[i] == null ? vals2[i] != null : !vals[i].equals(vals2[i])) return false;
+    	}
+    	return true;
     }
     
     /** Returns a hash code consistent with equals. */
-    public int hashCode() { return super.hashCode() + _index; }
+    public int hashCode() { 
+    	int retval = 0;
+    	String[] attrs = _keys.attrs; Object[] vals = _vals;
+    	for (int i = 0; i < vals.length; i++) {
+    		retval += attrs[i].hashCode() ^ (vals[i] == null ? 0 : vals[i].hashCode());
+    	}
+    	return retval + _index; 
+    }
 
     public FeatureStructure copy() { 
-        GFeatStruc $fs = new GFeatStruc(size());
-        $fs.setIndex(_index);
+    	Object[] vals = _vals;
+    	Object[] $vals = (vals.length == 0) ? NO_VALS : new Object[vals.length];
+    	for (int i = 0; i < vals.length; i++) $vals[i] = UnifyControl.copy(vals[i]);
+        GFeatStruc $fs = new GFeatStruc(_keys, $vals);
+        $fs._index = _index;
         $fs._inheritsFrom = _inheritsFrom;
-        for (Iterator<String> i=getAttributes().iterator(); i.hasNext();) {
-            String a = i.next();
-            $fs.setFeature(a, UnifyControl.copy(getValue(a)));
-        }
         return $fs;
     }
 
     public boolean contains(FeatureStructure fs) { 
         if (size() < fs.size())
             return false;
-        
-        Set<String> atts1 = getAttributes();
-        Set<String> atts2 = fs.getAttributes();
-        if (atts1.containsAll(atts2)) {
-            for (Iterator<String> i2 = atts2.iterator(); i2.hasNext();) {
-                String a2 = i2.next();
-                boolean foundA2 = false;
-                for (Iterator<String> i1 = atts1.iterator(); !foundA2 && i1.hasNext();) {
-                    String a1 = i1.next();
-                    if (a1.equals(a2)) {
-                        if (!getValue(a1).equals(fs.getValue(a2)))
-                            return false;
-                        foundA2 = true;
-                    }
-                }
-            }
-            return true;
-        }
-        else {
-            return false;
+        for (Iterator<String> i2 = fs.getAttributes().iterator(); i2.hasNext();) {
+            String a2 = i2.next();
+            int pos = _keys.indexOf(a2);
+            if (pos < 0) return false;
+            if (!_vals[pos].equals(fs.getValue(a2))) return false;
         }
+        return true;
     }
 
     public boolean occurs(Variable v) {
-        for (Iterator<?> i = values().iterator(); i.hasNext();) {
-            Object $_ = i.next();
+    	Object[] vals = _vals;
+        for (int i = 0; i < vals.length; i++) {
+            Object $_ = vals[i];
             if ($_ instanceof Unifiable && ((Unifiable)$_).occurs(v))
                 return true;
         }
@@ -247,16 +383,30 @@ public class GFeatStruc extends HashMap<String,Object> implements FeatureStructu
 
     public void unifyCheck(Object u) throws UnifyFailure {
         if (!(u instanceof FeatureStructure)) {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
         // look for incompatible string-valued features
+        if (u instanceof GFeatStruc) {
+        	GFeatStruc fs2 = (GFeatStruc)u;
+        	int[] ids1 = _keys.ids, ids2 = fs2._keys.ids;
+        	Object[] vals1 = _vals, vals2 = fs2._vals;
+        	for (int i = 0, j = 0; i < ids1.length && j < ids2.length; ) {
+        		if (ids1[i] < ids2[j]) i++;
+        		else if (ids1[i] > ids2[j]) j++;
+        		else {
+        			Object val1 = vals1[i++], val2 = vals2[j++];
+        			if (val1 instanceof SimpleType && val2 instanceof SimpleType) 
+        				((SimpleType)val1).unifyCheck(val2);
+        		}
+        	}
+        	return;
+        }
         FeatureStructure fs2 = (FeatureStructure)u;
-        Set<String> keys1 = getAttributes();
-        for (Iterator<String> i1=keys1.iterator(); i1.hasNext();) {
-            String k1 = i1.next();
-            Object val1 = getValue(k1);
+        String[] attrs = _keys.attrs;
+        for (int i = 0; i < attrs.length; i++) {
+            Object val1 = _vals[i];
             if (!(val1 instanceof SimpleType)) continue;
-            Object val2 = fs2.getValue(k1);
+            Object val2 = fs2.getValue(attrs[i]);
             if (!(val2 instanceof SimpleType)) continue;
             ((SimpleType)val1).unifyCheck(val2);
         }
@@ -265,29 +415,13 @@ public class GFeatStruc extends HashMap<String,Object> implements FeatureStructu
     public Object unify(Object u, Substitution sub) throws UnifyFailure { 
 
         if (!(u instanceof FeatureStructure)) {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         } 
 
         FeatureStructure fs2 = (FeatureStructure)u;
-        FeatureStructure $fs = new GFeatStruc(size());
-        Set<String> keys1 = getAttributes();
-        Set<String> keys2 = fs2.getAttributes();
-        for (Iterator<String> i1=keys1.iterator(); i1.hasNext();) {
-            String k1 = i1.next();
-            Object val1 = getValue(k1);
-            Object val2 = fs2.getValue(k1);
-            if (val2 != null) {
-                $fs.setFeature(k1, Unifier.unify(val1, val2, sub));
-            }
-            else {
-                $fs.setFeature(k1, UnifyControl.copy(val1));
-            }
-        }
-        for (Iterator<String> i2=keys2.iterator(); i2.hasNext();) {
-            String k2 = i2.next();
-            if (!keys1.contains(k2))
-                $fs.setFeature(k2, UnifyControl.copy(fs2.getValue(k2)));
-        }
+        FeatureStructure $fs = (u instanceof GFeatStruc) 
+        	? unifyFeats((GFeatStruc)u, sub) 
+        	: unifyFeats(fs2, sub);
 
         int fs2Index = fs2.getIndex();
         int newIndex = 0;
@@ -305,30 +439,95 @@ public class GFeatStruc extends HashMap<String,Object> implements FeatureStructu
         }
         return $fs;
     }
+    
+    // unifies the features with those of the given feature structure, 
+    // merging the attributes in id order
+    private GFeatStruc unifyFeats(GFeatStruc fs2, Substitution sub) throws UnifyFailure {
+    	Keys keys1 = _keys, keys2 = fs2._keys;
+    	Object[] vals1 = _vals, vals2 = fs2._vals;
+    	// same attrs: unify values pairwise, sharing the keys
+    	if (keys1.sameIds(keys2)) {
+    		Object[] $vals = (vals1.length == 0) ? NO_VALS : new Object[vals1.length];
+    		for (int i = 0; i < vals1.length; i++) 
+    			$vals[i] = unifyVals(vals1[i], vals2[i], sub);
+    		return new GFeatStruc(keys1, $vals);
+    	}
+    	// otherwise count the union of the attributes
+    	int[] ids1 = keys1.ids, ids2 = keys2.ids;
+    	int n = 0;
+    	for (int i = 0, j = 0; i < ids1.length || j < ids2.length; n++) {
+    		if (j == ids2.length || (i < ids1.length && ids1[i] < ids2[j])) i++;
+    		else if (i == ids1.length || ids1[i] > ids2[j]) j++;
+    		else { i++; j++; }
+    	}
+    	// and merge them
+    	String[] $attrs = new String[n]; int[] $ids = new int[n]; Object[] $vals = new Object[n];
+    	for (int i = 0, j = 0, k = 0; k < n; k++) {
+    		if (j == ids2.length || (i < ids1.length && ids1[i] < ids2[j])) {
+    			$attrs[k] = keys1.attrs[i]; $ids[k] = ids1[i]; 
+    			$vals[k] = UnifyControl.copy(vals1[i]); i++;
+    		}
+    		else if (i == ids1.length || ids1[i] > ids2[j]) {
+    			$attrs[k] = keys2.attrs[j]; $ids[k] = ids2[j]; 
+    			$vals[k] = UnifyControl.copy(vals2[j]); j++;
+    		}
+    		else {
+    			$attrs[k] = keys1.attrs[i]; $ids[k] = ids1[i]; 
+    			$vals[k] = unifyVals(vals1[i], vals2[j], sub); i++; j++;
+    		}
+    	}
+    	// reuse keys where the union is the same as one of the inputs
+    	Keys $keys = (n == ids1.length) ? keys1 : (n == ids2.length) ? keys2 : new Keys($attrs, $ids);
+    	return new GFeatStruc($keys, $vals);
+    }
+    
+    // unifies two values for the same attribute, treating a null value as missing
+    private static Object unifyVals(Object val1, Object val2, Substitution sub) throws UnifyFailure {
+    	if (val2 == null) return UnifyControl.copy(val1);
+    	return Unifier.unify(val1, val2, sub);
+    }
+    
+    // unifies the features with those of another kind of feature structure
+    private FeatureStructure unifyFeats(FeatureStructure fs2, Substitution sub) throws UnifyFailure {
+        FeatureStructure $fs = new GFeatStruc(size());
+        String[] keys1 = _keys.attrs;
+        Set<String> keys2 = fs2.getAttributes();
+        for (int i = 0; i < keys1.length; i++) {
+            String k1 = keys1[i];
+            $fs.setFeature(k1, unifyVals(_vals[i], fs2.getValue(k1), sub));
+        }
+        for (Iterator<String> i2=keys2.iterator(); i2.hasNext();) {
+            String k2 = i2.next();
+            if (!hasAttribute(k2))
+                $fs.setFeature(k2, UnifyControl.copy(fs2.getValue(k2)));
+        }
+        return $fs;
+    }
 
     public Object fill(Substitution sub) throws UnifyFailure {
-        FeatureStructure $fs = copy();
-        for (Iterator<String> i = $fs.getAttributes().iterator(); i.hasNext();) {
-            String a = i.next();
-            Object value = getValue(a);
+        GFeatStruc $fs = (GFeatStruc) copy();
+        Object[] vals = _vals;
+        for (int i = 0; i < vals.length; i++) {
+            Object value = vals[i];
             if (value instanceof Variable) {
                 Object varVal = sub.getValue((Variable)value);
                 if (null != varVal) {
-                    $fs.setFeature(a, Unifier.unify(value,varVal,sub));
+                    $fs._vals[i] = Unifier.unify(value,varVal,sub);
                 }
             }
         }
+        FeatureStructure retval = $fs;
         if (_index > 0 && sub instanceof GSubstitution) {
             FeatureStructure otherVals =
                 (FeatureStructure)((GSubstitution)sub).getIndexedObject(_index);
             if (null != otherVals) {
-                if (!$fs.equals(otherVals)) {
-                    $fs = (FeatureStructure)$fs.unify(otherVals, sub);
-                    $fs.setIndex(otherVals.getIndex());
+                if (!retval.equals(otherVals)) {
+                    retval = (FeatureStructure)retval.unify(otherVals, sub);
+                    retval.setIndex(otherVals.getIndex());
                 }
             }
         }
-        return $fs;
+        return retval;
     }
 
     public FeatureStructure inherit(FeatureStructure fs) { 
@@ -345,6 +544,7 @@ public class GFeatStruc extends HashMap<String,Object> implements FeatureStructu
     }
 
     public void setIndex(int index) {
+    	checkNotFrozen();
         _index = index;
     }
 
@@ -352,6 +552,20 @@ public class GFeatStruc extends HashMap<String,Object> implements FeatureStructu
         return _inheritsFrom;
     }
 
+    // returns the attributes in alphabetical order, optionally filtered by the feats to show
+    private String[] sortedKeys(boolean filter) {
+    	String[] attrs = _keys.attrs;
+    	int[] byName = _keys.byName();
+        String featsToShow = (filter) ? Grammar.theGrammar.prefs.featsToShow : "";
+        List<String> filteredKeys = new ArrayList<String>(attrs.length);
+        for (int i = 0; i < byName.length; i++) {
+        	String key = attrs[byName[i]];
+        	if (featsToShow.length() == 0 || featsToShow.indexOf(key) != -1) 
+        		filteredKeys.add(key);
+        }
+        return filteredKeys.toArray(new String[filteredKeys.size()]);
+    }
+    
     private void addFeatureString(String attribute, StringBuffer sb) {
         Object val = getValue(attribute);
         sb.append(attribute).append('=').append(val.toString());
@@ -359,34 +573,17 @@ public class GFeatStruc extends HashMap<String,Object> implements FeatureStructu
     
     public String toString() {
 
-        // if (_empty) return "";
-
         StringBuffer sb = new StringBuffer(size()*4);
  
         if (_index > 0) {
             sb.append('<'); sb.append(_index); sb.append('>');
         }
         
-        if (_empty) return sb.toString();
-
-        String featsToShow = Grammar.theGrammar.prefs.featsToShow;
+        if (isEmpty()) return sb.toString();
 
         sb.append('{');
 
-        List<String> filteredKeys = new ArrayList<String>(size());
-        if (featsToShow.length() == 0) {
-            filteredKeys.addAll(keySet());
-        }
-        else {
-            for (Iterator<String> it = keySet().iterator(); it.hasNext(); ) {
-                String key = it.next();
-                if (featsToShow.indexOf(key) != -1) 
-                    filteredKeys.add(key);
-            }
-        }
-        String[] keys = new String[filteredKeys.size()];
-        filteredKeys.toArray(keys);
-        Arrays.sort(keys);
+        String[] keys = sortedKeys(true);
         
         for (int i=0; i < keys.length; i++) {
             addFeatureString(keys[i], sb);
@@ -406,13 +603,12 @@ public class GFeatStruc extends HashMap<String,Object> implements FeatureStructu
      * at the grammar level.
      */
     public String getSupertagInfo() {
-        if (_empty) return "";
+        if (isEmpty()) return "";
         StringBuffer sb = new StringBuffer();
-        ArrayList<String> attrs = new ArrayList<String>(getAttributes());
-        Collections.sort(attrs);
+        String[] attrs = sortedKeys(false);
         Set<String> supertagFeatures = Grammar.theGrammar.supertagFeatures;
-        for (int i = 0; i < attrs.size(); i++) {
-            String attr = attrs.get(i);
+        for (int i = 0; i < attrs.length; i++) {
+            String attr = attrs[i];
             if (!supertagFeatures.contains(attr)) continue;
             Object val = getValue(attr);
             if (val instanceof Variable) continue;
@@ -454,29 +650,15 @@ public class GFeatStruc extends HashMap<String,Object> implements FeatureStructu
     
     public String toTeX() {
         StringBuffer sb = new StringBuffer();
-        if ((_index > 0)&&(_empty)) {
+        if ((_index > 0)&&(isEmpty())) {
             sb.append(" \\subsf{ < "); sb.append(_index); sb.append(" > } ");
         }
-        if (_empty) return sb.toString();
-        String featsToShow = Grammar.theGrammar.prefs.featsToShow;
+        if (isEmpty()) return sb.toString();
         sb.append(" \\subsf{ ");
         if ((_index > 0)) {
             sb.append("  < "); sb.append(_index); sb.append(" > ");
         }
-        List<String> filteredKeys = new ArrayList<String>(size());
-        if (featsToShow.length() == 0) {
-            filteredKeys.addAll(keySet());
-        }
-        else {
-            for (Iterator<String> it = keySet().iterator(); it.hasNext(); ) {
-                String key = it.next();
-                if (featsToShow.indexOf(key) != -1) 
-                    filteredKeys.add(key);
-            }
-        }
-        String[] keys = new String[filteredKeys.size()];
-        filteredKeys.toArray(keys);
-        Arrays.sort(keys);
+        String[] keys = sortedKeys(true);
         for (int i=0; i < keys.length; i++) {
             addFeatureTeX(keys[i], sb);
             if (i < keys.length - 1) sb.append(" , ");
@@ -513,18 +695,15 @@ public class GFeatStruc extends HashMap<String,Object> implements FeatureStructu
     		retval = next;
 		}
         
-        if (_empty) { return retval; }
-
-        // sort keys
-        Set<String> keySet = keySet();
-        String[] keys = new String[keySet.size()];
-        keySet.toArray(keys);
-        Arrays.sort(keys);
-        
-        // do each key
-        for (int i=0; i<keys.length; i++) {
-            retval += keys[i].hashCode();
-            Object val = getValue(keys[i]);
+        if (isEmpty()) { return retval; }
+
+        // do each key, in alphabetical order
+        String[] attrs = _keys.attrs;
+        int[] byName = _keys.byName();
+        for (int i=0; i<byName.length; i++) {
+        	int pos = byName[i];
+            retval += attrs[pos].hashCode();
+            Object val = _vals[pos];
             // use map for vars
             if (val instanceof Variable) retval += ((Variable)val).hashCode(varMap);
             // otherwise just hash code
@@ -546,15 +725,12 @@ public class GFeatStruc extends HashMap<String,Object> implements FeatureStructu
         int fsMappedIndex = (fs._index != 0) ? varMap2.get(fs._index) : varMap2.get(-1 * Math.abs(System.identityHashCode(fs)));
         if (mappedIndex != fsMappedIndex) return false;
         
-        if (size() != fs.size()) return false;
-        Set<String> atts1 = getAttributes();
-        Set<String> atts2 = fs.getAttributes();
-        if (!atts1.containsAll(atts2)) return false;
+        if (!_keys.sameIds(fs._keys)) return false;
         
-        for (Iterator<String> it = atts1.iterator(); it.hasNext(); ) {
-            String att = it.next();
-            Object val = getValue(att);
-            Object val2 = fs.getValue(att);
+        Object[] vals2 = fs._vals;
+        for (int i = 0; i < _vals.length; i++) {
+            Object val = _vals[i];
+            Object val2 = vals2[i];
             if (val instanceof Variable && val2 instanceof Variable) {
             	if (!((Variable)val).equals(val2, varMap, varMap2)) return false;
             }
@@ -565,4 +741,26 @@ public class GFeatStruc extends HashMap<String,Object> implements FeatureStructu
         
         return true;
     }
+    
+    
+    // serializes the attr-val pairs, since the attribute ids are not 
+    // stable across runs
+    private void writeObject(ObjectOutputStream out) throws IOException {
+    	out.defaultWriteObject();
+    	out.writeInt(_vals.length);
+    	for (int i = 0; i < _vals.length; i++) {
+    		out.writeObject(_keys.attrs[i]); out.writeObject(_vals[i]);
+    	}
+    }
+    
+    // deserializes the attr-val pairs, reassigning attribute ids
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    	in.defaultReadObject();
+    	_keys = NO_KEYS; _vals = NO_VALS;
+    	int n = in.readInt();
+    	for (int i = 0; i < n; i++) {
+    		String attr = ((String) in.readObject()).intern();
+    		setFeature(attr, in.readObject());
+    	}
+    }
 }
@@ -133,7 +133,7 @@ public class GFeatVar implements Variable, Indexed, Mutable, Serializable {
         }
         else if (u instanceof GFeatVar) {
             GFeatVar var = (GFeatVar) u;
-            if (var.occurs(this)) throw new UnifyFailure();
+            if (var.occurs(this)) throw UnifyFailure.FAILURE;
             SimpleType st1 = getType();
             SimpleType st2 = var.getType();
             SimpleType st3 = (SimpleType) st2.unify(st1, sub);
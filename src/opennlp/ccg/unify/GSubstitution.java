@@ -66,7 +66,7 @@ public class GSubstitution extends THashMap implements Substitution {
             // otherwise continue 
             if (val1 != null) {
                 if (val1 instanceof Unifiable && ((Unifiable)val1).occurs(var2)) {
-                    throw new UnifyFailure();
+                    throw UnifyFailure.FAILURE;
                 }
                 if (val2 != null) {
                     u = Unifier.unify(var, val2, this);
@@ -75,7 +75,7 @@ public class GSubstitution extends THashMap implements Substitution {
                 }
             } else if (val2 != null) {
                 if (val2 instanceof Unifiable && ((Unifiable)val2).occurs(var)) {
-                    throw new UnifyFailure();   
+                    throw UnifyFailure.FAILURE;   
                 }
                 makeSubstitution(var, val2);
             } 
@@ -40,7 +40,6 @@ public class SimpleType implements Unifiable, Serializable {
 	private int index;
     private String name;
     private BitSet bitset;
-    private BitSet tempBitset = new BitSet();
     private transient Types types;
 
     public SimpleType(int i, String n, BitSet bs, Types t) {
@@ -60,24 +59,23 @@ public class SimpleType implements Unifiable, Serializable {
     
     public void unifyCheck(Object u) throws UnifyFailure {
         if (!(u instanceof SimpleType)) {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
     }
 
     public Object unify(Object u, Substitution sub) throws UnifyFailure {
         if (!(u instanceof SimpleType)) {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
         if (this == u) return this;
         SimpleType st2 = (SimpleType) u;
-        tempBitset.clear();
-        tempBitset.or(bitset);
-        tempBitset.and(st2.getBitSet());
-        int resultTypeIndex = tempBitset.nextSetBit(0);
-        if (resultTypeIndex == -1) {
-        	throw new UnifyFailure();
+        // find the first type in the intersection of the bitsets, 
+        // without using a scratch bitset, so that types can be shared across threads
+        BitSet bitset2 = st2.getBitSet();
+        for (int i = bitset.nextSetBit(0); i >= 0; i = bitset.nextSetBit(i+1)) {
+            if (bitset2.get(i)) return types.getSimpleType(i);
         }
-        return types.getIndexMap().get(resultTypeIndex);
+        throw UnifyFailure.FAILURE;
     }
 
     public Object fill(Substitution s) throws UnifyFailure {
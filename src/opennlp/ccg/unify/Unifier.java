@@ -72,7 +72,7 @@ public class Unifier {
         } else if (u1.equals(u2)) {
             return u1;
         } else {
-            throw new UnifyFailure();
+            throw UnifyFailure.FAILURE;
         }
     }
 }
@@ -20,11 +20,19 @@ package opennlp.ccg.unify;
 
 import opennlp.ccg.synsem.*;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import gnu.trove.*;
 
 /**
  * Center of command for the unification process.  
- * Needs work to allow for multithreading. 
+ * The uniqueness counters for variables and feature structure indices 
+ * are held by a unification session, ie an instance of this class, 
+ * which is bound to the current thread; each thread has its own 
+ * session by default, and a session can be shared by several threads 
+ * working on the same chart by binding it explicitly with 
+ * <code>bind</code>.
+ * The static methods operate on the session bound to the current thread.
  *
  * @author      Jason Baldridge
  * @author      Michael White
@@ -35,46 +43,95 @@ public class UnifyControl {
     /**
      * An integer used to keep variables unique in lexical items.
      */
-    private static int _varIndex = 0;
+    private final AtomicInteger _varIndex = new AtomicInteger(0);
 
     /**
-     * A function that makes variables unique.
+     * An integer used to keep feature structure indexes unique.
      */
-    private static ModFcn uniqueFcn = new ModFcn() {
-        public void modify (Mutable m) {
-            if (m instanceof Indexed && m instanceof Variable) {
-                ((Indexed)m).setIndex(_varIndex);
-            }
-        }};
-
+    private final AtomicInteger _fsIndex = new AtomicInteger(1);
 
-    /**
-     * An integer used to keep feature structure indexes unique.
+    
+    /** The session bound to each thread. */
+    private static final ThreadLocal<UnifyControl> current = new ThreadLocal<UnifyControl>() {
+        protected UnifyControl initialValue() { return new UnifyControl(); }
+    };
+    
+    /** The reindexing scratch state for each thread. */
+    private static final ThreadLocal<Reindexer> reindexer = new ThreadLocal<Reindexer>() {
+        protected Reindexer initialValue() { return new Reindexer(); }
+    };
+    
+    /** Returns the session bound to the current thread. */
+    public static UnifyControl current() { return current.get(); }
+    
+    /** 
+     * Binds the given session to the current thread, returning the 
+     * previously bound one, so that it can be restored afterwards.
      */
-    private static int _fsIndex = 1;
-    private static TIntIntHashMap _reindexed = new TIntIntHashMap();
-
-    private static CategoryFcn indexFcn = new CategoryFcnAdapter() {
-        public void forall (Category c) {
-            FeatureStructure fs = c.getFeatureStructure();
-            if (fs != null) {
-                int index = fs.getIndex();
-                if (index > 0) {
-                    int $index = _reindexed.get(index);
-                    if ($index == 0) {
-                        $index = _fsIndex++;
-                        _reindexed.put(index, $index); 
+    public static UnifyControl bind(UnifyControl session) {
+        UnifyControl retval = current.get();
+        current.set(session);
+        return retval;
+    }
+    
+
+    // reusable state for reindexing a category on a single thread
+    private static class Reindexer {
+        
+        // the session and var index in use by the current reindexing
+        UnifyControl session;
+        int varIndex;
+        
+        // map from old to new feature structure indices
+        final TIntIntHashMap reindexed = new TIntIntHashMap();
+
+        // a function that makes variables unique
+        final ModFcn uniqueFcn = new ModFcn() {
+            public void modify (Mutable m) {
+                if (m instanceof Indexed && m instanceof Variable) {
+                    ((Indexed)m).setIndex(varIndex);
+                }
+            }};
+
+        // a function that makes feature structure indices unique
+        final CategoryFcn indexFcn = new CategoryFcnAdapter() {
+            public void forall (Category c) {
+                FeatureStructure fs = c.getFeatureStructure();
+                if (fs != null) {
+                    int index = fs.getIndex();
+                    if (index > 0) {
+                        int $index = reindexed.get(index);
+                        if ($index == 0) {
+                            $index = session._fsIndex.getAndIncrement();
+                            reindexed.put(index, $index); 
+                        }
+                        fs.setIndex($index);
                     }
-                    fs.setIndex($index);
                 }
             }
-        }
-    };
+        };
+    }
+    
 
+    /** Resets the uniqueness counters of this session. */
+    public void reset() {
+        _varIndex.set(0);
+        _fsIndex.set(1);
+    }
+    
     /** Resets the uniqueness counters. */
     public static void startUnifySequence() {
-        _varIndex = 0;
-        _fsIndex = 1;
+        current().reset();
+    }
+    
+    /** 
+     * Resets the uniqueness counters, with the var index starting at the given value, 
+     * so that the var indices below it can be reserved for reindexing with given values.
+     */
+    public static void startUnifySequence(int varIndex) {
+        UnifyControl session = current();
+        session.reset();
+        session._varIndex.set(varIndex);
     }
     
     /** Sets the var and feature structure indices to unique values. */
@@ -84,22 +141,38 @@ public class UnifyControl {
 
     /** Sets the var and feature structure indices to unique values. */
     public static void reindex(Category cat, Category anotherCat) {
-        _reindexed.clear();
-        cat.forall(indexFcn);
-        cat.deepMap(uniqueFcn);
+        reindex(cat, anotherCat, current()._varIndex.getAndIncrement());
+    }
+
+    /** 
+     * Sets the var indices to the given value, which must not be otherwise in use, 
+     * and the feature structure indices to unique values.
+     */
+    public static void reindex(Category cat, int varIndex) { 
+        reindex(cat, null, varIndex); 
+    }
+
+    // sets the var indices to the given value and the feature structure indices to unique values
+    private static void reindex(Category cat, Category anotherCat, int varIndex) {
+        Reindexer r = reindexer.get();
+        r.session = current();
+        r.varIndex = varIndex;
+        r.reindexed.clear();
+        cat.forall(r.indexFcn);
+        cat.deepMap(r.uniqueFcn);
         if (cat != anotherCat && anotherCat != null) {
-            anotherCat.forall(indexFcn);
-            anotherCat.deepMap(uniqueFcn);
+            anotherCat.forall(r.indexFcn);
+            anotherCat.deepMap(r.uniqueFcn);
         }
-        _varIndex++;
+        r.session = null;
     }
 
     public static int getUniqueVarIndex() {
-        return ++_varIndex;
+        return current()._varIndex.incrementAndGet();
     }
 
     public static int getUniqueFeatureStructureIndex() {
-        return ++_fsIndex;
+        return current()._fsIndex.incrementAndGet();
     }
     
     public static Object copy(Object o) {
@@ -20,6 +20,13 @@
 package opennlp.ccg.unify;
 
 /**
+ * Signals that two objects failed to unify.
+ * Since unification failure is the common case when applying rules, 
+ * unify failures are made cheap to throw: no stack trace is filled in, 
+ * and the shared FAILURE instance may be thrown where no message 
+ * is needed, without any allocation.  The message for the two-arg 
+ * constructor is likewise only constructed on demand.
+ *
  * @author      Jason Baldridge
  * @author      Michael White
  * @version     $Revision: 1.4 $, $Date: 2009/11/28 03:39:27 $
@@ -28,17 +35,42 @@ public class UnifyFailure extends Exception {
 
 	private static final long serialVersionUID = 1L;
 
+	/** The shared unify failure, with no message. */
+	public static final UnifyFailure FAILURE = new UnifyFailure();
+	
+	// the args that failed to unify, if given
+	private transient Object arg1 = null, arg2 = null;
+	
     /** Constructor. */
-    public UnifyFailure() {}
+    public UnifyFailure() { super(null, null, false, false); }
 
     /** Constructor with message. */
-    public UnifyFailure(String m) { super(m); }
+    public UnifyFailure(String m) { super(m, null, false, false); }
 
     /** Constructor with two args that failed to unify. */
     public UnifyFailure(String arg1, String arg2) {
-    	super("Unable to unify " + arg1 + " with " + arg2 + ".");
+    	this((Object) arg1, (Object) arg2);
     }
 
+    /** 
+     * Constructor with two args that failed to unify, 
+     * whose string forms are only used if the message is requested. 
+     * Note that the args are kept by reference, so if they are changed 
+     * after the failure (eg by filling in an LF), the message will show 
+     * their state when it is requested, rather than when unification failed; 
+     * the message should thus be requested right away if it is to be kept.
+     */
+    public UnifyFailure(Object arg1, Object arg2) {
+    	this(); this.arg1 = arg1; this.arg2 = arg2;
+    }
+
+    /** Returns the message, constructing it from the args that failed to unify, if given. */
+    public String getMessage() {
+    	if (arg1 != null || arg2 != null) 
+    		return "Unable to unify " + arg1 + " with " + arg2 + ".";
+    	return super.getMessage();
+    }
+    
     /** Returns exception message. */
     public String toString() {
     	String msg = getMessage();
@@ -0,0 +1,72 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (C) 2026 OpenCCG contributors
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+//////////////////////////////////////////////////////////////////////////////
+
+package opennlp.ccg.util;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * A cache with a bounded number of entries which can be shared across
+ * threads without locking.
+ * The entries are kept in a ConcurrentHashMap, and once the capacity is
+ * exceeded, the oldest entries are evicted in insertion (FIFO) order.
+ * The bound is approximate under concurrent updates.
+ */
+public class ConcurrentBoundedCache<K,V> {
+
+	/** The max number of entries. */
+	private final int capacity;
+
+	/** The entries. */
+	private final ConcurrentHashMap<K,V> map;
+
+	/** The keys, in insertion order. */
+	private final Queue<K> keys = new ConcurrentLinkedQueue<K>();
+
+	/** Constructor with the max number of entries. */
+	public ConcurrentBoundedCache(int capacity) {
+		this.capacity = capacity;
+		this.map = new ConcurrentHashMap<K,V>(Math.min(capacity, 1024));
+	}
+
+	/** Returns the value for the given key, or null if none. */
+	public V get(K key) { return map.get(key); }
+
+	/** Caches the given value for the given key, evicting the oldest entries if necessary. */
+	public void put(K key, V value) {
+		if (map.put(key, value) != null) return;
+		keys.add(key);
+		while (map.size() > capacity) {
+			K oldest = keys.poll();
+			if (oldest == null) break;
+			map.remove(oldest);
+		}
+	}
+
+	/** Returns the number of entries. */
+	public int size() { return map.size(); }
+
+	/** Returns the max number of entries. */
+	public int getCapacity() { return capacity; }
+
+	/** Removes all entries. */
+	public void clear() {
+		map.clear(); keys.clear();
+	}
+}
@@ -30,6 +30,7 @@ import java.lang.ref.*;
  * Individual interners can be constructed to use soft references to 
  * the interned objects, so that they are kept around longer than is the 
  * case with weak references (the default). 
+ * Interners are synchronized, so that they can be shared across threads.
  *
  * @author      Michael White
  * @version     $Revision: 1.5 $, $Date: 2005/10/13 20:33:49 $
@@ -55,7 +56,7 @@ public class Interner<T> {
      * If the given object is not equal to one already seen, 
      * then the returned object will be == to the given one.
      */
-    public T intern(T obj) {
+    public synchronized T intern(T obj) {
         // check if equivalent key already in map
         if (weakMap.containsKey(obj)) {
             // return existing canonical obj if so 
@@ -75,7 +76,7 @@ public class Interner<T> {
      * Returns the canonical version of the given object, if any, 
      * otherwise returns null.
      */
-    public T getInterned(T obj) {
+    public synchronized T getInterned(T obj) {
         // get weak reference to canonical obj, if any
         Reference<T> ref = weakMap.get(obj);
         // return obj, if any, otherwise null
@@ -83,13 +84,13 @@ public class Interner<T> {
     }
     
     /** Returns the number of interned objects. */
-    public int size() {
+    public synchronized int size() {
         return weakMap.size();
     }
     
     
     // the global interner
-    private static Interner<Object> globalInterner = null;
+    private static final Interner<Object> globalInterner = new Interner<Object>();
     
     /** 
      * Returns a canonical version of the given object using a global interner.
@@ -98,7 +99,6 @@ public class Interner<T> {
      * then the returned object will be == to the given one.
      */
     public static Object globalIntern(Object obj) {
-        if (globalInterner == null) globalInterner = new Interner<Object>();
         return globalInterner.intern(obj);
     }
     
@@ -107,13 +107,11 @@ public class Interner<T> {
      * otherwise returns null.
      */
     public static Object getGlobalInterned(Object obj) {
-        if (globalInterner == null) return null;
         return globalInterner.getInterned(obj);
     }
     
     /** Returns the number of interned objects in the global interner. */
     public static int globalSize() {
-        if (globalInterner == null) return 0;
         return globalInterner.size();
     }
     
@@ -0,0 +1,76 @@
+package opennlp.ccg.lexicon;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import opennlp.ccg.grammar.Grammar;
+import opennlp.ccg.parse.ParserConcurrencyTest;
+import opennlp.ccg.synsem.Sign;
+import opennlp.ccg.synsem.SignHash;
+
+import org.junit.Test;
+
+/**
+ * Checks that cached lexical lookups give the same signs as uncached ones, 
+ * as fresh copies, and that the cache stats are kept. 
+ */
+public class LexicalSignCacheTest {
+
+	@Test
+	public void testCachedSigns() throws Exception {
+		Grammar grammar = ParserConcurrencyTest.loadGrammar("flights");
+		Lexicon lexicon = grammar.lexicon;
+		List<Word> words = loadWords(grammar, "flights");
+		// uncached lookups
+		lexicon.setSignCacheSize(0);
+		List<List<String>> expected = new ArrayList<List<String>>();
+		for (Word w : words) expected.add(toStrings(lexicon.getSignsFromWord(w)));
+		// cached lookups, twice through
+		lexicon.setSignCacheSize(LexicalSignCache.DEFAULT_CAPACITY);
+		LexicalSignCache cache = lexicon.getSignCache();
+		for (int pass = 0; pass < 2; pass++) {
+			for (int i = 0; i < words.size(); i++) 
+				assertEquals(words.get(i).toString(), expected.get(i), toStrings(lexicon.getSignsFromWord(words.get(i))));
+		}
+		assertTrue(cache.getHits() >= words.size());
+		assertEquals(0, cache.getEvictions());
+		// fresh signs and categories on each lookup
+		SignHash signs1 = lexicon.getSignsFromWord(words.get(0));
+		SignHash signs2 = lexicon.getSignsFromWord(words.get(0));
+		for (Sign s1 : signs1.getSignsSorted()) {
+			for (Sign s2 : signs2.getSignsSorted()) {
+				assertNotSame(s1, s2);
+				assertNotSame(s1.getCategory(), s2.getCategory());
+				assertFalse(s1.getCategory().isFrozen());
+			}
+		}
+	}
+	
+	@Test
+	public void testEvictions() throws Exception {
+		Grammar grammar = ParserConcurrencyTest.loadGrammar("flights");
+		Lexicon lexicon = grammar.lexicon;
+		lexicon.setSignCacheSize(2);
+		LexicalSignCache cache = lexicon.getSignCache();
+		List<Word> words = loadWords(grammar, "flights");
+		for (Word w : words) lexicon.getSignsFromWord(w);
+		assertTrue(cache.size() <= 2);
+		assertTrue(cache.getEvictions() > 0);
+		assertEquals(words.size(), cache.getHits() + cache.getMisses());
+	}
+	
+	static List<String> toStrings(SignHash signs) {
+		List<String> retval = new ArrayList<String>();
+		for (Sign sign : signs.getSignsSorted()) retval.add(sign.toString());
+		return retval;
+	}
+	
+	static List<Word> loadWords(Grammar grammar, String name) throws Exception {
+		List<Word> retval = new ArrayList<Word>();
+		for (String s : ParserConcurrencyTest.loadSentences(grammar, name)) 
+			retval.addAll(grammar.lexicon.tokenizer.tokenize(s));
+		return retval;
+	}
+}
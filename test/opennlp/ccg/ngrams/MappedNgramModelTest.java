@@ -0,0 +1,88 @@
+package opennlp.ccg.ngrams;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileReader;
+import java.nio.file.Files;
+import java.util.List;
+
+import opennlp.ccg.lexicon.DefaultTokenizer;
+import opennlp.ccg.lexicon.Word;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedNgramModelTest {
+
+	File arpaFile, binFile;
+	StandardNgramModel standard;
+	MappedNgramModel mapped;
+
+	String[] sentences = {
+		"<s> looking on a little more loin . </s>",
+		"<s> i would consider watching small screening in biarritz , however . </s>",
+		"<s> what is the call for a higher loin ? </s>",
+		"<s> foo bar baz zzz unknown words </s>",
+		"looking beyond immediate concerns"
+	};
+
+	@Before
+	public void setUp() throws Exception {
+		arpaFile = new File(new File(System.getProperty("user.dir")), "src/kenlm/lm/test.arpa");
+		binFile = File.createTempFile("test", ".lm");
+		MappedNgramModel.convert(5, new FileReader(arpaFile), binFile.getPath());
+		standard = new StandardNgramModel(5, arpaFile.getPath());
+		mapped = new MappedNgramModel(5, binFile.getPath());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		binFile.delete();
+	}
+
+	@Test
+	public void testOpenVocab() {
+		assertTrue(mapped.openVocab);
+		assertTrue(mapped.inVocab("loin"));
+		assertFalse(mapped.inVocab("zzz"));
+	}
+
+	@Test
+	public void testScores() {
+		for (String s : sentences) {
+			assertEquals(s, logprob(standard, s), logprob(mapped, s), 0);
+		}
+	}
+
+	@Test
+	public void testLowerOrder() throws Exception {
+		StandardNgramModel standard3 = new StandardNgramModel(3, arpaFile.getPath());
+		MappedNgramModel mapped3 = new MappedNgramModel(3, binFile.getPath());
+		for (String s : sentences) {
+			assertEquals(s, logprob(standard3, s), logprob(mapped3, s), 0);
+		}
+	}
+
+	@Test
+	public void testSmallRuns() throws Exception {
+		// sorting in many small runs and merging them gives the same file
+		File smallRunsFile = File.createTempFile("test", ".lm");
+		int runSize = MappedNgramModel.runSize;
+		MappedNgramModel.runSize = 3;
+		try {
+			MappedNgramModel.convert(5, new FileReader(arpaFile), smallRunsFile.getPath());
+		}
+		finally { MappedNgramModel.runSize = runSize; }
+		assertArrayEquals(Files.readAllBytes(binFile.toPath()), Files.readAllBytes(smallRunsFile.toPath()));
+		smallRunsFile.delete();
+	}
+
+	private double logprob(NgramScorer lm, String s) {
+		List<Word> words = new DefaultTokenizer().tokenize(s);
+		lm.setWordsToScore(words, true);
+		lm.prepareToScoreWords();
+		return lm.logprob();
+	}
+}
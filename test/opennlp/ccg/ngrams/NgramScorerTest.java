@@ -0,0 +1,114 @@
+package opennlp.ccg.ngrams;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import opennlp.ccg.lexicon.DefaultTokenizer;
+import opennlp.ccg.lexicon.Word;
+import opennlp.ccg.synsem.Sign;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class NgramScorerTest {
+
+	String lmFile;
+
+	String[] sentences = {
+		"looking on a little more loin .",
+		"i would consider watching small screening in biarritz , however .",
+		"what is the call for a higher loin ?",
+		"foo bar baz zzz unknown words",
+		"looking beyond immediate concerns"
+	};
+
+	@Before
+	public void setUp() throws Exception {
+		lmFile = new File(new File(System.getProperty("user.dir")), "src/kenlm/lm/test.arpa").getPath();
+	}
+
+	@Test
+	public void testIncrementalScores() throws Exception {
+		checkIncrementalScores(false);
+	}
+
+	@Test
+	public void testIncrementalScoresReversed() throws Exception {
+		checkIncrementalScores(true);
+	}
+
+	@Test
+	public void testConcurrentScores() throws Exception {
+		String nounkFile = new File(new File(lmFile).getParentFile(), "test_nounk.arpa").getPath();
+		NgramScorer[] models = {
+			new StandardNgramModel(5, lmFile),
+			new LinearNgramScorerCombo(new NgramScorer[] {
+				new StandardNgramModel(5, lmFile), new StandardNgramModel(3, nounkFile)
+			})
+		};
+		for (final NgramScorer lm : models) {
+			// expected scores, single-threaded
+			final double[] expected = new double[sentences.length];
+			for (int i = 0; i < sentences.length; i++) {
+				List<Word> words = new DefaultTokenizer().tokenize(sentences[i]);
+				expected[i] = lm.logprob(new Sign(words, null), true);
+			}
+			// score from several threads at once
+			ExecutorService executor = Executors.newFixedThreadPool(4);
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int t = 0; t < 8; t++) {
+				results.add(executor.submit(new Callable<Boolean>() {
+					public Boolean call() {
+						for (int n = 0; n < 200; n++) {
+							for (int i = 0; i < sentences.length; i++) {
+								List<Word> words = new DefaultTokenizer().tokenize(sentences[i]);
+								if (lm.logprob(new Sign(words, null), true) != expected[i]) return false;
+							}
+						}
+						return true;
+					}
+				}));
+			}
+			for (Future<Boolean> result : results) assertTrue(result.get());
+			executor.shutdown();
+		}
+	}
+
+	// checks that scoring signs bottom-up, reusing the boundary states of
+	// the inputs, yields the same log probs as scoring the words from scratch
+	private void checkIncrementalScores(boolean reverse) throws Exception {
+		StandardNgramModel incremental = new StandardNgramModel(5, lmFile);
+		incremental.setReverse(reverse);
+		for (String s : sentences) {
+			List<Word> words = new DefaultTokenizer().tokenize(s);
+			// left-branching, right-branching and balanced derivations
+			for (int split = 0; split < 3; split++) {
+				Sign sign = derive(incremental, words, 0, words.size(), split);
+				StandardNgramModel scratch = new StandardNgramModel(5, lmFile);
+				scratch.setReverse(reverse);
+				assertEquals(s, scratch.logprob(new Sign(words, null), true), incremental.logprob(sign, true), 1e-4);
+			}
+		}
+	}
+
+	// derives a sign for the given words, scoring each sign along the way
+	private Sign derive(NgramScorer lm, List<Word> words, int start, int end, int split) {
+		Sign retval;
+		if (end - start == 1) retval = new Sign(words.get(start), null);
+		else {
+			int mid = (split == 0) ? end-1 : (split == 1) ? start+1 : (start+end)/2;
+			Sign[] inputs = {
+				derive(lm, words, start, mid, split),
+				derive(lm, words, mid, end, split)
+			};
+			retval = Sign.createDerivedSign(null, inputs, null, null);
+		}
+		double logprob = lm.logprob(retval, false);
+		assertEquals(lm.logprob(retval.getWords()), logprob, 1e-4);
+		return retval;
+	}
+}
@@ -0,0 +1,53 @@
+package opennlp.ccg.ngrams;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class NgramTrieTest {
+
+	NgramTrie trie;
+
+	@Before
+	public void setUp() {
+		trie = new NgramTrie();
+		// add nodes out of order, with a prefix node added before its data
+		int b = trie.addNode(NgramTrie.ROOT, "b");
+		int ba = trie.addNode(b, "a");
+		trie.setData(ba, -0.5f, 0);
+		trie.setBow(b, -0.25f);
+		int a = trie.addNode(NgramTrie.ROOT, "a");
+		trie.setData(a, -1.5f, -0.1f);
+		assertEquals(b, trie.addNode(NgramTrie.ROOT, "b"));
+		trie.addNode(trie.addNode(a, "c"), "b");
+		trie.compact();
+	}
+
+	@Test
+	public void testVocab() {
+		assertEquals(3, trie.numKeys());
+		assertEquals(-1, trie.id("d"));
+		assertTrue(trie.id("c") >= 0);
+	}
+
+	@Test
+	public void testLookup() {
+		assertEquals(6, trie.numNodes());
+		int[] keyIds = { trie.id("a"), trie.id("b"), trie.id("a"), trie.id("d") };
+		int a = trie.find(keyIds, 0, 1);
+		assertTrue(trie.hasData(a));
+		assertEquals(-1.5f, trie.logprob(a), 0);
+		assertEquals(-0.1f, trie.bow(a), 0);
+		int b = trie.find(keyIds, 1, 1);
+		assertFalse(trie.hasData(b));
+		assertEquals(-0.25f, trie.bow(b), 0);
+		int ba = trie.find(keyIds, 1, 2);
+		assertEquals(ba, trie.child(b, keyIds[0]));
+		assertEquals(-0.5f, trie.logprob(ba), 0);
+		assertEquals(-1, trie.find(keyIds, 0, 2));
+		assertEquals(-1, trie.find(keyIds, 2, 2));
+		keyIds[1] = trie.id("c"); keyIds[2] = trie.id("b");
+		assertFalse(trie.hasData(trie.find(keyIds, 0, 3)));
+	}
+}
@@ -0,0 +1,94 @@
+package opennlp.ccg.parse;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import opennlp.ccg.grammar.Grammar;
+import opennlp.ccg.lexicon.Word;
+import opennlp.ccg.synsem.Sign;
+
+import org.junit.Test;
+
+/**
+ * Checks that extending the chart with the lexical signs admitted at a
+ * looser supertagger beta setting gives the same results as rebuilding it,
+ * over the sample grammars' testbeds.
+ */
+public class IncrementalChartTest {
+
+	// a supertagger with two settings: the first admits the given supertags for each word, the second all of them
+	static class TwoLevelSupertagger implements Supertagger {
+		final List<Map<String,Double>> restricted;
+		int level = 0, word = 0;
+		TwoLevelSupertagger(List<Map<String,Double>> restricted) { this.restricted = restricted; }
+		public void mapWords(List<Word> words) {}
+		public void setWord(int index) { word = index; }
+		public Map<String,Double> getSupertags() { return (level == 0) ? restricted.get(word) : null; }
+		public void setIncludeGold(boolean includeGold) {}
+		public void resetBeta() { level = 0; }
+		public void resetBetaToMax() { level = 1; }
+		public void nextBeta() { level = 1; }
+		public void previousBeta() { level = 0; }
+		public boolean hasMoreBetas() { return level == 0; }
+		public boolean hasLessBetas() { return level == 1; }
+		public double[] getBetas() { return new double[] { 0.1, 0.01 }; }
+		public void setBetas(double[] betas) {}
+		public double getCurrentBetaValue() { return getBetas()[level]; }
+	}
+
+	@Test
+	public void testFlights() throws Exception { checkGrammar("flights"); }
+
+	@Test
+	public void testWorldcup() throws Exception { checkGrammar("worldcup"); }
+
+	@Test
+	public void testComic() throws Exception { checkGrammar("comic"); }
+
+	void checkGrammar(String name) throws Exception {
+		Grammar grammar = ParserConcurrencyTest.loadGrammar(name);
+		Parser parser = new Parser(grammar);
+		parser.setIncrementalChart(false);
+		Parser incrementalParser = new Parser(grammar);
+		incrementalParser.setIncrementalChart(true);
+		int extended = 0, incremental = 0;
+		for (String s : ParserConcurrencyTest.loadSentences(grammar, name)) {
+			TwoLevelSupertagger supertagger = new TwoLevelSupertagger(restrictedSupertags(grammar, s));
+			parser.setSupertagger(supertagger);
+			incrementalParser.setSupertagger(supertagger);
+			String expected = ParserConcurrencyTest.parse(parser, s);
+			assertEquals(s, expected, ParserConcurrencyTest.parse(incrementalParser, s));
+			if (supertagger.level == 1 && parser.getResult().size() > 0) extended++;
+			// the rebuilt chart has no old edges, while the extended one does unless it fell back to rebuilding
+			assertNull(parser.getChart()._oldSigns);
+			if (incrementalParser.getChart()._oldSigns != null) {
+				assertEquals(s, 1, supertagger.level);
+				incremental++;
+			}
+		}
+		assertTrue(extended > 0);
+		assertTrue(incremental > 0);
+	}
+
+	// returns the first half of the supertags for each word's signs
+	static List<Map<String,Double>> restrictedSupertags(Grammar grammar, String s) throws Exception {
+		List<Map<String,Double>> retval = new ArrayList<Map<String,Double>>();
+		for (Word w : grammar.lexicon.tokenizer.tokenize(s)) {
+			TreeSet<String> stags = new TreeSet<String>();
+			for (Object sign : grammar.lexicon.getSignsFromWord(w)) stags.add(((Sign)sign).getSupertag());
+			Map<String,Double> map = new HashMap<String,Double>();
+			int n = (stags.size() + 1) / 2;
+			for (String stag : stags) {
+				if (map.size() == n) break;
+				map.put(stag, 1.0);
+			}
+			retval.add(map);
+		}
+		return retval;
+	}
+}
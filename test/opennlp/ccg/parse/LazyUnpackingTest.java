@@ -0,0 +1,89 @@
+package opennlp.ccg.parse;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import opennlp.ccg.grammar.Grammar;
+import opennlp.ccg.synsem.Sign;
+import opennlp.ccg.synsem.SignScorer;
+
+import org.junit.Test;
+
+/**
+ * Checks that lazy unpacking gives the same n-best lists, in the same order,
+ * as the sorted-list implementation it replaced, over the sample grammars'
+ * testbeds at several prune values.  The expected lists, in lazy-unpacking-nbest.txt,
+ * were recorded with the earlier implementation.
+ */
+public class LazyUnpackingTest {
+
+	static final int[] PRUNE_VALS = { 1, 3, 10 };
+
+	static final File EXPECTED = new File(new File(System.getProperty("user.dir")), "test/opennlp/ccg/parse/lazy-unpacking-nbest.txt");
+
+	// scores signs by a hash of their derivations, so that the n-best lists are
+	// ranked by something other than the order in which the edges were added
+	static final SignScorer derivationHashScorer = new SignScorer() {
+		public double score(Sign sign, boolean complete) {
+			return 1 + (derivation(sign).hashCode() & 0xffff) / 65536.0;
+		}
+	};
+
+	// returns the derivation as a string of rule names and lexical supertags
+	static String derivation(Sign sign) {
+		DerivationHistory dh = sign.getDerivationHistory();
+		if (dh.isEmpty()) return sign.getOrthography() + "_" + sign.getSupertag();
+		StringBuffer sb = new StringBuffer();
+		sb.append('(').append(dh.getRule().name());
+		for (Sign input : dh.getInputs()) sb.append(' ').append(derivation(input));
+		return sb.append(')').toString();
+	}
+
+	@Test
+	public void testNBestLists() throws Exception {
+		List<String> expected = new ArrayList<String>();
+		BufferedReader in = new BufferedReader(new FileReader(EXPECTED));
+		String line;
+		while ((line = in.readLine()) != null) expected.add(line);
+		in.close();
+		List<String> actual = new ArrayList<String>();
+		for (String name : new String[] { "tiny", "flights", "worldcup", "comic" }) actual.addAll(nbestLists(name));
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) assertEquals(expected.get(i), actual.get(i));
+	}
+
+	// returns a line for each testbed item and prune value, listing the derivation hashes
+	// and scores of the n-best parses
+	static List<String> nbestLists(String name) throws Exception {
+		Grammar grammar = ParserConcurrencyTest.loadGrammar(name);
+		Parser parser = new Parser(grammar);
+		parser.setLazyUnpacking(true);
+		parser.setSignScorer(derivationHashScorer);
+		List<String> retval = new ArrayList<String>();
+		List<String> sentences = ParserConcurrencyTest.loadSentences(grammar, name);
+		for (int pruneVal : PRUNE_VALS) {
+			parser.setPruneVal(pruneVal);
+			for (int i = 0; i < sentences.size(); i++) {
+				StringBuffer sb = new StringBuffer();
+				sb.append(name).append(' ').append(pruneVal).append(' ').append(i).append(':');
+				try {
+					parser.parse(sentences.get(i));
+					List<Sign> result = parser.getResult();
+					List<Double> scores = parser.getScores();
+					for (int j = 0; j < result.size(); j++) {
+						sb.append(' ').append(Integer.toHexString(derivation(result.get(j)).hashCode()));
+						sb.append('/').append(scores.get(j));
+					}
+				}
+				catch (ParseException e) { sb.append(' ').append(e.getMessage()); }
+				retval.add(sb.toString());
+			}
+		}
+		return retval;
+	}
+}
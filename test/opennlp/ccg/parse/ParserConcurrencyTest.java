@@ -0,0 +1,177 @@
+package opennlp.ccg.parse;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import opennlp.ccg.grammar.Grammar;
+import opennlp.ccg.synsem.Sign;
+import opennlp.ccg.test.RegressionInfo;
+
+import org.junit.Test;
+
+/**
+ * Checks that concurrent parsing with a single shared grammar gives 
+ * the same results as sequential parsing, over the sample grammars' testbeds, 
+ * and likewise for filling in the chart in parallel.
+ */
+public class ParserConcurrencyTest {
+
+	static final int THREADS = 4;
+	
+	@Test
+	public void testTiny() throws Exception { checkGrammar("tiny"); }
+
+	@Test
+	public void testFlights() throws Exception { checkGrammar("flights"); }
+
+	@Test
+	public void testWorldcup() throws Exception { checkGrammar("worldcup"); }
+
+	@Test
+	public void testComic() throws Exception { checkGrammar("comic"); }
+	
+	@Test
+	public void testSupertagged() throws Exception { checkSupertagged("worldcup"); }
+	
+	@Test
+	public void testParallelChart() throws Exception { 
+		checkParallelChart("flights", 0); 
+		checkParallelChart("worldcup", 0); 
+	}
+	
+	@Test
+	public void testParallelChartEdgeLimit() throws Exception { checkParallelChart("worldcup", 20); }
+	
+	void checkParallelChart(String name, int edgeLimit) throws Exception {
+		Grammar grammar = loadGrammar(name);
+		List<String> sentences = loadSentences(grammar, name);
+		Parser parser = new Parser(grammar);
+		parser.setEdgeLimit(edgeLimit);
+		Parser parallelParser = new Parser(grammar);
+		parallelParser.setEdgeLimit(edgeLimit);
+		parallelParser.setParallelChart(true);
+		ForkJoinPool pool = new ForkJoinPool(THREADS);
+		parallelParser.setChartPool(pool);
+		try {
+			for (String s : sentences) assertEquals(s, parse(parser, s), parse(parallelParser, s));
+		}
+		finally { pool.shutdown(); }
+	}
+	
+	@SuppressWarnings("deprecation")
+	public static Grammar loadGrammar(String name) throws Exception {
+		return new Grammar(new File(grammarDir(name), "grammar.xml").toURL());
+	}
+	
+	public static File grammarDir(String name) {
+		return new File(new File(new File(System.getProperty("user.dir")), "grammars"), name);
+	}
+	
+	public static List<String> loadSentences(Grammar grammar, String name) throws Exception {
+		RegressionInfo rinfo = new RegressionInfo(grammar, new File(grammarDir(name), "testbed.xml"));
+		List<String> retval = new ArrayList<String>();
+		for (int i = 0; i < rinfo.numberOfItems(); i++) retval.add(rinfo.getItem(i).sentence);
+		return retval;
+	}
+	
+	void checkGrammar(String name) throws Exception {
+		final Grammar grammar = loadGrammar(name);
+		final List<String> sentences = loadSentences(grammar, name);
+		// sequential results
+		Parser parser = new Parser(grammar);
+		List<String> expected = new ArrayList<String>();
+		for (String s : sentences) expected.add(parse(parser, s));
+		// concurrent results, each thread with its own parser
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+			for (int t = 0; t < THREADS; t++) {
+				final int offset = t;
+				futures.add(pool.submit(new Callable<List<String>>() {
+					public List<String> call() throws Exception {
+						Parser p = new Parser(grammar);
+						List<String> retval = new ArrayList<String>();
+						for (int i = 0; i < sentences.size(); i++) retval.add(null);
+						// stagger the order, so that different items are parsed at the same time
+						for (int i = 0; i < sentences.size(); i++) {
+							int j = (i + offset) % sentences.size();
+							retval.set(j, parse(p, sentences.get(j)));
+						}
+						return retval;
+					}
+				}));
+			}
+			for (Future<List<String>> f : futures) assertEquals(expected, f.get());
+		}
+		finally { pool.shutdown(); }
+	}
+	
+	// checks concurrent parsing with and without a supertagger, 
+	// each thread with its own parser and supertaggers
+	void checkSupertagged(String name) throws Exception {
+		final Grammar grammar = loadGrammar(name);
+		final List<String> sentences = loadSentences(grammar, name);
+		final List<List<Map<String,Double>>> restricted = new ArrayList<List<Map<String,Double>>>();
+		for (String s : sentences) restricted.add(IncrementalChartTest.restrictedSupertags(grammar, s));
+		// sequential results, with and without a supertagger
+		Parser parser = new Parser(grammar);
+		final List<String> expected = new ArrayList<String>();
+		for (String s : sentences) expected.add(parse(parser, s));
+		final List<String> expectedTagged = new ArrayList<String>();
+		for (int i = 0; i < sentences.size(); i++) {
+			parser.setSupertagger(new IncrementalChartTest.TwoLevelSupertagger(restricted.get(i)));
+			expectedTagged.add(parse(parser, sentences.get(i)));
+		}
+		assertFalse(expected.equals(expectedTagged));
+		// concurrent results, alternating threads with a supertagger
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+			for (int t = 0; t < THREADS; t++) {
+				final int offset = t;
+				futures.add(pool.submit(new Callable<List<String>>() {
+					public List<String> call() throws Exception {
+						Parser p = new Parser(grammar);
+						List<String> retval = new ArrayList<String>();
+						for (int i = 0; i < sentences.size(); i++) retval.add(null);
+						for (int i = 0; i < sentences.size(); i++) {
+							int j = (i + offset) % sentences.size();
+							if (offset % 2 == 0) p.setSupertagger(new IncrementalChartTest.TwoLevelSupertagger(restricted.get(j)));
+							retval.set(j, parse(p, sentences.get(j)));
+						}
+						return retval;
+					}
+				}));
+			}
+			for (int t = 0; t < THREADS; t++) 
+				assertEquals((t % 2 == 0) ? expectedTagged : expected, futures.get(t).get());
+		}
+		finally { pool.shutdown(); }
+	}
+	
+	// returns the parses and scores as a string, or the failure message
+	static String parse(Parser parser, String s) {
+		try {
+			parser.parse(s);
+			StringBuffer sb = new StringBuffer();
+			List<Sign> result = parser.getResult();
+			List<Double> scores = parser.getScores();
+			for (int i = 0; i < result.size(); i++) {
+				Sign sign = result.get(i);
+				sb.append(sign.getOrthography()).append(" :- ").append(sign.getCategory());
+				sb.append(" [").append(scores.get(i)).append("]\n");
+			}
+			return sb.toString();
+		}
+		catch (ParseException e) { return e.getMessage(); }
+	}
+}
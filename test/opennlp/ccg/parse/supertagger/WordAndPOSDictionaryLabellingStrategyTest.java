@@ -0,0 +1,57 @@
+package opennlp.ccg.parse.supertagger;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import opennlp.ccg.lexicon.Word;
+import opennlp.ccg.parse.supertagger.ml.STFex;
+import opennlp.ccg.parse.tagger.ml.MaxentModel;
+import opennlp.ccg.util.Pair;
+
+import org.junit.Test;
+
+public class WordAndPOSDictionaryLabellingStrategyTest {
+
+	// a model with fixed outcome probabilities, which counts its evaluations
+	static class CountingModel implements MaxentModel {
+		int evals = 0;
+		public double[] eval(Collection<Pair<String,Double>> context) {
+			evals++;
+			return new double[] { 0.05, 0.5, 0.15, 0.3 };
+		}
+		public String getOutcome(int indexOfOutcome) { return "st" + indexOfOutcome; }
+	}
+
+	@Test
+	public void testBetaLevels() {
+		CountingModel model = new CountingModel();
+		WordAndPOSDictionaryLabellingStrategy st = new WordAndPOSDictionaryLabellingStrategy(null, null, 0, model, new STFex());
+		st.setBetas(new double[] { 0.5, 0.25, 0.01 });
+		List<Word> words = new ArrayList<Word>();
+		for (String form : new String[] { "the", "dog", "barks" })
+			words.add(Word.createFullWord(Word.createWord(form), form, "NN", null, null));
+		// model only evaluated for the first beta level
+		st.mapWords(words);
+		st.setWord(1);
+		assertEquals(2, st.getSupertags().size());
+		assertEquals(0.3, st.getSupertags().get("st3"), 0);
+		st.nextBeta();
+		st.mapWords(words);
+		st.setWord(1);
+		assertEquals(3, st.getSupertags().size());
+		st.nextBeta();
+		st.mapWords(new ArrayList<Word>(words));
+		st.setWord(2);
+		assertEquals(4, st.getSupertags().size());
+		assertEquals(3, model.evals);
+		// same tags as without caching
+		assertEquals(st.multitagWithScores(words.get(0), new ArrayList<Pair<String,Double>>(), 0.25),
+				st.multitag(words, 0.25).get(0));
+		// new sentence evaluated again
+		st.mapWords(words.subList(1, 3));
+		assertEquals(6, model.evals);
+	}
+}
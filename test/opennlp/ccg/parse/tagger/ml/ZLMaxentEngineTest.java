@@ -0,0 +1,64 @@
+package opennlp.ccg.parse.tagger.ml;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import opennlp.ccg.parse.tagger.Constants.Domain;
+import opennlp.ccg.util.Pair;
+
+import org.junit.Test;
+
+public class ZLMaxentEngineTest {
+
+	// writes a model with preds a (for outcomes X and Y) and b (for Y)
+	static File writeModel() throws Exception {
+		File file = File.createTempFile("maxent", ".txt");
+		FileWriter out = new FileWriter(file);
+		out.write("#txt,maxent\n2\na\nb\n2\nX\nY\n2 0 1\n1 1\n3\n1.0\n-1.0\n2.0\n");
+		out.close();
+		return file;
+	}
+
+	@Test
+	public void testEval() throws Exception {
+		File file = writeModel();
+		ZLMaxentEngine engine = new ZLMaxentEngine(file);
+		ZLMEM model = new ZLMEM(file);
+		file.delete();
+		assertEquals(2, engine.numOutcomes());
+		assertEquals("Y", engine.getOutcome(1));
+		assertEquals(-1, engine.predId("c"));
+		// a:1 and b:0.5 give scores X=1, Y=-1+1=0; unknown preds ignored
+		List<Collection<Pair<String,Double>>> sentence = new ArrayList<Collection<Pair<String,Double>>>();
+		List<Pair<String,Double>> context = new ArrayList<Pair<String,Double>>();
+		context.add(new Pair<String,Double>("a", 1.0));
+		context.add(new Pair<String,Double>("b", 0.5));
+		context.add(new Pair<String,Double>("c", 1.0));
+		sentence.add(context);
+		sentence.add(new ArrayList<Pair<String,Double>>());
+		double pX = Math.exp(1) / (Math.exp(1) + 1);
+		double[] probs = model.eval(context);
+		assertEquals(pX, probs[0], 1e-12);
+		assertEquals(1 - pX, probs[1], 1e-12);
+		assertEquals("X", model.getBestOutcome(probs));
+		// whole sentence in one go, with an empty context giving a uniform distribution
+		double[] all = model.evalAll(sentence, Domain.LOGPROB, null);
+		assertEquals(4, all.length);
+		assertEquals(Math.log(pX), all[0], 1e-12);
+		assertEquals(Math.log(0.5), all[3], 1e-12);
+		// same from string features, with large weights kept in range
+		ZLMaxentEngine.Contexts contexts = new ZLMaxentEngine.Contexts(engine);
+		contexts.addContext(new String[] { "a:1.0", "b:0.5" }, true);
+		contexts.addContext(new String[] { "b:1000" }, true);
+		double[] out = new double[4];
+		engine.eval(contexts, out, Domain.PROB);
+		assertEquals(pX, out[0], 1e-12);
+		assertEquals(0.0, out[2], 1e-12);
+		assertEquals(1.0, out[3], 1e-12);
+	}
+}
@@ -0,0 +1,68 @@
+package opennlp.ccg.perceptron;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import opennlp.ccg.util.TrieMap;
+
+import org.junit.Test;
+
+public class AlphabetTest {
+
+	@Test
+	public void testHashed() {
+		Alphabet alphabet = Alphabet.hashed(1000);
+		assertTrue(alphabet.hashed());
+		assertEquals(1024, alphabet.size());
+		Alphabet.Feature f = alphabet.index("syn:np:s");
+		assertSame(f, alphabet.index("syn:np:s"));
+		assertSame(f, alphabet.add("syn:np:s"));
+		assertSame(f, alphabet.feature(f.getIndex()));
+		assertSame(f, alphabet.index(f.name()));
+		// lazy keys hash the same as the parsed ones
+		List<TrieMap.KeyExtractor<String>> extractors = new ArrayList<TrieMap.KeyExtractor<String>>();
+		for (final String key : new String[] { "syn", "np", "s" }) {
+			extractors.add(new TrieMap.KeyExtractor<String>() {
+				public String getKey() { return key.intern(); }
+			});
+		}
+		assertSame(f, alphabet.indexLazy(extractors));
+		assertSame(f, alphabet.addLazy(extractors));
+		// key order matters
+		assertNotSame(f, alphabet.index("syn:s:np"));
+		assertEquals(6, alphabet.hashedLookups());
+		assertEquals(2, alphabet.occupiedBuckets());
+		assertEquals(0, alphabet.hashCollisions());
+	}
+
+	@Test
+	public void testCollisions() {
+		Alphabet alphabet = Alphabet.hashed(4);
+		for (int i = 0; i < 20; i++) assertNotNull(alphabet.index("f" + i));
+		assertEquals(4, alphabet.occupiedBuckets());
+		assertEquals(20, alphabet.hashedLookups());
+		assertEquals(16, alphabet.hashCollisions());
+	}
+
+	@Test
+	public void testHashedModel() throws Exception {
+		Alphabet alphabet = Alphabet.hashed(64);
+		Model model = new Model(alphabet);
+		model.setWeight("a:b", 1.5);
+		model.setWeight("c", -2);
+		File file = File.createTempFile("model", ".txt");
+		model.save(file.getPath());
+		Model loaded = new Model(file.getPath());
+		Alphabet alphabet2 = new Alphabet(file.getPath());
+		file.delete();
+		assertTrue(loaded.getAlphabet().hashed());
+		assertEquals(64, loaded.size());
+		assertEquals(1.5, loaded.getWeight("a:b"), 0);
+		assertEquals(-2, loaded.getWeight("c"), 0);
+		assertTrue(alphabet2.hashed());
+		assertEquals(64, alphabet2.size());
+	}
+}
@@ -0,0 +1,120 @@
+package opennlp.ccg.perceptron;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BinaryEventFileTest {
+
+	File textFile, binFile;
+
+	@Before
+	public void setUp() throws Exception {
+		textFile = File.createTempFile("events", ".txt");
+		PrintWriter out = new PrintWriter(textFile);
+		out.println("2");
+		out.println("1 2 feat1 1.22 feat2 3");
+		out.println("0 3 feat1 1.55 feat3 1 feat4 2.7");
+		out.println("3");
+		out.println("0 2 feat1 1.44 feat4 2.2");
+		out.println("1 1 feat1 1.33");
+		out.println("0 2 feat1 1.32 feat4 3.21");
+		out.close();
+		binFile = File.createTempFile("events", ".bin");
+		EventFile eventFile = new EventFile(textFile.getPath(), new Alphabet(10));
+		BinaryEventFile.convert(eventFile, binFile.getPath());
+		eventFile.close();
+	}
+
+	@After
+	public void tearDown() {
+		textFile.delete();
+		binFile.delete();
+	}
+
+	@Test
+	public void testOpen() throws Exception {
+		assertFalse(BinaryEventFile.isBinary(textFile));
+		assertTrue(BinaryEventFile.isBinary(binFile));
+		assertTrue(EventFile.open(binFile.getPath(), new Alphabet(10), false) instanceof BinaryEventFile);
+	}
+
+	@Test
+	public void testBlocks() throws Exception {
+		checkBlocks(new Alphabet(10), false);
+		checkBlocks(new Alphabet(10), true);
+	}
+
+	@Test
+	public void testClosedAlphabet() throws Exception {
+		// alphabet with different indices, and a missing feature
+		Alphabet alphabet = new Alphabet(10);
+		alphabet.add("feat4"); alphabet.add("feat2"); alphabet.add("feat1");
+		alphabet.setClosed(true);
+		checkBlocks(alphabet, false);
+	}
+
+	@Test
+	public void testHashedAlphabet() throws Exception {
+		// only the marker and number of buckets are written, not a name per bucket
+		File hashedFile = File.createTempFile("events", ".bin");
+		try {
+			EventFile eventFile = new EventFile(textFile.getPath(), Alphabet.hashed(1 << 16));
+			BinaryEventFile.convert(eventFile, hashedFile.getPath());
+			eventFile.close();
+			assertTrue(hashedFile.length() < 200);
+			Alphabet alphabet = Alphabet.hashed(1 << 16);
+			checkBlocks(hashedFile, alphabet, false);
+			checkBlocks(hashedFile, alphabet, true);
+			try {
+				new BinaryEventFile(hashedFile.getPath(), Alphabet.hashed(1 << 10));
+				fail("expected bucket count mismatch");
+			}
+			catch (java.io.IOException expected) {}
+		}
+		finally {
+			hashedFile.delete();
+		}
+	}
+
+	// checks that the blocks read from the binary file match those from the text file
+	private void checkBlocks(Alphabet alphabet, boolean inMemory) throws Exception {
+		checkBlocks(binFile, alphabet, inMemory);
+	}
+
+	// checks that the blocks read from the given binary file match those from the text file
+	private void checkBlocks(File binFile, Alphabet alphabet, boolean inMemory) throws Exception {
+		EventFile text = new EventFile(textFile.getPath(), alphabet);
+		BinaryEventFile bin = new BinaryEventFile(binFile.getPath(), alphabet, inMemory);
+		assertEquals(2, bin.numBlocks());
+		for (int pass = 0; pass < 2; pass++) {
+			text.reset(); bin.reset();
+			EventFile.Block textBlock;
+			while ((textBlock = text.nextBlock()) != null) {
+				EventFile.Block binBlock = bin.nextBlock();
+				assertNotNull(binBlock);
+				List<EventFile.Event> events = textBlock.events;
+				assertEquals(events.size(), binBlock.events.size());
+				for (int i = 0; i < events.size(); i++) {
+					EventFile.Event event = events.get(i), binEvent = binBlock.events.get(i);
+					assertEquals(event.count, binEvent.count);
+					assertEquals(event.features.size(), binEvent.features.size());
+					FeatureVector.Iterator it = event.features.iterator(), binIt = binEvent.features.iterator();
+					while (it.hasNext()) {
+						assertSame(it.nextFeature(), binIt.nextFeature());
+						assertEquals(it.nextValue(), binIt.nextValue());
+					}
+				}
+			}
+			assertNull(bin.nextBlock());
+			assertTrue(bin.endOfFile());
+		}
+		text.close(); bin.close();
+	}
+}
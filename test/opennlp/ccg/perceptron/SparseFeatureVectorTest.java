@@ -0,0 +1,79 @@
+package opennlp.ccg.perceptron;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SparseFeatureVectorTest {
+
+	Alphabet alphabet;
+	Alphabet.Feature[] feats;
+
+	@Before
+	public void setUp() {
+		alphabet = new Alphabet(100);
+		feats = new Alphabet.Feature[20];
+		for (int i = 0; i < feats.length; i++) feats[i] = alphabet.add("f" + i);
+	}
+
+	@Test
+	public void testDedup() {
+		// more features than a linear scan handles, added twice in a different order
+		SparseFeatureVector fv = new SparseFeatureVector(2);
+		for (int i = 0; i < feats.length; i++) fv.inc(feats[i]);
+		for (int i = feats.length-1; i >= 0; i -= 2) fv.add(feats[i], 0.5f);
+		fv.inc(feats[3]);
+		assertEquals(feats.length, fv.size());
+		for (int i = 0; i < feats.length; i++) {
+			// insertion order retained
+			assertSame(feats[i], fv.getFeature(i));
+			assertEquals(i, fv.getIndex(i));
+		}
+		assertEquals(1.5f, fv.get(feats[19]), 0);
+		assertEquals(1f, fv.get(feats[18]), 0);
+		assertEquals(3f, fv.get(feats[3]), 0); // count rounded before incrementing
+		fv.clear();
+		assertEquals(0, fv.size());
+		assertEquals(0f, fv.get(feats[3]), 0);
+	}
+
+	@Test
+	public void testMerge() {
+		FeatureMap fv1 = new FeatureMap();
+		for (int i = 0; i < 12; i++) fv1.add(feats[i], i);
+		FeatureList fv2 = new FeatureList();
+		for (int i = 10; i < 15; i++) fv2.add(feats[i], 1f);
+		SparseFeatureVector merged = new SparseFeatureVector(fv1, fv2);
+		assertEquals(15, merged.size());
+		assertEquals(11f, merged.get(feats[10]), 0);
+		assertEquals(1f, merged.get(feats[14]), 0);
+		SparseFeatureVector copy = new SparseFeatureVector(merged);
+		copy.inc(feats[0]);
+		assertEquals(1f, copy.get(feats[0]), 0);
+		assertEquals(0f, merged.get(feats[0]), 0);
+		assertEquals(12f, copy.get(feats[11]), 0);
+	}
+
+	@Test
+	public void testScore() {
+		Model model = new Model(alphabet);
+		for (int i = 0; i < feats.length; i++) model.setWeight(i, 0.1 * i);
+		SparseFeatureVector fv = new SparseFeatureVector();
+		FeatureList list = new FeatureList();
+		for (int i = 1; i < feats.length; i += 3) {
+			fv.add(feats[i], 0.3f * i);
+			list.add(feats[i], 0.3f * i);
+		}
+		assertEquals(model.score(list), model.score(fv), 0);
+		FeatureList list2 = new FeatureList();
+		list2.add(feats[0], 2f); list2.add(feats[2], 0.7f);
+		FeatureVector composed = new ComposedFeatureVector(fv, list2);
+		FeatureList flattened = new FeatureList();
+		flattened.add(composed);
+		assertEquals(model.score(flattened), model.score(composed), 0);
+		model.add(fv);
+		model.subtract(list);
+		for (int i = 0; i < feats.length; i++) assertEquals(0.1 * i, model.getWeight(i), 1e-6);
+	}
+}
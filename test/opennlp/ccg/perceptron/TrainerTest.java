@@ -0,0 +1,162 @@
+package opennlp.ccg.perceptron;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TrainerTest {
+
+	File trainFile, alphabetFile;
+
+	int numFeats = 50, iterations = 4;
+
+	@Before
+	public void setUp() throws Exception {
+		Random random = new Random(1);
+		trainFile = File.createTempFile("train", ".txt");
+		PrintWriter out = new PrintWriter(trainFile);
+		for (int b = 0; b < 100; b++) out.print(randomBlock(random));
+		out.close();
+		alphabetFile = File.createTempFile("alphabet", ".txt");
+		out = new PrintWriter(alphabetFile);
+		out.println(numFeats);
+		for (int f = 0; f < numFeats; f++) out.println("f" + f + " 1");
+		out.close();
+	}
+
+	// returns a block of random events, with integer feature values
+	String randomBlock(Random random) {
+		StringBuffer retval = new StringBuffer();
+		int numEvents = 2 + random.nextInt(4);
+		int best = random.nextInt(numEvents);
+		retval.append(numEvents + "\n");
+		for (int e = 0; e < numEvents; e++) {
+			StringBuffer sb = new StringBuffer();
+			int numPairs = 1 + random.nextInt(5), count = 0;
+			boolean[] used = new boolean[numFeats];
+			for (int p = 0; p < numPairs; p++) {
+				int f = random.nextInt(numFeats);
+				if (used[f]) continue;
+				used[f] = true; count++;
+				sb.append(" f" + f + " " + (1 + random.nextInt(3)));
+			}
+			retval.append((e == best ? 1 : 0) + " " + count + sb + "\n");
+		}
+		return retval.toString();
+	}
+
+	@After
+	public void tearDown() {
+		trainFile.delete();
+		alphabetFile.delete();
+	}
+
+	@Test
+	public void testLazyAveraging() throws Exception {
+		Trainer trainer = new Trainer(trainFile.getPath(), alphabetFile.getPath(), iterations, null, false);
+		trainer.train();
+		// train again with eager averaging over all blocks
+		Alphabet alphabet = new Alphabet(alphabetFile.getPath());
+		Model current = new Model(alphabet), averaged = new Model(alphabet);
+		EventFile eventFile = new EventFile(trainFile.getPath(), alphabet);
+		for (int i = 0; i < iterations; i++) {
+			eventFile.reset();
+			Model sum = new Model(alphabet);
+			int total = 0, updates = 0;
+			EventFile.Block block;
+			while ((block = eventFile.nextBlock()) != null) {
+				total++;
+				EventFile.Event modelBest = current.best(block);
+				EventFile.Event actualBest = block.best();
+				if (modelBest != actualBest) {
+					updates++;
+					current.add(actualBest.features);
+					current.subtract(modelBest.features);
+				}
+				sum.add(current);
+			}
+			sum.multiply(1.0 / (total * (i+1)));
+			if (i > 0) averaged.multiply(1.0 * i / (i+1));
+			averaged.add(sum);
+			if (updates == 0) break;
+		}
+		eventFile.close();
+		for (int f = 0; f < numFeats; f++) {
+			assertEquals(current.getWeight(f), trainer.currentModel.getWeight(f), 0);
+			assertEquals(averaged.getWeight(f), trainer.averagedModel.getWeight(f), 0);
+		}
+	}
+
+	@Test
+	public void testParameterMixing() throws Exception {
+		Trainer trainer = new Trainer(trainFile.getPath(), alphabetFile.getPath(), iterations, null, false);
+		trainer.train();
+		// a single shard should yield the same models as training sequentially
+		Trainer mixed = new Trainer(trainFile.getPath(), alphabetFile.getPath(), iterations, null, false);
+		Trainer.ThreadedShardTrainer shardTrainer = new Trainer.ThreadedShardTrainer(trainFile.getPath(), mixed.alphabet, 1, false);
+		mixed.setShardTrainer(shardTrainer);
+		mixed.train();
+		shardTrainer.close();
+		for (int f = 0; f < numFeats; f++) {
+			assertEquals(trainer.currentModel.getWeight(f), mixed.currentModel.getWeight(f), 0);
+			assertEquals(trainer.averagedModel.getWeight(f), mixed.averagedModel.getWeight(f), 0);
+		}
+		// multiple shards should cover all the blocks between them
+		Trainer.ThreadedShardTrainer shardTrainer3 = new Trainer.ThreadedShardTrainer(trainFile.getPath(), mixed.alphabet, 3, true);
+		int total = 0;
+		for (Trainer.Epoch epoch : shardTrainer3.runEpochs(trainer.currentModel, trainer.averagedModel)) total += epoch.total;
+		shardTrainer3.close();
+		assertEquals(100, total);
+		// with several shards, the mixed weights should be exactly the means of the shards' weights;
+		// check on four blocks, split round-robin into two shards, so that the averages are exact
+		Random random = new Random(2);
+		String[] blocks = new String[4];
+		for (int b = 0; b < blocks.length; b++) blocks[b] = randomBlock(random);
+		File smallFile = File.createTempFile("train", ".txt");
+		File[] shardFiles = { File.createTempFile("shard", ".txt"), File.createTempFile("shard", ".txt") };
+		PrintWriter out = new PrintWriter(smallFile);
+		for (String block : blocks) out.print(block);
+		out.close();
+		for (int i = 0; i < shardFiles.length; i++) {
+			out = new PrintWriter(shardFiles[i]);
+			for (int b = i; b < blocks.length; b += shardFiles.length) out.print(blocks[b]);
+			out.close();
+		}
+		// one iteration of mixing over two shards
+		Trainer smallMixed = new Trainer(smallFile.getPath(), alphabetFile.getPath(), 1, null, false);
+		Trainer.ThreadedShardTrainer smallShardTrainer = new Trainer.ThreadedShardTrainer(smallFile.getPath(), smallMixed.alphabet, shardFiles.length, false);
+		smallMixed.setShardTrainer(smallShardTrainer);
+		smallMixed.train();
+		smallShardTrainer.close();
+		// train each shard separately from zero weights
+		Alphabet alphabet = smallMixed.alphabet;
+		Model current = new Model(alphabet), averaged = new Model(alphabet);
+		for (File shardFile : shardFiles) {
+			EventFile eventFile = new EventFile(shardFile.getPath(), alphabet);
+			Trainer.Epoch epoch = new Trainer.Epoch(new Model(alphabet), new Model(alphabet));
+			epoch.run(eventFile, new Model(alphabet));
+			eventFile.close();
+			assertEquals(2, epoch.total);
+			epoch.sum.multiply(1.0 / epoch.total);
+			current.add(epoch.model);
+			averaged.add(epoch.sum);
+		}
+		current.multiply(1.0 / shardFiles.length);
+		averaged.multiply(1.0 / shardFiles.length);
+		smallFile.delete();
+		for (File shardFile : shardFiles) shardFile.delete();
+		int nonzero = 0;
+		for (int f = 0; f < numFeats; f++) {
+			assertEquals(current.getWeight(f), smallMixed.currentModel.getWeight(f), 0);
+			assertEquals(averaged.getWeight(f), smallMixed.averagedModel.getWeight(f), 0);
+			if (averaged.getWeight(f) != 0) nonzero++;
+		}
+		assertTrue(nonzero > 0);
+	}
+}
@@ -0,0 +1,38 @@
+package opennlp.ccg.realize;
+
+import static org.junit.Assert.*;
+
+import java.util.BitSet;
+
+import org.junit.Test;
+
+public class AgendaTest {
+
+	static Edge edge(double score, float completeness) {
+		return new Edge(null, new BitSet(), new BitSet(), completeness, score, null, null);
+	}
+
+	@Test
+	public void testOrder() {
+		// zero scores last, as with perceptron models' negative scores, ties in the order added
+		Edge a = edge(0.5, 1), b = edge(0, 1), c = edge(-1, 1), d = edge(0, 1), e = edge(2, 1), f = edge(-1, 1);
+		Agenda agenda = new Agenda();
+		for (Edge edge : new Edge[] { a, b, c, d, e, f }) agenda.add(edge);
+		assertEquals(6, agenda.size());
+		assertTrue(agenda.remove(a));
+		assertFalse(agenda.remove(a));
+		agenda.add(a);
+		assertSame(e, agenda.toSortedList().get(0));
+		for (Edge edge : new Edge[] { e, a, c, f, b, d }) assertSame(edge, agenda.poll());
+		assertNull(agenda.poll());
+		// same when gluing fragments, ordered first by size
+		Edge g = edge(-1, 0.5f), h = edge(0, 1);
+		for (Edge edge : new Edge[] { h, g, c, a }) agenda.add(edge);
+		agenda.setOrder(Chart.edgeSizeComparator, false);
+		for (Edge edge : new Edge[] { a, c, g, h }) assertSame(edge, agenda.poll());
+		// last-in first-out for depth-first search
+		for (Edge edge : new Edge[] { a, b, c }) agenda.add(edge);
+		agenda.setOrder(Chart.edgeComparator, true);
+		for (Edge edge : new Edge[] { c, b, a }) assertSame(edge, agenda.poll());
+	}
+}
@@ -0,0 +1,84 @@
+package opennlp.ccg.realize;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.List;
+
+import opennlp.ccg.grammar.Grammar;
+import opennlp.ccg.hylo.HyloHelper;
+import opennlp.ccg.hylo.Nominal;
+import opennlp.ccg.hylo.SatOp;
+import opennlp.ccg.ngrams.NgramPrecisionModel;
+import opennlp.ccg.parse.Parser;
+import opennlp.ccg.parse.ParserConcurrencyTest;
+import opennlp.ccg.synsem.Category;
+import opennlp.ccg.synsem.LF;
+import opennlp.ccg.synsem.Sign;
+import opennlp.ccg.synsem.SignScorer;
+import opennlp.ccg.test.RegressionInfo;
+
+import org.junit.Test;
+
+/**
+ * Checks that using the edge index to find the edges to combine with gives
+ * the same best realizations and edge counts as scanning all the edges in the chart,
+ * with and without packing, over the sample grammars' testbeds.
+ */
+public class EdgeIndexTest {
+
+	// keep the realizations of the longer testbed items manageable
+	static final int PRUNE_VAL = 5;
+	static final int EDGE_LIMIT = 20000;
+
+	@Test
+	public void testFlights() throws Exception { checkGrammar("flights"); }
+
+	@Test
+	public void testWorldcup() throws Exception { checkGrammar("worldcup"); }
+
+	@Test
+	public void testComic() throws Exception { checkGrammar("comic"); }
+
+	void checkGrammar(String name) throws Exception {
+		Grammar grammar = ParserConcurrencyTest.loadGrammar(name);
+		Parser parser = new Parser(grammar);
+		RegressionInfo rinfo = new RegressionInfo(grammar, new File(ParserConcurrencyTest.grammarDir(name), "testbed.xml"));
+		int checked = 0;
+		for (int i = 0; i < rinfo.numberOfItems(); i++) {
+			RegressionInfo.TestItem item = rinfo.getItem(i);
+			if (item.numOfParses == 0) continue;
+			// realize LF of best parse, scoring against the sentence
+			parser.parse(item.sentence);
+			Sign sign = parser.getResult().get(0);
+			Category cat = sign.getCategory().copy();
+			Nominal index = cat.getIndexNominal();
+			LF lf = HyloHelper.compactAndConvertNominals(cat.getLF(), index, sign);
+			List<SatOp> preds = HyloHelper.flatten(lf);
+			SignScorer scorer = new NgramPrecisionModel(new String[] { item.sentence });
+			for (boolean packing : new boolean[] { false, true }) {
+				String msg = item.sentence + (packing ? " (packing)" : "");
+				String expected = realize(grammar, preds, scorer, packing, false);
+				assertEquals(msg, expected, realize(grammar, preds, scorer, packing, true));
+			}
+			checked++;
+		}
+		assertTrue(checked > 0);
+	}
+
+	// returns the best realization, with its completeness and score, and the edge counts
+	static String realize(Grammar grammar, List<SatOp> preds, SignScorer scorer, boolean packing, boolean useEdgeIndex) {
+		Chart chart = new Chart(new EdgeFactory(grammar, preds, scorer), new NBestPruningStrategy());
+		chart.useEdgeIndex = useEdgeIndex;
+		chart.pruningValue = PRUNE_VAL;
+		chart.edgeLimit = EDGE_LIMIT;
+		if (packing) {
+			chart.usePacking = true; chart.collectCombos = false; chart.doUnpacking = true;
+		}
+		chart.initialize();
+		chart.combine(Chart.NO_TIME_LIMIT, false);
+		Edge bestEdge = chart.bestEdge;
+		return bestEdge.sign.getOrthography() + " " + bestEdge.complete() + " " + bestEdge.score +
+			" edges: " + chart.numEdges + " " + chart.numEdgesInChart() + " " + chart.numUnprunedEdges();
+	}
+}
@@ -0,0 +1,128 @@
+package opennlp.ccg.realize;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import opennlp.ccg.grammar.Grammar;
+import opennlp.ccg.hylo.HyloHelper;
+import opennlp.ccg.hylo.Nominal;
+import opennlp.ccg.hylo.SatOp;
+import opennlp.ccg.ngrams.NgramPrecisionModel;
+import opennlp.ccg.parse.Parser;
+import opennlp.ccg.parse.ParserConcurrencyTest;
+import opennlp.ccg.synsem.Category;
+import opennlp.ccg.synsem.LF;
+import opennlp.ccg.synsem.Sign;
+import opennlp.ccg.synsem.SignScorer;
+import opennlp.ccg.test.RegressionInfo;
+
+import org.junit.Test;
+
+/**
+ * Checks that extending the packed chart with the initial edges licensed at a
+ * looser hypertagger beta setting gives the same realizations as starting over,
+ * over the sample grammars' testbeds.
+ */
+public class IncrementalChartTest {
+
+	// a hypertagger with two settings: the first admits the first half of the
+	// supertags for each pred, the second all of them
+	static class TwoLevelHypertagger implements Hypertagger {
+		final Grammar grammar;
+		final List<Map<String,Double>> restricted = new ArrayList<Map<String,Double>>();
+		int level = 0, pred = 0;
+		boolean mapping = false;
+		TwoLevelHypertagger(Grammar grammar) { this.grammar = grammar; }
+		public void mapPreds(List<SatOp> preds) {
+			restricted.clear();
+			mapping = true;
+			try {
+				for (SatOp p : preds) {
+					TreeSet<String> stags = new TreeSet<String>();
+					String key = HyloHelper.getLexPred(p);
+					String rel = HyloHelper.getRel(p);
+					if (key != null) addSupertags(stags, grammar.lexicon.getSignsFromPred(key, null));
+					if (rel != null) addSupertags(stags, grammar.lexicon.getSignsFromRel(rel));
+					Map<String,Double> map = new HashMap<String,Double>();
+					int n = (stags.size() + 1) / 2;
+					for (String stag : stags) {
+						if (map.size() == n) break;
+						map.put(stag, 1.0);
+					}
+					restricted.add(map);
+				}
+			}
+			finally { mapping = false; }
+		}
+		void addSupertags(TreeSet<String> stags, Iterable<Sign> signs) {
+			if (signs != null) for (Sign sign : signs) stags.add(sign.getSupertag());
+		}
+		public void setPred(int index) { pred = index; }
+		public Map<String,Double> getSupertags() { return (mapping || level == 1) ? null : restricted.get(pred); }
+		public void storeGoldStdPredInfo(String goldStdPredInfo) {}
+		public void setIncludeGold(boolean includeGold) {}
+		public void resetBeta() { level = 0; }
+		public void resetBetaToMax() { level = 1; }
+		public void nextBeta() { level = 1; }
+		public void previousBeta() { level = 0; }
+		public boolean hasMoreBetas() { return level == 0; }
+		public boolean hasLessBetas() { return level == 1; }
+		public double[] getBetas() { return new double[] { 0.1, 0.01 }; }
+		public void setBetas(double[] betas) {}
+		public double getCurrentBetaValue() { return getBetas()[level]; }
+	}
+
+	@Test
+	public void testFlights() throws Exception { checkGrammar("flights"); }
+
+	@Test
+	public void testWorldcup() throws Exception { checkGrammar("worldcup"); }
+
+	@Test
+	public void testComic() throws Exception { checkGrammar("comic"); }
+
+	void checkGrammar(String name) throws Exception {
+		Grammar grammar = ParserConcurrencyTest.loadGrammar(name);
+		Parser parser = new Parser(grammar);
+		Realizer realizer = new Realizer(grammar);
+		TwoLevelHypertagger hypertagger = new TwoLevelHypertagger(grammar);
+		realizer.hypertagger = hypertagger;
+		Realizer incrementalRealizer = new Realizer(grammar);
+		incrementalRealizer.hypertagger = hypertagger;
+		incrementalRealizer.incrementalChart = true;
+		RegressionInfo rinfo = new RegressionInfo(grammar, new File(ParserConcurrencyTest.grammarDir(name), "testbed.xml"));
+		int extended = 0;
+		for (int i = 0; i < rinfo.numberOfItems(); i++) {
+			RegressionInfo.TestItem item = rinfo.getItem(i);
+			if (item.numOfParses == 0) continue;
+			// realize LF of best parse, scoring against the sentence
+			parser.parse(item.sentence);
+			Sign sign = parser.getResult().get(0);
+			Category cat = sign.getCategory().copy();
+			Nominal index = cat.getIndexNominal();
+			LF lf = HyloHelper.compactAndConvertNominals(cat.getLF(), index, sign);
+			SignScorer scorer = new NgramPrecisionModel(new String[] { item.sentence });
+			String expected = realize(realizer, lf, scorer);
+			assertEquals(item.sentence, expected, realize(incrementalRealizer, lf, scorer));
+			// the chart is only extended by the incremental realizer, once it moves on to the looser setting
+			assertEquals(0, realizer.getChart().numExtensions);
+			if (incrementalRealizer.getChart().numExtensions > 0) {
+				assertEquals(item.sentence, 1, hypertagger.level);
+				extended++;
+			}
+		}
+		assertTrue(extended > 0);
+	}
+
+	// returns the best realization, with its completeness
+	static String realize(Realizer realizer, LF lf, SignScorer scorer) {
+		Edge bestEdge = realizer.realize(lf, scorer);
+		return bestEdge.sign.getOrthography() + " " + bestEdge.complete();
+	}
+}
@@ -0,0 +1,67 @@
+package opennlp.ccg.synsem;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import opennlp.ccg.grammar.Grammar;
+import opennlp.ccg.unify.GFeatStruc;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CategoryFreezeTest {
+
+	// a grammar is needed for the display prefs
+	@BeforeClass
+	public static void loadGrammar() throws Exception {
+		new Grammar(new File("grammars/tiny/grammar.xml").toURI().toURL());
+	}
+
+	static AtomCat atom(String type, String attr, String val) {
+		GFeatStruc fs = new GFeatStruc();
+		fs.setFeature(attr, val);
+		return new AtomCat(type, fs);
+	}
+
+	@Test
+	public void testNestedParts() {
+		// s\np/(n/n)
+		AtomCat s = atom("s", "form", "dcl"), np = atom("np", "num", "sg");
+		AtomCat n1 = atom("n", "num", "sg"), n2 = atom("n", "num", "pl");
+		ComplexCat nn = new ComplexCat(n1, new BasicArg(new Slash('/'), n2));
+		ComplexCat cat = new ComplexCat(s, new BasicArg(new Slash('\\'), np));
+		cat.add(new BasicArg(new Slash('/'), nn));
+		Category copy = cat.copy();
+		int hc = cat.hashCode();
+		cat.freeze();
+		assertEquals(hc, cat.hashCode());
+		// target, arg cats and their feature structures frozen too
+		for (Category c : new Category[] { s, np, nn, n1, n2 }) {
+			assertTrue(c.isFrozen());
+			assertTrue(((GFeatStruc) c.getTarget().getFeatureStructure()).isFrozen());
+		}
+		try {
+			np.setFeatureStructure(new GFeatStruc());
+			fail("expected frozen arg cat");
+		}
+		catch (IllegalStateException expected) {}
+		try {
+			n2.getFeatureStructure().setFeature("num", "sg");
+			fail("expected frozen feature structure");
+		}
+		catch (IllegalStateException expected) {}
+		try {
+			s.getFeatureStructure().setIndex(3);
+			fail("expected frozen feature structure");
+		}
+		catch (IllegalStateException expected) {}
+		assertEquals(hc, cat.hashCode());
+		// copies are not frozen, all the way down
+		assertFalse(copy.isFrozen());
+		ComplexCat ccopy = (ComplexCat) copy;
+		ccopy.getTarget().getFeatureStructure().setFeature("form", "q");
+		((BasicArg) ccopy.getArgStack().get(0)).getCat().getFeatureStructure().setFeature("num", "pl");
+		assertFalse(cat.equals(copy));
+	}
+}
@@ -0,0 +1,79 @@
+package opennlp.ccg.test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.input.SAXBuilder;
+import org.jdom.output.XMLOutputter;
+import org.junit.Test;
+
+public class RegressionThreadsTest {
+
+	static final String GRAMMAR_DIR = "grammars/tiny/";
+
+	@Test
+	public void testThreads() throws Exception {
+		Run single = run(1), parallel = run(3);
+		assertTrue(single.output.contains("ok\t" + (realizing() ? "ok" : "-") + "\tthe teacher buys the policeman a book"));
+		assertFalse(single.parallel);
+		assertTrue(parallel.parallel);
+		assertEquals(single.output, parallel.output);
+		assertEquals(single.stats, parallel.stats);
+	}
+
+	// the realization side needs the LF stylesheets on the classpath, as with the ant build
+	static boolean realizing() {
+		return ClassLoader.getSystemResource("opennlp/ccg/grammar/to-apml.xsl") != null;
+	}
+
+	static class Run {
+		String output;
+		String stats;
+		boolean parallel;
+	}
+
+	// runs the testbed with the given number of threads, keeping the output and stats minus the timings
+	static Run run(int numThreads) throws Exception {
+		File statsFile = File.createTempFile("rstats", ".xml");
+		List<String> args = new ArrayList<String>();
+		args.add("-g"); args.add(GRAMMAR_DIR + "grammar.xml");
+		args.add("-s"); args.add(statsFile.getPath());
+		args.add("-threads"); args.add(Integer.toString(numThreads));
+		if (!realizing()) args.add("-norealization");
+		args.add(GRAMMAR_DIR + "testbed.xml");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream stdout = System.out;
+		System.setOut(new PrintStream(bytes, true, "UTF-8"));
+		try {
+			Regression.main(args.toArray(new String[args.size()]));
+		}
+		finally {
+			System.setOut(stdout);
+		}
+		Run retval = new Run();
+		StringBuilder sb = new StringBuilder();
+		for (String line : bytes.toString("UTF-8").split("\r?\n")) {
+			if (line.startsWith("Testing items in parallel")) { retval.parallel = true; continue; }
+			if (line.length() == 0 || line.contains("time")) continue;
+			sb.append(line).append('\n');
+		}
+		retval.output = sb.toString();
+		if (statsFile.length() > 0) {
+			Document doc = new SAXBuilder().build(statsFile);
+			Element root = doc.getRootElement();
+			root.removeChildren("times-summary");
+			root.removeChildren("max-strings");
+			root.removeChildren("times");
+			retval.stats = new XMLOutputter().outputString(doc);
+		}
+		statsFile.delete();
+		return retval;
+	}
+}